@@ -0,0 +1,179 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2008-2011, The 100GET-E3-R3G Project Team.
+ * 
+ * This work has been funded by the Federal Ministry of Education
+ * and Research of the Federal Republic of Germany
+ * (BMBF Förderkennzeichen 01BP0775). It is part of the EUREKA project
+ * "100 Gbit/s Carrier-Grade Ethernet Transport Technologies
+ * (CELTIC CP4-001)". The authors alone are responsible for this work.
+ *
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of MuLaViTo (Multi-Layer Visualization Tool).
+ *
+ * MuLaViTo is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * MuLaViTo is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with MuLaViTo; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package mulavito.algorithms.shortestpath.ksp;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mulavito.graph.transformers.IVersionedEdgeWeightTransformer;
+
+import org.apache.commons.collections15.Factory;
+import org.apache.commons.collections15.Transformer;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.ObservableGraph;
+import edu.uci.ics.jung.graph.event.GraphEvent;
+import edu.uci.ics.jung.graph.event.GraphEventListener;
+
+/**
+ * <p>
+ * Cache for the results of a {@link KShortestPathAlgorithm} on one graph, to
+ * be shared by all queries against that graph, e.g. by the link mapping of
+ * successive virtual network requests.
+ * </p>
+ * 
+ * <p>
+ * Paths are cached per source and target. A query for fewer paths than
+ * already known is answered from the cache. The cache and the underlying
+ * algorithm instance are dropped when the structure of an
+ * {@link ObservableGraph} changes, when the version of an
+ * {@link IVersionedEdgeWeightTransformer} changes or when
+ * {@link #invalidate()} is called. With any other transformer, the caller
+ * has to invalidate the cache after changing weights.
+ * </p>
+ * 
+ * <p>
+ * The returned lists are shared and must not be modified.
+ * </p>
+ * 
+ * @param <V>
+ *            The parameter for vertices
+ * @param <E>
+ *            The parameter for edges
+ */
+public final class KShortestPathCache<V, E> {
+	private final Graph<V, E> graph;
+	private final Transformer<E, Number> nev;
+	private final Factory<KShortestPathAlgorithm<V, E>> factory;
+	private final GraphEventListener<V, E> listener;
+
+	private KShortestPathAlgorithm<V, E> algorithm = null;
+	private final Map<V, Map<V, CachedPaths<E>>> paths = new HashMap<V, Map<V, CachedPaths<E>>>();
+	private long version;
+	private boolean valid = false;
+
+	private static final class CachedPaths<E> {
+		final int k;
+		final List<List<E>> paths;
+
+		CachedPaths(int k, List<List<E>> paths) {
+			this.k = k;
+			this.paths = Collections.unmodifiableList(paths);
+		}
+	}
+
+	/**
+	 * @param graph
+	 *            The graph
+	 * @param nev
+	 *            The edge weights
+	 * @param factory
+	 *            Creates the algorithm for <code>graph</code> and
+	 *            <code>nev</code> whenever the cache is rebuilt
+	 */
+	public KShortestPathCache(Graph<V, E> graph, Transformer<E, Number> nev,
+			Factory<KShortestPathAlgorithm<V, E>> factory) {
+		this.graph = graph;
+		this.nev = nev;
+		this.factory = factory;
+
+		if (graph instanceof ObservableGraph) {
+			listener = new GraphEventListener<V, E>() {
+				@Override
+				public void handleGraphEvent(GraphEvent<V, E> evt) {
+					invalidate();
+				}
+			};
+			((ObservableGraph<V, E>) graph).addGraphEventListener(listener);
+		} else
+			listener = null;
+	}
+
+	public Graph<V, E> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Drop all cached paths.
+	 */
+	public void invalidate() {
+		valid = false;
+	}
+
+	/**
+	 * Stop listening to changes of the graph. The cache must not be used
+	 * afterwards.
+	 */
+	public void dispose() {
+		if (listener != null)
+			((ObservableGraph<V, E>) graph).removeGraphEventListener(listener);
+		paths.clear();
+		algorithm = null;
+	}
+
+	private long getWeightVersion() {
+		if (nev instanceof IVersionedEdgeWeightTransformer)
+			return ((IVersionedEdgeWeightTransformer<E>) nev).getVersion();
+		return 0;
+	}
+
+	/**
+	 * @see KShortestPathAlgorithm#getShortestPaths(Object, Object, int)
+	 */
+	public List<List<E>> getShortestPaths(V source, V target, int k) {
+		long currentVersion = getWeightVersion();
+		if (!valid || version != currentVersion) {
+			paths.clear();
+			algorithm = factory.create();
+			version = currentVersion;
+			valid = true;
+		}
+
+		Map<V, CachedPaths<E>> fromSource = paths.get(source);
+		if (fromSource == null) {
+			fromSource = new HashMap<V, CachedPaths<E>>();
+			paths.put(source, fromSource);
+		}
+
+		CachedPaths<E> cached = fromSource.get(target);
+		// A cached result also answers larger k if there are no more paths
+		if (cached == null
+				|| (cached.k < k && cached.paths.size() == cached.k)) {
+			cached = new CachedPaths<E>(k, algorithm.getShortestPaths(source,
+					target, k));
+			fromSource.put(target, cached);
+		}
+
+		if (cached.paths.size() <= k)
+			return cached.paths;
+		return cached.paths.subList(0, k);
+	}
+}
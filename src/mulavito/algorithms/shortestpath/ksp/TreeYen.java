@@ -0,0 +1,202 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2008-2011, The 100GET-E3-R3G Project Team.
+ * 
+ * This work has been funded by the Federal Ministry of Education
+ * and Research of the Federal Republic of Germany
+ * (BMBF Förderkennzeichen 01BP0775). It is part of the EUREKA project
+ * "100 Gbit/s Carrier-Grade Ethernet Transport Technologies
+ * (CELTIC CP4-001)". The authors alone are responsible for this work.
+ *
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of MuLaViTo (Multi-Layer Visualization Tool).
+ *
+ * MuLaViTo is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * MuLaViTo is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with MuLaViTo; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package mulavito.algorithms.shortestpath.ksp;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.apache.commons.collections15.ListUtils;
+import org.apache.commons.collections15.Transformer;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * <p>
+ * Variant of {@link Yen}'s algorithm which does not build a filtered graph
+ * and a new Dijkstra instance for every deviation vertex.
+ * </p>
+ * 
+ * <p>
+ * For every target, the shortest path tree towards the target is computed
+ * once in the unfiltered graph and kept for all later queries. The spur paths
+ * are then found by an A* search on the original graph which skips blocked
+ * vertices and edges and uses the distances of that tree as heuristic. As
+ * blocking only removes edges, these distances are admissible and consistent
+ * lower bounds, so the spur paths are shortest paths. Along the unblocked
+ * part of the graph the search follows the tree directly.
+ * </p>
+ * 
+ * <p>
+ * The paths found have the same weights as the ones of {@link Yen}; among
+ * paths of equal weight and length a different one may be chosen.
+ * </p>
+ * 
+ * @param <V>
+ *            The parameter for vertices
+ * @param <E>
+ *            The parameter for edges
+ */
+public class TreeYen<V, E> extends Yen<V, E> {
+	/** Distances to the target in the unfiltered graph, per target */
+	private final Map<V, Map<V, Double>> treeCache = new HashMap<V, Map<V, Double>>();
+
+	public TreeYen(Graph<V, E> graph, Transformer<E, Number> nev) {
+		super(graph, nev);
+	}
+
+	/**
+	 * Drop all cached trees, e.g. after edge weights have been changed.
+	 */
+	public void reset() {
+		treeCache.clear();
+		dijkstra.reset();
+	}
+
+	private static final class Entry<V> implements Comparable<Entry<V>> {
+		final V vertex;
+		final double dist;
+		final double estimate;
+
+		Entry(V vertex, double dist, double estimate) {
+			this.vertex = vertex;
+			this.dist = dist;
+			this.estimate = estimate;
+		}
+
+		@Override
+		public int compareTo(Entry<V> o) {
+			return Double.compare(estimate, o.estimate);
+		}
+	}
+
+	/**
+	 * @return The distance of every vertex which can reach the target
+	 */
+	private Map<V, Double> getTree(V target) {
+		Map<V, Double> dist = treeCache.get(target);
+		if (dist != null)
+			return dist;
+
+		dist = new HashMap<V, Double>();
+		PriorityQueue<Entry<V>> queue = new PriorityQueue<Entry<V>>();
+		queue.add(new Entry<V>(target, 0.0, 0.0));
+		while (!queue.isEmpty()) {
+			Entry<V> cur = queue.poll();
+			if (dist.containsKey(cur.vertex))
+				continue;
+			dist.put(cur.vertex, cur.dist);
+
+			for (E e : graph.getInEdges(cur.vertex)) {
+				V v = graph.getOpposite(cur.vertex, e);
+				if (!dist.containsKey(v)) {
+					double d = cur.dist + nev.transform(e).doubleValue();
+					queue.add(new Entry<V>(v, d, d));
+				}
+			}
+		}
+
+		treeCache.put(target, dist);
+		return dist;
+	}
+
+	@Override
+	protected List<E> getTail(List<E> head, V deviation, V target,
+			List<List<E>> foundPaths) {
+		Map<V, Double> tree = getTree(target);
+		if (!tree.containsKey(deviation))
+			return null;
+
+		// Vertices of head are not allowed on the tail
+		Set<V> blockedVertices = new HashSet<V>();
+		for (E e : head)
+			blockedVertices.add(graph.getSource(e));
+
+		// Edges at deviation already used by paths with the same head
+		Set<E> blockedEdges = new HashSet<E>();
+		for (List<E> path : foundPaths)
+			if (path.size() > head.size()
+					&& ListUtils
+							.isEqualList(path.subList(0, head.size()), head))
+				for (E e : path)
+					if (graph.isSource(deviation, e)) {
+						blockedEdges.add(e);
+						break; // Continue with next path.
+					}
+
+		// A* search guided by the tree distances
+		Map<V, Double> dist = new HashMap<V, Double>();
+		Map<V, E> pred = new HashMap<V, E>();
+		Set<V> settled = new HashSet<V>();
+		PriorityQueue<Entry<V>> queue = new PriorityQueue<Entry<V>>();
+		dist.put(deviation, 0.0);
+		queue.add(new Entry<V>(deviation, 0.0, tree.get(deviation)));
+
+		while (!queue.isEmpty()) {
+			Entry<V> cur = queue.poll();
+			if (!settled.add(cur.vertex))
+				continue;
+			if (cur.vertex.equals(target))
+				break;
+
+			for (E e : graph.getOutEdges(cur.vertex)) {
+				if (blockedEdges.contains(e))
+					continue;
+				V v = graph.getOpposite(cur.vertex, e);
+				Double h = tree.get(v);
+				if (h == null || blockedVertices.contains(v)
+						|| settled.contains(v))
+					continue;
+
+				double d = cur.dist + nev.transform(e).doubleValue();
+				Double old = dist.get(v);
+				if (old == null || d < old) {
+					dist.put(v, d);
+					pred.put(v, e);
+					queue.add(new Entry<V>(v, d, d + h));
+				}
+			}
+		}
+
+		if (!settled.contains(target))
+			return null;
+
+		LinkedList<E> tail = new LinkedList<E>();
+		for (V v = target; !v.equals(deviation);) {
+			E e = pred.get(v);
+			tail.addFirst(e);
+			v = graph.getOpposite(v, e);
+		}
+		return tail;
+	}
+}
@@ -144,7 +144,6 @@ public class Yen<V, E> extends KShortestPathAlgorithm<V, E> {
 			final V target, int k) {
 		LinkedList<List<E>> found_paths = new LinkedList<List<E>>();
 		PriorityQueue<WeightedPath> prioQ = new PriorityQueue<WeightedPath>();
-		DijkstraShortestPath<V, E> blockedDijkstra;
 
 		// Check if target is reachable from source.
 		if (dijkstra.getDistance(source, target) == null)
@@ -164,18 +163,11 @@ public class Yen<V, E> extends KShortestPathAlgorithm<V, E> {
 				V deviation = head.isEmpty() ? source : graph.getDest(head
 						.get(i - 1));
 
-				// 1. Block edges.
-				Graph<V, E> blocked = blockFilter(head, deviation, found_paths);
-
-				// 2. Get shortest path in graph with blocked edges.
-				blockedDijkstra = new DijkstraShortestPath<V, E>(blocked, nev);
-
-				Number dist = blockedDijkstra.getDistance(deviation, target);
-				if (dist == null)
+				// 1. + 2. Get shortest path avoiding head and used edges.
+				List<E> tail = getTail(head, deviation, target, found_paths);
+				if (tail == null)
 					continue;
 
-				List<E> tail = blockedDijkstra.getPath(deviation, target);
-
 				// 3. Combine head and tail into new path.
 				List<E> candidate = new ArrayList<E>(i + tail.size());
 				candidate.addAll(head);
@@ -202,6 +194,38 @@ public class Yen<V, E> extends KShortestPathAlgorithm<V, E> {
 		return found_paths;
 	}
 
+	/**
+	 * Find the shortest path from the deviation vertex to the target which
+	 * neither visits a vertex of head nor leaves the deviation vertex via an
+	 * edge already used by a found path with the same head.
+	 * 
+	 * @param head
+	 *            The current head, from source to deviation node
+	 * @param deviation
+	 *            The vertex at which the new path deviates
+	 * @param target
+	 *            The target
+	 * @param foundPaths
+	 *            The solutions already found
+	 * @return The tail of the new candidate path or <code>null</code> if the
+	 *         target is not reachable.
+	 */
+	protected List<E> getTail(List<E> head, V deviation, V target,
+			List<List<E>> foundPaths) {
+		// 1. Block edges.
+		Graph<V, E> blocked = blockFilter(head, deviation, foundPaths);
+
+		// 2. Get shortest path in graph with blocked edges.
+		DijkstraShortestPath<V, E> blockedDijkstra = new DijkstraShortestPath<V, E>(
+				blocked, nev);
+
+		Number dist = blockedDijkstra.getDistance(deviation, target);
+		if (dist == null)
+			return null;
+
+		return blockedDijkstra.getPath(deviation, target);
+	}
+
 	/**
 	 * Blocks all incident edges of the vertices in head as well as the edge
 	 * connecting head to the next node by creating a new filtered graph.
@@ -41,6 +41,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -129,7 +130,9 @@ public final class AlgorithmEvaluation {
 		if (distributionParameter != null)
 			maxEvents = distributionParameter.numEvents;
 
-		LinkedList<Request> activeRequests = new LinkedList<Request>();
+		// Active requests, the next one to terminate first
+		PriorityQueue<Request> activeRequests = new PriorityQueue<Request>();
+		ExecutorService service = null;
 		HashMap<AbstractScenarioTest, CSVPrintWriterDataReceiver> resultwriters = new HashMap<AbstractScenarioTest, CSVPrintWriterDataReceiver>();
 		
 		String fullname = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " " + name;
@@ -235,15 +238,13 @@ public final class AlgorithmEvaluation {
 										nextEvent = timeSlot + Math.round(Utils.exponentialDistribution(eventRandom, distributionParameter.lambda));
 
 									if (distributionParameter != null) {
-										for (Request reqs : new LinkedList<Request>(activeRequests)) {
-											if (reqs.termTime <= nextEvent) {
-												// System.out.println("DESTROY " + reqs.initTime);
-												activeRequests.remove(reqs);
-
-												if (reqs.mappingResult != null) {
-													for (VirtualNetwork v : reqs.mappingResult.getVirtuals()) {
-														algorithm.unmap(sNet, v);
-													}
+										while (!activeRequests.isEmpty() && activeRequests.peek().termTime <= nextEvent) {
+											Request reqs = activeRequests.poll();
+											// System.out.println("DESTROY " + reqs.initTime);
+
+											if (reqs.mappingResult != null) {
+												for (VirtualNetwork v : reqs.mappingResult.getVirtuals()) {
+													algorithm.unmap(sNet, v);
 												}
 											}
 										}
@@ -284,7 +285,9 @@ public final class AlgorithmEvaluation {
 									System.out.println("[" + name + " " + dateFormat.format(new Date()) + ", " + pos + "/" + total + "] " + exportfilename);
 
 									long startTime = System.currentTimeMillis();
-									ExecutorService service = Executors.newSingleThreadExecutor();
+									// Reuse the worker thread unless it was shut down after a timeout
+									if (service == null || service.isShutdown())
+										service = Executors.newSingleThreadExecutor();
 									Future<NetworkStack> future = service.submit(new Callable<NetworkStack>() {
 										@Override
 										public NetworkStack call() {
@@ -330,8 +333,9 @@ public final class AlgorithmEvaluation {
 										}
 										
 										continue algoFor;
-									} finally {
-										service.shutdown();
+									} catch (ExecutionException | InterruptedException e) {
+										service.shutdownNow();
+										throw e;
 									}
 									long elapsedTimeMS = System.currentTimeMillis() - startTime;
 
@@ -373,6 +377,9 @@ public final class AlgorithmEvaluation {
 			}
 		}
 
+		if (service != null)
+			service.shutdown();
+
 		for (CSVPrintWriterDataReceiver w : resultwriters.values())
 			w.finish();
 	}
@@ -395,7 +402,7 @@ public final class AlgorithmEvaluation {
 	}
 
 
-	public static class Request {
+	public static class Request implements Comparable<Request> {
 		public long initTime;
 		public long termTime;
 		public NetworkStack mappingResult;
@@ -404,6 +411,11 @@ public final class AlgorithmEvaluation {
 			this.initTime = initTime;
 			this.termTime = termTime;
 		}
+
+		@Override
+		public int compareTo(Request o) {
+			return Long.compare(termTime, o.termTime);
+		}
 	}
 
 	//	protected void removeRandomNodes(NetworkStack stack, int n) {
@@ -0,0 +1,114 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import vnreal.constraints.demands.BackupDemand;
+import vnreal.constraints.resources.BackupResource;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CapacityResource;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualNode;
+
+public final class BackupResourceTest {
+	private static final double DELTA = 1e-6;
+
+	@Test
+	public void reservationFollowsDemands() {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		SubstrateNode n1 = new SubstrateNode();
+		SubstrateNode n2 = new SubstrateNode();
+		sNet.addVertex(n1);
+		sNet.addVertex(n2);
+		SubstrateLink l = new SubstrateLink();
+		sNet.addEdge(l, n1, n2);
+
+		CapacityResource cr = new CapacityResource(100000, n1);
+		n1.add(cr);
+		BackupResource nodeBackup = new BackupResource(n1, 50);
+		n1.add(nodeBackup);
+		BandwidthResource bw = new BandwidthResource(100000, l);
+		l.add(bw);
+		BackupResource linkBackup = new BackupResource(l, 50);
+		l.add(linkBackup);
+
+		VirtualNode[] owners = new VirtualNode[6];
+		for (int i = 0; i < owners.length; i++)
+			owners[i] = new VirtualNode(1);
+
+		BackupResource[] backups = { nodeBackup, linkBackup };
+		List<List<BackupDemand>> mapped = new ArrayList<List<BackupDemand>>();
+		mapped.add(new ArrayList<BackupDemand>());
+		mapped.add(new ArrayList<BackupDemand>());
+
+		Random rnd = new Random(1);
+		for (int step = 0; step < 5000; step++) {
+			int k = rnd.nextInt(2);
+			BackupResource br = backups[k];
+			List<BackupDemand> demands = mapped.get(k);
+			if (demands.isEmpty() || (rnd.nextBoolean() && demands.size() < 40)) {
+				BackupDemand d = new BackupDemand(1 + rnd.nextInt(100000) / 1000.0,
+						null, owners[rnd.nextInt(owners.length)]);
+				assertTrue(d.occupy(br));
+				demands.add(d);
+			} else {
+				assertTrue(demands.remove(rnd.nextInt(demands.size())).free(br));
+			}
+
+			// The largest sum of the demands of a single original owner
+			double required = br.getRequiredBackupCapacity(br.getBackupCapacityDemands());
+			assertEquals(required, br.getRequiredBackupCapacity(), DELTA);
+			assertEquals(required, br.getReservedCapacity(), DELTA);
+			double occupied = (k == 0) ? cr.getOccupiedCapacity() : bw.getOccupiedBandwidth();
+			assertEquals(required, occupied, 0.001);
+		}
+
+		for (int k = 0; k < 2; k++)
+			for (BackupDemand d : mapped.get(k))
+				assertTrue(d.free(backups[k]));
+		assertNull(nodeBackup.reservedCapacity);
+		assertNull(linkBackup.reservedCapacity);
+		assertEquals(0.0, cr.getOccupiedCapacity(), DELTA);
+		assertEquals(0.0, bw.getOccupiedBandwidth(), DELTA);
+	}
+}
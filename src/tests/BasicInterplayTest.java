@@ -33,6 +33,7 @@ package tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -48,6 +49,7 @@ import vnreal.constraints.demands.CpuDemand;
 import vnreal.constraints.resources.AbstractResource;
 import vnreal.constraints.resources.BandwidthResource;
 import vnreal.constraints.resources.CpuResource;
+import vnreal.mapping.Mapping;
 import vnreal.network.substrate.SubstrateLink;
 import vnreal.network.substrate.SubstrateNode;
 import vnreal.network.virtual.VirtualLink;
@@ -152,4 +154,32 @@ public final class BasicInterplayTest {
 
 		assertFalse(demands.get(1).free(res));
 	}
+
+	@Test
+	public void repeatedMappings() {
+		AbstractResource res = resources.get(0);
+		AbstractDemand dem = demands.get(0);
+		AbstractDemand other = new BandwidthDemand(new VirtualLink(2));
+
+		Mapping m1 = new Mapping(dem, res);
+		Mapping m2 = new Mapping(other, res);
+		Mapping m3 = new Mapping(dem, res);
+		assertEquals(3, res.getMappings().size());
+		assertSame(m1, res.getFirstMapping());
+		assertSame(m3, res.getMappings().get(2));
+
+		// Removing the first mapping of a peer keeps the later ones
+		assertTrue(m1.unregister());
+		assertSame(m2, res.getFirstMapping());
+		assertEquals(1, dem.getMappings().size());
+		assertSame(m3, dem.getFirstMapping());
+
+		assertTrue(m3.unregister());
+		assertEquals(0, dem.getMappings().size());
+		assertNull(dem.getFirstMapping());
+		assertSame(m2, res.getFirstMapping());
+
+		assertTrue(m2.unregister());
+		assertNull(res.getFirstMapping());
+	}
 }
@@ -0,0 +1,123 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.network.substrate.CompactSubstrateNetwork;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import edu.uci.ics.jung.algorithms.shortestpath.DijkstraShortestPath;
+
+public final class CompactSubstrateNetworkTest {
+	private static SubstrateNetwork randomNetwork(Random rnd, int n, int m) {
+		SubstrateNetwork net = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>();
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			net.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < m; i++) {
+			SubstrateLink link = new SubstrateLink();
+			link.add(new BandwidthResource(rnd.nextInt(100), link));
+			net.addEdge(link, nodes.get(rnd.nextInt(n)), nodes.get(rnd.nextInt(n)));
+		}
+		return net;
+	}
+
+	@Test
+	public void dijkstraMatchesJung() {
+		Random rnd = new Random(1);
+		SubstrateNetwork net = randomNetwork(rnd, 200, 1000);
+		final CompactSubstrateNetwork csr = new CompactSubstrateNetwork(net);
+		final double[] weights = new double[csr.getLinkCount()];
+		for (int i = 0; i < weights.length; i++)
+			weights[i] = 1.0 + rnd.nextInt(10);
+
+		DijkstraShortestPath<SubstrateNode, SubstrateLink> jung = new DijkstraShortestPath<SubstrateNode, SubstrateLink>(
+				net, new Transformer<SubstrateLink, Double>() {
+					@Override
+					public Double transform(SubstrateLink l) {
+						return weights[csr.indexOf(l)];
+					}
+				});
+
+		for (int s = 0; s < 10; s++) {
+			int[] pred = new int[csr.getNodeCount()];
+			double[] dist = csr.dijkstra(s, weights, 0.0, pred);
+			for (int t = 0; t < csr.getNodeCount(); t++) {
+				Number expected = jung.getDistance(csr.getNode(s), csr.getNode(t));
+				if (expected == null) {
+					assertEquals(Double.POSITIVE_INFINITY, dist[t], 0.0);
+				} else {
+					assertEquals(expected.doubleValue(), dist[t], 1e-9);
+					double length = 0.0;
+					for (SubstrateLink l : csr.getPath(t, pred))
+						length += weights[csr.indexOf(l)];
+					assertEquals(dist[t], length, 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void reservationsOnlyAffectSnapshot() {
+		SubstrateNetwork net = randomNetwork(new Random(2), 3, 0);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>(net.getVertices());
+		SubstrateLink link = new SubstrateLink();
+		BandwidthResource bw = new BandwidthResource(10.0, link);
+		link.add(bw);
+		net.addEdge(link, nodes.get(0), nodes.get(1));
+
+		CompactSubstrateNetwork csr = new CompactSubstrateNetwork(net);
+		assertEquals(1, csr.bfs(0)[1]);
+		assertEquals(-1, csr.bfs(0)[2]);
+
+		csr.reserveBandwidth(0, 6.0);
+		assertEquals(4.0, csr.getBandwidth(0), 0.0);
+		assertEquals(10.0, bw.getAvailableBandwidth(), 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, csr.dijkstra(0, null, 5.0, null)[1], 0.0);
+
+		csr.refresh();
+		assertEquals(1.0, csr.dijkstra(0, null, 5.0, null)[1], 0.0);
+	}
+}
@@ -0,0 +1,107 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import vnreal.network.IDSource;
+import vnreal.network.substrate.SubstrateNode;
+
+public final class IDSourceTest {
+	@Test
+	public void scopedIdsAreDense() {
+		IDSource previous = IDSource.bind(new IDSource());
+		try {
+			for (int i = 0; i < 10; i++)
+				assertEquals(i, new SubstrateNode().getId());
+		} finally {
+			IDSource.bind(previous);
+		}
+	}
+
+	@Test
+	public void concurrentScopesAreIndependent() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		Future<?>[] futures = new Future<?>[8];
+		for (int t = 0; t < futures.length; t++) {
+			futures[t] = executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					IDSource previous = IDSource.bind(new IDSource());
+					try {
+						for (int i = 0; i < 1000; i++)
+							assertEquals(i, new SubstrateNode().getId());
+					} finally {
+						IDSource.bind(previous);
+					}
+					return null;
+				}
+			});
+		}
+		for (Future<?> f : futures)
+			f.get();
+		executor.shutdown();
+	}
+
+	@Test
+	public void pooledTasksUseTheScopeOfTheSubmitter() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			for (int run = 0; run < 2; run++) {
+				IDSource scope = new IDSource();
+				IDSource previous = IDSource.bind(scope);
+				try {
+					// The pool thread is created during the first run only
+					Future<Long> id = executor.submit(IDSource.wrap(new Callable<Long>() {
+						@Override
+						public Long call() {
+							return new SubstrateNode().getId();
+						}
+					}));
+					assertEquals(0L, id.get().longValue());
+					assertEquals(1, new SubstrateNode().getId());
+				} finally {
+					IDSource.bind(previous);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+
+public final class NetworkConnectivityTest {
+	private static List<SubstrateNode> addNodes(SubstrateNetwork net, int n) {
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>();
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			net.addVertex(node);
+			nodes.add(node);
+		}
+		return nodes;
+	}
+
+	@Test
+	public void emptyAndSingleNode() {
+		SubstrateNetwork net = new SubstrateNetwork(false);
+		assertTrue(net.isConnected());
+		assertEquals(0, net.getComponentCount());
+		addNodes(net, 1);
+		assertTrue(net.isConnected());
+		assertEquals(1, net.getConnectedComponents().size());
+	}
+
+	@Test
+	public void components() {
+		SubstrateNetwork net = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = addNodes(net, 6);
+		// Direction of links must not matter: 0 -> 1 <- 2, 3 -> 4, 5 alone
+		net.addEdge(new SubstrateLink(), nodes.get(0), nodes.get(1));
+		net.addEdge(new SubstrateLink(), nodes.get(2), nodes.get(1));
+		net.addEdge(new SubstrateLink(), nodes.get(3), nodes.get(4));
+
+		assertFalse(net.isConnected());
+		assertEquals(3, net.getComponentCount());
+		List<List<SubstrateNode>> components = net.getConnectedComponents();
+		assertEquals(nodes.subList(0, 3), components.get(0));
+		assertEquals(nodes.subList(3, 5), components.get(1));
+		assertEquals(nodes.subList(5, 6), components.get(2));
+		assertTrue(net.areConnected(nodes.get(0), nodes.get(2)));
+		assertFalse(net.areConnected(nodes.get(2), nodes.get(3)));
+
+		net.addEdge(new SubstrateLink(), nodes.get(5), nodes.get(2));
+		net.addEdge(new SubstrateLink(), nodes.get(4), nodes.get(5));
+		assertTrue(net.isConnected());
+		assertTrue(net.areConnected(nodes.get(2), nodes.get(3)));
+
+		// The cached components must follow removals as well
+		net.removeVertex(nodes.get(5));
+		assertFalse(net.areConnected(nodes.get(2), nodes.get(3)));
+		assertFalse(net.areConnected(nodes.get(5), nodes.get(0)));
+		assertEquals(2, net.getComponentCount());
+	}
+
+	@Test
+	public void largeRing() {
+		SubstrateNetwork net = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = addNodes(net, 20000);
+		for (int i = 1; i < nodes.size(); i++)
+			net.addEdge(new SubstrateLink(), nodes.get(i - 1), nodes.get(i));
+		assertTrue(net.isConnected());
+
+		net.removeEdge(net.findEdge(nodes.get(9999), nodes.get(10000)));
+		assertEquals(2, net.getComponentCount());
+	}
+}
@@ -0,0 +1,255 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import tests.scenarios.AbstractScenarioTest;
+import vnreal.algorithms.AbstractAlgorithm;
+import vnreal.algorithms.AlgorithmParameter;
+import vnreal.algorithms.AvailableResources;
+import vnreal.constraints.demands.AbstractDemand;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.AbstractResource;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.core.OnlineSimulator;
+import vnreal.core.Run;
+import vnreal.core.RunSink;
+import vnreal.evaluations.metrics.EvaluationMetric;
+import vnreal.evaluations.utils.VnrUtils;
+import vnreal.io.IResultExporter;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+public final class OnlineSimulatorTest {
+	private static SubstrateNetwork ring(int n) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>();
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(100.0, node));
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < n; i++) {
+			SubstrateLink link = new SubstrateLink();
+			link.add(new BandwidthResource(100.0, link));
+			sNet.addEdge(link, nodes.get(i), nodes.get((i + 1) % n));
+		}
+		return sNet;
+	}
+
+	private static final OnlineSimulator.AlgorithmFactory availableResources = new OnlineSimulator.AlgorithmFactory() {
+		@Override
+		public AbstractAlgorithm create() {
+			return new AvailableResources(new AlgorithmParameter());
+		}
+	};
+
+	private static final OnlineSimulator.RequestGenerator pairs = new OnlineSimulator.RequestGenerator() {
+		@Override
+		public VirtualNetwork generate(int layer, Random rng) {
+			VirtualNetwork vNet = new VirtualNetwork(layer);
+			VirtualNode a = new VirtualNode(layer);
+			a.add(new CpuDemand(10.0 + rng.nextInt(30), a));
+			VirtualNode b = new VirtualNode(layer);
+			b.add(new CpuDemand(10.0 + rng.nextInt(30), b));
+			vNet.addVertex(a);
+			vNet.addVertex(b);
+			VirtualLink link = new VirtualLink(layer);
+			link.add(new BandwidthDemand(10.0 + rng.nextInt(30), link));
+			vNet.addEdge(link, a, b);
+			return vNet;
+		}
+	};
+
+	private static final class Recorder implements IResultExporter {
+		final List<Run> runs = new LinkedList<Run>();
+
+		@Override
+		public void init(String resultsDir, Map<String, String> params) {
+		}
+
+		@Override
+		public void export(Run run) {
+			runs.add(run);
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	@Test
+	public void testAllRequestsDepart() {
+		SubstrateNetwork sNet = ring(10);
+		OnlineSimulator sim = new OnlineSimulator(sNet,
+				availableResources, pairs, 1.0, 0.05, 1);
+		Recorder recorder = new Recorder();
+		List<IResultExporter> exporters = new LinkedList<IResultExporter>();
+		exporters.add(recorder);
+		sim.setSink(new RunSink(exporters), 10.0,
+				new LinkedHashMap<String, Map<String, String>>(),
+				new LinkedList<EvaluationMetric<NetworkStack>>());
+
+		sim.run(500);
+
+		assertEquals(500, sim.getArrivals());
+		// The load exceeds the capacity of the substrate
+		assertTrue(sim.getAccepted() > 0);
+		assertTrue(sim.getAccepted() < 500);
+		assertEquals(sim.getAccepted(), sim.getDepartures());
+		assertTrue(sim.getActive().isEmpty());
+		assertEquals(0.0, sim.getCpuUtilization(), 0.0);
+		assertEquals(0.0, sim.getBandwidthUtilization(), 0.0);
+		for (SubstrateNode sn : sNet.getVertices())
+			for (AbstractResource res : sn)
+				assertTrue(res.getMappings().isEmpty());
+		for (SubstrateLink sl : sNet.getEdges())
+			for (AbstractResource res : sl)
+				assertTrue(res.getMappings().isEmpty());
+
+		// One sample per interval, and a last one after the final departure
+		assertEquals((int) (sim.getTime() / 10.0) + 1, recorder.runs.size());
+		double time = -1.0;
+		for (Run run : recorder.runs) {
+			double t = Double.parseDouble(run.getParams().get("OnlineSimulator").get("Time"));
+			assertTrue(t >= time);
+			time = t;
+			double cpu = run.getResults().get("CpuUtilization");
+			assertTrue(cpu >= 0.0 && cpu <= 1.0);
+		}
+		assertEquals((double) sim.getAccepted() / 500,
+				recorder.runs.get(recorder.runs.size() - 1).getResults().get("AcceptanceRatio"), 1e-9);
+	}
+
+	@Test
+	public void testDeterministic() {
+		OnlineSimulator a = new OnlineSimulator(ring(10),
+				availableResources, pairs, 1.0, 0.05, 7);
+		a.run(300);
+		OnlineSimulator b = new OnlineSimulator(ring(10),
+				availableResources, pairs, 1.0, 0.05, 7);
+		b.run(300);
+
+		assertEquals(a.getAccepted(), b.getAccepted());
+		assertEquals(a.getTime(), b.getTime(), 0.0);
+	}
+
+	/**
+	 * Embeds the requests with AvailableResources and records every request
+	 * passed to unmap.
+	 */
+	private static final class RecordingScenarioTest extends AbstractScenarioTest {
+		final List<VirtualNetwork> mapped = new LinkedList<VirtualNetwork>();
+		final List<VirtualNetwork> unmapped = new LinkedList<VirtualNetwork>();
+
+		RecordingScenarioTest() {
+			super("Recording", false);
+		}
+
+		@Override
+		public NetworkStack map(AlgorithmParameter param, SubstrateNetwork substrate,
+				List<VirtualNetwork> virtuals) {
+			NetworkStack stack = new NetworkStack(substrate, virtuals);
+			AbstractAlgorithm algo = new AvailableResources(param);
+			algo.setStack(stack);
+			algo.performEvaluation();
+			mapped.addAll(virtuals);
+			return stack;
+		}
+
+		@Override
+		public void unmap(SubstrateNetwork sNet, VirtualNetwork vNet) {
+			super.unmap(sNet, vNet);
+			unmapped.add(vNet);
+			for (VirtualNode vn : vNet.getVertices())
+				for (AbstractDemand dem : vn)
+					assertTrue(dem.getMappings().isEmpty());
+			for (VirtualLink vl : vNet.getEdges())
+				for (AbstractDemand dem : vl)
+					assertTrue(dem.getMappings().isEmpty());
+		}
+
+		@Override
+		public LinkedList<AlgorithmParameter> getAlgorithmParams() {
+			LinkedList<AlgorithmParameter> result = new LinkedList<AlgorithmParameter>();
+			result.add(new AlgorithmParameter());
+			return result;
+		}
+	}
+
+	@Test
+	public void testRejectedAndDepartedRequestsAreUnmapped() {
+		SubstrateNetwork sNet = ring(6);
+		RecordingScenarioTest algorithm = new RecordingScenarioTest();
+		OnlineSimulator sim = new OnlineSimulator(sNet, algorithm,
+				new AlgorithmParameter(), pairs, 1.0, 0.05, 3);
+
+		sim.run(200);
+
+		assertEquals(200, algorithm.mapped.size());
+		assertTrue(sim.getAccepted() < 200);
+		// Every request leaves through unmap exactly once: rejected requests
+		// right away, accepted ones on departure
+		assertEquals(200, algorithm.unmapped.size());
+		assertEquals(200, new HashSet<VirtualNetwork>(algorithm.unmapped).size());
+		assertEquals(sim.getAccepted(), sim.getDepartures());
+		for (VirtualNetwork vNet : algorithm.mapped)
+			assertFalse(VnrUtils.isMapped(vNet));
+		for (SubstrateNode sn : sNet.getVertices())
+			for (AbstractResource res : sn)
+				assertTrue(res.getMappings().isEmpty());
+		for (SubstrateLink sl : sNet.getEdges())
+			for (AbstractResource res : sl)
+				assertTrue(res.getMappings().isEmpty());
+	}
+}
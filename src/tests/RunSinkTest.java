@@ -0,0 +1,133 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import vnreal.core.Run;
+import vnreal.core.RunSink;
+import vnreal.core.Scenario;
+import vnreal.io.IResultExporter;
+
+public final class RunSinkTest {
+	private static final class Recorder implements IResultExporter {
+		final List<Run> runs = new LinkedList<Run>();
+		boolean closed = false;
+
+		@Override
+		public void init(String resultsDir, Map<String, String> params) {
+		}
+
+		@Override
+		public void export(Run run) {
+			runs.add(run);
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	private static Run run() {
+		return new Run(new Scenario(), new LinkedHashMap<String, Map<String, String>>());
+	}
+
+	private static RunSink sink(Recorder recorder, int capacity) {
+		List<IResultExporter> exporters = new LinkedList<IResultExporter>();
+		exporters.add(recorder);
+		return new RunSink(exporters, capacity);
+	}
+
+	@Test
+	public void exportsInOrder() {
+		Recorder recorder = new Recorder();
+		RunSink sink = sink(recorder, 4);
+		Run[] runs = { run(), run(), run() };
+		sink.submit(2, runs[2]);
+		sink.submit(1, runs[1]);
+		assertTrue(recorder.runs.isEmpty());
+		sink.submit(0, runs[0]);
+		assertEquals(3, sink.getExported());
+		for (int i = 0; i < runs.length; i++)
+			assertSame(runs[i], recorder.runs.get(i));
+	}
+
+	@Test
+	public void blocksRunsBeyondCapacity() throws InterruptedException {
+		Recorder recorder = new Recorder();
+		final RunSink sink = sink(recorder, 2);
+		sink.submit(1, run());
+
+		final CountDownLatch submitted = new CountDownLatch(1);
+		Thread ahead = new Thread() {
+			@Override
+			public void run() {
+				sink.submit(2, RunSinkTest.run());
+				submitted.countDown();
+			}
+		};
+		ahead.start();
+		// Run 2 is two runs ahead of run 0
+		assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+		assertEquals(1, sink.getPending());
+
+		sink.submit(0, run());
+		assertTrue(submitted.await(10, TimeUnit.SECONDS));
+		ahead.join();
+		assertEquals(3, sink.getExported());
+	}
+
+	@Test
+	public void closeFlushesPendingRuns() {
+		Recorder recorder = new Recorder();
+		RunSink sink = sink(recorder, 4);
+		Run later = run();
+		sink.submit(2, later);
+		sink.close();
+		assertEquals(1, recorder.runs.size());
+		assertSame(later, recorder.runs.get(0));
+		assertTrue(recorder.closed);
+	}
+}
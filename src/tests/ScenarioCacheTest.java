@@ -0,0 +1,141 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import vnreal.core.Scenario;
+import vnreal.core.ScenarioCache;
+import vnreal.io.XMLExporter;
+import vnreal.network.IDSource;
+
+public final class ScenarioCacheTest {
+	private File first, second;
+	private IDSource previous;
+
+	@Before
+	public void setUp() throws IOException {
+		Locale.setDefault(Locale.US);
+		first = File.createTempFile("scenariocache", ".xml");
+		second = File.createTempFile("scenariocache", ".xml");
+		previous = IDSource.bind(new IDSource());
+	}
+
+	@After
+	public void tearDown() {
+		IDSource.bind(previous);
+		first.delete();
+		second.delete();
+	}
+
+	private static LinkedHashMap<String, Map<String, String>> params(String seed) {
+		LinkedHashMap<String, Map<String, String>> params = new LinkedHashMap<String, Map<String, String>>();
+		Map<String, String> rng = new HashMap<String, String>();
+		rng.put("Seed", seed);
+		params.put("RNG", rng);
+
+		Map<String, String> substrate = new HashMap<String, String>();
+		substrate.put("alpha", "0.5");
+		substrate.put("beta", "0.5");
+		substrate.put("nodes", "20");
+		substrate.put("bidirectional", "true");
+		substrate.put("directed", "false");
+		params.put("WaxmanSubstrateElement", substrate);
+
+		Map<String, String> virtual = new HashMap<String, String>(substrate);
+		virtual.put("nodes", "5");
+		virtual.put("num", "4");
+		params.put("WaxmanVirtualElement", virtual);
+
+		Map<String, String> cpu = new HashMap<String, String>();
+		cpu.put("min", "1");
+		cpu.put("max", "50");
+		params.put("CPUResourceElement", cpu);
+		params.put("CPUDemandElement", cpu);
+		return params;
+	}
+
+	@Test
+	public void testCopies() throws ClassNotFoundException, IOException {
+		ScenarioCache cache = new ScenarioCache(1 << 20);
+
+		Scenario generated = cache.get(params("1"));
+		XMLExporter.exportStack(first.getPath(), generated.getNetworkStack());
+
+		IDSource.bind(new IDSource());
+		Scenario cached = cache.get(params("1"));
+		XMLExporter.exportStack(second.getPath(), cached.getNetworkStack());
+
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertNotSame(generated.getSubstrate(), cached.getSubstrate());
+		assertFalse(cached.getSubstrate().isDirected());
+		assertFalse(cached.getVirtuals().get(0).isDirected());
+		assertEquals(new String(Files.readAllBytes(first.toPath()), "UTF-8"),
+				new String(Files.readAllBytes(second.toPath()), "UTF-8"));
+	}
+
+	@Test
+	public void testEviction() throws ClassNotFoundException {
+		ScenarioCache cache = new ScenarioCache(1 << 20);
+		cache.get(params("1"));
+		long size = cache.getSize();
+
+		// Room for a single scenario only
+		cache = new ScenarioCache(size + size / 2);
+		cache.get(params("1"));
+		cache.get(params("2"));
+		cache.get(params("1"));
+		assertEquals(0, cache.getHits());
+		assertEquals(3, cache.getMisses());
+
+		cache = new ScenarioCache(0);
+		cache.get(params("1"));
+		cache.get(params("1"));
+		assertEquals(0, cache.getHits());
+		assertEquals(0, cache.getSize());
+	}
+}
@@ -0,0 +1,318 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import vnreal.algorithms.DPVNE.ClusterHead;
+import vnreal.algorithms.DPVNE.ClusterHeadActors;
+import vnreal.algorithms.DPVNE.CpuBandwidthNetworkEstimation;
+import vnreal.algorithms.DPVNE.DistributedMappingAlgorithm;
+import vnreal.algorithms.DPVNE.FullKnowledgeClusterHead;
+import vnreal.algorithms.DPVNE.HierarchicalPartitioning;
+import vnreal.algorithms.DPVNE.LockTree;
+import vnreal.algorithms.DPVNE.MetricsCounter;
+import vnreal.algorithms.DPVNE.MultilevelPartitioningAlgorithm;
+import vnreal.algorithms.DPVNE.singlenetworkmapping.factory.GARSPFactory;
+import vnreal.constraints.demands.AbstractDemand;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.AbstractResource;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.mapping.Mapping;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+public final class ClusterHeadActorsTest {
+	/**
+	 * A ring with random chords, every link in both directions.
+	 */
+	private static SubstrateNetwork createSubstrate(int n, Random rnd) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>(n);
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(100.0, node));
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < 2 * n; i++) {
+			SubstrateNode u = nodes.get(i < n ? i : rnd.nextInt(n));
+			SubstrateNode v = nodes.get(i < n ? (i + 1) % n : rnd.nextInt(n));
+			if (u == v || sNet.findEdge(u, v) != null)
+				continue;
+			addLink(sNet, u, v);
+			addLink(sNet, v, u);
+		}
+		return sNet;
+	}
+
+	private static void addLink(SubstrateNetwork sNet, SubstrateNode u, SubstrateNode v) {
+		SubstrateLink link = new SubstrateLink();
+		link.add(new BandwidthResource(100.0, link));
+		sNet.addEdge(link, u, v);
+	}
+
+	/**
+	 * A chain of n virtual nodes, each demanding between cpu and 2 * cpu
+	 * cycles.
+	 */
+	private static VirtualNetwork createRequest(int layer, int n, double cpu, Random rnd) {
+		VirtualNetwork vNet = new VirtualNetwork(layer);
+		VirtualNode prev = null;
+		for (int i = 0; i < n; i++) {
+			VirtualNode node = new VirtualNode(layer);
+			node.add(new CpuDemand(cpu + rnd.nextInt((int) cpu + 1), node));
+			vNet.addVertex(node);
+			if (prev != null) {
+				VirtualLink link = new VirtualLink(layer);
+				link.add(new BandwidthDemand(1.0 + rnd.nextInt(5), link));
+				vNet.addEdge(link, prev, node);
+			}
+			prev = node;
+		}
+		return vNet;
+	}
+
+	private static LockTree partition(SubstrateNetwork sNet, MetricsCounter counter) {
+		HierarchicalPartitioning partitioning = new HierarchicalPartitioning(
+				0, 2, 5, -1, new MultilevelPartitioningAlgorithm(2),
+				new GARSPFactory(), new CpuBandwidthNetworkEstimation(10.0));
+		LockTree tree = partitioning.getPartitionsTree(sNet);
+		tree.setCounterRecursively(counter);
+		return tree;
+	}
+
+	private static LockTree embed(SubstrateNetwork sNet, List<VirtualNetwork> vNets,
+			int workers, MetricsCounter counter) {
+		DistributedMappingAlgorithm algo = new DistributedMappingAlgorithm(
+				new NetworkStack(sNet, vNets));
+		algo.rootClusterhead = partition(sNet, counter);
+		algo.setCounter(counter);
+		algo.setWorkers(workers);
+		algo.performEvaluation();
+		return algo.rootClusterhead;
+	}
+
+	/**
+	 * @return The layers of the requests which have been embedded
+	 */
+	private static Set<Integer> accepted(MetricsCounter counter) {
+		Set<Integer> result = new TreeSet<Integer>();
+		for (List<VirtualNetwork> l : counter.numberOfVNRsSuccessfullyEmbeddedPerPartition.values())
+			for (VirtualNetwork vNet : l)
+				assertTrue("Embedded twice: " + vNet.getLayer(), result.add(vNet.getLayer()));
+		return result;
+	}
+
+	private static void assertWithinCapacity(SubstrateNetwork sNet) {
+		for (SubstrateNode sn : sNet.getVertices())
+			for (AbstractResource res : sn)
+				if (res instanceof CpuResource)
+					assertTrue(((CpuResource) res).getAvailableCycles() >= -1e-9);
+		for (SubstrateLink sl : sNet.getEdges())
+			for (AbstractResource res : sl)
+				if (res instanceof BandwidthResource)
+					assertTrue(((BandwidthResource) res).getAvailableBandwidth() >= -1e-9);
+	}
+
+	/**
+	 * Checks the copies of the substrate the cluster heads embed into.
+	 */
+	private static void assertWithinCapacity(LockTree tree) {
+		if (tree.getClusterHead().cluster != null)
+			assertWithinCapacity(tree.getClusterHead().cluster);
+		if (tree.getChildren() != null)
+			for (LockTree c : tree.getChildren())
+				assertWithinCapacity(c);
+	}
+
+	/**
+	 * @return The cycles occupied in the substrate per layer. The cluster
+	 *         heads map copies of the virtual nodes, so they are not found
+	 *         via the requests.
+	 */
+	private static Map<Integer, Double> mappedCycles(SubstrateNetwork sNet) {
+		Map<Integer, Double> result = new HashMap<Integer, Double>();
+		for (SubstrateNode sn : sNet.getVertices()) {
+			for (AbstractResource res : sn) {
+				for (Mapping m : res.getMappings()) {
+					if (!(m.getDemand() instanceof CpuDemand))
+						continue;
+					int layer = ((VirtualNode) m.getDemand().getOwner()).getLayer();
+					Double cycles = result.get(layer);
+					result.put(layer, (cycles == null ? 0.0 : cycles)
+							+ ((CpuDemand) m.getDemand()).getDemandedCycles());
+				}
+			}
+		}
+		return result;
+	}
+
+	private static double demandedCycles(VirtualNetwork vNet) {
+		double result = 0.0;
+		for (VirtualNode vn : vNet.getVertices())
+			for (AbstractDemand dem : vn)
+				if (dem instanceof CpuDemand)
+					result += ((CpuDemand) dem).getDemandedCycles();
+		return result;
+	}
+
+	/**
+	 * Checks that no resource is over-committed and that the substrate holds
+	 * the cycles of the embedded requests only. If complete is set, it holds
+	 * all of their cycles.
+	 * 
+	 * Under load, a cluster head may embed into a copy of the substrate which
+	 * does not know all requests embedded elsewhere yet; the main node then
+	 * skips the demands which do not fit anymore. This happens without
+	 * workers as well.
+	 */
+	private static void assertNotOverCommitted(SubstrateNetwork sNet, LockTree tree,
+			List<VirtualNetwork> vNets, Set<Integer> accepted, boolean complete) {
+		assertWithinCapacity(sNet);
+		assertWithinCapacity(tree);
+
+		Map<Integer, Double> mapped = mappedCycles(sNet);
+		for (VirtualNetwork vNet : vNets) {
+			Double cycles = mapped.get(vNet.getLayer());
+			double held = cycles == null ? 0.0 : cycles;
+			String request = "request " + vNet.getLayer();
+			if (!accepted.contains(vNet.getLayer()))
+				assertEquals(request, 0.0, held, 0.0);
+			else if (complete)
+				assertEquals(request, demandedCycles(vNet), held, 1e-9);
+			else
+				assertTrue(request, held <= demandedCycles(vNet) + 1e-9);
+		}
+	}
+
+	/**
+	 * Requests which fit into the substrate at the same time, so the order
+	 * in which they are embedded does not matter.
+	 */
+	private static List<VirtualNetwork> createSmallRequests(Random rnd) {
+		List<VirtualNetwork> vNets = new LinkedList<VirtualNetwork>();
+		for (int i = 1; i <= 30; i++)
+			vNets.add(createRequest(i, 2 + rnd.nextInt(2), 1.0, rnd));
+		return vNets;
+	}
+
+	@Test
+	public void acceptsTheSameRequestsAsSerialMode() {
+		SubstrateNetwork sNet = createSubstrate(40, new Random(1));
+		List<VirtualNetwork> vNets = createSmallRequests(new Random(2));
+		MetricsCounter counter = new MetricsCounter();
+		LockTree tree = embed(sNet, vNets, 0, counter);
+		Set<Integer> serial = accepted(counter);
+		assertEquals(vNets.size(), serial.size());
+		assertNotOverCommitted(sNet, tree, vNets, serial, true);
+
+		for (int workers : new int[] { 1, 4, 8 }) {
+			sNet = createSubstrate(40, new Random(1));
+			vNets = createSmallRequests(new Random(2));
+			counter = new MetricsCounter();
+			tree = embed(sNet, vNets, workers, counter);
+			Set<Integer> concurrent = accepted(counter);
+			assertEquals("workers: " + workers, serial, concurrent);
+			assertNotOverCommitted(sNet, tree, vNets, concurrent, true);
+		}
+	}
+
+	@Test
+	public void neverOverCommits() {
+		for (int seed = 1; seed <= 3; seed++) {
+			Random rnd = new Random(seed);
+			SubstrateNetwork sNet = createSubstrate(30, rnd);
+			List<VirtualNetwork> vNets = new LinkedList<VirtualNetwork>();
+			for (int i = 1; i <= 120; i++)
+				vNets.add(createRequest(i, 2 + rnd.nextInt(3), 10.0, rnd));
+
+			MetricsCounter counter = new MetricsCounter();
+			LockTree tree = embed(sNet, vNets, 8, counter);
+			Set<Integer> accepted = accepted(counter);
+			// The requests exceed the capacity of the substrate
+			assertFalse(accepted.isEmpty());
+			assertTrue(accepted.size() < vNets.size());
+			assertNotOverCommitted(sNet, tree, vNets, accepted, false);
+		}
+	}
+
+	@Test
+	public void actorsCanBeReused() {
+		SubstrateNetwork sNet = createSubstrate(30, new Random(3));
+		MetricsCounter counter = new MetricsCounter();
+		LockTree tree = partition(sNet, counter);
+		FullKnowledgeClusterHead main = new FullKnowledgeClusterHead(
+				sNet, true, -1, false, null, null, null, null);
+		main.setCounter(counter);
+		List<ClusterHead> delegationNodes = new ArrayList<ClusterHead>(
+				tree.getClusterHead().getDelegationNodes());
+
+		ClusterHeadActors actors = new ClusterHeadActors(tree);
+		tree.setActorsRecursively(actors);
+		Random rnd = new Random(4);
+		List<VirtualNetwork> all = new LinkedList<VirtualNetwork>();
+		for (int batch = 0; batch < 2; batch++) {
+			List<VirtualNetwork> vNets = new LinkedList<VirtualNetwork>();
+			List<ClusterHead> starts = new LinkedList<ClusterHead>();
+			for (int i = 1; i <= 10; i++) {
+				vNets.add(createRequest(10 * batch + i, 2, 1.0, rnd));
+				starts.add(delegationNodes.get(rnd.nextInt(delegationNodes.size())));
+			}
+			actors.embed(main, starts, vNets, 4);
+			all.addAll(vNets);
+			assertEquals(all.size(), accepted(counter).size());
+		}
+		tree.setActorsRecursively(null);
+		assertNotOverCommitted(sNet, tree, all, accepted(counter), true);
+	}
+}
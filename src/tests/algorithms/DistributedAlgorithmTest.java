@@ -0,0 +1,187 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import vnreal.algorithms.distributedAlg.DistributedAlgorithm;
+import vnreal.algorithms.distributedAlg.MessageCounters;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.IDSource;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * @since 2015-06-15
+ */
+public final class DistributedAlgorithmTest {
+
+	/**
+	 * A ring with random chords, every link in both directions, and a few
+	 * small VNRs. IDs are drawn from a fresh scope, so equal seeds lead to
+	 * equal stacks.
+	 */
+	private static NetworkStack createStack(int seed, int n, int requests) {
+		Random rnd = new Random(seed);
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>(n);
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(50.0 + rnd.nextInt(100), node));
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < 2 * n; i++) {
+			SubstrateNode u = nodes.get(i < n ? i : rnd.nextInt(n));
+			SubstrateNode v = nodes.get(i < n ? (i + 1) % n : rnd.nextInt(n));
+			if (u == v || sNet.findEdge(u, v) != null)
+				continue;
+			double bw = 50.0 + rnd.nextInt(100);
+			addLink(sNet, u, v, bw);
+			addLink(sNet, v, u, bw);
+		}
+
+		List<VirtualNetwork> vNets = new LinkedList<VirtualNetwork>();
+		for (int r = 1; r <= requests; r++) {
+			VirtualNetwork vNet = new VirtualNetwork(r, false);
+			VirtualNode prev = null;
+			for (int i = 0; i < 3; i++) {
+				VirtualNode node = new VirtualNode(r);
+				node.add(new CpuDemand(5.0 + rnd.nextInt(20), node));
+				vNet.addVertex(node);
+				if (prev != null) {
+					VirtualLink link = new VirtualLink(r);
+					link.add(new BandwidthDemand(5.0 + rnd.nextInt(20), link));
+					vNet.addEdge(link, prev, node);
+				}
+				prev = node;
+			}
+			vNets.add(vNet);
+		}
+		return new NetworkStack(sNet, vNets);
+	}
+
+	private static void addLink(SubstrateNetwork sNet, SubstrateNode u,
+			SubstrateNode v, double bw) {
+		SubstrateLink link = new SubstrateLink();
+		link.add(new BandwidthResource(bw, link));
+		sNet.addEdge(link, u, v);
+	}
+
+	private static long[] snapshot(MessageCounters c) {
+		return new long[] { c.numberOfMessages, c.numberOfBFMessages,
+				c.numberOfFirstBFMessages, c.bfRun, c.clusterCounter,
+				c.usedLinksForMessages, c.nodesUsedSolelyForForwarding,
+				c.numberOfMsgMessages, c.numberOfNotifyMessages, c.nodes,
+				c.receivedMessages };
+	}
+
+	/**
+	 * Builds the stack of the given seed in a fresh ID scope and runs the
+	 * algorithm on it.
+	 * 
+	 * @return The counters registered for the stack
+	 */
+	private static long[] run(int seed, int n, int bfThreads) {
+		IDSource previous = IDSource.bind(new IDSource());
+		try {
+			NetworkStack stack = createStack(seed, n, 3);
+			new DistributedAlgorithm(stack, false, bfThreads)
+					.performEvaluation();
+			return snapshot(MessageCounters.of(stack));
+		} finally {
+			IDSource.bind(previous);
+		}
+	}
+
+	@Test
+	public void concurrentRunsKeepSeparateCounters() throws Exception {
+		final int[] seeds = { 1, 2 };
+		final int[] sizes = { 20, 35 };
+		long[][] expected = new long[seeds.length][];
+		for (int i = 0; i < seeds.length; i++)
+			expected[i] = run(seeds[i], sizes[i], 0);
+		// Different stacks must lead to different counters, or the test
+		// could not tell them apart
+		assertTrue(expected[0][2] != expected[1][2]);
+
+		ExecutorService executor = Executors.newFixedThreadPool(seeds.length);
+		try {
+			List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+			for (int i = 0; i < seeds.length; i++) {
+				final int seed = seeds[i], size = sizes[i];
+				futures.add(executor.submit(new Callable<long[]>() {
+					@Override
+					public long[] call() {
+						return run(seed, size, 0);
+					}
+				}));
+			}
+			for (int i = 0; i < seeds.length; i++)
+				assertArrayEquals(expected[i], futures.get(i).get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void parallelBellmanFordMatchesSerialCounters() {
+		for (int seed = 1; seed <= 3; seed++) {
+			long[] serial = run(seed, 30, 0);
+			// The requests must trigger Bellman-Ford runs with a bandwidth
+			assertTrue(serial[1] > 0);
+			for (int threads : new int[] { 1, 2, 4, 7 })
+				assertArrayEquals("seed " + seed + ", " + threads + " threads",
+						serial, run(seed, 30, threads));
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import vnreal.algorithms.AlgorithmParameter;
+import vnreal.algorithms.CoordinatedMapping;
+import vnreal.algorithms.utils.LinkMappingLpModel;
+import vnreal.algorithms.utils.LpSolver;
+import vnreal.algorithms.utils.MiscelFunctions;
+import vnreal.algorithms.utils.dataSolverFile;
+import vnreal.constraints.demands.AbstractDemand;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.core.Consts;
+import vnreal.evaluations.utils.VnrUtils;
+import vnreal.mapping.Mapping;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * Compares the LP models built in memory ({@link LinkMappingLpModel},
+ * NodeMappingLpModel) with the MathProg model and data files they replace.
+ * The test is skipped if GLPK for Java or the model files are not available.
+ * 
+ * @since 2015-06-15
+ */
+public final class LpModelTest {
+	private static final double EPS = 1e-6;
+
+	private boolean useModelFiles;
+
+	@Before
+	public void requireSolver() {
+		useModelFiles = Consts.LP_USE_MODEL_FILES;
+		try {
+			LpSolver.initialize();
+		} catch (UnsatisfiedLinkError e) {
+			Assume.assumeTrue(false);
+		}
+		Assume.assumeTrue(new File(Consts.LP_SOLVER_FOLDER
+				+ Consts.LP_LINKMAPPING_MODEL_HIDDENHOPS).exists());
+		Assume.assumeTrue(new File(Consts.LP_SOLVER_FOLDER
+				+ Consts.LP_NODEMAPPING_MODEL).exists());
+	}
+
+	@After
+	public void restore() {
+		Consts.LP_USE_MODEL_FILES = useModelFiles;
+	}
+
+	/**
+	 * A binary tree of substrate nodes, so every commodity has exactly one
+	 * path and the optimal flow is unique.
+	 */
+	private static SubstrateNetwork tree(List<SubstrateNode> nodes) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		for (int i = 0; i < 7; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(60.0 + 10.0 * i, node));
+			sNet.addVertex(node);
+			nodes.add(node);
+			if (i > 0) {
+				SubstrateLink link = new SubstrateLink();
+				link.add(new BandwidthResource(80.0 + 5.0 * i, link));
+				sNet.addEdge(link, nodes.get((i - 1) / 2), node);
+			}
+		}
+		return sNet;
+	}
+
+	private static VirtualNetwork chain(int layer, double cpu, double bw,
+			List<VirtualNode> nodes) {
+		VirtualNetwork vNet = new VirtualNetwork(layer);
+		for (int i = 0; i < 3; i++) {
+			VirtualNode node = new VirtualNode(layer);
+			node.add(new CpuDemand(cpu + 5.0 * i, node));
+			vNet.addVertex(node);
+			nodes.add(node);
+			if (i > 0) {
+				VirtualLink link = new VirtualLink(layer);
+				link.add(new BandwidthDemand(bw + 3.0 * i, link));
+				vNet.addEdge(link, nodes.get(i - 1), node);
+			}
+		}
+		return vNet;
+	}
+
+	@Test
+	public void linkMappingModelsAgree() {
+		List<SubstrateNode> sNodes = new ArrayList<SubstrateNode>();
+		SubstrateNetwork sNet = tree(sNodes);
+		List<VirtualNode> vNodes = new ArrayList<VirtualNode>();
+		VirtualNetwork vNet = chain(1, 10.0, 20.0, vNodes);
+		Map<VirtualNode, SubstrateNode> nodeMapping = new LinkedHashMap<VirtualNode, SubstrateNode>();
+		nodeMapping.put(vNodes.get(0), sNodes.get(3));
+		nodeMapping.put(vNodes.get(1), sNodes.get(6));
+		nodeMapping.put(vNodes.get(2), sNodes.get(4));
+
+		String dataFileName = Consts.LP_SOLVER_DATAFILE + "LpModelTest.dat";
+		new dataSolverFile(Consts.LP_SOLVER_FOLDER + dataFileName)
+				.createDataSolverFile(sNet, null, vNet, nodeMapping, 1.0, 1.0,
+						false, 0);
+		LpSolver fileSolver = new LpSolver();
+		fileSolver.solve(Consts.LP_SOLVER_FOLDER,
+				Consts.LP_LINKMAPPING_MODEL_HIDDENHOPS, dataFileName);
+		new File(Consts.LP_SOLVER_FOLDER + dataFileName).delete();
+
+		LinkMappingLpModel model = new LinkMappingLpModel(sNet, vNet,
+				nodeMapping, 1.0, 1.0);
+		LpSolver modelSolver = new LpSolver();
+		modelSolver.solve(model);
+
+		assertTrue(fileSolver.problemFeasible());
+		assertTrue(modelSolver.problemFeasible());
+		assertEquals(fileSolver.getOptSol(), modelSolver.getOptSol(), EPS);
+		assertSameValues(MiscelFunctions.processSolverResult(
+				fileSolver.getSolverResult(), "lambda[]"), model.getLambda());
+	}
+
+	private static void assertSameValues(Map<List<String>, Double> expected,
+			Map<List<String>, Double> actual) {
+		Set<List<String>> keys = new HashSet<List<String>>(expected.keySet());
+		keys.addAll(actual.keySet());
+		for (List<String> key : keys) {
+			Double e = expected.get(key), a = actual.get(key);
+			assertEquals(key.toString(), e == null ? 0.0 : e,
+					a == null ? 0.0 : a, EPS);
+		}
+	}
+
+	/**
+	 * Maps the same VNRs with both kinds of models and compares the
+	 * substrate nodes hosting every virtual node.
+	 */
+	@Test
+	public void nodeMappingModelsAgree() {
+		assertEquals(embed(true), embed(false));
+	}
+
+	private static List<Integer> embed(boolean modelFiles) {
+		Consts.LP_USE_MODEL_FILES = modelFiles;
+
+		List<SubstrateNode> sNodes = new ArrayList<SubstrateNode>();
+		SubstrateNetwork sNet = tree(sNodes);
+		List<VirtualNode> vNodes = new ArrayList<VirtualNode>();
+		List<VirtualNetwork> vNets = new LinkedList<VirtualNetwork>();
+		for (int layer = 1; layer <= 4; layer++)
+			vNets.add(chain(layer, 10.0 * layer, 15.0 * layer, vNodes));
+
+		AlgorithmParameter param = new AlgorithmParameter();
+		param.put("PathSplitting", "true");
+		CoordinatedMapping algo = new CoordinatedMapping(param);
+		algo.setStack(new NetworkStack(sNet, vNets));
+		algo.performEvaluation();
+
+		// The index of the hosting substrate node per virtual node, -1 if
+		// its VNR has been rejected
+		List<Integer> hosts = new ArrayList<Integer>();
+		for (VirtualNode vNode : vNodes) {
+			int host = -1;
+			if (VnrUtils.isMapped(vNets.get(vNode.getLayer() - 1))) {
+				for (AbstractDemand dem : vNode) {
+					Mapping m = dem.getFirstMapping();
+					if (m != null) {
+						host = sNodes.indexOf(m.getResource().getOwner());
+						break;
+					}
+				}
+			}
+			hosts.add(host);
+		}
+		return hosts;
+	}
+}
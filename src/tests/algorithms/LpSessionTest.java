@@ -0,0 +1,206 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import vnreal.algorithms.utils.LinkMappingLpModel;
+import vnreal.algorithms.utils.LpSession;
+import vnreal.algorithms.utils.LpSolver;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.hiddenhopmapping.BandwidthCpuHiddenHopMapping;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * Tests the reuse of GLPK problems and bases by {@link LpSession}. The tests
+ * solving LPs are skipped if GLPK for Java is not available.
+ * 
+ * @since 2015-06-15
+ */
+public final class LpSessionTest {
+	private final List<SubstrateNode> sNodes = new ArrayList<SubstrateNode>();
+	private final SubstrateNetwork sNet = ring(8, sNodes);
+
+	private static SubstrateNetwork ring(int n, List<SubstrateNode> sNodes) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(100.0, node));
+			sNet.addVertex(node);
+			sNodes.add(node);
+		}
+		for (int i = 0; i < n; i++) {
+			SubstrateLink link = new SubstrateLink();
+			link.add(new BandwidthResource(40.0 + 10.0 * i, link));
+			sNet.addEdge(link, sNodes.get(i), sNodes.get((i + 1) % n));
+		}
+		return sNet;
+	}
+
+	/**
+	 * The LP of a chain of virtual nodes mapped to the given substrate nodes.
+	 */
+	private LinkMappingLpModel model(int layer, double bw, int... hosts) {
+		return model(sNet, sNodes, false, layer, bw, hosts);
+	}
+
+	private static LinkMappingLpModel model(SubstrateNetwork sNet,
+			List<SubstrateNode> sNodes, boolean hiddenHops, int layer,
+			double bw, int... hosts) {
+		VirtualNetwork vNet = new VirtualNetwork(layer);
+		Map<VirtualNode, SubstrateNode> nodeMapping = new LinkedHashMap<VirtualNode, SubstrateNode>();
+		VirtualNode prev = null;
+		for (int host : hosts) {
+			VirtualNode node = new VirtualNode(layer);
+			node.add(new CpuDemand(10.0, node));
+			vNet.addVertex(node);
+			nodeMapping.put(node, sNodes.get(host));
+			if (prev != null) {
+				VirtualLink link = new VirtualLink(layer);
+				BandwidthDemand dem = new BandwidthDemand(bw, link);
+				link.add(dem);
+				if (hiddenHops)
+					link.addHiddenHopDemand(new BandwidthCpuHiddenHopMapping(
+							0.5).transform(dem));
+				vNet.addEdge(link, prev, node);
+			}
+			prev = node;
+		}
+		return new LinkMappingLpModel(sNet, vNet, nodeMapping, 1.0, 1.0);
+	}
+
+	@Test
+	public void structure() {
+		LinkMappingLpModel a = model(1, 10.0, 0, 3, 5);
+		assertTrue(a.hasSameStructure(model(2, 25.0, 1, 6, 2)));
+		// One more commodity
+		assertFalse(a.hasSameStructure(model(3, 10.0, 0, 3, 5, 7)));
+	}
+
+	@Test
+	public void basisLayout() {
+		LinkMappingLpModel a = model(1, 10.0, 0, 3, 5);
+		// The substrate rows come first, so requests of any size can start
+		// from the basis of the previous one
+		assertTrue(a.canReuseBasisOf(model(2, 25.0, 1, 6, 2)));
+		assertTrue(a.canReuseBasisOf(model(3, 10.0, 0, 3, 5, 7)));
+		assertTrue(a.canReuseBasisOf(model(4, 10.0, 2, 6)));
+		// but not on another substrate or with other substrate rows
+		List<SubstrateNode> otherNodes = new ArrayList<SubstrateNode>();
+		SubstrateNetwork other = ring(8, otherNodes);
+		assertFalse(a.canReuseBasisOf(model(other, otherNodes, false, 5,
+				10.0, 0, 3, 5)));
+		assertFalse(a.canReuseBasisOf(model(sNet, sNodes, true, 6, 10.0, 0,
+				3, 5)));
+	}
+
+	@Test
+	public void sessionLifecycle() {
+		assertNull(LpSession.peek(sNet));
+		LpSession first = LpSession.open(sNet);
+		assertSame(first, LpSession.peek(sNet));
+		first.close();
+		assertTrue(first.isClosed());
+		// The statistics of a closed session remain available
+		assertSame(first, LpSession.peek(sNet));
+
+		LpSession second = LpSession.open(sNet);
+		assertSame(second, LpSession.peek(sNet));
+		assertEquals(0, second.getSolves());
+		second.close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void closedSessionRejectsModels() {
+		LpSession session = LpSession.open(sNet);
+		session.close();
+		session.solve(model(1, 10.0, 0, 3, 5));
+	}
+
+	@Test
+	public void warmStartsReachTheSameObjective() {
+		try {
+			LpSolver.initialize();
+		} catch (UnsatisfiedLinkError e) {
+			Assume.assumeTrue(false);
+		}
+
+		List<LinkMappingLpModel> cold = new ArrayList<LinkMappingLpModel>();
+		List<LinkMappingLpModel> warm = new ArrayList<LinkMappingLpModel>();
+		int[][] hosts = { { 0, 3, 5 }, { 1, 6, 2 }, { 4, 0, 7 },
+				{ 0, 3, 5, 7 }, { 2, 5, 1 } };
+		for (int r = 0; r < hosts.length; r++) {
+			cold.add(model(r + 1, 5.0 + 5.0 * r, hosts[r]));
+			warm.add(model(r + 1, 5.0 + 5.0 * r, hosts[r]));
+		}
+
+		LpSolver solver = new LpSolver();
+		LpSession session = LpSession.open(sNet);
+		try {
+			for (int r = 0; r < hosts.length; r++) {
+				solver.solve(cold.get(r));
+				assertTrue(solver.problemFeasible());
+				solver.solve(warm.get(r), session);
+				assertTrue(solver.problemFeasible());
+				assertEquals(cold.get(r).getObjective(),
+						warm.get(r).getObjective(), 1e-6);
+			}
+			assertEquals(hosts.length, session.getSolves());
+			// Every model can start from the basis of its predecessor. The
+			// basis the model with four virtual nodes leaves for the next
+			// one has been repaired and may be singular.
+			assertTrue(session.getWarmStarts() >= hosts.length - 2);
+		} finally {
+			session.close();
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.algorithms;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.Test;
+
+import vnreal.algorithms.utils.MiscelFunctions;
+
+public final class MiscelFunctionsTest {
+	private static double reference(double d, int decimalPlace) {
+		BigDecimal bd = new BigDecimal(d);
+		bd = bd.setScale(decimalPlace, BigDecimal.ROUND_HALF_UP);
+		return bd.doubleValue();
+	}
+
+	private static void check(double d, int decimalPlace) {
+		// Compare bit patterns, so that 0.0 and -0.0 are distinguished
+		assertEquals("round(" + d + ", " + decimalPlace + ")",
+				Double.doubleToLongBits(reference(d, decimalPlace)),
+				Double.doubleToLongBits(MiscelFunctions.round(d, decimalPlace)));
+	}
+
+	@Test
+	public void roundMatchesBigDecimal() {
+		Random rnd = new Random(0);
+		for (int i = 0; i < 200000; i++) {
+			int decimalPlace = rnd.nextInt(6);
+			double d;
+			switch (i % 4) {
+			case 0: // uniform capacities and demands
+				d = rnd.nextDouble() * 100.0;
+				break;
+			case 1: // exact ties and their neighbours
+				d = (rnd.nextInt(2000000) + 0.5) / 1000.0;
+				if (rnd.nextBoolean())
+					d = Math.nextUp(d);
+				else if (rnd.nextBoolean())
+					d = Math.nextAfter(d, Double.NEGATIVE_INFINITY);
+				break;
+			case 2: // differences as in getAvailableBandwidth()
+				d = rnd.nextInt(100) - rnd.nextDouble() * 100.0;
+				break;
+			default: // wide range of magnitudes
+				d = (rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(30) - 15);
+			}
+			check(d, decimalPlace);
+		}
+	}
+
+	@Test
+	public void roundSpecialValues() {
+		double[] values = { 0.0, -0.0, 0.0005, -0.0005, 0.0004999, 1.0005,
+				2.675, -2.675, 1e15, -1e15, 1e-320, Double.MIN_VALUE,
+				Double.MAX_VALUE, -Double.MAX_VALUE };
+		for (double d : values)
+			for (int decimalPlace = 0; decimalPlace < 6; decimalPlace++)
+				check(d, decimalPlace);
+	}
+}
@@ -0,0 +1,209 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import vnreal.algorithms.DPVNE.MultilevelPartitioningAlgorithm;
+import vnreal.algorithms.DPVNE.Partition;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+
+public final class MultilevelPartitioningTest {
+	private static void addLinks(SubstrateNetwork sNet, SubstrateNode u, SubstrateNode v, double bandwidth) {
+		for (int i = 0; i < 2; i++) {
+			SubstrateLink link = new SubstrateLink();
+			BandwidthResource bw = new BandwidthResource(link);
+			bw.setBandwidth(bandwidth);
+			link.add(bw);
+			if (i == 0)
+				sNet.addEdge(link, u, v);
+			else
+				sNet.addEdge(link, v, u);
+		}
+	}
+
+	private static List<SubstrateNode> addNodes(SubstrateNetwork sNet, Random rnd, int n) {
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>();
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			CpuResource cpu = new CpuResource(node);
+			cpu.setCycles(rnd == null ? 10.0 : (double) (1 + rnd.nextInt(100)));
+			node.add(cpu);
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		return nodes;
+	}
+
+	private static SubstrateNetwork createGrid(int width) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false, true);
+		List<SubstrateNode> nodes = addNodes(sNet, null, width * width);
+		for (int y = 0; y < width; y++) {
+			for (int x = 0; x < width; x++) {
+				if (x + 1 < width)
+					addLinks(sNet, nodes.get(y * width + x), nodes.get(y * width + x + 1), 10.0);
+				if (y + 1 < width)
+					addLinks(sNet, nodes.get(y * width + x), nodes.get((y + 1) * width + x), 10.0);
+			}
+		}
+		return sNet;
+	}
+
+	/**
+	 * A random connected network: a random tree plus random links.
+	 */
+	private static SubstrateNetwork createRandom(Random rnd, int n) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false, true);
+		List<SubstrateNode> nodes = addNodes(sNet, rnd, n);
+		for (int i = 1; i < n; i++)
+			addLinks(sNet, nodes.get(i), nodes.get(rnd.nextInt(i)), 1 + rnd.nextInt(100));
+		for (int i = 0; i < n; i++) {
+			SubstrateNode u = nodes.get(rnd.nextInt(n));
+			SubstrateNode v = nodes.get(rnd.nextInt(n));
+			if (u != v && sNet.findEdge(u, v) == null)
+				addLinks(sNet, u, v, 1 + rnd.nextInt(100));
+		}
+		return sNet;
+	}
+
+	private static boolean isConnected(SubstrateNetwork sNet) {
+		Set<SubstrateNode> visited = new HashSet<SubstrateNode>();
+		LinkedList<SubstrateNode> queue = new LinkedList<SubstrateNode>();
+		Iterator<SubstrateNode> it = sNet.getVertices().iterator();
+		if (!it.hasNext())
+			return false;
+		queue.add(it.next());
+		visited.add(queue.getFirst());
+		while (!queue.isEmpty()) {
+			for (SubstrateNode v : sNet.getNeighbors(queue.poll())) {
+				if (visited.add(v))
+					queue.add(v);
+			}
+		}
+		return visited.size() == sNet.getVertexCount();
+	}
+
+	private static double getCycles(SubstrateNetwork sNet) {
+		double cycles = 0.0;
+		for (SubstrateNode sn : sNet.getVertices())
+			cycles += ((CpuResource) sn.get(CpuResource.class)).getCycles();
+		return cycles;
+	}
+
+	private static void checkPartitions(SubstrateNetwork sNet, Collection<Partition> partitions, int parts) {
+		assertNotNull(partitions);
+		assertEquals(parts, partitions.size());
+
+		Set<String> names = new HashSet<String>();
+		int nodes = 0;
+		for (Partition p : partitions) {
+			assertTrue(isConnected(p.getSubstrateNetwork()));
+			for (SubstrateNode sn : p.getSubstrateNetwork().getVertices())
+				names.add(sn.getName());
+			nodes += p.getSubstrateNetwork().getVertexCount();
+		}
+		assertEquals(sNet.getVertexCount(), nodes);
+		assertEquals(sNet.getVertexCount(), names.size());
+	}
+
+	@Test
+	public void testGrid() {
+		SubstrateNetwork sNet = createGrid(12);
+		Collection<Partition> partitions = new MultilevelPartitioningAlgorithm(4).getPartitions(sNet);
+		checkPartitions(sNet, partitions, 4);
+
+		int cut = 0;
+		for (Partition p : partitions) {
+			assertTrue(getCycles(p.getSubstrateNetwork()) <= 1.1 * getCycles(sNet) / 4);
+			cut += p.getDirectedEdgesToNeighbors().size();
+		}
+		// Two straight lines cut 24 links in each direction
+		assertTrue("cut " + cut, cut <= 2 * 2 * 2 * 24);
+	}
+
+	@Test
+	public void testRandom() {
+		Random rnd = new Random(1);
+		for (int i = 0; i < 10; i++) {
+			SubstrateNetwork sNet = createRandom(rnd, 20 + rnd.nextInt(200));
+			int parts = 2 + rnd.nextInt(6);
+			checkPartitions(sNet, new MultilevelPartitioningAlgorithm(parts, i).getPartitions(sNet), parts);
+		}
+	}
+
+	@Test
+	public void testCache() {
+		SubstrateNetwork sNet = createRandom(new Random(2), 100);
+		MultilevelPartitioningAlgorithm algo = new MultilevelPartitioningAlgorithm(3);
+		Collection<Partition> first = algo.getPartitions(sNet);
+		Collection<Partition> second = algo.getPartitions(sNet);
+		assertEquals(first.size(), second.size());
+
+		Iterator<Partition> it = second.iterator();
+		for (Partition p : first) {
+			Partition q = it.next();
+			assertTrue(p != q);
+			assertTrue(p.getSubstrateNetwork() != q.getSubstrateNetwork());
+			Set<String> names = new HashSet<String>();
+			for (SubstrateNode sn : p.getSubstrateNetwork().getVertices())
+				names.add(sn.getName());
+			for (SubstrateNode sn : q.getSubstrateNetwork().getVertices())
+				assertTrue(names.remove(sn.getName()));
+			assertTrue(names.isEmpty());
+		}
+	}
+
+	@Test
+	public void testTrivial() {
+		SubstrateNetwork sNet = createGrid(3);
+		assertNull(new MultilevelPartitioningAlgorithm(1).getPartitions(sNet));
+		assertNull(new MultilevelPartitioningAlgorithm(2).getPartitions(new SubstrateNetwork(false, true)));
+	}
+}
@@ -0,0 +1,156 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import vnreal.algorithms.utils.MiscelFunctions;
+import vnreal.algorithms.utils.NodeRank;
+import vnreal.algorithms.utils.NodexNode;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.Node;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+
+public final class NodeRankTest {
+	private static SubstrateNetwork createNetwork(Random rnd, int n) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false, true);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>();
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			CpuResource cpu = new CpuResource(node);
+			cpu.setCycles((double) rnd.nextInt(100));
+			node.add(cpu);
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < 3 * n; i++) {
+			SubstrateNode u = nodes.get(rnd.nextInt(n));
+			SubstrateNode v = nodes.get(rnd.nextInt(n));
+			if (u == v)
+				continue;
+			SubstrateLink link = new SubstrateLink();
+			BandwidthResource bw = new BandwidthResource(link);
+			bw.setBandwidth((double) rnd.nextInt(100));
+			link.add(bw);
+			sNet.addEdge(link, u, v);
+		}
+		return sNet;
+	}
+
+	/**
+	 * NodeRank with the dense transition probabilities of every node pair.
+	 */
+	private static Map<Node<?>, Double> reference(SubstrateNetwork sNet,
+			double epsilon) {
+		Map<Node<?>, Double> nodeAr = new LinkedHashMap<Node<?>, Double>();
+		Map<Node<?>, Double> nr = new LinkedHashMap<Node<?>, Double>();
+		Map<NodexNode, Double> pJ = new LinkedHashMap<NodexNode, Double>();
+		Map<NodexNode, Double> pF = new LinkedHashMap<NodexNode, Double>();
+		for (Node<?> node : sNet.getVertices())
+			nodeAr.put(node, MiscelFunctions.getAr(sNet, node));
+		for (SubstrateNode u : sNet.getVertices()) {
+			nr.put(u, MiscelFunctions.calculateNr_0_pJF(sNet.getVertices(), u, nodeAr));
+			List<Node<?>> neighbors = new ArrayList<Node<?>>();
+			for (SubstrateLink l : sNet.getOutEdges(u))
+				neighbors.add(sNet.getDest(l));
+			for (SubstrateNode v : sNet.getVertices()) {
+				if (u.equals(v))
+					continue;
+				NodexNode pair = new NodexNode(u, v);
+				pJ.put(pair, MiscelFunctions.calculateNr_0_pJF(sNet.getVertices(), v, nodeAr));
+				if (neighbors.contains(v))
+					pF.put(pair, MiscelFunctions.calculateNr_0_pJF(neighbors, v, nodeAr));
+			}
+		}
+		double delta = epsilon + 1;
+		Map<Node<?>, Double> next = null;
+		while (delta > epsilon) {
+			next = MiscelFunctions.calculateNR_i_1(nr, pJ, pF, sNet.getVertices());
+			delta = MiscelFunctions.calculateNR_norm(nr, next, sNet.getVertices());
+			nr = next;
+		}
+		return next;
+	}
+
+	@Test
+	public void matchesDenseComputation() {
+		Random rnd = new Random(0);
+		for (int i = 0; i < 10; i++) {
+			SubstrateNetwork sNet = createNetwork(rnd, 5 + rnd.nextInt(30));
+			Map<Node<?>, Double> expected = reference(sNet, 0.0001);
+			Map<Node<?>, Double> actual = new NodeRank(sNet).compute(0.0001);
+			assertEquals(expected.keySet().size(), actual.size());
+			for (Node<?> node : expected.keySet())
+				assertEquals(expected.get(node), actual.get(node), 1e-12);
+		}
+	}
+
+	@Test
+	public void warmStartAfterSmallChange() {
+		Random rnd = new Random(1);
+		SubstrateNetwork sNet = createNetwork(rnd, 40);
+		NodeRank rank = new NodeRank(sNet);
+		rank.compute(1e-9);
+		int cold = rank.getIterations();
+
+		// Reserve some CPU on a single node
+		CpuResource cpu = (CpuResource) sNet.getVertices().iterator().next()
+				.get(CpuResource.class);
+		cpu.setCycles(cpu.getCycles() * 0.9);
+		rank.refresh();
+
+		Map<Node<?>, Double> warm = rank.compute(1e-9, true);
+		Map<Node<?>, Double> fromScratch = new NodeRank(sNet).compute(1e-9);
+		assertTrue(rank.getIterations() <= cold);
+		double total = 0, totalScratch = 0;
+		for (Node<?> node : warm.keySet()) {
+			total += warm.get(node);
+			totalScratch += fromScratch.get(node);
+		}
+		// Same ranking up to scale
+		for (Node<?> node : warm.keySet())
+			assertEquals(fromScratch.get(node) / totalScratch,
+					warm.get(node) / total, 1e-6);
+	}
+}
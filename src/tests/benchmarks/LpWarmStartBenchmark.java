@@ -0,0 +1,188 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import vnreal.algorithms.utils.LinkMappingLpModel;
+import vnreal.algorithms.utils.LpSession;
+import vnreal.algorithms.utils.LpSolver;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * Solves the path splitting LPs of a sequence of random VNRs of mixed sizes
+ * on random substrates once from scratch and once within an
+ * {@link LpSession}, which restarts from the basis of the previous VNR. Both
+ * must reach the same objective values. Prints the speedup and the share of
+ * solves that could start from the previous basis. Requires GLPK for Java.
+ */
+public final class LpWarmStartBenchmark {
+	private static final int[] SIZES = { 50, 100, 200 };
+	private static final int REQUESTS = 50;
+	private static final int MIN_VNODES = 2;
+	private static final int MAX_VNODES = 8;
+
+	public static void main(String[] args) {
+		int[] sizes = SIZES;
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++)
+				sizes[i] = Integer.parseInt(args[i]);
+		}
+
+		// Warm up the JIT before taking measurements
+		run(20);
+
+		System.out.println("nodes\tcold ms\twarm ms\tspeedup\twarm starts");
+		for (int n : sizes)
+			run(n);
+	}
+
+	private static void run(int n) {
+		Random rnd = new Random(0);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>(n);
+		SubstrateNetwork sNet = createSubstrate(n, rnd, nodes);
+
+		List<LinkMappingLpModel> cold = new ArrayList<LinkMappingLpModel>();
+		List<LinkMappingLpModel> warm = new ArrayList<LinkMappingLpModel>();
+		for (int r = 0; r < REQUESTS; r++) {
+			VirtualNetwork vNet = new VirtualNetwork(r + 1);
+			Map<VirtualNode, SubstrateNode> nodeMapping = createRequest(vNet,
+					rnd, nodes);
+			cold.add(new LinkMappingLpModel(sNet, vNet, nodeMapping, 1.0, 1.0));
+			warm.add(new LinkMappingLpModel(sNet, vNet, nodeMapping, 1.0, 1.0));
+		}
+
+		LpSolver solver = new LpSolver();
+		long start = System.nanoTime();
+		for (LinkMappingLpModel model : cold)
+			solver.solve(model);
+		long coldTime = System.nanoTime() - start;
+
+		LpSession session = LpSession.open(sNet);
+		try {
+			start = System.nanoTime();
+			for (LinkMappingLpModel model : warm)
+				solver.solve(model, session);
+			long warmTime = System.nanoTime() - start;
+
+			for (int r = 0; r < REQUESTS; r++) {
+				double c = cold.get(r).getObjective();
+				double w = warm.get(r).getObjective();
+				if (Math.abs(c - w) > 1e-6 * Math.max(1.0, Math.abs(c)))
+					throw new AssertionError("Request " + r + ": objective "
+							+ w + " instead of " + c);
+			}
+			System.out.println(n + "\t" + (coldTime / 1000000) + "\t"
+					+ (warmTime / 1000000) + "\t"
+					+ String.format("%.2f", (double) coldTime / warmTime)
+					+ "\t" + session.getWarmStarts() + "/"
+					+ session.getSolves());
+		} finally {
+			session.close();
+		}
+	}
+
+	/**
+	 * A chain of a random number of virtual nodes with random chords, mapped
+	 * to distinct random substrate nodes, so consecutive requests have
+	 * different numbers of commodities.
+	 */
+	private static Map<VirtualNode, SubstrateNode> createRequest(
+			VirtualNetwork vNet, Random rnd, List<SubstrateNode> nodes) {
+		int layer = vNet.getLayer();
+		Map<VirtualNode, SubstrateNode> nodeMapping = new LinkedHashMap<VirtualNode, SubstrateNode>();
+		List<SubstrateNode> hosts = new ArrayList<SubstrateNode>(nodes);
+		List<VirtualNode> vNodes = new ArrayList<VirtualNode>();
+		int size = MIN_VNODES + rnd.nextInt(MAX_VNODES - MIN_VNODES + 1);
+		for (int i = 0; i < size; i++) {
+			VirtualNode node = new VirtualNode(layer);
+			node.add(new CpuDemand(5.0 + rnd.nextInt(10), node));
+			vNet.addVertex(node);
+			nodeMapping.put(node, hosts.remove(rnd.nextInt(hosts.size())));
+			if (i > 0)
+				addLink(vNet, rnd, vNodes.get(i - 1), node);
+			vNodes.add(node);
+		}
+		for (int i = rnd.nextInt(size); i > 0; i--) {
+			VirtualNode u = vNodes.get(rnd.nextInt(size));
+			VirtualNode v = vNodes.get(rnd.nextInt(size));
+			if (u != v && vNet.findEdge(u, v) == null)
+				addLink(vNet, rnd, u, v);
+		}
+		return nodeMapping;
+	}
+
+	private static void addLink(VirtualNetwork vNet, Random rnd,
+			VirtualNode u, VirtualNode v) {
+		VirtualLink link = new VirtualLink(vNet.getLayer());
+		link.add(new BandwidthDemand(5.0 + rnd.nextInt(20), link));
+		vNet.addEdge(link, u, v);
+	}
+
+	/**
+	 * A ring with random chords.
+	 */
+	private static SubstrateNetwork createSubstrate(int n, Random rnd,
+			List<SubstrateNode> nodes) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(100.0, node));
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < 2 * n; i++) {
+			SubstrateNode u = nodes.get(i < n ? i : rnd.nextInt(n));
+			SubstrateNode v = nodes.get(i < n ? (i + 1) % n : rnd.nextInt(n));
+			if (u == v || sNet.findEdge(u, v) != null)
+				continue;
+			SubstrateLink link = new SubstrateLink();
+			link.add(new BandwidthResource(50.0 + rnd.nextInt(100), link));
+			sNet.addEdge(link, u, v);
+		}
+		return sNet;
+	}
+}
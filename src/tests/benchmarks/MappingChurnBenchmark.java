@@ -0,0 +1,104 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.virtual.VirtualLink;
+
+/**
+ * Microbenchmark for occupy/free churn on a single heavily shared substrate
+ * link. For every sharing degree n, n virtual links occupy the same
+ * {@link BandwidthResource} and are then freed in random order, which is the
+ * access pattern of long-running online scenarios.
+ * 
+ * With indexed mapping lookup the time per operation stays flat as n grows;
+ * with a linear scan it grows linearly in n.
+ * 
+ * Usage: <code>MappingChurnBenchmark [rounds]</code>
+ */
+public final class MappingChurnBenchmark {
+	private static final int[] SHARING = { 100, 500, 1000, 5000, 10000 };
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		Random rnd = new Random(0);
+
+		// Warm up the JIT before taking measurements
+		for (int i = 0; i < 50; i++)
+			churn(1000, rnd);
+
+		System.out.println("sharing\tns/op");
+		for (int n : SHARING) {
+			long ops = 0;
+			long time = 0;
+			for (int r = 0; r < rounds; r++) {
+				long start = System.nanoTime();
+				ops += churn(n, rnd);
+				time += System.nanoTime() - start;
+			}
+			System.out.println(n + "\t" + (time / ops));
+		}
+	}
+
+	/**
+	 * Occupy a single resource with n demands, then free them in random
+	 * order.
+	 * 
+	 * @return The number of occupy and free operations performed
+	 */
+	private static long churn(int n, Random rnd) {
+		BandwidthResource res = new BandwidthResource(2.0 * n, new SubstrateLink());
+		List<BandwidthDemand> demands = new ArrayList<BandwidthDemand>(n);
+		for (int i = 0; i < n; i++)
+			demands.add(new BandwidthDemand(1.0, new VirtualLink(1)));
+
+		for (BandwidthDemand dem : demands)
+			if (!dem.occupy(res))
+				throw new AssertionError("Could not occupy " + dem);
+
+		Collections.shuffle(demands, rnd);
+		for (BandwidthDemand dem : demands)
+			if (!dem.free(res))
+				throw new AssertionError("Could not free " + dem);
+
+		if (!res.getMappings().isEmpty())
+			throw new AssertionError("Mappings left on " + res);
+		return 2l * n;
+	}
+}
@@ -0,0 +1,139 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import vnreal.algorithms.AbstractAlgorithm;
+import vnreal.algorithms.AlgorithmParameter;
+import vnreal.algorithms.AvailableResources;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.core.OnlineSimulator;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * Runs an {@link OnlineSimulator} with the {@link AvailableResources}
+ * algorithm on a random substrate and reports the number of simulated
+ * arrivals per second. The offered load is about twice the capacity of the
+ * substrate, so requests are both accepted and rejected.
+ * 
+ * Usage: <code>OnlineSimulatorBenchmark [arrivals] [substrate nodes]</code>
+ */
+public final class OnlineSimulatorBenchmark {
+	private static final OnlineSimulator.AlgorithmFactory availableResources = new OnlineSimulator.AlgorithmFactory() {
+		@Override
+		public AbstractAlgorithm create() {
+			return new AvailableResources(new AlgorithmParameter());
+		}
+	};
+
+	public static void main(String[] args) {
+		int arrivals = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int nodes = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+		// Warm up the JIT before taking measurements
+		simulate(arrivals / 10, nodes);
+
+		long start = System.nanoTime();
+		OnlineSimulator sim = simulate(arrivals, nodes);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println("arrivals\taccepted\tseconds\tarrivals/s");
+		System.out.println(sim.getArrivals() + "\t" + sim.getAccepted() + "\t"
+				+ String.format("%.2f", seconds) + "\t" + Math.round(sim.getArrivals() / seconds));
+	}
+
+	private static OnlineSimulator simulate(int arrivals, int nodes) {
+		SubstrateNetwork sNet = createSubstrate(nodes, new Random(0));
+		// A request holds about 3 * 25 CPU cycles for 100 units of time
+		double arrivalRate = 2.0 * nodes * 100.0 / (3 * 25.0 * 100.0);
+		OnlineSimulator sim = new OnlineSimulator(sNet,
+				availableResources,
+				new OnlineSimulator.RequestGenerator() {
+					@Override
+					public VirtualNetwork generate(int layer, Random rng) {
+						return createRequest(layer, 2 + rng.nextInt(3), rng);
+					}
+				}, arrivalRate, 0.01, 0);
+		sim.run(arrivals);
+		return sim;
+	}
+
+	private static SubstrateNetwork createSubstrate(int n, Random rnd) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		List<SubstrateNode> nodes = new ArrayList<SubstrateNode>(n);
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(100.0, node));
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		// A ring with random chords
+		for (int i = 0; i < 2 * n; i++) {
+			SubstrateNode a = nodes.get(i < n ? i : rnd.nextInt(n));
+			SubstrateNode b = nodes.get(i < n ? (i + 1) % n : rnd.nextInt(n));
+			if (a == b || sNet.findEdge(a, b) != null)
+				continue;
+			SubstrateLink link = new SubstrateLink();
+			link.add(new BandwidthResource(100.0, link));
+			sNet.addEdge(link, a, b);
+		}
+		return sNet;
+	}
+
+	private static VirtualNetwork createRequest(int layer, int n, Random rng) {
+		VirtualNetwork vNet = new VirtualNetwork(layer);
+		List<VirtualNode> nodes = new ArrayList<VirtualNode>(n);
+		for (int i = 0; i < n; i++) {
+			VirtualNode node = new VirtualNode(layer);
+			node.add(new CpuDemand(10.0 + rng.nextInt(30), node));
+			vNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 1; i < n; i++) {
+			VirtualLink link = new VirtualLink(layer);
+			link.add(new BandwidthDemand(5.0 + rng.nextInt(15), link));
+			vNet.addEdge(link, nodes.get(rng.nextInt(i)), nodes.get(i));
+		}
+		return vNet;
+	}
+}
@@ -0,0 +1,130 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import vnreal.algorithms.utils.MiscelFunctions;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * Microbenchmark for the capacity checks of resources: the rounding used in
+ * every <code>fulfills</code>, occupy and free, and full
+ * fulfills/occupy/free cycles on bandwidth and CPU resources.
+ * 
+ * Usage: <code>ResourceAccountingBenchmark [iterations]</code>
+ */
+public final class ResourceAccountingBenchmark {
+	private static volatile double sink;
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+
+		double[] values = new double[1024];
+		Random rnd = new Random(0);
+		for (int i = 0; i < values.length; i++)
+			values[i] = rnd.nextDouble() * 1000.0;
+
+		BandwidthResource bw = new BandwidthResource(1000.0, new SubstrateLink());
+		BandwidthDemand[] bwDems = new BandwidthDemand[values.length];
+		CpuResource cpu = new CpuResource(new SubstrateNode());
+		cpu.setCycles(1000.0);
+		CpuDemand[] cpuDems = new CpuDemand[values.length];
+		for (int i = 0; i < values.length; i++) {
+			bwDems[i] = new BandwidthDemand(values[i] / 10.0, new VirtualLink(1));
+			cpuDems[i] = new CpuDemand(new VirtualNode(1));
+			cpuDems[i].setDemandedCycles(values[i] / 10.0);
+		}
+
+		// Warm up, then measure
+		for (int pass = 0; pass < 2; pass++) {
+			boolean print = pass == 1;
+			long start = System.nanoTime();
+			double acc = 0.0;
+			for (int i = 0; i < iterations; i++)
+				acc += bigDecimalRound(values[i & 1023], 3);
+			sink = acc;
+			report(print, "BigDecimal rounding", start, iterations);
+
+			start = System.nanoTime();
+			acc = 0.0;
+			for (int i = 0; i < iterations; i++)
+				acc += MiscelFunctions.round(values[i & 1023], 3);
+			sink = acc;
+			report(print, "MiscelFunctions.round", start, iterations);
+
+			start = System.nanoTime();
+			int accepted = 0;
+			for (int i = 0; i < iterations; i++)
+				if (bw.fulfills(bwDems[i & 1023]))
+					accepted++;
+			sink = accepted;
+			report(print, "BandwidthResource.fulfills", start, iterations);
+
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				BandwidthDemand dem = bwDems[i & 1023];
+				if (dem.occupy(bw))
+					dem.free(bw);
+			}
+			report(print, "Bandwidth occupy+free", start, iterations);
+
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				CpuDemand dem = cpuDems[i & 1023];
+				if (dem.occupy(cpu))
+					dem.free(cpu);
+			}
+			report(print, "CPU occupy+free", start, iterations);
+		}
+	}
+
+	/** The rounding previously used by MiscelFunctions.round */
+	private static double bigDecimalRound(double d, int decimalPlace) {
+		BigDecimal bd = new BigDecimal(d);
+		bd = bd.setScale(decimalPlace, BigDecimal.ROUND_HALF_UP);
+		return bd.doubleValue();
+	}
+
+	private static void report(boolean print, String name, long start, int iterations) {
+		if (print)
+			System.out.println(name + ": " + (System.nanoTime() - start) / iterations + " ns/op");
+	}
+}
@@ -0,0 +1,151 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.io.XMLExporter;
+import vnreal.io.XMLImporter;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * Times {@link XMLImporter#importScenario(String)} on generated scenarios of
+ * growing size, in which every VNR is mapped. The import time per megabyte
+ * should stay roughly constant.
+ * 
+ * Has to be run from the project directory, as the importer reads the schema
+ * from src/XML.
+ */
+public final class XMLImportBenchmark {
+	/** Substrate nodes and VNRs of the generated scenarios */
+	private static final int[][] SIZES = { { 100, 100 }, { 250, 500 },
+			{ 500, 1000 }, { 1000, 2000 }, { 2000, 8000 } };
+
+	public static void main(String[] args) throws IOException {
+		Locale.setDefault(Locale.US);
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		File file = File.createTempFile("scenario", ".xml");
+		file.deleteOnExit();
+
+		// Warm up the JIT before taking measurements
+		XMLExporter.exportStack(file.getPath(), createStack(50, 50, new Random(0)));
+		for (int i = 0; i < 5; i++)
+			XMLImporter.importScenario(file.getPath());
+
+		System.out.println("snodes\tVNRs\tMB\tms\tms/MB");
+		for (int[] size : SIZES) {
+			XMLExporter.exportStack(file.getPath(),
+					createStack(size[0], size[1], new Random(0)));
+			double mb = file.length() / (1024.0 * 1024.0);
+
+			long time = 0;
+			for (int r = 0; r < rounds; r++) {
+				long start = System.nanoTime();
+				XMLImporter.importScenario(file.getPath());
+				time += System.nanoTime() - start;
+			}
+			double ms = time / 1e6 / rounds;
+			System.out.println(size[0] + "\t" + size[1] + "\t"
+					+ String.format("%.1f\t%.0f\t%.0f", mb, ms, ms / mb));
+		}
+	}
+
+	/**
+	 * A ring substrate with random chords and VNRs of three nodes in a line,
+	 * each node and link mapped onto a random substrate node or link.
+	 */
+	private static NetworkStack createStack(int nodes, int vnrs, Random rnd) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		List<SubstrateNode> sNodes = new ArrayList<SubstrateNode>(nodes);
+		for (int i = 0; i < nodes; i++) {
+			SubstrateNode sn = new SubstrateNode();
+			sn.add(new CpuResource(1e9, sn));
+			sNet.addVertex(sn);
+			sNodes.add(sn);
+		}
+		List<SubstrateLink> sLinks = new ArrayList<SubstrateLink>();
+		for (int i = 0; i < 2 * nodes; i++) {
+			SubstrateNode u = sNodes.get(i < nodes ? i : rnd.nextInt(nodes));
+			SubstrateNode v = sNodes.get(i < nodes ? (i + 1) % nodes : rnd.nextInt(nodes));
+			if (u == v)
+				continue;
+			SubstrateLink sl = new SubstrateLink();
+			sl.add(new BandwidthResource(1e9, sl));
+			sNet.addEdge(sl, u, v);
+			sLinks.add(sl);
+		}
+
+		List<VirtualNetwork> vNets = new ArrayList<VirtualNetwork>(vnrs);
+		for (int layer = 1; layer <= vnrs; layer++) {
+			VirtualNetwork vNet = new VirtualNetwork(layer);
+			VirtualNode last = null;
+			for (int i = 0; i < 3; i++) {
+				VirtualNode vn = new VirtualNode(layer);
+				CpuDemand cpu = new CpuDemand(1.0 + rnd.nextInt(10), vn);
+				vn.add(cpu);
+				vNet.addVertex(vn);
+				occupy(cpu.occupy(sNodes.get(rnd.nextInt(nodes)).get().get(0)));
+
+				if (last != null) {
+					VirtualLink vl = new VirtualLink(layer);
+					BandwidthDemand bw = new BandwidthDemand(1.0 + rnd.nextInt(10), vl);
+					vl.add(bw);
+					vNet.addEdge(vl, last, vn);
+					occupy(bw.occupy(sLinks.get(rnd.nextInt(sLinks.size())).get().get(0)));
+				}
+				last = vn;
+			}
+			vNets.add(vNet);
+		}
+		return new NetworkStack(sNet, vNets);
+	}
+
+	private static void occupy(boolean success) {
+		if (!success)
+			throw new AssertionError("Could not occupy");
+	}
+}
@@ -0,0 +1,102 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import vnreal.core.Scenario;
+import vnreal.io.SnapshotExporter;
+import vnreal.io.SnapshotImporter;
+import vnreal.io.XMLExporter;
+import vnreal.io.XMLImporter;
+import vnreal.network.IDSource;
+
+/**
+ * Test that a scenario survives the way through a {@link SnapshotExporter}
+ * snapshot unchanged, compared by its XML export.
+ */
+public final class SnapshotTest {
+	private static final String fileName = "src/XML/exemplary-scenario-mappings.xml";
+	private File xml, snapshot, xmlAgain;
+	private IDSource previous;
+
+	@Before
+	public void setUp() throws IOException {
+		Locale.setDefault(Locale.US);
+		xml = File.createTempFile("snapshot", ".xml");
+		snapshot = File.createTempFile("snapshot", ".bin");
+		xmlAgain = File.createTempFile("snapshot", ".xml");
+		previous = IDSource.bind(new IDSource());
+	}
+
+	@After
+	public void tearDown() {
+		IDSource.bind(previous);
+		xml.delete();
+		snapshot.delete();
+		xmlAgain.delete();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Scenario scenario = XMLImporter.importScenario(fileName);
+		assertTrue(scenario.getNetworkStack().hasMappings());
+		XMLExporter.exportStack(xml.getPath(), scenario.getNetworkStack());
+		SnapshotExporter.exportStack(snapshot.getPath(), scenario.getNetworkStack());
+
+		// Same IDs as the first import
+		IDSource.bind(new IDSource());
+		Scenario again = SnapshotImporter.importScenario(snapshot.getPath());
+		XMLExporter.exportStack(xmlAgain.getPath(), again.getNetworkStack());
+
+		assertEquals(new String(Files.readAllBytes(xml.toPath()), "UTF-8"),
+				new String(Files.readAllBytes(xmlAgain.toPath()), "UTF-8"));
+		assertTrue(snapshot.length() < xml.length());
+	}
+
+	@Test(expected = Error.class)
+	public void testNoSnapshot() throws IOException {
+		Files.write(snapshot.toPath(), Arrays.asList("<Scenario/>"));
+		SnapshotImporter.importScenario(snapshot.getPath());
+	}
+}
@@ -37,6 +37,7 @@ import java.util.List;
 
 import mulavito.algorithms.shortestpath.ksp.Eppstein;
 import mulavito.algorithms.shortestpath.ksp.KShortestPathAlgorithm;
+import mulavito.algorithms.shortestpath.ksp.TreeYen;
 import mulavito.algorithms.shortestpath.ksp.Yen;
 
 import org.apache.commons.collections15.ListUtils;
@@ -97,6 +98,15 @@ public final class KShortestPathTest {
 						return new Yen<String, MyLink>(graph, weightTrans);
 					}
 				} },
+				// Yen with reused shortest path trees
+				{ new KSPFactory() {
+					@Override
+					public KShortestPathAlgorithm<String, MyLink> create(
+							Graph<String, MyLink> graph,
+							Transformer<MyLink, Number> weightTrans) {
+						return new TreeYen<String, MyLink>(graph, weightTrans);
+					}
+				} },
 		// ...
 		};
 
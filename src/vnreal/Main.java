@@ -60,6 +60,7 @@ public final class Main {
 		options.addOption("test", true, "Start headless experiment with the specified .test file");
 		options.addOption("xmltest", true, "Start headless experiment with the specified .xmltest file");
 		options.addOption("gui", false, "Start the GUI for manual experimentation");
+		options.addOption("threads", true, "Number of runs of an .xmltest experiment to process in parallel (default: 1)");
 		
 		CommandLine cline = null;
 		try {
@@ -74,7 +75,8 @@ public final class Main {
 			
 		} else if (cline.hasOption("xmltest")) {
 			try {
-				Orchestrator.execute(cline.getOptionValue("xmltest"));
+				int threads = Integer.parseInt(cline.getOptionValue("threads", "1"));
+				Orchestrator.execute(cline.getOptionValue("xmltest"), threads);
 			} catch (ClassNotFoundException | SAXException | JAXBException e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
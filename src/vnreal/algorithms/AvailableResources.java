@@ -67,6 +67,7 @@ public class AvailableResources extends GenericMappingAlgorithm {
 	private static double DEFAULT_WBW = 1;
 	private static int DEFAULT_KSP = 1;
 	private static boolean DEFAULT_EPPSTEIN = false;
+	private static boolean DEFAULT_TREE_YEN = false;
 	
 	/**
 	 * Constructor of the algorithm
@@ -95,7 +96,8 @@ public class AvailableResources extends GenericMappingAlgorithm {
 		} else {		
 			int k = param.getInteger("kShortestPath", DEFAULT_KSP);
 			boolean eppstein = param.getBoolean("eppstein", DEFAULT_EPPSTEIN);
-			this.linkMappingAlgorithm = new kShortestPathLinkMapping(k, eppstein);
+			boolean treeYen = param.getBoolean("treeYen", DEFAULT_TREE_YEN);
+			this.linkMappingAlgorithm = new kShortestPathLinkMapping(k, eppstein, treeYen);
 		}
 
 	}
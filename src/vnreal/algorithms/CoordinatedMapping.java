@@ -19,6 +19,7 @@ public class CoordinatedMapping extends GenericMappingAlgorithm {
 	private static double DEFAULT_WBW = 1;
 	private static int DEFAULT_KSP = 1;
 	private static boolean DEFAULT_EPPSTEIN = true;
+	private static boolean DEFAULT_TREE_YEN = false;
 	
 	public CoordinatedMapping(AlgorithmParameter param) {
 		
@@ -42,7 +43,8 @@ public class CoordinatedMapping extends GenericMappingAlgorithm {
 		} else {
 			int k = param.getInteger("kShortestPath", DEFAULT_KSP);
 			boolean eppstein = param.getBoolean("eppstein", DEFAULT_EPPSTEIN);
-			this.linkMappingAlgorithm = new kShortestPathLinkMapping(k, eppstein);
+			boolean treeYen = param.getBoolean("treeYen", DEFAULT_TREE_YEN);
+			this.linkMappingAlgorithm = new kShortestPathLinkMapping(k, eppstein, treeYen);
 		}
 	}
 	
@@ -56,14 +56,16 @@ public abstract class AbstractDistributedScenarioTest extends AbstractScenarioTe
 				for (int fullKnowledgeNodesLevel : params.fullKnowledgeNodesLevelArray)
 					for (int partition : params.partitions)
 						for (int maxLevel : params.maxLevels)
+							for (int workers : params.workers)
 
-							result.add(new DPVNEAlgorithmParameter(
-									vbandwidthWeight,
-									delegationNodesLevel,
-									fullKnowledgeNodesLevel,
-									partition,
-									params.minPartitionSize,
-									maxLevel));
+								result.add(new DPVNEAlgorithmParameter(
+										vbandwidthWeight,
+										delegationNodesLevel,
+										fullKnowledgeNodesLevel,
+										partition,
+										params.minPartitionSize,
+										maxLevel,
+										workers));
 
 		return result;
 	}
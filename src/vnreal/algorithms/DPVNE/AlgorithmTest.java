@@ -15,6 +15,7 @@ import vnreal.evaluations.metrics.DPVNE.SuccessfullyEmbeddingPartitionsBandwidth
 import vnreal.evaluations.metrics.DPVNE.SuccessfullyEmbeddingPartitionsLevel;
 import vnreal.evaluations.metrics.DPVNE.SuccessfullyEmbeddingPartitionsNodesRatio;
 import vnreal.evaluations.metrics.DPVNE.SuccessfullyEmbeddingPartitionsSize;
+import vnreal.evaluations.metrics.DPVNE.Throughput;
 import vnreal.network.NetworkStack;
 import vnreal.network.substrate.SubstrateNetwork;
 import vnreal.network.virtual.VirtualNetwork;
@@ -64,6 +65,7 @@ public abstract class AlgorithmTest extends AbstractDistributedScenarioTest {
 		metrics.add(new AttemptEmbeddingPartitionsNodesRatio(counter));
 		metrics.add(new AttemptsEmbeddingPartitionsBandwidthRatio(counter));
 		metrics.add(new RuntimeWithoutPartitioning(algo.getRuntimeWithoutPartitioning()));
+		metrics.add(new Throughput(algo.getThroughput()));
 		
 		return metrics;
 	}
@@ -133,6 +135,7 @@ public abstract class AlgorithmTest extends AbstractDistributedScenarioTest {
 		algo = new DistributedMappingAlgorithm(stack);
 		algo.rootClusterhead = lockTreeCache;
 		algo.setCounter(counter);
+		algo.setWorkers(((DPVNEAlgorithmParameter) data).workers);
 		
 		algo.performEvaluation();
 		
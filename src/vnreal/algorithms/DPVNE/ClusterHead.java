@@ -1,6 +1,7 @@
 package vnreal.algorithms.DPVNE;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 
 import vnreal.algorithms.singlenetworkmapping.SingleNetworkMappingAlgorithm;
@@ -14,6 +15,7 @@ public abstract class ClusterHead {
 	public boolean isActive = true;
 	int level;
 	public MetricsCounter counter = null;
+	ClusterHeadActors actors = null;
 	public final boolean isMainNode;
 	final boolean isDelegationNode;
 	final SubstrateNode clusterHeadNode;
@@ -23,7 +25,7 @@ public abstract class ClusterHead {
 	LockTree subLockTree;
 	final Collection<ClusterHead> delegationNodes;
 	
-	public final Collection<UpdateEntry> appliedUpdates = new LinkedList<UpdateEntry>();	
+	public final Collection<UpdateEntry> appliedUpdates = new HashSet<UpdateEntry>();	
 	
 	/**
 	 * Constructor
@@ -178,7 +180,11 @@ public abstract class ClusterHead {
 		counter.sent(this, destination, msg);
 		
 		addLocalUpdatesFor(msg, destination);
-		destination.receive(msg);
+		if (actors != null) {
+			actors.post(destination, msg);
+		} else {
+			destination.receive(msg);
+		}
 	}
 	
 	public void send(DelegateRequestMessage msg, ClusterHead destination) {
@@ -187,7 +193,11 @@ public abstract class ClusterHead {
 		
 		addLocalUpdatesFor(msg, destination);
 		
-		destination.receive(msg);
+		if (actors != null) {
+			actors.post(destination, msg);
+		} else {
+			destination.receive(msg);
+		}
 	}
 
 	public void send(EmbeddingResultMessage msg, ClusterHead destination) {
@@ -275,7 +285,20 @@ public abstract class ClusterHead {
 //		msg.exec(this);
 //	}
 	
-	public synchronized void receive(StopMessage msg) {
+	/*
+	 * Requests are not synchronized on the cluster head: while processing a
+	 * request, it waits for the answers of other cluster heads, which are
+	 * delivered via the synchronized receive(EmbeddingResultMessage) by their
+	 * threads if the cluster heads run as actors. Holding the monitor would
+	 * block these answers.
+	 * 
+	 * Without actors, all messages are delivered by the calling thread. With
+	 * actors, requests only reach a cluster head through its mailbox, which
+	 * processes one at a time, and a request only sends messages within the
+	 * subtree it holds the full lock of (see ClusterHeadActors), so no two
+	 * requests use a cluster head at the same time either.
+	 */
+	public void receive(StopMessage msg) {
 		assert(!isMainNode && isDelegationNode);
 		
 		counter.received(msg.getSource(), this, msg);
@@ -287,7 +310,7 @@ public abstract class ClusterHead {
 		msg.exec(this);
 	}
 	
-	public synchronized void receive(DelegateRequestMessage msg) {
+	public void receive(DelegateRequestMessage msg) {
 		assert(!isMainNode);
 
 		counter.received(msg.getSource(), this, msg);
@@ -301,7 +324,18 @@ public abstract class ClusterHead {
 	
 	
 	void addLocalUpdatesFor(Message msg, ClusterHead destination) {
-		LockTree c = subLockTree.getSubLockTreeFor(destination);
+		LockTree c;
+		if (actors == null) {
+			c = subLockTree.getSubLockTreeFor(destination);
+		} else {
+			c = subLockTree.findSubLockTreeFor(destination);
+			if (c == null) {
+				// A stopped delegation node in another branch of the subtree
+				// the request has moved its lock up to, which is started
+				// again. There are no updates collected for it.
+				return;
+			}
+		}
 
 		msg.addUpdates(c.getUpdates());
 		c.clearUpdates();
@@ -339,6 +373,14 @@ public abstract class ClusterHead {
 		this.counter = counter;
 	}
 	
+	/**
+	 * @param actors Delivers requests to the mailboxes of the cluster heads,
+	 *        or null to process them right away
+	 */
+	public void setActors(ClusterHeadActors actors) {
+		this.actors = actors;
+	}
+	
 	/**
 	 * This method embeds the virtual Network
 	 * @param vNet The Virtual Net
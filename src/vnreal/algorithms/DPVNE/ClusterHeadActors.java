@@ -0,0 +1,317 @@
+package vnreal.algorithms.DPVNE;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import vnreal.network.IDSource;
+import vnreal.network.virtual.VirtualNetwork;
+
+/**
+ * Runs the cluster heads of a partitioning tree as actors, so that requests
+ * embedded in different parts of the tree are processed concurrently.
+ *
+ * Every cluster head gets a mailbox. Requests ({@link DelegateRequestMessage}s
+ * and {@link StopMessage}s) are queued there and processed one at a time by a
+ * thread of a shared pool. Answers and {@link StartMessage}s are delivered by
+ * the sending thread, as the receiving cluster head waits for them.
+ *
+ * Each request holds a full lock ({@link LockTree#setFullLock(boolean)}) of a
+ * subtree of the partitioning tree and only sends messages within it, so
+ * requests in disjoint subtrees do not interfere. A request starts with the
+ * subtree of its delegation node. When it is delegated to the parent of its
+ * subtree, the lock is moved up if no other request holds a lock below the
+ * parent. Otherwise the delegation fails, and once the subtree of the parent
+ * is free, the request is started again at the parent. Locks are granted in
+ * the order they have been asked for, so requests for large subtrees are not
+ * starved by those for small ones.
+ *
+ * The threads only live during {@link #embed(ClusterHead, List, List, int)},
+ * so an instance can embed several batches one after another.
+ *
+ * @since 2015-06-15
+ */
+public class ClusterHeadActors {
+
+	/**
+	 * The lock of a single request.
+	 */
+	final class SubtreeLock {
+		private final LockTree wanted;
+		private LockTree held = null;
+		/** The subtree the request could not be delegated to. */
+		private LockTree denied = null;
+
+		private SubtreeLock(LockTree wanted) {
+			this.wanted = wanted;
+		}
+
+		/**
+		 * Extend the lock to the subtree of the given cluster head, if no other
+		 * request holds a lock in it.
+		 *
+		 * @return true if the request may be delegated to the cluster head
+		 */
+		boolean extendTo(ClusterHead clusterHead) {
+			synchronized (ClusterHeadActors.this) {
+				if (held.isChild(clusterHead)) {
+					return true;
+				}
+				LockTree node = root.getSubLockTreeFor(clusterHead);
+				if (node.locks == 1 && node.isChild(held.getClusterHead())) {
+					// Our own lock is the only one below
+					held.setFullLock(false);
+					node.setFullLock(true);
+					held = node;
+					return true;
+				}
+				denied = node;
+				return false;
+			}
+		}
+	}
+
+	private final class Mailbox implements Runnable {
+		private final ExecutorService pool;
+		private final LinkedList<Runnable> messages = new LinkedList<Runnable>();
+		private boolean scheduled = false;
+
+		Mailbox(ExecutorService pool) {
+			this.pool = pool;
+		}
+
+		synchronized void post(Runnable message) {
+			// Processed with the ID scope of the sender
+			messages.add(IDSource.wrap(message));
+			if (!scheduled) {
+				scheduled = true;
+				pool.execute(this);
+			}
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				Runnable message;
+				synchronized (this) {
+					message = messages.poll();
+					if (message == null) {
+						scheduled = false;
+						return;
+					}
+				}
+				try {
+					message.run();
+				} catch (Throwable th) {
+					fail(th);
+				}
+			}
+		}
+	}
+
+	private final LockTree root;
+	private final List<ClusterHead> clusterHeads = new LinkedList<ClusterHead>();
+	/** The mailboxes of the current batch */
+	private volatile HashMap<ClusterHead, Mailbox> mailboxes = null;
+	private ExecutorService pool = null;
+	private ExecutorService injectors = null;
+	private final LinkedList<SubtreeLock> waiting = new LinkedList<SubtreeLock>();
+	private Throwable failure = null;
+
+	/**
+	 * @param root The root of the partitioning tree, which holds the locks of
+	 *        all requests. It is not used by any cluster head.
+	 */
+	public ClusterHeadActors(LockTree root) {
+		this.root = root;
+
+		LinkedList<LockTree> queue = new LinkedList<LockTree>();
+		queue.add(root);
+		while (!queue.isEmpty()) {
+			LockTree current = queue.pop();
+			clusterHeads.add(current.getClusterHead());
+			if (current.getChildren() != null) {
+				queue.addAll(current.getChildren());
+			}
+		}
+	}
+
+	/**
+	 * Embed virtual networks concurrently and wait until all of them are
+	 * answered.
+	 *
+	 * @param main The node the requests come from
+	 * @param starts The delegation node each request starts at
+	 * @param vNets The virtual networks to embed
+	 * @param workers The number of requests processed at the same time
+	 * @throws IllegalStateException if another batch is being embedded
+	 */
+	public void embed(final ClusterHead main, List<ClusterHead> starts,
+			List<VirtualNetwork> vNets, int workers) {
+
+		final ExecutorService injectors;
+		final ExecutorService pool;
+		synchronized (this) {
+			if (this.pool != null) {
+				throw new IllegalStateException("Another batch is being embedded");
+			}
+			failure = null;
+			// Cluster heads block while waiting for answers, so the pool has
+			// to grow
+			pool = this.pool = Executors.newCachedThreadPool();
+			injectors = this.injectors = Executors.newFixedThreadPool(workers);
+			HashMap<ClusterHead, Mailbox> mailboxes = new HashMap<ClusterHead, Mailbox>();
+			for (ClusterHead clusterHead : clusterHeads) {
+				mailboxes.put(clusterHead, new Mailbox(pool));
+			}
+			this.mailboxes = mailboxes;
+		}
+		List<Future<EmbeddingResultMessage>> futures = new LinkedList<Future<EmbeddingResultMessage>>();
+		try {
+			Iterator<ClusterHead> startIt = starts.iterator();
+			for (final VirtualNetwork vNet : vNets) {
+				final ClusterHead start = startIt.next();
+				futures.add(injectors.submit(IDSource.wrap(new Callable<EmbeddingResultMessage>() {
+					@Override
+					public EmbeddingResultMessage call() throws InterruptedException {
+						return embed(main, start, vNet);
+					}
+				})));
+			}
+			injectors.shutdown();
+
+			for (Future<EmbeddingResultMessage> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			fail(e);
+		} catch (ExecutionException e) {
+			fail(e.getCause());
+		} catch (RejectedExecutionException e) {
+			// The injectors have been shut down by a failure
+		} finally {
+			injectors.shutdownNow();
+			pool.shutdownNow();
+		}
+
+		synchronized (this) {
+			this.injectors = null;
+			this.pool = null;
+			mailboxes = null;
+			if (failure != null) {
+				throw new RuntimeException("Concurrent embedding failed", failure);
+			}
+		}
+	}
+
+	/**
+	 * Embed a single virtual network and wait for the answer.
+	 */
+	private EmbeddingResultMessage embed(ClusterHead main, ClusterHead start,
+			VirtualNetwork vNet) throws InterruptedException {
+
+		while (true) {
+			SubtreeLock lock = lock(root.getSubLockTreeFor(start));
+			EmbeddingResultMessage answer;
+			try {
+				DelegateRequestMessage msg = new DelegateRequestMessage(
+						main, vNet, new LinkedList<ClusterHead>(), lock);
+				post(start, msg);
+				answer = msg.getReceivedAnswer();
+			} finally {
+				unlock(lock);
+			}
+
+			if (answer == null) {
+				// Only if waiting has been interrupted
+				throw new InterruptedException();
+			}
+			if (answer.succeded() || lock.denied == null) {
+				return answer;
+			}
+			start = lock.denied.getClusterHead();
+		}
+	}
+
+	/**
+	 * Queue a request in the mailbox of its destination.
+	 */
+	void post(final ClusterHead destination, final DelegateRequestMessage msg) {
+		mailboxes.get(destination).post(new Runnable() {
+			@Override
+			public void run() {
+				if (msg instanceof StopMessage) {
+					destination.receive((StopMessage) msg);
+				} else {
+					destination.receive(msg);
+				}
+			}
+		});
+	}
+
+	private synchronized SubtreeLock lock(LockTree node) throws InterruptedException {
+		SubtreeLock lock = new SubtreeLock(node);
+		waiting.add(lock);
+		try {
+			while (!canLock(lock)) {
+				wait();
+			}
+		} finally {
+			waiting.remove(lock);
+			notifyAll();
+		}
+		node.setFullLock(true);
+		lock.held = node;
+		return lock;
+	}
+
+	/**
+	 * @return true if the subtree is not locked and no request which asked
+	 *         before for an overlapping subtree is waiting
+	 */
+	private boolean canLock(SubtreeLock lock) {
+		if (!lock.wanted.isUnLocked()) {
+			return false;
+		}
+		for (SubtreeLock other : waiting) {
+			if (other == lock) {
+				return true;
+			}
+			if (other.wanted.isChild(lock.wanted.getClusterHead())
+					|| lock.wanted.isChild(other.wanted.getClusterHead())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private synchronized void unlock(SubtreeLock lock) {
+		lock.held.setFullLock(false);
+		lock.held = null;
+		notifyAll();
+	}
+
+	/**
+	 * Abort all requests after a cluster head failed.
+	 */
+	private synchronized void fail(Throwable th) {
+		if (failure == null) {
+			failure = th;
+			if (injectors != null) {
+				injectors.shutdownNow();
+			}
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+}
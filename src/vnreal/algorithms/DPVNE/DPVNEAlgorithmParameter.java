@@ -10,6 +10,7 @@ public class DPVNEAlgorithmParameter extends AlgorithmParameter {
 	public final int partitions;
 	public final int minPartitionSize;
 	public final int maxLevel;
+	public final int workers;
 
 	public DPVNEAlgorithmParameter(
 			double vbandwidthWeight,
@@ -19,12 +20,30 @@ public class DPVNEAlgorithmParameter extends AlgorithmParameter {
 			int minPartitionSize,
 			int maxLevel) {
 		
+		this(vbandwidthWeight, delegationNodesLevel, fullKnowledgeNodesLevel,
+				partitions, minPartitionSize, maxLevel, 0);
+	}
+	
+	/**
+	 * @param workers The number of requests embedded concurrently, or 0 to
+	 *        embed them one after another
+	 */
+	public DPVNEAlgorithmParameter(
+			double vbandwidthWeight,
+			int delegationNodesLevel,
+			int fullKnowledgeNodesLevel,
+			int partitions,
+			int minPartitionSize,
+			int maxLevel,
+			int workers) {
+		
 		this.omega = vbandwidthWeight;
 		this.delegationNodesLevel = delegationNodesLevel;
 		this.fullKnowledgeNodesLevel = fullKnowledgeNodesLevel;
 		this.partitions = partitions;
 		this.minPartitionSize = minPartitionSize;
 		this.maxLevel = maxLevel;
+		this.workers = workers;
 	}
 	
 	@Override
@@ -13,6 +13,7 @@ public class DPVNEAlgorithmParameters extends AlgorithmParameters {
 	public int[] partitions = { 2 };
 	public int[] maxLevels = { -1 };
 	public int minPartitionSize = 5;
+	public int[] workers = { 0 };
 
 	public String toString(String prefix) {
 		return Utils.toString(prefix, this, "\n", ":");
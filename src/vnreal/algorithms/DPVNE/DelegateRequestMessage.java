@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
 
 import vnreal.constraints.demands.AbstractDemand;
 import vnreal.constraints.demands.BandwidthDemand;
@@ -24,7 +25,10 @@ public class DelegateRequestMessage extends Message {
 	final VirtualNetwork vNetwork;
 	
 	private volatile EmbeddingResultMessage receivedAnswer = null;
+	private final CountDownLatch answered = new CountDownLatch(1);
 	final Queue<ClusterHead> stoppedDelegationNodes;
+	/** The lock of the request if the cluster heads run as actors, or null. */
+	final ClusterHeadActors.SubtreeLock lock;
 
 	
 	public DelegateRequestMessage(
@@ -32,9 +36,19 @@ public class DelegateRequestMessage extends Message {
 			VirtualNetwork vNetwork,
 			Queue<ClusterHead> stoppedDelegationNodes) {
 
+		this(source, vNetwork, stoppedDelegationNodes, null);
+	}
+	
+	DelegateRequestMessage(
+			ClusterHead source,
+			VirtualNetwork vNetwork,
+			Queue<ClusterHead> stoppedDelegationNodes,
+			ClusterHeadActors.SubtreeLock lock) {
+
 		super(source);
 		this.vNetwork = vNetwork;
 		this.stoppedDelegationNodes = stoppedDelegationNodes;
+		this.lock = lock;
 	}
 	
 	public void setReceivedAnswer(EmbeddingResultMessage answer) {
@@ -42,9 +56,22 @@ public class DelegateRequestMessage extends Message {
 			System.out.println("setReceivedAnswer " + answer);
 		}
 		this.receivedAnswer = answer;
+		answered.countDown();
 	}
 	
+	/**
+	 * If the cluster heads run as actors, this method waits for the answer.
+	 * 
+	 * @return The answer, or null if waiting has been interrupted
+	 */
 	public EmbeddingResultMessage getReceivedAnswer() {
+		if (lock != null) {
+			try {
+				answered.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
 		return receivedAnswer;
 	}
 
@@ -160,7 +187,7 @@ public class DelegateRequestMessage extends Message {
 								System.out.println("   " + this + ": child: isDelegationNode -> sending stop message");
 							}
 
-							StopMessage myMsg = new StopMessage(onThisClusterHead, getVirtualNetwork(), stoppedDelegationNodes);
+							StopMessage myMsg = new StopMessage(onThisClusterHead, getVirtualNetwork(), stoppedDelegationNodes, lock);
 							onThisClusterHead.send(myMsg, child);
 							EmbeddingResultMessage answer = myMsg.getReceivedAnswer();
 							if (answer != null && answer.succeded()) {
@@ -175,7 +202,7 @@ public class DelegateRequestMessage extends Message {
 
 							onThisClusterHead.setLocalFullLock(child, true);
 							
-							DelegateRequestMessage myMsg = new DelegateRequestMessage(onThisClusterHead, getVirtualNetwork(), stoppedDelegationNodes);
+							DelegateRequestMessage myMsg = new DelegateRequestMessage(onThisClusterHead, getVirtualNetwork(), stoppedDelegationNodes, lock);
 							onThisClusterHead.send(myMsg, child);
 							EmbeddingResultMessage answer = myMsg.getReceivedAnswer();
 							
@@ -215,7 +242,7 @@ public class DelegateRequestMessage extends Message {
 				}
 
 				onThisClusterHead.setLocalFullLock(candiCluster, true);
-				DelegateRequestMessage msg = new DelegateRequestMessage(onThisClusterHead, getVirtualNetwork(), stoppedDelegationNodes);
+				DelegateRequestMessage msg = new DelegateRequestMessage(onThisClusterHead, getVirtualNetwork(), stoppedDelegationNodes, lock);
 				onThisClusterHead.send(msg, candiCluster);
 
 				embedded = msg.getReceivedAnswer();
@@ -305,9 +332,14 @@ public class DelegateRequestMessage extends Message {
 				System.out.println("   " + this + ": delegateToParent: parent != null");
 			}
 			
+			if (lock != null && !lock.extendTo(parent)) {
+				// Another request is active below the parent
+				return null;
+			}
+			
 			onThisClusterHead.setLocalFullLock(parent, true);
 
-			DelegateRequestMessage delegationMsg = new DelegateRequestMessage(onThisClusterHead, getVirtualNetwork(), stoppedDelegationNodes);
+			DelegateRequestMessage delegationMsg = new DelegateRequestMessage(onThisClusterHead, getVirtualNetwork(), stoppedDelegationNodes, lock);
 			onThisClusterHead.send(delegationMsg, parent);
 			EmbeddingResultMessage result = delegationMsg.getReceivedAnswer();
 
@@ -28,6 +28,8 @@ public class DistributedMappingAlgorithm extends AbstractAlgorithm {
 	
 	MetricsCounter counter = null;
 	private long runtimeWithoutPartitioning = 0l;
+	private int workers = 0;
+	private int requests = 0;
 	
 	public DistributedMappingAlgorithm(
 			NetworkStack stack) {
@@ -42,6 +44,26 @@ public class DistributedMappingAlgorithm extends AbstractAlgorithm {
 		return runtimeWithoutPartitioning;
 	}
 	
+	/**
+	 * @return The number of processed virtual network requests per second,
+	 *         embedded or rejected, without partitioning
+	 */
+	public double getThroughput() {
+		if (runtimeWithoutPartitioning == 0) {
+			return 0.0;
+		}
+		return requests * 1000.0 / runtimeWithoutPartitioning;
+	}
+	
+	/**
+	 * @param workers The number of requests embedded at the same time by
+	 *        cluster heads running as {@link ClusterHeadActors}, or 0 to embed
+	 *        one request after another in the calling thread
+	 */
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+	
 	@Override
 	public List<AbstractAlgorithmStatus> getStati() {
 		return null;
@@ -75,6 +97,11 @@ public class DistributedMappingAlgorithm extends AbstractAlgorithm {
 		
 		Random r = new Random();
 		
+		if (workers > 0) {
+			evaluateConcurrently(main, delegationNodes, r);
+			return;
+		}
+		
 		LinkedList<DelegateRequestMessage> requests = new LinkedList<DelegateRequestMessage>();
 		Queue<ClusterHead> stoppedDelegationNodes = new LinkedList<ClusterHead>();
 		
@@ -95,11 +122,39 @@ public class DistributedMappingAlgorithm extends AbstractAlgorithm {
 			msg.getReceivedAnswer();
 		}
 		runtimeWithoutPartitioning = System.currentTimeMillis() - time;
+		this.requests = requests.size();
 		if (DEBUG) {
 			System.out.println("execution terminated.");
 		}
 		
 	}
+	
+	/**
+	 * Inject all requests at once into randomly chosen delegation nodes; the
+	 * cluster heads process them as actors.
+	 */
+	private void evaluateConcurrently(ClusterHead main, ClusterHead[] delegationNodes, Random r) {
+		List<VirtualNetwork> vNets = new LinkedList<VirtualNetwork>();
+		List<ClusterHead> starts = new LinkedList<ClusterHead>();
+		while (hasNext()) {
+			vNets.add(getNext());
+			starts.add(delegationNodes[r.nextInt(delegationNodes.length)]);
+		}
+		
+		ClusterHeadActors actors = new ClusterHeadActors(rootClusterhead);
+		rootClusterhead.setActorsRecursively(actors);
+		long time = System.currentTimeMillis();
+		try {
+			actors.embed(main, starts, vNets, workers);
+		} finally {
+			runtimeWithoutPartitioning = System.currentTimeMillis() - time;
+			rootClusterhead.setActorsRecursively(null);
+		}
+		this.requests = vNets.size();
+		if (DEBUG) {
+			System.out.println("execution terminated.");
+		}
+	}
 
 	@SuppressWarnings("unchecked")
 	protected boolean hasNext() {
@@ -17,7 +17,7 @@ public abstract class DistributedMetisTest extends AlgorithmTest {
 				data.delegationNodesLevel,
 				data.minPartitionSize,
 				data.maxLevel,
-				new MetisPartitioningAlgorithm(data.partitions),
+				new MultilevelPartitioningAlgorithm(data.partitions),
 //				null,
 				getFactory(),
 				estimationMethod);
@@ -3,6 +3,7 @@ package vnreal.algorithms.DPVNE;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 
 import vnreal.algorithms.singlenetworkmapping.SingleNetworkMappingAlgorithm;
@@ -46,9 +47,37 @@ public class FullKnowledgeClusterHead extends ClusterHead {
 		super(cluster, isMainNode, level, isDelegationNode, clusterHeadNode, delegationNodes, mappingAlgorithm, estimationAlgorithm);
 	}
 
+	// The entities of the cluster by their names
+	private HashMap<String, SubstrateNode> sNodesByName = null;
+	private HashMap<String, SubstrateLink> sLinksByName = null;
+
 	public SubstrateNetwork getCluster() {
 		return cluster;
 	}
+	
+	/**
+	 * @return The node or link of the cluster the update refers to, or null
+	 */
+	private synchronized NetworkEntity<AbstractResource> findSEntity(UpdateEntry e) {
+		if (sNodesByName == null
+				|| sNodesByName.size() != cluster.getVertexCount()
+				|| sLinksByName.size() != cluster.getEdgeCount()) {
+			// Like findSNode and findSLink, the first entity of a name wins
+			sNodesByName = new HashMap<String, SubstrateNode>();
+			for (SubstrateNode sn : cluster.getVertices()) {
+				sNodesByName.putIfAbsent(sn.getName(), sn);
+			}
+			sLinksByName = new HashMap<String, SubstrateLink>();
+			for (SubstrateLink sl : cluster.getEdges()) {
+				sLinksByName.putIfAbsent(sl.getName(), sl);
+			}
+		}
+		
+		if (e.isNode) {
+			return sNodesByName.get(e.sEntityName);
+		}
+		return sLinksByName.get(e.sEntityName);
+	}
 
 	/**
 	 * This method applies all updates 
@@ -66,12 +95,7 @@ public class FullKnowledgeClusterHead extends ClusterHead {
 				
 				if (!appliedUpdates.contains(e)) {
 					
-					NetworkEntity<AbstractResource> ne = null;
-					if (e.isNode) {
-						ne = findSNode(cluster, e.sEntityName);
-					} else {
-						ne = findSLink(cluster, e.sEntityName);
-					}
+					NetworkEntity<AbstractResource> ne = findSEntity(e);
 					
 					if (ne != null) {
 						
@@ -297,18 +321,21 @@ public class FullKnowledgeClusterHead extends ClusterHead {
 	
 	public static void assign(NetworkEntity<AbstractResource> sl, UpdateEntry e) {
 
-		for (AbstractResource r : sl) {
-			if (r.accepts(e.demand) && r.fulfills(e.demand) && e.demand.occupy(r)) {
-				return;
+		// The demand is shared by all cluster heads the update is applied to
+		synchronized (e.demand) {
+			for (AbstractResource r : sl) {
+				if (r.accepts(e.demand) && r.fulfills(e.demand) && e.demand.occupy(r)) {
+					return;
+				}
+//				if (r instanceof CpuResource) {
+//					CpuResource re = ((CpuResource) r);
+//					re.setOccupiedCycles(re.getOccupiedCycles() + e.cpu);
+//				}
+//				if (r instanceof BandwidthResource) {
+//					BandwidthResource re = ((BandwidthResource) r);
+//					re.setOccupiedBandwidth(re.getOccupiedBandwidth() + e.bw);
+//				}
 			}
-//			if (r instanceof CpuResource) {
-//				CpuResource re = ((CpuResource) r);
-//				re.setOccupiedCycles(re.getOccupiedCycles() + e.cpu);
-//			}
-//			if (r instanceof BandwidthResource) {
-//				BandwidthResource re = ((BandwidthResource) r);
-//				re.setOccupiedBandwidth(re.getOccupiedBandwidth() + e.bw);
-//			}
 		}
 	}
 	
@@ -1,6 +1,7 @@
 package vnreal.algorithms.DPVNE;
 
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 
 import vnreal.network.substrate.SubstrateLink;
@@ -20,7 +21,8 @@ public class LockTree {
 	
 	private Integer depthOfTree = null;
 	
-	Collection<UpdateEntry> updates = new LinkedList<UpdateEntry>();
+	// Hashed, as the same updates arrive over and over while they propagate
+	Collection<UpdateEntry> updates = new LinkedHashSet<UpdateEntry>();
 	
 	final String name;
 
@@ -58,6 +60,18 @@ public class LockTree {
 	}
 	
 	public LockTree getSubLockTreeFor(ClusterHead find) {
+		LockTree result = findSubLockTreeFor(find);
+		if (result == null) {
+			throw new AssertionError();
+		}
+		return result;
+	}
+	
+	/**
+	 * @return The node of the given {@link ClusterHead} in this subtree or
+	 *         among its parents, or null
+	 */
+	public LockTree findSubLockTreeFor(ClusterHead find) {
 		LockTree childResult = getSubLockTreeFor_children(find);
 		if (childResult != null) {
 			return childResult;
@@ -69,7 +83,7 @@ public class LockTree {
 			}
 		}
 		
-		throw new AssertionError();
+		return null;
 	}
 	
 	private LockTree getSubLockTreeFor_children(ClusterHead find) {
@@ -117,15 +131,13 @@ public class LockTree {
 	}
 	
 	public void propagateUpdates(Collection<UpdateEntry> vNets) {
+		// Drop duplicates once instead of for every node of the tree
+		Collection<UpdateEntry> batch = new LinkedHashSet<UpdateEntry>(vNets);
 		for (LockTree p = parent; p != null; p = p.parent) {
-			for (UpdateEntry v : vNets) {
-				if (!p.updates.contains(v)) {
-					p.updates.add(v);
-				}
-			}
+			p.updates.addAll(batch);
 		}
 		
-		addUpdatesToChildren(vNets, true);
+		addUpdatesToChildren(batch, true);
 	}
 	
 	public void setCounterRecursively(MetricsCounter counter) {
@@ -137,13 +149,20 @@ public class LockTree {
 		}
 	}
 	
+	public void setActorsRecursively(ClusterHeadActors actors) {
+		getClusterHead().setActors(actors);
+		if (getChildren() != null) {
+			for (LockTree c : getChildren()) {
+				c.setActorsRecursively(actors);
+			}
+		}
+	}
+	
 	private void addUpdatesToChildren(Collection<UpdateEntry> vNet,
 			boolean first) {
 
 		if (!first) {
-			for (UpdateEntry v : vNet)
-				if (!this.updates.contains(v))
-					this.updates.add(v);
+			this.updates.addAll(vNet);
 		}
 		
 		if (children != null) {
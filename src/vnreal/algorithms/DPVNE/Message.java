@@ -1,7 +1,7 @@
 package vnreal.algorithms.DPVNE;
 
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 
 public abstract class Message {
 	
@@ -21,7 +21,7 @@ public abstract class Message {
 
 	public void addUpdates(Collection<UpdateEntry> newUpdates) {
 		if (updates == null) {
-			updates = new LinkedList<UpdateEntry>();
+			updates = new LinkedHashSet<UpdateEntry>();
 		}
 		updates.addAll(newUpdates);
 	}
@@ -36,7 +36,7 @@ public class MetricsCounter {
 		attemptsBandwidthRatio = new LinkedList<BandwidthRatio>();
 	}
 	
-	public void sent(ClusterHead from, ClusterHead to, Message msg) {
+	public synchronized void sent(ClusterHead from, ClusterHead to, Message msg) {
 		if (from.isMainNode || to.isMainNode) {
 			return;
 		}
@@ -81,7 +81,7 @@ public class MetricsCounter {
 		numberOfMessagesSentPerNode.put(from, i);
 	}
 	
-	public void received(ClusterHead from, ClusterHead to, Message msg) {
+	public synchronized void received(ClusterHead from, ClusterHead to, Message msg) {
 		if (from.isMainNode || to.isMainNode) {
 			return;
 		}
@@ -94,7 +94,7 @@ public class MetricsCounter {
 		numberOfMessagesReceivedPerNode.put(to, i);
 	}
 	
-	public void successfullyEmbedded(ClusterHead head, VirtualNetwork vn, double bandwidthratio) {
+	public synchronized void successfullyEmbedded(ClusterHead head, VirtualNetwork vn, double bandwidthratio) {
 		List<VirtualNetwork> vns = numberOfVNRsSuccessfullyEmbeddedPerPartition.get(head);
 		if (vns == null) {
 			vns = new LinkedList<VirtualNetwork>();
@@ -105,7 +105,7 @@ public class MetricsCounter {
 		successfullyBandwidthRatio.add(new BandwidthRatio(head.cluster, vn, bandwidthratio));
 	}
 	
-	public void attemptEmbedded(ClusterHead head, VirtualNetwork vn, double bandwidthratio) {
+	public synchronized void attemptEmbedded(ClusterHead head, VirtualNetwork vn, double bandwidthratio) {
 		List<VirtualNetwork> vns = numberOfVNRsAttemptsEmbeddedPerPartition.get(head);
 		if (vns == null) {
 			vns = new LinkedList<VirtualNetwork>();
@@ -0,0 +1,696 @@
+package vnreal.algorithms.DPVNE;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import vnreal.constraints.resources.AbstractResource;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * A multilevel k-way graph partitioner in the spirit of METIS, which runs in
+ * process instead of starting gpmetis like the
+ * {@link MetisPartitioningAlgorithm}.
+ *
+ * The cluster is partitioned as an undirected graph. Nodes are weighted with
+ * their CPU cycles, the links between two nodes with the sum of their
+ * bandwidth, as in the METIS graph written by {@link vnreal.io.MetisIO}. The
+ * partitioner
+ * <ol>
+ * <li>coarsens the graph by contracting heavy-edge matchings, until only a few
+ * vertices per partition are left,</li>
+ * <li>partitions the coarsest graph by growing regions from random seeds,
+ * keeping the best of several tries,</li>
+ * <li>projects the partitioning back level by level, refining it at every
+ * level by moving boundary vertices to the neighbouring partition with the
+ * highest gain (Fiduccia-Mattheyses), while keeping the partitions
+ * balanced,</li>
+ * <li>makes the partitions contiguous like <code>gpmetis -contig</code> by
+ * moving every split off component to the partition it is connected to most
+ * strongly, and refines once more without splitting any partition.</li>
+ * </ol>
+ *
+ * The partitioning of a cluster is cached by its structure: the names and
+ * weights of the nodes and the weights of the links between them. Each call
+ * gets new partitions, so cached results can be reused by several
+ * concurrent runs.
+ *
+ * @since 2015-06-15
+ */
+public class MultilevelPartitioningAlgorithm implements PartitioningAlgorithm {
+
+	/** The maximum weight of a partition relative to the average one. */
+	static final double UNBALANCE = 1.03;
+	/** Coarsening stops at this number of vertices per partition. */
+	static final int COARSEST_PER_PART = 15;
+	static final int INITIAL_TRIES = 4;
+	static final int REFINE_PASSES = 8;
+	static final int CACHE_SIZE = 64;
+
+	private static final Map<String, int[]> cache = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	final int parts;
+	final long seed;
+
+	public MultilevelPartitioningAlgorithm(int parts) {
+		this(parts, 0);
+	}
+
+	/**
+	 * @param parts The number of partitions
+	 * @param seed The seed of the random choices; the same cluster is always
+	 *        partitioned the same way
+	 */
+	public MultilevelPartitioningAlgorithm(int parts, long seed) {
+		this.parts = parts;
+		this.seed = seed;
+	}
+
+	@Override
+	public Collection<Partition> getPartitions(SubstrateNetwork cluster) {
+		if (parts <= 1) {
+			return null;
+		}
+		if (cluster.getEdgeCount() == 0) {
+			return null;
+		}
+
+		SubstrateNode[] nodes = cluster.getVertices().toArray(new SubstrateNode[0]);
+		Graph g = Graph.of(cluster, nodes);
+		String key = g.getKey(nodes, parts, seed);
+
+		int[] where;
+		synchronized (cache) {
+			where = cache.get(key);
+		}
+		if (where == null) {
+			where = partition(g, parts, new Random(seed));
+			synchronized (cache) {
+				cache.put(key, where);
+			}
+		}
+
+		return PartitioningUtils.createPartitions(cluster, where);
+	}
+
+	/**
+	 * @return The partition of every vertex of the graph
+	 */
+	static int[] partition(Graph g, int parts, Random rng) {
+		long maxVertexWeight = (long) (1.5 * g.totalWeight / (COARSEST_PER_PART * parts)) + 1;
+
+		// Coarsening
+		LinkedList<Graph> levels = new LinkedList<Graph>();
+		LinkedList<int[]> cmaps = new LinkedList<int[]>();
+		Graph cur = g;
+		while (cur.n > COARSEST_PER_PART * parts) {
+			int[] cmap = new int[cur.n];
+			int cn = cur.match(rng, maxVertexWeight, cmap);
+			if (cn > 0.95 * cur.n) {
+				break;
+			}
+			levels.push(cur);
+			cmaps.push(cmap);
+			cur = cur.contract(cmap, cn);
+		}
+
+		// Initial partitioning
+		int[] where = null;
+		long bestCut = Long.MAX_VALUE;
+		long bestOverweight = Long.MAX_VALUE;
+		for (int t = 0; t < INITIAL_TRIES; t++) {
+			int[] w = cur.grow(parts, rng);
+			cur.refine(w, parts, false, rng);
+			long overweight = cur.overweight(w, parts);
+			long cut = cur.cut(w);
+			if (overweight < bestOverweight || (overweight == bestOverweight && cut < bestCut)) {
+				where = w;
+				bestCut = cut;
+				bestOverweight = overweight;
+			}
+		}
+
+		// Uncoarsening
+		while (!levels.isEmpty()) {
+			Graph fine = levels.pop();
+			int[] cmap = cmaps.pop();
+			int[] fineWhere = new int[fine.n];
+			for (int u = 0; u < fine.n; u++) {
+				fineWhere[u] = where[cmap[u]];
+			}
+			where = fineWhere;
+			fine.refine(where, parts, false, rng);
+			cur = fine;
+		}
+
+		g.makeContiguous(where, parts);
+		g.refine(where, parts, true, rng);
+		return where;
+	}
+
+	/**
+	 * An undirected graph with weighted vertices and edges in compressed
+	 * sparse row format.
+	 */
+	static final class Graph {
+		final int n;
+		final long[] vwgt;
+		final int[] xadj;
+		final int[] adjncy;
+		final long[] adjwgt;
+		final long totalWeight;
+
+		Graph(long[] vwgt, int[] xadj, int[] adjncy, long[] adjwgt) {
+			this.n = vwgt.length;
+			this.vwgt = vwgt;
+			this.xadj = xadj;
+			this.adjncy = adjncy;
+			this.adjwgt = adjwgt;
+			long total = 0;
+			for (long w : vwgt) {
+				total += w;
+			}
+			this.totalWeight = total;
+		}
+
+		/**
+		 * @return The graph of the cluster, with the vertices in the order of
+		 *         <code>nodes</code>
+		 */
+		static Graph of(SubstrateNetwork cluster, SubstrateNode[] nodes) {
+			int n = nodes.length;
+			HashMap<SubstrateNode, Integer> index = new HashMap<SubstrateNode, Integer>();
+			long[] vwgt = new long[n];
+			boolean weighted = false;
+			for (int i = 0; i < n; i++) {
+				index.put(nodes[i], i);
+				for (AbstractResource r : nodes[i]) {
+					if (r instanceof CpuResource) {
+						vwgt[i] = ((CpuResource) r).getCycles().longValue();
+						break;
+					}
+				}
+				weighted |= vwgt[i] > 0;
+			}
+			// Without any CPU, all nodes count the same
+			if (!weighted) {
+				Arrays.fill(vwgt, 1);
+			}
+
+			// Links in both directions become a single edge
+			@SuppressWarnings({ "rawtypes", "unchecked" })
+			HashMap<Integer, Long>[] adj = new HashMap[n];
+			for (int i = 0; i < n; i++) {
+				adj[i] = new HashMap<Integer, Long>();
+			}
+			for (SubstrateLink l : cluster.getEdges()) {
+				Pair<SubstrateNode> p = cluster.getEndpoints(l);
+				int u = index.get(p.getFirst());
+				int v = index.get(p.getSecond());
+				if (u == v) {
+					continue;
+				}
+				long w = 0;
+				for (AbstractResource r : l) {
+					if (r instanceof BandwidthResource) {
+						w = ((BandwidthResource) r).getBandwidth().longValue();
+						break;
+					}
+				}
+				Long old = adj[u].get(v);
+				adj[u].put(v, old == null ? w : old + w);
+				old = adj[v].get(u);
+				adj[v].put(u, old == null ? w : old + w);
+			}
+
+			int[] xadj = new int[n + 1];
+			for (int i = 0; i < n; i++) {
+				xadj[i + 1] = xadj[i] + adj[i].size();
+			}
+			int[] adjncy = new int[xadj[n]];
+			long[] adjwgt = new long[xadj[n]];
+			for (int i = 0; i < n; i++) {
+				int e = xadj[i];
+				Integer[] neighbors = adj[i].keySet().toArray(new Integer[0]);
+				Arrays.sort(neighbors);
+				for (Integer v : neighbors) {
+					adjncy[e] = v;
+					adjwgt[e] = adj[i].get(v);
+					e++;
+				}
+			}
+			return new Graph(vwgt, xadj, adjncy, adjwgt);
+		}
+
+		/**
+		 * @return A key identifying the structure of the cluster for the
+		 *         given number of partitions and seed
+		 */
+		String getKey(SubstrateNode[] nodes, int parts, long seed) {
+			StringBuilder key = new StringBuilder();
+			key.append(parts).append(' ').append(seed);
+			for (int u = 0; u < n; u++) {
+				key.append('\n').append(nodes[u].getName()).append(':').append(vwgt[u]);
+				for (int e = xadj[u]; e < xadj[u + 1]; e++) {
+					key.append(' ').append(adjncy[e]).append(':').append(adjwgt[e]);
+				}
+			}
+			return key.toString();
+		}
+
+		/**
+		 * Match every vertex with the unmatched neighbour it shares the
+		 * heaviest edge with, visiting the vertices in random order.
+		 *
+		 * @param cmap Receives the vertex of the coarse graph of every vertex
+		 * @return The number of vertices of the coarse graph
+		 */
+		int match(Random rng, long maxVertexWeight, int[] cmap) {
+			int[] match = new int[n];
+			Arrays.fill(match, -1);
+			int cn = 0;
+			for (int u : permutation(rng)) {
+				if (match[u] != -1) {
+					continue;
+				}
+				int best = u;
+				long bestWeight = -1;
+				for (int e = xadj[u]; e < xadj[u + 1]; e++) {
+					int v = adjncy[e];
+					if (match[v] == -1 && adjwgt[e] > bestWeight
+							&& vwgt[u] + vwgt[v] <= maxVertexWeight) {
+						best = v;
+						bestWeight = adjwgt[e];
+					}
+				}
+				match[u] = best;
+				match[best] = u;
+				cmap[u] = cn;
+				cmap[best] = cn;
+				cn++;
+			}
+			return cn;
+		}
+
+		/**
+		 * @return The graph with all vertices of the same coarse vertex
+		 *         merged; parallel edges are merged by adding their weights
+		 */
+		Graph contract(int[] cmap, int cn) {
+			long[] cvwgt = new long[cn];
+			int[] members = new int[n];
+			int[] start = new int[cn + 1];
+			for (int u = 0; u < n; u++) {
+				cvwgt[cmap[u]] += vwgt[u];
+				start[cmap[u] + 1]++;
+			}
+			for (int c = 0; c < cn; c++) {
+				start[c + 1] += start[c];
+			}
+			int[] fill = Arrays.copyOf(start, cn);
+			for (int u = 0; u < n; u++) {
+				members[fill[cmap[u]]++] = u;
+			}
+
+			int[] cxadj = new int[cn + 1];
+			int[] cadjncy = new int[adjncy.length];
+			long[] cadjwgt = new long[adjncy.length];
+			int[] marker = new int[cn];
+			Arrays.fill(marker, -1);
+			int pos = 0;
+			for (int c = 0; c < cn; c++) {
+				cxadj[c] = pos;
+				for (int i = start[c]; i < start[c + 1]; i++) {
+					int u = members[i];
+					for (int e = xadj[u]; e < xadj[u + 1]; e++) {
+						int v = cmap[adjncy[e]];
+						if (v == c) {
+							continue;
+						}
+						if (marker[v] < cxadj[c]) {
+							marker[v] = pos;
+							cadjncy[pos] = v;
+							cadjwgt[pos] = adjwgt[e];
+							pos++;
+						} else {
+							cadjwgt[marker[v]] += adjwgt[e];
+						}
+					}
+				}
+			}
+			cxadj[cn] = pos;
+
+			return new Graph(cvwgt, cxadj, Arrays.copyOf(cadjncy, pos), Arrays.copyOf(cadjwgt, pos));
+		}
+
+		/**
+		 * Grow <code>parts - 1</code> regions of the average partition weight
+		 * from random seeds, always adding the vertex most strongly connected
+		 * to the region. The remaining vertices form the last partition.
+		 */
+		int[] grow(int parts, Random rng) {
+			int[] where = new int[n];
+			Arrays.fill(where, -1);
+			final long[] conn = new long[n];
+			double target = (double) totalWeight / parts;
+			int[] perm = permutation(rng);
+			int next = 0;
+
+			for (int p = 0; p < parts - 1; p++) {
+				while (next < n && where[perm[next]] != -1) {
+					next++;
+				}
+				if (next == n) {
+					break;
+				}
+
+				// Entries are {vertex, connection}; outdated ones are skipped
+				PriorityQueue<long[]> frontier = new PriorityQueue<long[]>(11, new Comparator<long[]>() {
+					@Override
+					public int compare(long[] a, long[] b) {
+						return a[1] > b[1] ? -1 : (a[1] < b[1] ? 1 : Long.compare(a[0], b[0]));
+					}
+				});
+				frontier.add(new long[] { perm[next], 0 });
+				long weight = 0;
+				long[] entry;
+				while (weight < target && (entry = frontier.poll()) != null) {
+					int u = (int) entry[0];
+					if (where[u] != -1 || entry[1] != conn[u]) {
+						continue;
+					}
+					where[u] = p;
+					weight += vwgt[u];
+					for (int e = xadj[u]; e < xadj[u + 1]; e++) {
+						int v = adjncy[e];
+						if (where[v] == -1) {
+							conn[v] += adjwgt[e];
+							frontier.add(new long[] { v, conn[v] });
+						}
+					}
+				}
+				Arrays.fill(conn, 0);
+			}
+
+			for (int u = 0; u < n; u++) {
+				if (where[u] == -1) {
+					where[u] = parts - 1;
+				}
+			}
+			return where;
+		}
+
+		/**
+		 * Move boundary vertices to the neighbouring partition with the
+		 * highest gain, as long as that does not make the partition too
+		 * heavy. Moves without gain are made if they improve the balance;
+		 * vertices of a partition which is too heavy are moved regardless of
+		 * the gain.
+		 *
+		 * @param contiguous Only make moves which do not split a partition
+		 */
+		void refine(int[] where, int parts, boolean contiguous, Random rng) {
+			long[] pwgt = new long[parts];
+			int[] pcnt = new int[parts];
+			long maxVwgt = 0;
+			for (int u = 0; u < n; u++) {
+				pwgt[where[u]] += vwgt[u];
+				pcnt[where[u]]++;
+				maxVwgt = Math.max(maxVwgt, vwgt[u]);
+			}
+			double avg = (double) totalWeight / parts;
+			long maxpw = (long) Math.max(UNBALANCE * avg, avg + maxVwgt);
+
+			long[] ed = new long[parts];
+			int[] touched = new int[parts];
+			int[] mark = new int[n];
+			int[] queue = new int[n];
+			int[] stamp = new int[] { 0 };
+
+			for (int pass = 0; pass < REFINE_PASSES; pass++) {
+				int moves = 0;
+				for (int u : permutation(rng)) {
+					int from = where[u];
+					long id = 0;
+					int nTouched = 0;
+					for (int e = xadj[u]; e < xadj[u + 1]; e++) {
+						int p = where[adjncy[e]];
+						if (p == from) {
+							id += adjwgt[e];
+						} else {
+							if (ed[p] == 0 && !contains(touched, nTouched, p)) {
+								touched[nTouched++] = p;
+							}
+							ed[p] += adjwgt[e];
+						}
+					}
+					if (nTouched == 0) {
+						continue;
+					}
+
+					int to = -1;
+					long gain = 0;
+					for (int i = 0; i < nTouched; i++) {
+						int p = touched[i];
+						if (pwgt[p] + vwgt[u] <= maxpw) {
+							long g = ed[p] - id;
+							if (to == -1 || g > gain || (g == gain && pwgt[p] < pwgt[to])) {
+								to = p;
+								gain = g;
+							}
+						}
+						ed[p] = 0;
+					}
+					if (to == -1 || pcnt[from] == 1) {
+						continue;
+					}
+					if (!(gain > 0
+							|| (gain == 0 && pwgt[to] + vwgt[u] < pwgt[from])
+							|| pwgt[from] > maxpw)) {
+						continue;
+					}
+					if (contiguous && !staysConnected(u, where, mark, queue, stamp)) {
+						continue;
+					}
+
+					where[u] = to;
+					pwgt[from] -= vwgt[u];
+					pwgt[to] += vwgt[u];
+					pcnt[from]--;
+					pcnt[to]++;
+					moves++;
+				}
+				if (moves == 0) {
+					break;
+				}
+			}
+		}
+
+		private static boolean contains(int[] a, int len, int x) {
+			for (int i = 0; i < len; i++) {
+				if (a[i] == x) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * @return true if the partition of <code>u</code> stays connected
+		 *         without it, i.e. if all its neighbours in the partition
+		 *         can still reach each other
+		 */
+		private boolean staysConnected(int u, int[] where, int[] mark, int[] queue, int[] stamp) {
+			int part = where[u];
+			int first = -1;
+			int neighbors = 0;
+			for (int e = xadj[u]; e < xadj[u + 1]; e++) {
+				if (where[adjncy[e]] == part) {
+					if (first == -1) {
+						first = adjncy[e];
+					}
+					neighbors++;
+				}
+			}
+			if (neighbors <= 1) {
+				return true;
+			}
+
+			int s = ++stamp[0];
+			mark[u] = s;
+			mark[first] = s;
+			queue[0] = first;
+			int head = 0, tail = 1;
+			while (head < tail) {
+				int v = queue[head++];
+				for (int e = xadj[v]; e < xadj[v + 1]; e++) {
+					int w = adjncy[e];
+					if (where[w] == part && mark[w] != s) {
+						mark[w] = s;
+						queue[tail++] = w;
+					}
+				}
+			}
+			for (int e = xadj[u]; e < xadj[u + 1]; e++) {
+				int v = adjncy[e];
+				if (where[v] == part && mark[v] != s) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Move every component of a partition but its heaviest one to the
+		 * neighbouring partition it shares the heaviest edges with.
+		 * Components without any neighbouring partition are left alone, as
+		 * they are not connected to the rest of the graph.
+		 */
+		void makeContiguous(int[] where, int parts) {
+			int[] comp = new int[n];
+			int[] queue = new int[n];
+			long[] conn = new long[parts];
+			boolean[] adjacent = new boolean[parts];
+
+			boolean moved = true;
+			while (moved) {
+				moved = false;
+
+				Arrays.fill(comp, -1);
+				int ncomp = 0;
+				long[] compWeight = new long[n];
+				int[] compStart = new int[n + 1];
+				int[] order = new int[n];
+				int pos = 0;
+				for (int s = 0; s < n; s++) {
+					if (comp[s] != -1) {
+						continue;
+					}
+					compStart[ncomp] = pos;
+					comp[s] = ncomp;
+					queue[0] = s;
+					int head = 0, tail = 1;
+					while (head < tail) {
+						int v = queue[head++];
+						order[pos++] = v;
+						compWeight[ncomp] += vwgt[v];
+						for (int e = xadj[v]; e < xadj[v + 1]; e++) {
+							int w = adjncy[e];
+							if (comp[w] == -1 && where[w] == where[s]) {
+								comp[w] = ncomp;
+								queue[tail++] = w;
+							}
+						}
+					}
+					ncomp++;
+				}
+				compStart[ncomp] = pos;
+
+				int[] heaviest = new int[parts];
+				Arrays.fill(heaviest, -1);
+				for (int c = 0; c < ncomp; c++) {
+					int p = where[order[compStart[c]]];
+					if (heaviest[p] == -1 || compWeight[c] > compWeight[heaviest[p]]) {
+						heaviest[p] = c;
+					}
+				}
+
+				for (int c = 0; c < ncomp; c++) {
+					int p = where[order[compStart[c]]];
+					if (heaviest[p] == c) {
+						continue;
+					}
+					Arrays.fill(conn, 0);
+					Arrays.fill(adjacent, false);
+					for (int i = compStart[c]; i < compStart[c + 1]; i++) {
+						int v = order[i];
+						for (int e = xadj[v]; e < xadj[v + 1]; e++) {
+							int q = where[adjncy[e]];
+							if (q != p) {
+								conn[q] += adjwgt[e];
+								adjacent[q] = true;
+							}
+						}
+					}
+					int to = -1;
+					for (int q = 0; q < parts; q++) {
+						if (adjacent[q] && (to == -1 || conn[q] > conn[to])) {
+							to = q;
+						}
+					}
+					if (to == -1) {
+						continue;
+					}
+					for (int i = compStart[c]; i < compStart[c + 1]; i++) {
+						where[order[i]] = to;
+					}
+					moved = true;
+				}
+			}
+		}
+
+		/**
+		 * @return The total weight of the edges between partitions
+		 */
+		long cut(int[] where) {
+			long cut = 0;
+			for (int u = 0; u < n; u++) {
+				for (int e = xadj[u]; e < xadj[u + 1]; e++) {
+					if (where[u] != where[adjncy[e]]) {
+						cut += adjwgt[e];
+					}
+				}
+			}
+			return cut / 2;
+		}
+
+		/**
+		 * @return The weight of the heaviest partition beyond the allowed
+		 *         maximum, or 0
+		 */
+		long overweight(int[] where, int parts) {
+			long[] pwgt = new long[parts];
+			for (int u = 0; u < n; u++) {
+				pwgt[where[u]] += vwgt[u];
+			}
+			long max = 0;
+			for (long w : pwgt) {
+				max = Math.max(max, w);
+			}
+			return Math.max(0, max - (long) (UNBALANCE * totalWeight / parts));
+		}
+
+		private int[] permutation(Random rng) {
+			int[] perm = new int[n];
+			for (int i = 0; i < n; i++) {
+				perm[i] = i;
+			}
+			for (int i = n - 1; i > 0; i--) {
+				int j = rng.nextInt(i + 1);
+				int tmp = perm[i];
+				perm[i] = perm[j];
+				perm[j] = tmp;
+			}
+			return perm;
+		}
+	}
+
+}
@@ -1,8 +1,10 @@
 package vnreal.algorithms.DPVNE;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 
 import vnreal.network.substrate.SubstrateLink;
 import vnreal.network.substrate.SubstrateNetwork;
@@ -60,6 +62,87 @@ public class PartitioningUtils {
 		return result;
 	}
 	
+	/**
+	 * Split a network into partitions. Every partition gets copies of its
+	 * nodes and of the links between them; links between two partitions
+	 * become {@link PartitionConnection}s in both directions.
+	 * 
+	 * @param origNetwork The network to split
+	 * @param parts The partition of every node, in the order of
+	 *        {@link SubstrateNetwork#getVertices()}
+	 * @return The non-empty partitions, ordered by their number
+	 */
+	public static LinkedList<Partition> createPartitions(SubstrateNetwork origNetwork, int[] parts) {
+		
+		Map<Integer, Partition> result = new HashMap<Integer, Partition>();
+		HashMap<SubstrateNode, Integer> origMap = new HashMap<SubstrateNode, Integer>();
+		HashMap<Integer, SubstrateNode> map = new HashMap<Integer, SubstrateNode>();
+		Iterator<SubstrateNode> nodeItr = origNetwork.getVertices().iterator();
+
+		//create Partitions
+		for (int pos = 0; pos < parts.length; ++pos) {
+			Integer partNo = parts[pos];
+			//get current Partition
+			Partition part = result.get(partNo);
+			if (part == null) {
+				part = new Partition();
+				result.put(partNo, part);
+			}
+			SubstrateNetwork sNetwork = part.getSubstrateNetwork();
+			
+			//add cloneNode to Partition and map originalNode and cloneNode
+			SubstrateNode node = nodeItr.next();
+			origMap.put(node, pos);
+			SubstrateNode cloneNode = node.getCopy(true);
+			map.put(pos, cloneNode);
+			sNetwork.addVertex(cloneNode);
+			
+			for (SubstrateLink l : origNetwork.getInEdges(node)) {
+				if (origMap.containsKey(origNetwork.getOpposite(node, l))){
+					SubstrateLink newLink = l.getCopy(true);
+					int mapNo = -1;
+					SubstrateNode oppositeNode = origNetwork.getOpposite(node, l);
+					mapNo = origMap.get(oppositeNode);
+					//add inEdges inside a Partition
+					if (sNetwork.containsVertex(map.get(mapNo))) {
+						sNetwork.addEdge(newLink, map.get(mapNo), cloneNode);
+					}else{
+						//add PartitionConnections
+						Iterator<Partition> partItr = result.values().iterator();
+						while(partItr.hasNext()){
+							Partition neighborPart = partItr.next();
+							
+							if(!neighborPart.equals(part)){ //current Partition unequal neighborPartition
+								if(neighborPart.getSubstrateNetwork().containsVertex(map.get(mapNo))){ //oppositeNode is in neighborPartition
+									//add inPartitionConnection
+									part.getDirectedEdgesToNeighbors().add(new PartitionConnection(cloneNode.getName(), part, oppositeNode.getName(), neighborPart, newLink));
+									//create outPartitionConnection
+									SubstrateLink backwardLink = origNetwork.findEdge(node, origNetwork.getOpposite(node, l));
+									//add outPartitionConnection
+									neighborPart.getDirectedEdgesToNeighbors().add(new PartitionConnection(oppositeNode.getName(), neighborPart, cloneNode.getName(), part, backwardLink.getCopy(true)));
+								}
+							}
+						}
+					}
+				}
+				
+			}
+			for (SubstrateLink l : origNetwork.getOutEdges(node)) {
+				if (origMap.containsKey(origNetwork.getOpposite(node, l))){
+					int mapNo = -1;
+					mapNo = origMap.get(origNetwork.getOpposite(node, l));
+					//add inEdges inside a Partition
+					if (sNetwork.containsVertex(map.get(mapNo))) {
+						SubstrateLink newLink = l.getCopy(true);
+						sNetwork.addEdge(newLink, cloneNode, map.get(mapNo));
+					}
+				}
+			}
+		}
+		
+		return new LinkedList<Partition>(result.values());
+	}
+	
 	public static SubstrateNetwork dfs(SubstrateNetwork sNetwork, SubstrateNode sn) {
 		SubstrateNetwork result = sNetwork.getInstance(false);
 		dfs(sNetwork, sn, result);
@@ -13,7 +13,16 @@ public class StopMessage extends DelegateRequestMessage {
 			VirtualNetwork vNetwork,
 			Queue<ClusterHead> stoppedDelegationNodes) {
 		
-		super(source, vNetwork, stoppedDelegationNodes);
+		this(source, vNetwork, stoppedDelegationNodes, null);
+	}
+	
+	StopMessage(
+			ClusterHead source,
+			VirtualNetwork vNetwork,
+			Queue<ClusterHead> stoppedDelegationNodes,
+			ClusterHeadActors.SubtreeLock lock) {
+		
+		super(source, vNetwork, stoppedDelegationNodes, lock);
 	}
 	
 	@Override
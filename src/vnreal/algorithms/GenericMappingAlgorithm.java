@@ -36,6 +36,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import mulavito.algorithms.AbstractAlgorithmStatus;
+import vnreal.algorithms.utils.LpSession;
 import vnreal.constraints.demands.AbstractDemand;
 import vnreal.hiddenhopmapping.IHiddenHopMapping;
 import vnreal.network.Network;
@@ -64,6 +65,7 @@ public abstract class GenericMappingAlgorithm extends
 	protected AbstractNodeMapping nodeMappingAlgorithm;
 	protected AbstractLinkMapping linkMappingAlgorithm;
 	protected double startTime, runningTime;
+	private LpSession lpSession = null;
 
 	/**
 	 * The constructor initializes the variable and introduce to the virtual
@@ -153,22 +155,36 @@ public abstract class GenericMappingAlgorithm extends
 
 	/**
 	 * The postRun method counts the time spent by the algorithm to realize the
-	 * mapping.
+	 * mapping and closes the LP session of the run.
 	 */
 	@Override
 	protected void postRun() {
 		runningTime = (System.currentTimeMillis() - startTime) / 1000;
+		if (lpSession != null)
+			lpSession.close();
 	}
 
 	/**
-	 * The preRun method starts the time counter of the algorithm
+	 * The preRun method starts the time counter of the algorithm and opens
+	 * the LP session in which the node and link mappings of this run solve
+	 * their LPs.
 	 */
 	@Override
 	protected boolean preRun() {
 		startTime = System.currentTimeMillis();
+		if (lpSession != null)
+			lpSession.close();
+		lpSession = LpSession.open(ns.getSubstrate());
 		return true;
 	}
 
+	/**
+	 * @return The LP session of the last run, or <code>null</code>
+	 */
+	public LpSession getLpSession() {
+		return lpSession;
+	}
+
 	/**
 	 * getNext() method obtains the next virtual network request to be processed
 	 */
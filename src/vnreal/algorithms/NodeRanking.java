@@ -29,13 +29,16 @@ public class NodeRanking extends GenericMappingAlgorithm {
 	private static double DEFAULT_EPSILON = 0.0001;
 	private static int DEFAULT_KSP = 1;
 	private static boolean DEFAULT_EPPSTEIN = true;
+	private static boolean DEFAULT_TREE_YEN = false;
+	private static boolean DEFAULT_WARMSTART = false;
 	
 	public NodeRanking(AlgorithmParameter param) {
 		boolean nodeOverload = param.getBoolean("overload", DEFAULT_OVERLOAD);
 		int distance = param.getInteger("distance", DEFAULT_DIST);
 		double epsilon = param.getDouble("epsilon", DEFAULT_EPSILON);
+		boolean warmStart = param.getBoolean("warmStart", DEFAULT_WARMSTART);
 
-		this.nodeMappingAlgorithm = new NodeRankingBasedAlgorithm(nodeOverload, epsilon, distance);
+		this.nodeMappingAlgorithm = new NodeRankingBasedAlgorithm(nodeOverload, epsilon, distance, warmStart);
 		
 		if (param.getBoolean("PathSplitting", DEFAULT_PS)) {
 			double weightCpu = param.getDouble("weightCpu", DEFAULT_WCPU);
@@ -44,7 +47,8 @@ public class NodeRanking extends GenericMappingAlgorithm {
 		} else {
 			int k = param.getInteger("kShortestPath", DEFAULT_KSP);
 			boolean eppstein = param.getBoolean("eppstein", DEFAULT_EPPSTEIN);
-			this.linkMappingAlgorithm = new kShortestPathLinkMapping(k, eppstein);
+			boolean treeYen = param.getBoolean("treeYen", DEFAULT_TREE_YEN);
+			this.linkMappingAlgorithm = new kShortestPathLinkMapping(k, eppstein, treeYen);
 		}
 	}
 
@@ -1,139 +1,154 @@
 package vnreal.algorithms.distributedAlg;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 import mulavito.algorithms.AbstractAlgorithmStatus;
 import vnreal.algorithms.AbstractAlgorithm;
+import vnreal.algorithms.AlgorithmParameter;
 import vnreal.algorithms.distributedAlg.messages.BellmanFordMessage;
 import vnreal.algorithms.distributedAlg.messages.ImprovedMsgMessage;
 import vnreal.algorithms.distributedAlg.messages.Message;
 import vnreal.algorithms.distributedAlg.messages.MessageEnum;
 import vnreal.algorithms.distributedAlg.messages.MsgMessage;
-import vnreal.algorithms.distributedAlg.messages.NextMessage;
 import vnreal.algorithms.distributedAlg.messages.StartMessage;
 import vnreal.algorithms.distributedAlg.messages.StopMessage;
 import vnreal.algorithms.utils.SubgraphBasicVN.ResourceDemandEntry;
 import vnreal.algorithms.utils.SubgraphBasicVN.Utils;
 import vnreal.constraints.resources.AbstractResource;
 import vnreal.constraints.resources.CpuResource;
+import vnreal.network.IDSource;
 import vnreal.network.Network;
 import vnreal.network.NetworkStack;
-import vnreal.network.substrate.SubstrateLink;
 import vnreal.network.substrate.SubstrateNetwork;
 import vnreal.network.substrate.SubstrateNode;
 import vnreal.network.virtual.VirtualNetwork;
-import edu.uci.ics.jung.graph.util.Pair;
 
+/**
+ * Every run keeps its state in its own instance: the nodes, their messages
+ * and the counters read by the metrics in
+ * {@link vnreal.algorithms.distributedAlg.metriken} (see
+ * {@link MessageCounters}). Runs on different stacks can be executed
+ * concurrently.
+ */
 public class DistributedAlgorithm extends AbstractAlgorithm {
-	private static final int DEFAULT_ID = -1;
-	private static NetworkStack stack;
+	private static final int DEFAULT_ID = MessageBus.DEFAULT_ID;
+	private final NetworkStack stack;
 	private Iterator<VirtualNetwork> curIt = null;
 	private Iterator<? extends Network<?, ?, ?>> curNetIt = null;
 	
 	/**
-	 * List of the distributed nodes.
-	 */
-	public static LinkedList<DistributedNode> distributedNodes;
-	
-	/**
-	 * Number of sent messages.
-	 */
-	public static int numberOfMessages = 0;
-	
-	/**
-	 * Number of sent BellmanFordMessages.
+	 * If true, an improved version of the algorithm is being used.
 	 */
-	public static long numberOfBFMessages = 0;
+	private final boolean improvedAlgorithm;
 	
 	/**
-	 * Number of sent BellmanFordMessages during the first BellmanFord run.
+	 * Delivers the messages between the distributed nodes.
 	 */
-	public static int numberOfFirstBFMessages = 0;
+	private MessageBus bus;
 	
-	/**
-	 * Counts the BellmanFord runs.
-	 */
-	public static int bfRun = 0;
+	private MessageCounters counters = new MessageCounters();
 	
-	/**
-	 * Counts the created clusters.
-	 */
-	public static int clusterCounter = 0;
+	private static final boolean DEFAULT_IMPROVED = false;
+	private static final int DEFAULT_BF_THREADS = 0;
 	
 	/**
-	 * If true, an improved version of the algorithm is being used.
+	 * Number of threads executing the Bellman-Ford runs; 0 runs them in the
+	 * calling thread.
 	 */
-	public static boolean improvedAlgorithm = false;
+	private final int bfThreads;
 	
-	/**
-	 * If one message is sent over three links, the value is 3. If 
-	 * another message is sent over the same three links, the value is 6.
-	 */
-	public static int usedLinksForMessages = 0;
+	private ExecutorService bfPool = null;
 	
 	/**
-	 * Counts the nodes who are only forwarding and have no virtual nodes embedded.
+	 * A list of the demanded ressources.
 	 */
-	public static int nodesUsedSolelyForForwarding = 0;
-	
+	LinkedList<ResourceDemandEntry> demandedResources;
+
+	public DistributedAlgorithm(NetworkStack stack) {
+		this(stack, false);
+	}
+
+	public DistributedAlgorithm(NetworkStack stack, boolean improvedAlgorithm) {
+		this(stack, improvedAlgorithm, 0);
+	}
+
 	/**
-	 * Counts the number of sent Msg messages.
+	 * Reads the parameters "improved" and "bfThreads".
 	 */
-	public static int numberOfMsgMessages = 0;
-	
+	public DistributedAlgorithm(NetworkStack stack, AlgorithmParameter param) {
+		this(stack, param.getBoolean("improved", DEFAULT_IMPROVED), param
+				.getInteger("bfThreads", DEFAULT_BF_THREADS));
+	}
+
 	/**
-	 * Counts the number of Notify messages.
+	 * @param bfThreads
+	 *            If positive, the Bellman-Ford runs are executed by this
+	 *            number of threads, see {@link #bellmanFordRounds(double)}.
+	 *            0 runs them in the calling thread. Both give the same
+	 *            results.
 	 */
-	public static int numberOfNotifyMessages = 0;
-	
+	public DistributedAlgorithm(NetworkStack stack, boolean improvedAlgorithm,
+			int bfThreads) {
+		if (bfThreads < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.stack = stack;
+		this.improvedAlgorithm = improvedAlgorithm;
+		this.bfThreads = bfThreads;
+		this.curNetIt = stack.iterator();
+		this.curIt = null;
+	};
+
+	boolean isImprovedAlgorithm() {
+		return improvedAlgorithm;
+	}
+
 	/**
-	 * A list of the demanded ressources.
+	 * @return The distributed node with the given ID, or <code>null</code>.
 	 */
-	public static LinkedList<ResourceDemandEntry> demandedResources;
-	
+	DistributedNode getDistributedNode(long id) {
+		return bus.getNode(id);
+	}
+
 	/**
-	 * A list of the nodes who are sending messages.
+	 * @return The counters of the current or last run.
 	 */
-	public static LinkedList<SubstrateNode> nodesUsedForMsgSending = new LinkedList<SubstrateNode>();
-	
-	private static HashMap<Long, HashMap<Long, DistanceEntry>> shortestPaths = new HashMap<Long, HashMap<Long, DistanceEntry>>();
-
-	public DistributedAlgorithm(NetworkStack stack) {
-		DistributedAlgorithm.stack = stack;
-		this.curNetIt = stack.iterator();
-		this.curIt = null;
-	};
-	
-	public static void reset() {
-		resetMetricValues();
+	public MessageCounters getCounters() {
+		return counters;
 	}
 
 	@Override
 	protected void evaluate() {
 		SubstrateNetwork sNetwork = stack.getSubstrate();
 
-		distributedNodes = new LinkedList<DistributedNode>();
+		bus = new MessageBus(sNetwork, counters);
 
 		// create distributed nodes
 		for (SubstrateNode sNode : sNetwork.getVertices()) {
-			distributedNodes.add(new DistributedNode(sNode, sNetwork));
+			bus.register(new DistributedNode(this, sNode, sNetwork));
 		}
+		List<DistributedNode> distributedNodes = bus.getNodes();
+		counters.nodes = distributedNodes.size();
 		
 		bellmanFordAlgorithmus(-1.0);
 		
-		//save shortest paths in this class for sending the messages
-		for (DistributedNode sNode : distributedNodes) {
-			HashMap<Long, DistanceEntry> map = new HashMap<Long, DistanceEntry>();
-			
-			//copy hashmap
-			for (Long i : sNode.shortestKnownPath.keySet()) {
-				map.put(i, sNode.shortestKnownPath.get(i));
-			}
-			shortestPaths.put(sNode.getId(), map);
-		}
+		//save shortest paths for sending the messages
+		bus.saveShortestPaths();
 
 		// create Requests
 		LinkedList<Request> requests = new LinkedList<Request>();
@@ -147,7 +162,7 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 
 		boolean mappingFailed = false;
 		LinkedList<Boolean> mappingFails = new LinkedList<Boolean>();
-		clusterCounter = 0;
+		counters.clusterCounter = 0;
 		
 		for (Request r : requests) {
 			
@@ -159,8 +174,8 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 			
 			startMsg.add(new StartMessage(DEFAULT_ID, r,
 					getDistributedNodeIds(distributedNodes)));
-			sendMessages(startMsg);
-			clusterCounter++;
+			bus.send(startMsg);
+			counters.clusterCounter++;
 			
 			
 			if (!improvedAlgorithm) {
@@ -171,7 +186,7 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 							Utils.getCpuAvailable(dn.getNode()), 
 							getDistributedNodeIds(distributedNodes)));
 				}
-				sendMessages(msgMsg);
+				bus.send(msgMsg);
 			} else {
 				//for the check root procedure every node sends his capacity
 				//and the bandwidth of his direct links to all other nodes
@@ -181,7 +196,7 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 							Utils.getCpuAvailable(dn.getNode()),
 							getDistributedNodeIds(distributedNodes)));
 				}
-				sendMessages(msgMsg);
+				bus.send(msgMsg);
 			}
 
 			boolean stop = false;
@@ -204,7 +219,7 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 					if (!mappingFailed) {
 						msgsToSend = n.action();
 						msgs = msgs + msgsToSend.size();
-						sendMessages(msgsToSend);
+						bus.send(msgsToSend);
 	
 						for (Message m : msgsToSend) {
 							if (m.getMessageType() == MessageEnum.STOP) {
@@ -239,7 +254,7 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 		}
 		
 		
-		for (SubstrateNode sn : nodesUsedForMsgSending) {
+		for (SubstrateNode sn : bus.getNodesUsedForMsgSending()) {
 			double cpu = 0;
 			for (AbstractResource res : sn.get()) {
 				if (res instanceof CpuResource) {
@@ -248,7 +263,7 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 			}
 			
 			if (cpu == Utils.getCpuAvailable(sn)) {
-				nodesUsedSolelyForForwarding++;
+				counters.nodesUsedSolelyForForwarding++;
 			}
 		}
 		
@@ -257,122 +272,39 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 			System.out.print(b + " ");
 		}
 		System.out.println();
-		System.out.println("BellmanFord-Durchliauufe: " + bfRun);
-		System.out.println("NormalMessages: " + numberOfMessages + " (" + numberOfMsgMessages + " MsgMsgs) ");
-		System.out.println("BfMessages: " + numberOfBFMessages + " (" + numberOfFirstBFMessages + " first BF)");
-		System.out.println("Bf-Messages per Run: " + numberOfBFMessages / bfRun);
-		System.out.println("Msgs received/sent: " + getMsgsReceivedPerNode() + "/" + getMsgsSentPerNode());
-	}
-
-	private static void sendMessages(LinkedList<Message> msgToSend) {
-		for (Message m : msgToSend) {
-			
-			for (DistributedNode n2 : distributedNodes) {
-
-				// check which node receives which message
-				for (Long receiver : m.getReceiverIds()) {
-					if ((long) receiver == n2.getId()) {
-						
-						n2.addMessageToReceive(m);
-						
-						if (m.getSender() != DEFAULT_ID && n2.getId() != m.getSender()) {
-							DistanceEntry entry = shortestPaths.get(n2.getId()).get(m.getSender());
-							if (entry == null) {
-								System.out.println("Node " + n2.getId() + " weiss nich wie er zu " + m.getSender() + " schickn soll");
-							}
-							
-							if (m.getMessageType() == MessageEnum.MSG) {
-								//numberOfMsgMessages = numberOfMsgMessages + entry.getPath().size();
-								numberOfMsgMessages++;
-							} else if (m.getMessageType() == MessageEnum.NOTIFY) {
-								numberOfNotifyMessages++;
-							} else if (m.getMessageType() == MessageEnum.NEXT) {
-								NextMessage next = (NextMessage) m;
-								if (next.isNodeToEmbed()) {
-									clusterCounter++;
-								}
-							}
-							
-							
-							//numberOfMessages = numberOfMessages + entry.getPath().size();
-							numberOfMessages++;
-							if (entry != null) {
-								usedLinksForMessages = usedLinksForMessages + entry.getPath().size();
-
-								for (SubstrateLink l : entry.getPath()) {
-									Pair<SubstrateNode> p = stack.getSubstrate().getEndpoints(l);
-									if (!nodesUsedForMsgSending.contains(p.getFirst()) 
-											&& p.getFirst().getId() != m.getSender()
-											&& p.getFirst().getId() != receiver) {
-										nodesUsedForMsgSending.add(p.getFirst());
-									}
-									if (!nodesUsedForMsgSending.contains(p.getSecond())
-											&& p.getSecond().getId() != m.getSender()
-											&& p.getSecond().getId() != receiver) {
-										nodesUsedForMsgSending.add(p.getSecond());
-									}
-								}
-							}
-							
-							
-							/*
-							DistanceEntry entry = n2.shortestKnownPath.get(m.getSender());
-							
-							if (entry == null) {
-								System.out.println(n2.getId() + " -> " + m.getSender());
-								System.out.println(stack.getSubstrate());
-							}*/
-						}
-					}
-				}
-			}
-		}
-	}
-	
-	private static void sendBFMessages(LinkedList<BellmanFordMessage> msgToSend) {
-		for (BellmanFordMessage m : msgToSend) {
-			
-			for (DistributedNode n2 : distributedNodes) {
-
-				// check which node receives which message
-				for (Long i : m.getReceiverIds()) {
-					if ((long) i == n2.getId()) {
-						n2.addBellmannFordMessagesToReceive(m);
-						
-						BellmanFordMessage bf = (BellmanFordMessage) m;
-						
-						if (bf.getMinimumBandwidthRequired() != -1) {
-							numberOfBFMessages++;
-						} else {
-							numberOfFirstBFMessages++;
-						}
-					}
-				}
-			}
-		}
+		System.out.println("BellmanFord-Durchliauufe: " + counters.bfRun);
+		System.out.println("NormalMessages: " + counters.numberOfMessages + " (" + counters.numberOfMsgMessages + " MsgMsgs) ");
+		System.out.println("BfMessages: " + counters.numberOfBFMessages + " (" + counters.numberOfFirstBFMessages + " first BF)");
+		System.out.println("Bf-Messages per Run: " + counters.numberOfBFMessages / counters.bfRun);
+		System.out.println("Msgs received/sent: " + counters.getMsgsReceivedPerNode() + "/" + counters.getMsgsSentPerNode());
 	}
 
 	/**
 	 * Starts the distributed Bellman-Ford algorithm.
 	 * @param minimumBandwidth
 	 */
-	public static void bellmanFordAlgorithmus(double minimumBandwidth) {
-		bfRun++;
+	void bellmanFordAlgorithmus(double minimumBandwidth) {
+		counters.bfRun++;
+		
+		if (bfThreads > 0) {
+			bellmanFordRounds(minimumBandwidth);
+			return;
+		}
 		
 		LinkedList<BellmanFordMessage> msgsToSend = new LinkedList<BellmanFordMessage>();
-		for (DistributedNode n : distributedNodes) {
+		for (DistributedNode n : bus.getNodes()) {
 			msgsToSend.add(n.getFirstBFMessage(minimumBandwidth));
 		}
-		sendBFMessages(msgsToSend);
+		bus.sendBF(msgsToSend);
 		
 		boolean stop = false;
 		
 		while (!stop) {
 			int sending = 0;
 			
-			for (DistributedNode n : distributedNodes) {
+			for (DistributedNode n : bus.getNodes()) {
 				msgsToSend = n.bellmannFord();
-				sendBFMessages(msgsToSend);
+				bus.sendBF(msgsToSend);
 				
 				if (msgsToSend.size() != 0) {
 					sending++;
@@ -388,6 +320,300 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 		
 	}
 	
+	/**
+	 * Parallel variant of the Bellman-Ford run which follows the serial
+	 * schedule exactly. In sweep k of the serial schedule, a node processes
+	 * the messages its neighbors with a higher index sent in sweep k - 1 and
+	 * then those its neighbors with a lower index sent in sweep k, each in the
+	 * order of the senders. A node can therefore run sweep k as soon as these
+	 * neighbors are done, no matter how far the other nodes are.
+	 * 
+	 * The nodes are split into contiguous blocks, one per thread. Every thread
+	 * runs the sweeps of its block in the order of the nodes and only waits
+	 * for neighbors in other blocks, so the sweeps of different blocks
+	 * overlap. Each node takes its messages from the outboxes of its
+	 * neighbors in the serial order. The paths, the messages and the counters
+	 * are the same as in the serial schedule, independent of the number of
+	 * threads.
+	 */
+	private void bellmanFordRounds(double minimumBandwidth) {
+		List<DistributedNode> nodes = bus.getNodes();
+		if (nodes.isEmpty()) {
+			return;
+		}
+
+		BellmanFordSchedule schedule = new BellmanFordSchedule(bus,
+				stack.getSubstrate(), minimumBandwidth, Math.min(bfThreads,
+						nodes.size()));
+		ExecutorService pool = getBfPool();
+		List<Future<?>> blocks = new ArrayList<Future<?>>();
+		for (int b = 0; b < schedule.getBlocks(); b++) {
+			blocks.add(pool.submit(schedule.block(b)));
+		}
+
+		boolean interrupted = false;
+		for (Future<?> block : blocks) {
+			while (true) {
+				try {
+					block.get();
+					break;
+				} catch (InterruptedException e) {
+					// The blocks use the nodes, so wait for them anyway
+					interrupted = true;
+					schedule.abort(e);
+				} catch (ExecutionException e) {
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (schedule.getFailure() != null) {
+			throw new RuntimeException("Bellman-Ford run failed",
+					schedule.getFailure());
+		}
+
+		counters.numberOfBFMessages += schedule.getBFMessages();
+		counters.numberOfFirstBFMessages += schedule.getFirstBFMessages();
+	}
+
+	private synchronized ExecutorService getBfPool() {
+		if (bfPool == null) {
+			// Blocks wait for each other, so every block needs its own thread
+			bfPool = Executors.newFixedThreadPool(bfThreads);
+		}
+		return bfPool;
+	}
+
+	/**
+	 * The state shared by the threads of one parallel Bellman-Ford run, see
+	 * {@link DistributedAlgorithm#bellmanFordRounds(double)}.
+	 * 
+	 * Node i may run sweep k once its neighbors with a lower index are done
+	 * with sweep k and those with a higher index are done with sweep k - 1.
+	 * Hence a node is at most one sweep ahead of a neighbor, and every node
+	 * keeps the outboxes of its last two sweeps. Sweep 0 sends the first
+	 * messages, which every node processes in sweep 1.
+	 * 
+	 * The run ends with the first sweep in which no node sends. Every later
+	 * sweep would neither receive nor send anything, so a thread may start
+	 * sweep k before knowing the outcome of sweep k - 1, but checks sweep
+	 * k - 2 first.
+	 */
+	private static final class BellmanFordSchedule {
+		private final List<DistributedNode> nodes;
+		private final double minimumBandwidth;
+		private final MessageBus bus;
+		/** The indices of the neighbors of every node in ascending order */
+		private final int[][] senders;
+		/** The first node of every block, followed by the number of nodes */
+		private final int[] blockStarts;
+		/** The outboxes of the even and odd sweeps */
+		private final List<?>[][] outboxes;
+		/** The last sweep every node is done with */
+		private final AtomicIntegerArray done;
+		private final ConcurrentHashMap<Integer, AtomicInteger> sending = new ConcurrentHashMap<Integer, AtomicInteger>();
+		private final AtomicLong bfMessages = new AtomicLong();
+		private final AtomicLong firstBFMessages = new AtomicLong();
+		private volatile Throwable failure = null;
+		// Pooled threads do not know the ID scope of the run
+		private final IDSource scope = IDSource.current();
+
+		BellmanFordSchedule(MessageBus bus, SubstrateNetwork sNetwork,
+				double minimumBandwidth, int blocks) {
+			this.bus = bus;
+			this.nodes = bus.getNodes();
+			this.minimumBandwidth = minimumBandwidth;
+
+			int n = nodes.size();
+			Map<Long, Integer> index = new HashMap<Long, Integer>();
+			for (int i = 0; i < n; i++) {
+				index.put(nodes.get(i).getId(), i);
+			}
+			senders = new int[n][];
+			for (int i = 0; i < n; i++) {
+				DistributedNode node = nodes.get(i);
+				List<Integer> neighbors = new ArrayList<Integer>();
+				for (SubstrateNode s : sNetwork.getNeighbors(node.getNode())) {
+					Integer j = index.get(s.getId());
+					if (j != null) {
+						neighbors.add(j);
+					}
+				}
+				Collections.sort(neighbors);
+				senders[i] = new int[neighbors.size()];
+				for (int j = 0; j < senders[i].length; j++) {
+					senders[i][j] = neighbors.get(j);
+				}
+			}
+
+			blockStarts = new int[blocks + 1];
+			for (int b = 0; b <= blocks; b++) {
+				blockStarts[b] = (int) ((long) n * b / blocks);
+			}
+			outboxes = new List<?>[2][n];
+			done = new AtomicIntegerArray(n);
+			for (int i = 0; i < n; i++) {
+				done.set(i, -1);
+			}
+		}
+
+		int getBlocks() {
+			return blockStarts.length - 1;
+		}
+
+		long getBFMessages() {
+			return bfMessages.get();
+		}
+
+		int getFirstBFMessages() {
+			return (int) firstBFMessages.get();
+		}
+
+		Throwable getFailure() {
+			return failure;
+		}
+
+		synchronized void abort(Throwable t) {
+			if (failure == null) {
+				failure = t;
+			}
+		}
+
+		Runnable block(final int b) {
+			return new Runnable() {
+				@Override
+				public void run() {
+					IDSource previous = IDSource.bind(scope);
+					try {
+						runBlock(blockStarts[b], blockStarts[b + 1]);
+					} catch (Throwable t) {
+						abort(t);
+					} finally {
+						IDSource.bind(previous);
+					}
+				}
+			};
+		}
+
+		private void runBlock(int from, int to) {
+			long[] counts = new long[2];
+
+			for (int i = from; i < to; i++) {
+				List<BellmanFordMessage> out = Collections.singletonList(nodes
+						.get(i).getFirstBFMessage(minimumBandwidth));
+				count(out, counts);
+				outboxes[0][i] = out;
+				done.set(i, 0);
+			}
+
+			for (int k = 1;; k++) {
+				if (k >= 3) {
+					awaitSweep(k - 2);
+					if (getSending(k - 2).get() == 0) {
+						break;
+					}
+				}
+
+				for (int i = from; i < to; i++) {
+					awaitNeighbors(i, k);
+
+					DistributedNode node = nodes.get(i);
+					// Messages sent since the previous sweep of this node, in
+					// the order of the serial schedule
+					for (int j : senders[i]) {
+						if (k == 1 || j >= i) {
+							receive(node, outbox(j, k - 1));
+						}
+					}
+					for (int j : senders[i]) {
+						if (j < i) {
+							receive(node, outbox(j, k));
+						}
+					}
+
+					List<BellmanFordMessage> out = node.bellmannFord();
+					count(out, counts);
+					outboxes[k & 1][i] = out;
+					if (!out.isEmpty()) {
+						getSending(k).incrementAndGet();
+					}
+					done.set(i, k);
+				}
+			}
+
+			bfMessages.addAndGet(counts[0]);
+			firstBFMessages.addAndGet(counts[1]);
+		}
+
+		@SuppressWarnings("unchecked")
+		private List<BellmanFordMessage> outbox(int i, int sweep) {
+			return (List<BellmanFordMessage>) outboxes[sweep & 1][i];
+		}
+
+		private void receive(DistributedNode node, List<BellmanFordMessage> msgs) {
+			for (BellmanFordMessage m : msgs) {
+				for (Long receiver : m.getReceiverIds()) {
+					if (receiver == node.getId()) {
+						node.addBellmannFordMessagesToReceive(m);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Counts the messages like {@link MessageBus#sendBF(List)}.
+		 */
+		private void count(List<BellmanFordMessage> msgs, long[] counts) {
+			for (BellmanFordMessage m : msgs) {
+				for (Long receiver : m.getReceiverIds()) {
+					if (bus.getNode(receiver) == null) {
+						continue;
+					}
+					if (m.getMinimumBandwidthRequired() != -1) {
+						counts[0]++;
+					} else {
+						counts[1]++;
+					}
+				}
+			}
+		}
+
+		private AtomicInteger getSending(int sweep) {
+			AtomicInteger s = sending.get(sweep);
+			if (s == null) {
+				AtomicInteger created = new AtomicInteger();
+				s = sending.putIfAbsent(sweep, created);
+				if (s == null) {
+					s = created;
+				}
+			}
+			return s;
+		}
+
+		private void awaitNeighbors(int i, int sweep) {
+			for (int j : senders[i]) {
+				await(j, j < i ? sweep : sweep - 1);
+			}
+		}
+
+		private void awaitSweep(int sweep) {
+			for (int i = 0; i < nodes.size(); i++) {
+				await(i, sweep);
+			}
+		}
+
+		private void await(int i, int sweep) {
+			while (done.get(i) < sweep) {
+				if (failure != null) {
+					throw new CancellationException();
+				}
+				Thread.yield();
+			}
+		}
+	}
+	
 	@Override
 	public List<AbstractAlgorithmStatus> getStati() {
 		return null;
@@ -395,13 +621,17 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 
 	@Override
 	protected boolean preRun() {
-		resetMetricValues();
+		counters = new MessageCounters();
+		MessageCounters.register(stack, counters);
 		return true;
 	}
 
 	@Override
 	protected void postRun() {
-		return;
+		if (bfPool != null) {
+			bfPool.shutdown();
+			bfPool = null;
+		}
 	}
 
 	protected VirtualNetwork getNext() {
@@ -429,7 +659,7 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 	}
 
 	private LinkedList<Long> getDistributedNodeIds(
-			LinkedList<DistributedNode> nodes) {
+			List<DistributedNode> nodes) {
 		LinkedList<Long> ids = new LinkedList<Long>();
 		
 		for (DistributedNode n : nodes) {
@@ -437,39 +667,5 @@ public class DistributedAlgorithm extends AbstractAlgorithm {
 		}
 		return ids;
 	}
-	
-	/**
-	 * Returns the amount of sent messages.
-	 * @return The amount of sent messages.
-	 */
-	public static double getMsgsSentPerNode() {
-		//size added cause of msg message
-		return (numberOfMessages + distributedNodes.size()) / distributedNodes.size();
-	}
-	
-	/**
-	 * Returns the amount of received messages.
-	 * @return The amount of received messages.
-	 */
-	public static double getMsgsReceivedPerNode() {
-		double received = 0;
-		for (DistributedNode n : distributedNodes) {
-			received = received + n.receivedMsgsCounter;
-		}
-		
-		return received / distributedNodes.size();
-	}
-	
-	private static void resetMetricValues() {
-		numberOfBFMessages = 0;
-		numberOfMessages = 0;
-		bfRun = 0;
-		usedLinksForMessages = 0;
-		nodesUsedSolelyForForwarding = 0;
-		numberOfMsgMessages = 0;
-		numberOfNotifyMessages = 0;
-		nodesUsedForMsgSending = new LinkedList<SubstrateNode>();
-		clusterCounter = 0;
-	}
 
 }
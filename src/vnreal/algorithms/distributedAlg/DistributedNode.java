@@ -47,7 +47,11 @@ public class DistributedNode {
 	private boolean updatePathsOften = true;
 	private boolean debug = true;
 
-	DistributedNode(SubstrateNode node, SubstrateNetwork subNetwork) {
+	private final DistributedAlgorithm algorithm;
+
+	DistributedNode(DistributedAlgorithm algorithm, SubstrateNode node,
+			SubstrateNetwork subNetwork) {
+		this.algorithm = algorithm;
 		this.node = node;
 		this.subNetwork = subNetwork;
 		for (SubstrateNode sn : subNetwork.getVertices()) {
@@ -66,6 +70,7 @@ public class DistributedNode {
 		msgToSend = new LinkedList<Message>();
 
 		receivedMsgsCounter = receivedMsgsCounter + receivedMessages.size();
+		algorithm.getCounters().receivedMessages += receivedMessages.size();
 		
 		for (Message m : receivedMessages) {
 			if (m.getMessageType() == MessageEnum.STOP) {
@@ -131,12 +136,8 @@ public class DistributedNode {
 		bfMsgToSend = new LinkedList<BellmanFordMessage>();
 		for (BellmanFordMessage m : bfMessages) {
 
-			SubstrateNode sender = null;
-			for (SubstrateNode n : allSubstrateNodes) {
-				if (m.getSender() == n.getId()) {
-					sender = n;
-				}
-			}
+			DistributedNode senderNode = algorithm.getDistributedNode(m.getSender());
+			SubstrateNode sender = senderNode == null ? null : senderNode.getNode();
 
 			if (sender == null) {
 				System.out.println("Sender-Id " + m.getSender() + " unbekannt");
@@ -225,7 +226,7 @@ public class DistributedNode {
 		SubstrateNode subHub = subNodesWithEnoughCapacity.get(0);
 		
 		
-		if (DistributedAlgorithm.improvedAlgorithm) {
+		if (algorithm.isImprovedAlgorithm()) {
 			subHub = getNextHub(request);
 			if (subHub == null) {
 				if (debug) {
@@ -272,7 +273,7 @@ public class DistributedNode {
 			if (request.getVirtualNodesToEmbed().size() > 0) {
 				sortSubNodesAccordingToCapacity(request.getSubNodesWithoutEmbeddedVirtNodes());
 				
-				if (!DistributedAlgorithm.improvedAlgorithm) {		
+				if (!algorithm.isImprovedAlgorithm()) {		
 					messagesToSend.add(new NextMessage(this.getId(), 
 							request.getRequestId(), true, 
 							getIdList(request.getSubNodesWithoutEmbeddedVirtNodes().firstElement())));
@@ -443,7 +444,7 @@ public class DistributedNode {
 			sortSubNodesAccordingToCapacity(request.getSubNodesWithoutEmbeddedVirtNodes());
 			
 			if (request.getVirtualNodesToEmbed().size() > 0) {
-				if (!DistributedAlgorithm.improvedAlgorithm) {		
+				if (!algorithm.isImprovedAlgorithm()) {		
 					messagesToSend.add(new NextMessage(this.getId(), 
 							request.getRequestId(), true, 
 							getIdList(request.getSubNodesWithoutEmbeddedVirtNodes().firstElement())));
@@ -476,7 +477,7 @@ public class DistributedNode {
 					
 					if (request.getVirtualLinksToEmbed().contains(toMap)) {
 	
-						DistributedAlgorithm.bellmanFordAlgorithmus(Utils
+						algorithm.bellmanFordAlgorithmus(Utils
 								.getBandwidthDemand(toMap));
 	
 						if (shortestKnownPath.get(subNeighbor.getId()) == null) {
@@ -672,7 +673,7 @@ public class DistributedNode {
 			}
 		}
 
-		DistributedAlgorithm.bellmanFordAlgorithmus(maximalBandwidthDemand);
+		algorithm.bellmanFordAlgorithmus(maximalBandwidthDemand);
 
 		for (SubstrateNode subNode : request
 				.getSubNodesWithoutEmbeddedVirtNodes()) {
@@ -730,7 +731,7 @@ public class DistributedNode {
 		LinkedList<Message> msgToSend = new LinkedList<Message>();
 
 		if (Utils.fulfills(this.node, hub)) {
-			DistributedAlgorithm.demandedResources.addAll(Utils
+			algorithm.demandedResources.addAll(Utils
 					.occupyResources(hub.get(), this.node.get()));
 		} else {
 			System.out.println("Dieser Knoten hat nicht genug CPU fuer Hub! "
@@ -779,7 +780,7 @@ public class DistributedNode {
 			}
 
 			if (Utils.fulfills(subSpokes.get(0), spokes.get(0))) {
-				DistributedAlgorithm.demandedResources.addAll(Utils
+				algorithm.demandedResources.addAll(Utils
 						.occupyResources(spokes.get(0).get(), subSpokes.get(0).get()));
 			} else {
 				System.out
@@ -1036,9 +1037,9 @@ public class DistributedNode {
 		VirtualLink vl2ToEmbed = findDirectPathInVirt(v1, v2, vn, false);
 
 		if (Utils.fulfills(path, vl1ToEmbed.get())) {
-			DistributedAlgorithm.demandedResources.addAll(Utils
+			algorithm.demandedResources.addAll(Utils
 					.occupyPathResources(vl1ToEmbed, path, subNetwork));
-//			DistributedAlgorithm.demandedResources.addAll(Utils
+//			algorithm.demandedResources.addAll(Utils
 //					.occupyPathResources(vl2ToEmbed, reversedPath, subNetwork, false));
 		} else {
 			System.out.println("link doesn't fulfill demands");
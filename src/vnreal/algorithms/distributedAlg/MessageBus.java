@@ -0,0 +1,154 @@
+package vnreal.algorithms.distributedAlg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import vnreal.algorithms.distributedAlg.messages.BellmanFordMessage;
+import vnreal.algorithms.distributedAlg.messages.Message;
+import vnreal.algorithms.distributedAlg.messages.MessageEnum;
+import vnreal.algorithms.distributedAlg.messages.NextMessage;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * Delivers the messages of one run of the {@link DistributedAlgorithm} to the
+ * inboxes of the distributed nodes and counts them.
+ *
+ * Receivers are looked up by their ID in constant time. Messages are
+ * delivered synchronously in the order they are sent, so every node sees its
+ * messages in sending order.
+ *
+ * @since 2015-06-15
+ */
+final class MessageBus {
+	static final int DEFAULT_ID = -1;
+
+	private final SubstrateNetwork sNetwork;
+	private final MessageCounters counters;
+	private final List<DistributedNode> nodes = new ArrayList<DistributedNode>();
+	private final Map<Long, DistributedNode> nodeIds = new HashMap<Long, DistributedNode>();
+	private final Map<Long, Map<Long, DistanceEntry>> shortestPaths = new HashMap<Long, Map<Long, DistanceEntry>>();
+	private final Set<SubstrateNode> nodesUsedForMsgSending = new LinkedHashSet<SubstrateNode>();
+
+	MessageBus(SubstrateNetwork sNetwork, MessageCounters counters) {
+		this.sNetwork = sNetwork;
+		this.counters = counters;
+	}
+
+	void register(DistributedNode node) {
+		nodes.add(node);
+		nodeIds.put(node.getId(), node);
+	}
+
+	/**
+	 * @return All registered nodes in the order of registration.
+	 */
+	List<DistributedNode> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * @return The node with the given ID, or <code>null</code>.
+	 */
+	DistributedNode getNode(long id) {
+		return nodeIds.get(id);
+	}
+
+	/**
+	 * @return The substrate nodes which forwarded at least one message
+	 *         between two other nodes.
+	 */
+	Set<SubstrateNode> getNodesUsedForMsgSending() {
+		return nodesUsedForMsgSending;
+	}
+
+	/**
+	 * Save the shortest paths currently known by the nodes; they are used to
+	 * count the links a message is sent over.
+	 */
+	void saveShortestPaths() {
+		for (DistributedNode n : nodes) {
+			shortestPaths.put(n.getId(), new HashMap<Long, DistanceEntry>(
+					n.shortestKnownPath));
+		}
+	}
+
+	void send(List<? extends Message> msgToSend) {
+		for (Message m : msgToSend) {
+			for (Long receiver : m.getReceiverIds()) {
+				DistributedNode n2 = nodeIds.get(receiver);
+				if (n2 == null) {
+					continue;
+				}
+
+				n2.addMessageToReceive(m);
+
+				if (m.getSender() != DEFAULT_ID && n2.getId() != m.getSender()) {
+					count(m, n2, receiver);
+				}
+			}
+		}
+	}
+
+	private void count(Message m, DistributedNode n2, long receiver) {
+		Map<Long, DistanceEntry> paths = shortestPaths.get(n2.getId());
+		DistanceEntry entry = paths == null ? null : paths.get(m.getSender());
+		if (entry == null) {
+			System.out.println("Node " + n2.getId() + " weiss nich wie er zu " + m.getSender() + " schickn soll");
+		}
+
+		if (m.getMessageType() == MessageEnum.MSG) {
+			counters.numberOfMsgMessages++;
+		} else if (m.getMessageType() == MessageEnum.NOTIFY) {
+			counters.numberOfNotifyMessages++;
+		} else if (m.getMessageType() == MessageEnum.NEXT) {
+			NextMessage next = (NextMessage) m;
+			if (next.isNodeToEmbed()) {
+				counters.clusterCounter++;
+			}
+		}
+
+		counters.numberOfMessages++;
+		if (entry != null) {
+			counters.usedLinksForMessages = counters.usedLinksForMessages + entry.getPath().size();
+
+			for (SubstrateLink l : entry.getPath()) {
+				Pair<SubstrateNode> p = sNetwork.getEndpoints(l);
+				if (p.getFirst().getId() != m.getSender()
+						&& p.getFirst().getId() != receiver) {
+					nodesUsedForMsgSending.add(p.getFirst());
+				}
+				if (p.getSecond().getId() != m.getSender()
+						&& p.getSecond().getId() != receiver) {
+					nodesUsedForMsgSending.add(p.getSecond());
+				}
+			}
+		}
+	}
+
+	void sendBF(List<BellmanFordMessage> msgToSend) {
+		for (BellmanFordMessage m : msgToSend) {
+			for (Long receiver : m.getReceiverIds()) {
+				DistributedNode n2 = nodeIds.get(receiver);
+				if (n2 == null) {
+					continue;
+				}
+
+				n2.addBellmannFordMessagesToReceive(m);
+
+				if (m.getMinimumBandwidthRequired() != -1) {
+					counters.numberOfBFMessages++;
+				} else {
+					counters.numberOfFirstBFMessages++;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package vnreal.algorithms.distributedAlg;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import vnreal.network.NetworkStack;
+
+/**
+ * The message counters of a single run of the {@link DistributedAlgorithm}.
+ *
+ * The counters of the last run on a stack can be looked up with
+ * {@link #of(NetworkStack)}, which is what the metrics in
+ * {@link vnreal.algorithms.distributedAlg.metriken} do. Several runs on
+ * different stacks can therefore be executed concurrently.
+ *
+ * @since 2015-06-15
+ */
+public final class MessageCounters {
+	private static final Map<NetworkStack, MessageCounters> runs = new WeakHashMap<NetworkStack, MessageCounters>();
+
+	/**
+	 * Number of sent messages.
+	 */
+	public int numberOfMessages = 0;
+
+	/**
+	 * Number of sent BellmanFordMessages.
+	 */
+	public long numberOfBFMessages = 0;
+
+	/**
+	 * Number of sent BellmanFordMessages during the first BellmanFord run.
+	 */
+	public int numberOfFirstBFMessages = 0;
+
+	/**
+	 * Counts the BellmanFord runs.
+	 */
+	public int bfRun = 0;
+
+	/**
+	 * Counts the created clusters.
+	 */
+	public int clusterCounter = 0;
+
+	/**
+	 * If one message is sent over three links, the value is 3. If another
+	 * message is sent over the same three links, the value is 6.
+	 */
+	public int usedLinksForMessages = 0;
+
+	/**
+	 * Counts the nodes who are only forwarding and have no virtual nodes
+	 * embedded.
+	 */
+	public int nodesUsedSolelyForForwarding = 0;
+
+	/**
+	 * Counts the number of sent Msg messages.
+	 */
+	public int numberOfMsgMessages = 0;
+
+	/**
+	 * Counts the number of Notify messages.
+	 */
+	public int numberOfNotifyMessages = 0;
+
+	/**
+	 * Number of distributed nodes.
+	 */
+	public int nodes = 0;
+
+	/**
+	 * Number of messages processed by all distributed nodes.
+	 */
+	public long receivedMessages = 0;
+
+	/**
+	 * Register the counters of a new run on the given stack, replacing those
+	 * of a previous run.
+	 */
+	static synchronized void register(NetworkStack stack,
+			MessageCounters counters) {
+		runs.put(stack, counters);
+	}
+
+	/**
+	 * @return The counters of the last run on the given stack, or empty
+	 *         counters if the algorithm has not been run on it.
+	 */
+	public static synchronized MessageCounters of(NetworkStack stack) {
+		MessageCounters counters = runs.get(stack);
+		return counters == null ? new MessageCounters() : counters;
+	}
+
+	/**
+	 * Returns the amount of sent messages.
+	 * @return The amount of sent messages.
+	 */
+	public double getMsgsSentPerNode() {
+		if (nodes == 0)
+			return 0.0;
+		//size added cause of msg message
+		return (numberOfMessages + nodes) / nodes;
+	}
+
+	/**
+	 * Returns the amount of received messages.
+	 * @return The amount of received messages.
+	 */
+	public double getMsgsReceivedPerNode() {
+		if (nodes == 0)
+			return 0.0;
+		return (double) receivedMessages / nodes;
+	}
+}
@@ -1,13 +1,13 @@
 package vnreal.algorithms.distributedAlg.metriken;
 
-import vnreal.algorithms.distributedAlg.DistributedAlgorithm;
+import vnreal.algorithms.distributedAlg.MessageCounters;
 import vnreal.evaluations.metrics.EvaluationMetric;
 import vnreal.network.NetworkStack;
 
 public class AverageMsgsReceivedPerNode implements EvaluationMetric<NetworkStack> {
 	
 	public double calculate(NetworkStack stack) {
-		return DistributedAlgorithm.getMsgsReceivedPerNode();
+		return MessageCounters.of(stack).getMsgsReceivedPerNode();
 	}
 	
 	public String toString() {
@@ -1,12 +1,12 @@
 package vnreal.algorithms.distributedAlg.metriken;
 
-import vnreal.algorithms.distributedAlg.DistributedAlgorithm;
+import vnreal.algorithms.distributedAlg.MessageCounters;
 import vnreal.evaluations.metrics.EvaluationMetric;
 import vnreal.network.NetworkStack;
 
 public class BFMessageCounter implements EvaluationMetric<NetworkStack> {
 	public double calculate(NetworkStack stack) {
-		return (double) (DistributedAlgorithm.numberOfBFMessages);
+		return (double) (MessageCounters.of(stack).numberOfBFMessages);
 	}
 	
 	public String toString() {
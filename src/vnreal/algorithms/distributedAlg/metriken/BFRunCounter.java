@@ -1,12 +1,12 @@
 package vnreal.algorithms.distributedAlg.metriken;
 
-import vnreal.algorithms.distributedAlg.DistributedAlgorithm;
+import vnreal.algorithms.distributedAlg.MessageCounters;
 import vnreal.evaluations.metrics.EvaluationMetric;
 import vnreal.network.NetworkStack;
 
 public class BFRunCounter implements EvaluationMetric<NetworkStack> {
 	public double calculate(NetworkStack stack) {
-		return DistributedAlgorithm.bfRun;
+		return MessageCounters.of(stack).bfRun;
 	}
 	
 	public String toString() {
@@ -1,12 +1,12 @@
 package vnreal.algorithms.distributedAlg.metriken;
 
-import vnreal.algorithms.distributedAlg.DistributedAlgorithm;
+import vnreal.algorithms.distributedAlg.MessageCounters;
 import vnreal.evaluations.metrics.EvaluationMetric;
 import vnreal.network.NetworkStack;
 
 public class ClusterCounter implements EvaluationMetric<NetworkStack> {
 	public double calculate(NetworkStack stack) {
-		return DistributedAlgorithm.clusterCounter;
+		return MessageCounters.of(stack).clusterCounter;
 	}
 	
 	public String toString() {
@@ -40,12 +40,26 @@ public class OptimalMappingAlgorithmMappingResult {
 
 	public NodeLinkMapping mapping;
 	public Collection<ResourceDemandEntry> resources;
+	/**
+	 * The number of power resources switched on by all virtual networks of
+	 * the mapping. Only computed by the bounded search.
+	 */
+	public int addedPower;
 
 	public OptimalMappingAlgorithmMappingResult(
 			NodeLinkMapping mapping,
 			Collection<ResourceDemandEntry> resources) {
 
+		this(mapping, resources, 0);
+	}
+
+	public OptimalMappingAlgorithmMappingResult(
+			NodeLinkMapping mapping,
+			Collection<ResourceDemandEntry> resources,
+			int addedPower) {
+
 		this.mapping = mapping;
 		this.resources = resources;
+		this.addedPower = addedPower;
 	}
 }
@@ -31,12 +31,16 @@
  * ***** END LICENSE BLOCK ***** */
 package vnreal.algorithms.energy.optimal;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
 
 import mulavito.algorithms.AbstractAlgorithmStatus;
 
@@ -77,23 +81,66 @@ public class OptimalMappingsAlgorithm extends AbstractAlgorithm {
 
 	private List<OptimalMappingAlgorithmMappingResult> computedMappingResults = null;
 
+	// bounded search, 0 for the exhaustive one
+	private final int beamWidth;
+	private final long timeLimit;
+	private long deadline;
+	private boolean timedOut = false;
+
 	/**
 	 * @param allowMultipleMappings
 	 *            allow mapping to the same sn multiple times?
 	 */
 	public OptimalMappingsAlgorithm(NetworkStack stack,
 			boolean allowMultipleMappings, int epsilon) {
+		this(stack, allowMultipleMappings, epsilon, 0, 0);
+	}
+
+	/**
+	 * Creates the algorithm with a branch-and-bound search. Instead of all
+	 * mappings of a virtual network, only the beamWidth mappings switching on
+	 * the fewest power resources are kept as starting points for the next one.
+	 * A partial mapping is pruned if a lower bound of the power it adds cannot
+	 * beat the kept mappings, or if the same placement of virtual nodes and
+	 * links has already been reached at no higher cost.
+	 * 
+	 * @param allowMultipleMappings
+	 *            allow mapping to the same sn multiple times?
+	 * @param beamWidth
+	 *            the number of mappings kept, 0 for the exhaustive search
+	 * @param timeLimit
+	 *            milliseconds after which the remaining virtual networks are
+	 *            mapped by the first mapping found for the best mapping so far,
+	 *            0 for no limit
+	 */
+	public OptimalMappingsAlgorithm(NetworkStack stack,
+			boolean allowMultipleMappings, int epsilon, int beamWidth,
+			long timeLimit) {
+		if (beamWidth < 0 || timeLimit < 0) {
+			throw new IllegalArgumentException(
+					"beam width and time limit must not be negative");
+		}
 		this.stack = stack;
 		this.curNetIt = stack.iterator();
 		this.allowMultipleMappings = allowMultipleMappings;
 
 		this.epsilon = epsilon;
+		this.beamWidth = beamWidth;
+		this.timeLimit = timeLimit;
 	}
 
 	public Collection<OptimalMappingAlgorithmMappingResult> getComputedMappings() {
 		return computedMappingResults;
 	}
 
+	/**
+	 * @return true if the bounded search reached its time limit, so the
+	 *         computed mappings are the best ones found until then
+	 */
+	public boolean hasTimedOut() {
+		return timedOut;
+	}
+
 	@SuppressWarnings("unchecked")
 	protected boolean hasNext() {
 		if (curIt == null || !curIt.hasNext()) {
@@ -119,6 +166,11 @@ public class OptimalMappingsAlgorithm extends AbstractAlgorithm {
 
 	@Override
 	protected void evaluate() {
+		if (beamWidth > 0) {
+			evaluateBounded();
+			return;
+		}
+
 		SubstrateNetwork sNetwork = stack.getSubstrate();
 		List<OptimalMappingAlgorithmMappingResult> results = new LinkedList<OptimalMappingAlgorithmMappingResult>();
 		results.add(new OptimalMappingAlgorithmMappingResult(
@@ -154,6 +206,298 @@ public class OptimalMappingsAlgorithm extends AbstractAlgorithm {
 		}
 	}
 
+	private void evaluateBounded() {
+		SubstrateNetwork sNetwork = stack.getSubstrate();
+		deadline = (timeLimit > 0) ? System.currentTimeMillis() + timeLimit
+				: Long.MAX_VALUE;
+		timedOut = false;
+
+		List<OptimalMappingAlgorithmMappingResult> results = new LinkedList<OptimalMappingAlgorithmMappingResult>();
+		results.add(new OptimalMappingAlgorithmMappingResult(
+				new NodeLinkMapping(), null));
+
+		while (hasNext() && !results.isEmpty()) {
+			VirtualNetwork vNetwork = getNext();
+
+			Beam beam = new Beam(beamWidth);
+
+			// the best starting points come first
+			for (OptimalMappingAlgorithmMappingResult m : results) {
+				if (timedOut && !beam.isEmpty()) {
+					break;
+				}
+				Collection<ResourceDemandEntry> previousMappings = m.mapping
+						.occupyAllResources(sNetwork);
+
+				branchAndBound(new NodeLinkMapping(m.mapping), m.addedPower,
+						sNetwork.getVertices(), vNetwork.getVertices(),
+						vNetwork, sNetwork,
+						new LinkedList<ResourceDemandEntry>(), beam,
+						new HashMap<String, Integer>());
+
+				Utils.freeResources(previousMappings);
+			}
+			results = beam.results;
+		}
+
+		if (results.isEmpty()) {
+			computedMappingResults = null;
+		} else {
+			computedMappingResults = results;
+			computedMappingResults.get(0).mapping.occupyAllResources(sNetwork);
+		}
+	}
+
+	/**
+	 * Depth-first search for the mappings of a single virtual network. The
+	 * mapping is modified in place and only copied for complete mappings.
+	 * 
+	 * @param placements
+	 *            the lowest cost each placement of virtual nodes has been
+	 *            reached with
+	 */
+	void branchAndBound(NodeLinkMapping m, int addedPower,
+			Collection<SubstrateNode> unmappedSNodes,
+			Collection<VirtualNode> unmappedVNodes, VirtualNetwork vNetwork,
+			SubstrateNetwork sNetwork,
+			Collection<ResourceDemandEntry> demandedNodeEnergyResources,
+			Beam beam, Map<String, Integer> placements) {
+
+		if (System.currentTimeMillis() > deadline) {
+			timedOut = true;
+		}
+		if (timedOut && !beam.isEmpty()) {
+			return;
+		}
+
+		// the virtual nodes are mapped in any order, so the same mapping is
+		// reached several times; it is only searched and kept once
+		String placement = getPlacement(m, vNetwork);
+		Integer cost = placements.get(placement);
+		if (cost != null && cost <= addedPower) {
+			return;
+		}
+		placements.put(placement, addedPower);
+
+		if (unmappedVNodes.isEmpty()) {
+			beam.add(new OptimalMappingAlgorithmMappingResult(
+					new NodeLinkMapping(m), demandedNodeEnergyResources,
+					addedPower));
+			return;
+		}
+		if (!beam.accepts(addedPower
+				+ lowerBound(sNetwork.getVertices(), unmappedSNodes,
+						unmappedVNodes))) {
+			return;
+		}
+
+		List<MappingCandidate<VirtualNode, SubstrateNode>> c = genneigh(
+				sNetwork.getVertices(), unmappedSNodes, unmappedVNodes);
+
+		for (MappingCandidate<VirtualNode, SubstrateNode> candidate : c) {
+			int mark = m.mark();
+			m.add(candidate.t, candidate.u);
+			Collection<ResourceDemandEntry> resourceMapping = Utils
+					.occupyResources(candidate.t.get(), candidate.u.get());
+
+			Collection<ResourceDemandEntry> newDemandedNodeEnergyResources = new LinkedList<ResourceDemandEntry>(
+					demandedNodeEnergyResources);
+
+			Collection<ResourceDemandEntry> edges = mapEdges(sNetwork,
+					vNetwork, candidate, m, newDemandedNodeEnergyResources,
+					epsilon);
+
+			if (edges != null) {
+				Collection<SubstrateNode> newUnmappedSNodes = new LinkedList<SubstrateNode>(
+						unmappedSNodes);
+				Collection<VirtualNode> newUnmappedVNodes = new LinkedList<VirtualNode>(
+						unmappedVNodes);
+				newUnmappedSNodes.remove(candidate.u);
+				newUnmappedVNodes.remove(candidate.t);
+
+				for (ResourceDemandEntry demEntry : resourceMapping) {
+					if (demEntry.res instanceof PowerResource) {
+						newDemandedNodeEnergyResources.add(demEntry);
+					}
+				}
+
+				branchAndBound(m,
+						addedPower + countSwitchedOn(resourceMapping, edges),
+						newUnmappedSNodes, newUnmappedVNodes, vNetwork,
+						sNetwork, newDemandedNodeEnergyResources, beam,
+						placements);
+
+				Utils.freeResources(edges);
+			}
+
+			Utils.freeResources(resourceMapping);
+			m.rollback(mark);
+		}
+	}
+
+	/**
+	 * An admissible lower bound of the power resources switched on by mapping
+	 * the given virtual nodes. Only the nodes are considered, not the hidden
+	 * hops of their links.
+	 */
+	int lowerBound(Collection<SubstrateNode> allSNodes,
+			Collection<SubstrateNode> unmappedSNodes,
+			Collection<VirtualNode> unmappedVNodes) {
+
+		Collection<SubstrateNode> sNodes = allowMultipleMappings ? allSNodes
+				: unmappedSNodes;
+
+		int demanding = 0;
+		boolean fitsAll = true;
+		for (VirtualNode vn : unmappedVNodes) {
+			if (!demandsPower(vn)) {
+				continue;
+			}
+			demanding++;
+
+			if (fitsAll) {
+				boolean fits = false;
+				for (SubstrateNode sn : sNodes) {
+					if (isSwitchedOn(sn) && Utils.fulfills(sn, vn)) {
+						fits = true;
+						break;
+					}
+				}
+				fitsAll = fits;
+			}
+		}
+
+		int bound = fitsAll ? 0 : 1;
+		if (!allowMultipleMappings) {
+			// every virtual node needs a substrate node of its own
+			int switchedOn = 0;
+			for (SubstrateNode sn : sNodes) {
+				if (isSwitchedOn(sn)) {
+					switchedOn++;
+				}
+			}
+			bound = Math.max(bound, demanding - switchedOn);
+		}
+		return bound;
+	}
+
+	static boolean demandsPower(VirtualNode vn) {
+		for (AbstractDemand d : vn) {
+			if (d instanceof PowerDemand) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if mapping to the node does not switch on a power resource
+	 */
+	static boolean isSwitchedOn(SubstrateNode sn) {
+		PowerResource er = Utils.getEnergyResource(sn);
+		return er == null || er.isUsed();
+	}
+
+	/**
+	 * @return the number of power resources which have been unused before the
+	 *         given entries have been occupied
+	 */
+	static int countSwitchedOn(Collection<ResourceDemandEntry> nodeEntries,
+			Collection<ResourceDemandEntry> linkEntries) {
+		HashMap<PowerResource, Integer> occupied = new HashMap<PowerResource, Integer>();
+		for (Collection<ResourceDemandEntry> entries : Arrays.asList(
+				nodeEntries, linkEntries)) {
+			for (ResourceDemandEntry e : entries) {
+				if (e.res instanceof PowerResource) {
+					Integer count = occupied.get(e.res);
+					occupied.put((PowerResource) e.res,
+							count == null ? 1 : count + 1);
+				}
+			}
+		}
+
+		int result = 0;
+		for (Map.Entry<PowerResource, Integer> e : occupied.entrySet()) {
+			if (e.getKey().usedBy().intValue() == e.getValue().intValue()) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Two partial mappings of the virtual network with the same placement
+	 * occupy the same resources, as they start from the same mapping of the
+	 * previous virtual networks. So they leave the same residual capacities
+	 * and only the cheaper one needs to be searched further.
+	 * 
+	 * @return the substrate node of every virtual node and the substrate path
+	 *         of every virtual link, in the order of the virtual network
+	 */
+	static String getPlacement(NodeLinkMapping m, VirtualNetwork vNetwork) {
+		StringBuilder result = new StringBuilder();
+		for (VirtualNode vn : vNetwork.getVertices()) {
+			SubstrateNode sn = m.getSubstrateNode(vn);
+			result.append(sn == null ? "-" : sn.getId()).append(',');
+		}
+		for (VirtualLink vl : vNetwork.getEdges()) {
+			result.append('|');
+			List<SubstrateLink> path = m.getSubstratePath(vl);
+			if (path == null) {
+				result.append('-');
+			} else {
+				for (SubstrateLink sl : path) {
+					result.append(sl.getId()).append(',');
+				}
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * The mappings with the least added power found so far.
+	 */
+	static class Beam {
+		private final int width;
+		final LinkedList<OptimalMappingAlgorithmMappingResult> results = new LinkedList<OptimalMappingAlgorithmMappingResult>();
+
+		public Beam(int width) {
+			this.width = width;
+		}
+
+		boolean isEmpty() {
+			return results.isEmpty();
+		}
+
+		/**
+		 * @return true if a mapping with the given cost would be kept
+		 */
+		boolean accepts(int addedPower) {
+			return results.size() < width
+					|| addedPower < results.getLast().addedPower;
+		}
+
+		void add(OptimalMappingAlgorithmMappingResult result) {
+			if (!accepts(result.addedPower)) {
+				return;
+			}
+
+			ListIterator<OptimalMappingAlgorithmMappingResult> it = results
+					.listIterator();
+			while (it.hasNext()) {
+				if (it.next().addedPower > result.addedPower) {
+					it.previous();
+					break;
+				}
+			}
+			it.add(result);
+
+			if (results.size() > width) {
+				results.removeLast();
+			}
+		}
+	}
+
 	void vnmFlib(NodeLinkMapping m, Collection<SubstrateNode> unmappedSNodes,
 			Collection<VirtualNode> unmappedVNodes, VirtualNetwork vNetwork,
 			SubstrateNetwork sNetwork, EnergyResourceChecker mappingChecker,
@@ -31,15 +31,42 @@
  * ***** END LICENSE BLOCK ***** */
 package vnreal.algorithms.isomorphism;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import vnreal.algorithms.utils.SubgraphBasicVN.NodeLinkMapping;
+import vnreal.constraints.demands.AbstractDemand;
+import vnreal.network.IDSource;
+import vnreal.network.substrate.SubstrateLink;
 import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
 import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
 
 /**
  * see
  * "A Virtual Network Mapping Algorithm based on Subgraph Isomorphism Detection"
  * , advanced approach.
  * 
+ * With a parallelism greater than 1, the epsilon sweep and the first
+ * candidate of every search are explored concurrently: each pair of epsilon
+ * and first candidate is a branch, and a number of workers process the
+ * branches on private copies of the substrate and the virtual network. Of all
+ * branches that find a mapping, the one a sequential sweep would reach first
+ * (lowest epsilon, then candidate order) wins and cancels all later branches;
+ * its mapping is then applied to the real networks. Unlike the sequential
+ * search, every branch gets its own budget of omega tries.
+ * 
  * @author Michael Till Beck
  */
 public class AdvancedSubgraphIsomorphismAlgorithm extends
@@ -47,6 +74,7 @@ public class AdvancedSubgraphIsomorphismAlgorithm extends
 	private int min;
 	private int max;
 	private int stepsize;
+	private final int parallelism;
 
 	/**
 	 * 
@@ -56,16 +84,27 @@ public class AdvancedSubgraphIsomorphismAlgorithm extends
 	}
 
 	public AdvancedSubgraphIsomorphismAlgorithm(int min, int max, int stepsize) {
+		this(min, max, stepsize, 1);
+	}
+
+	/**
+	 * @param parallelism
+	 *            The number of branches to explore concurrently; 1 searches
+	 *            sequentially
+	 */
+	public AdvancedSubgraphIsomorphismAlgorithm(int min, int max, int stepsize,
+			int parallelism) {
 
 		super();
 
-		if (stepsize <= 0) {
+		if (stepsize <= 0 || parallelism <= 0) {
 			throw new IllegalArgumentException();
 		}
 
 		this.min = min;
 		this.max = max;
 		this.stepsize = stepsize;
+		this.parallelism = parallelism;
 	}
 
 	@Override
@@ -75,9 +114,19 @@ public class AdvancedSubgraphIsomorphismAlgorithm extends
 		return mapNetwork(sNetwork, vNetwork, omega);
 	}
 
-	boolean mapNetwork(SubstrateNetwork sNetwork, VirtualNetwork vNetwork,
+	/**
+	 * Map the virtual network with the given number of tries per epsilon
+	 * (and, in parallel, per branch).
+	 * 
+	 * @return true if a mapping has been found and applied
+	 */
+	public boolean mapNetwork(SubstrateNetwork sNetwork, VirtualNetwork vNetwork,
 			int omega) {
 
+		if (parallelism > 1) {
+			return mapNetworkParallel(sNetwork, vNetwork, omega);
+		}
+
 		for (int epsilon = min; epsilon <= max; epsilon += stepsize) {
 			NodeLinkMapping result = mapNetwork(sNetwork, vNetwork, epsilon, omega);
 
@@ -89,4 +138,178 @@ public class AdvancedSubgraphIsomorphismAlgorithm extends
 
 		return false;
 	}
+
+	private boolean mapNetworkParallel(SubstrateNetwork sNetwork,
+			VirtualNetwork vNetwork, int omega) {
+
+		if (vNetwork.getVertexCount() == 0) {
+			return true;
+		}
+
+		int candidates = genneigh(sNetwork, sNetwork, vNetwork,
+				new NodeLinkMapping()).size();
+		int epsilons = (max < min) ? 0 : (max - min) / stepsize + 1;
+		Search search = new Search(epsilons * candidates, candidates, omega);
+		if (search.branches == 0) {
+			return false;
+		}
+
+		// The copies are made here, as the workers must not read the real
+		// networks while other threads map into them
+		List<Branch> branches = new LinkedList<Branch>();
+		for (int i = 0; i < Math.min(parallelism, search.branches); i++) {
+			branches.add(new Branch(search, sNetwork, vNetwork));
+		}
+
+		// A pool per search, so no idle threads outlive it
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<ForkJoinTask<?>> tasks = new LinkedList<ForkJoinTask<?>>();
+			for (Branch b : branches) {
+				// The pooled threads draw IDs from the scope of this run
+				tasks.add(pool.submit(IDSource.wrap(b)));
+			}
+			for (ForkJoinTask<?> t : tasks) {
+				t.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		for (Branch b : branches) {
+			if (b.found == search.best.get()) {
+				b.commit(sNetwork);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * State shared by the workers of one parallel search.
+	 */
+	private final class Search {
+		final int branches;
+		final int candidates;
+		final int omega;
+		/** The next branch to explore */
+		final AtomicInteger next = new AtomicInteger();
+		/** The lowest branch that found a mapping so far */
+		final AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+
+		Search(int branches, int candidates, int omega) {
+			this.branches = branches;
+			this.candidates = candidates;
+			this.omega = omega;
+		}
+
+		int getEpsilon(int branch) {
+			return min + (branch / candidates) * stepsize;
+		}
+
+		void offer(int branch) {
+			int b;
+			while (branch < (b = best.get())) {
+				if (best.compareAndSet(b, branch)) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A worker exploring branches on its own copy of the networks. It has its
+	 * own number of tries and gives up on a branch as soon as a lower branch
+	 * has found a mapping.
+	 */
+	private static final class Branch extends SubgraphIsomorphismAlgorithm
+			implements Runnable {
+		private final Search search;
+		private final SubstrateNetwork sCopy;
+		private final VirtualNetwork vCopy;
+		private final Map<SubstrateNode, SubstrateNode> sNodes = new HashMap<SubstrateNode, SubstrateNode>();
+		private final Map<SubstrateLink, SubstrateLink> sLinks = new HashMap<SubstrateLink, SubstrateLink>();
+		private final Map<VirtualNode, VirtualNode> vNodes = new HashMap<VirtualNode, VirtualNode>();
+		private final Map<VirtualLink, VirtualLink> vLinks = new HashMap<VirtualLink, VirtualLink>();
+
+		private volatile int current = -1;
+		private int found = -1;
+		private NodeLinkMapping result = null;
+
+		Branch(Search search, SubstrateNetwork sNetwork, VirtualNetwork vNetwork) {
+			this.search = search;
+			this.sCopy = sNetwork.getCopy(false, true);
+			this.vCopy = vNetwork.getCopy(false, true);
+
+			// Copies keep the order of nodes and links
+			zip(sCopy.getVertices(), sNetwork.getVertices(), sNodes);
+			zip(sCopy.getEdges(), sNetwork.getEdges(), sLinks);
+			zip(vCopy.getVertices(), vNetwork.getVertices(), vNodes);
+			zip(vCopy.getEdges(), vNetwork.getEdges(), vLinks);
+
+			for (Entry<VirtualLink, VirtualLink> e : vLinks.entrySet()) {
+				for (AbstractDemand hh : e.getValue().getHiddenHopDemands()) {
+					e.getKey().addHiddenHopDemand(hh.getCopy(e.getKey()));
+				}
+			}
+		}
+
+		private static <T> void zip(Iterable<T> copies, Iterable<T> originals,
+				Map<T, T> result) {
+			Iterator<T> it = originals.iterator();
+			for (T copy : copies) {
+				result.put(copy, it.next());
+			}
+		}
+
+		@Override
+		public void run() {
+			List<MappingCandidate<VirtualNode, SubstrateNode>> c = new ArrayList<MappingCandidate<VirtualNode, SubstrateNode>>(
+					genneigh(sCopy, sCopy, vCopy, new NodeLinkMapping()));
+			assert (c.size() == search.candidates);
+
+			int branch;
+			while ((branch = search.next.getAndIncrement()) < search.branches
+					&& branch < search.best.get()) {
+				current = branch;
+				resetTries();
+
+				NodeLinkMapping m = new NodeLinkMapping();
+				if (tryCandidate(m, vCopy, sCopy,
+						new HashSet<SubstrateNode>(), sCopy,
+						c.get(branch % search.candidates), search.omega,
+						search.getEpsilon(branch))) {
+					found = branch;
+					result = m;
+					search.offer(branch);
+					return;
+				}
+			}
+		}
+
+		@Override
+		boolean isCancelled() {
+			return search.best.get() < current;
+		}
+
+		/**
+		 * Apply the mapping found on the copies to the real networks.
+		 */
+		void commit(SubstrateNetwork sNetwork) {
+			NodeLinkMapping m = new NodeLinkMapping();
+			for (Entry<VirtualNode, SubstrateNode> e : result.getNodeEntries()
+					.entrySet()) {
+				m.add(vNodes.get(e.getKey()), sNodes.get(e.getValue()));
+			}
+			for (Entry<VirtualLink, List<SubstrateLink>> e : result
+					.getLinkEntries().entrySet()) {
+				List<SubstrateLink> path = new LinkedList<SubstrateLink>();
+				for (SubstrateLink sl : e.getValue()) {
+					path.add(sLinks.get(sl));
+				}
+				m.add(vLinks.get(e.getKey()), path);
+			}
+			m.occupyAllResources(sNetwork);
+		}
+	}
 }
@@ -34,6 +34,7 @@ package vnreal.algorithms.isomorphism;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -79,15 +80,38 @@ public class SubgraphIsomorphismAlgorithm extends
 		super(false);
 	}
 
+	/**
+	 * Depth-first search for a complete mapping, extending the given partial
+	 * mapping in place.
+	 * 
+	 * Instead of copying the mapping and the remaining substrate for every
+	 * candidate, the search adds the candidate to <code>m</code> and excludes
+	 * its substrate node from the following steps; on backtrack, the
+	 * additions are rolled back via {@link NodeLinkMapping#rollback(int)} and
+	 * the occupied resources are freed. The candidates are tried in the same
+	 * order as before.
+	 * 
+	 * @return <code>m</code> holding the complete mapping, with all resources
+	 *         still occupied, or <code>null</code> if no mapping was found
+	 *         within omega tries. In that case <code>m</code> is left as it
+	 *         was.
+	 */
 	NodeLinkMapping vnmFlib(NodeLinkMapping m, VirtualNetwork g_V, SubstrateNetwork g_P,
 			SubstrateNetwork orig_g_P, int omega, int epsilon) {
+		Set<SubstrateNode> used = new HashSet<SubstrateNode>();
+		return vnmFlib(m, g_V, g_P, used, orig_g_P, omega, epsilon) ? m : null;
+	}
+
+	private boolean vnmFlib(NodeLinkMapping m, VirtualNetwork g_V,
+			SubstrateNetwork g_P, Set<SubstrateNode> used,
+			SubstrateNetwork orig_g_P, int omega, int epsilon) {
 
 		if (debug) {
 			System.out.println("numberOfTries: " + numberOfTries);
 		}
 
 		if (isMappingComplete(m, g_V, orig_g_P)) {
-			return m;
+			return true;
 		}
 
 		if (debug) {
@@ -101,59 +125,90 @@ public class SubgraphIsomorphismAlgorithm extends
 		}
 
 		List<MappingCandidate<VirtualNode, SubstrateNode>> c = genneigh(
-				orig_g_P, g_P, g_V, m);
+				orig_g_P, g_P, used, g_V, m);
 
 		for (MappingCandidate<VirtualNode, SubstrateNode> candidate : c) {
 
 			++numberOfTries;
-			if (numberOfTries > omega) {
-				return null;
+			if (numberOfTries > omega || isCancelled()) {
+				return false;
 			}
 
-			NodeLinkMapping m2 = new NodeLinkMapping(m);
-			m2.add(candidate.t, candidate.u);
-			Collection<ResourceDemandEntry> resourceMapping = Utils
-					.occupyResources(candidate.t.get(), candidate.u.get());
+			if (tryCandidate(m, g_V, g_P, used, orig_g_P, candidate, omega,
+					epsilon)) {
+				return true;
+			}
+		}
 
-			Collection<ResourceDemandEntry> edges = mapEdges(
-					g_V, orig_g_P, candidate, m2, epsilon);
+		if (debug) {
+			System.out.println("returning null");
+		}
+		return false;
+	}
 
-			if (edges != null) {
+	/**
+	 * Map the given candidate and its adjacent links and continue the search
+	 * from there.
+	 * 
+	 * @return true if the mapping could be completed; <code>m</code> then
+	 *         holds the complete mapping. Otherwise <code>m</code> and all
+	 *         resources are left as they were.
+	 */
+	boolean tryCandidate(NodeLinkMapping m, VirtualNetwork g_V,
+			SubstrateNetwork g_P, Set<SubstrateNode> used,
+			SubstrateNetwork orig_g_P,
+			MappingCandidate<VirtualNode, SubstrateNode> candidate, int omega,
+			int epsilon) {
 
-				if (debug) {
-					System.out.println("Mapped nodes " + candidate.t + " <-> "
-							+ candidate.u);
-				}
+		int mark = m.mark();
+		m.add(candidate.t, candidate.u);
+		Collection<ResourceDemandEntry> resourceMapping = Utils
+				.occupyResources(candidate.t.get(), candidate.u.get());
 
-				SubstrateNetwork g_res = get_g_res(g_P, candidate.u);
-				NodeLinkMapping result = vnmFlib(m2, g_V, g_res, orig_g_P, omega,
-						epsilon);
+		Collection<ResourceDemandEntry> edges = mapEdges(
+				g_V, orig_g_P, candidate, m, epsilon);
 
-				if (result != null) {
-					if (debug) {
-						System.out.println("returning m3");
-					}
-					return result;
-				}
+		if (edges != null) {
 
-				Utils.freeResources(edges);
+			if (debug) {
+				System.out.println("Mapped nodes " + candidate.t + " <-> "
+						+ candidate.u);
 			}
 
-			Utils.freeResources(resourceMapping);
-		}
+			used.add(candidate.u);
+			boolean found = vnmFlib(m, g_V, g_P, used, orig_g_P, omega,
+					epsilon);
+			used.remove(candidate.u);
 
-		if (debug) {
-			System.out.println("returning null");
+			if (found) {
+				if (debug) {
+					System.out.println("returning m3");
+				}
+				m.release(mark);
+				return true;
+			}
+
+			Utils.freeResources(edges);
 		}
-		return null;
+
+		Utils.freeResources(resourceMapping);
+		m.rollback(mark);
+		return false;
 	}
 
-	SubstrateNetwork get_g_res(SubstrateNetwork g_P, SubstrateNode sn) {
-		SubstrateNetwork g_res = g_P.getCopy(false, false);
-		boolean removed = g_res.removeVertex(sn);
-		assert (removed);
+	/**
+	 * Checked before every try; a search that is not needed anymore can be
+	 * aborted by overriding this method.
+	 */
+	boolean isCancelled() {
+		return false;
+	}
 
-		return g_res;
+	/**
+	 * Start a new search by resetting the number of tries.
+	 */
+	void resetTries() {
+		numberOfTries = 0;
 	}
 
 	boolean isMappingComplete(NodeLinkMapping m, VirtualNetwork g_V,
@@ -257,6 +312,17 @@ public class SubgraphIsomorphismAlgorithm extends
 	List<MappingCandidate<VirtualNode, SubstrateNode>> genneigh(
 			SubstrateNetwork orig_g_P, SubstrateNetwork g_P,
 			VirtualNetwork g_V, NodeLinkMapping m) {
+		return genneigh(orig_g_P, g_P, Collections.<SubstrateNode> emptySet(),
+				g_V, m);
+	}
+
+	/**
+	 * @param used
+	 *            Substrate nodes of g_P that are not available anymore
+	 */
+	List<MappingCandidate<VirtualNode, SubstrateNode>> genneigh(
+			SubstrateNetwork orig_g_P, SubstrateNetwork g_P,
+			Set<SubstrateNode> used, VirtualNetwork g_V, NodeLinkMapping m) {
 		List<MappingCandidate<VirtualNode, SubstrateNode>> c = null;
 
 		Collection<VirtualNode> f_G_sub_V = f(m.getNodeEntries().keySet(), g_V);
@@ -277,7 +343,14 @@ public class SubgraphIsomorphismAlgorithm extends
 		}
 		vns = Utils.minus(vns, m.getNodeEntries().keySet());
 
-		c = cartesian(vns, g_P.getVertices());
+		Collection<SubstrateNode> sns = g_P.getVertices();
+		if (!used.isEmpty()) {
+			sns = new LinkedList<SubstrateNode>();
+			for (SubstrateNode sn : g_P.getVertices())
+				if (!used.contains(sn))
+					sns.add(sn);
+		}
+		c = cartesian(vns, sns);
 		if (debug) {
 			System.out.println("c");
 			for (MappingCandidate<VirtualNode, SubstrateNode> cn : c) {
@@ -387,7 +460,7 @@ public class SubgraphIsomorphismAlgorithm extends
 
 	public NodeLinkMapping mapNetwork(SubstrateNetwork sNetwork,
 			VirtualNetwork vNetwork, int epsilon, int omega) {
-		numberOfTries = 0;
+		resetTries();
 		return vnmFlib(new NodeLinkMapping(), vNetwork, sNetwork,
 				sNetwork, omega, epsilon);
 	}
@@ -64,7 +64,8 @@ public class SubgraphIsomorphismStackAlgorithm extends AbstractAlgorithm {
 
 	public SubgraphIsomorphismStackAlgorithm(AlgorithmParameter params) {
 		if (params.getBoolean("Advanced", true)) {
-			this.algorithm = new AdvancedSubgraphIsomorphismAlgorithm();
+			this.algorithm = new AdvancedSubgraphIsomorphismAlgorithm(1, 10, 1,
+					params.getInteger("Parallelism", 1));
 		} else {
 			this.algorithm = new SubgraphIsomorphismAlgorithm();
 		}
@@ -0,0 +1,251 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package vnreal.algorithms.isomorphism;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import vnreal.algorithms.utils.SubgraphBasicVN.NodeLinkMapping;
+import vnreal.algorithms.utils.SubgraphBasicVN.ResourceDemandEntry;
+import vnreal.algorithms.utils.SubgraphBasicVN.Utils;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * Compares the in-place backtracking of
+ * {@link SubgraphIsomorphismAlgorithm#vnmFlib} with the search copying the
+ * partial mapping and the remaining substrate for every candidate.
+ * 
+ * @since 2015-06-15
+ */
+public final class VnmFlibBacktrackingTest {
+
+	/**
+	 * The search as it was before backtracking in place.
+	 */
+	private static final class CopyingSearch extends
+			SubgraphIsomorphismAlgorithm {
+		private int tries = 0;
+
+		NodeLinkMapping search(SubstrateNetwork sNetwork,
+				VirtualNetwork vNetwork, int epsilon, int omega) {
+			tries = 0;
+			return copyingVnmFlib(new NodeLinkMapping(), vNetwork, sNetwork,
+					sNetwork, omega, epsilon);
+		}
+
+		private NodeLinkMapping copyingVnmFlib(NodeLinkMapping m,
+				VirtualNetwork g_V, SubstrateNetwork g_P,
+				SubstrateNetwork orig_g_P, int omega, int epsilon) {
+			if (isMappingComplete(m, g_V, orig_g_P))
+				return m;
+
+			for (MappingCandidate<VirtualNode, SubstrateNode> candidate : genneigh(
+					orig_g_P, g_P, g_V, m)) {
+				if (++tries > omega)
+					return null;
+
+				NodeLinkMapping m2 = new NodeLinkMapping(m);
+				m2.add(candidate.t, candidate.u);
+				Collection<ResourceDemandEntry> resourceMapping = Utils
+						.occupyResources(candidate.t.get(), candidate.u.get());
+				Collection<ResourceDemandEntry> edges = mapEdges(g_V,
+						orig_g_P, candidate, m2, epsilon);
+				if (edges != null) {
+					SubstrateNetwork g_res = g_P.getCopy(false, false);
+					g_res.removeVertex(candidate.u);
+					NodeLinkMapping result = copyingVnmFlib(m2, g_V, g_res,
+							orig_g_P, omega, epsilon);
+					if (result != null)
+						return result;
+					Utils.freeResources(edges);
+				}
+				Utils.freeResources(resourceMapping);
+			}
+			return null;
+		}
+	}
+
+	private static SubstrateNetwork createSubstrate(Random rnd, int n,
+			List<SubstrateNode> nodes) {
+		SubstrateNetwork sNet = new SubstrateNetwork(false);
+		for (int i = 0; i < n; i++) {
+			SubstrateNode node = new SubstrateNode();
+			node.add(new CpuResource(20.0 + rnd.nextInt(80), node));
+			sNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < 3 * n; i++) {
+			SubstrateNode u = nodes.get(rnd.nextInt(n));
+			SubstrateNode v = nodes.get(rnd.nextInt(n));
+			if (u == v)
+				continue;
+			SubstrateLink link = new SubstrateLink();
+			link.add(new BandwidthResource(20.0 + rnd.nextInt(80), link));
+			sNet.addEdge(link, u, v);
+		}
+		return sNet;
+	}
+
+	private static VirtualNetwork createVirtual(Random rnd, int n,
+			List<VirtualNode> nodes, List<VirtualLink> links) {
+		VirtualNetwork vNet = new VirtualNetwork(1);
+		for (int i = 0; i < n; i++) {
+			VirtualNode node = new VirtualNode(1);
+			node.add(new CpuDemand(1.0 + rnd.nextInt(40), node));
+			vNet.addVertex(node);
+			nodes.add(node);
+		}
+		for (int i = 0; i < n; i++) {
+			VirtualLink link = new VirtualLink(1);
+			link.add(new BandwidthDemand(1.0 + rnd.nextInt(30), link));
+			vNet.addEdge(link, nodes.get(i), nodes.get((i + 1) % n));
+			links.add(link);
+		}
+		return vNet;
+	}
+
+	/**
+	 * @return The mapping in terms of the positions of the entities in the
+	 *         lists they were created in, so mappings of equal scenarios can
+	 *         be compared
+	 */
+	private static List<Object> describe(NodeLinkMapping m,
+			List<SubstrateNode> sNodes, List<VirtualNode> vNodes,
+			List<VirtualLink> vLinks, SubstrateNetwork sNet) {
+		List<SubstrateLink> sLinks = new ArrayList<SubstrateLink>(
+				sNet.getEdges());
+		List<Object> result = new ArrayList<Object>();
+		for (VirtualNode vn : vNodes)
+			result.add(sNodes.indexOf(m.getSubstrateNode(vn)));
+		for (VirtualLink vl : vLinks) {
+			List<Integer> path = new ArrayList<Integer>();
+			List<SubstrateLink> sPath = m.getSubstratePath(vl);
+			if (sPath != null)
+				for (SubstrateLink sl : sPath)
+					path.add(sLinks.indexOf(sl));
+			result.add(path);
+		}
+		return result;
+	}
+
+	@Test
+	public void inPlaceSearchFindsTheCopyingResult() {
+		int found = 0;
+		for (int seed = 0; seed < 30; seed++) {
+			for (int omega : new int[] { 5, 50 }) {
+				Random rnd = new Random(seed);
+				List<SubstrateNode> copySNodes = new ArrayList<SubstrateNode>();
+				SubstrateNetwork copySNet = createSubstrate(rnd, 12, copySNodes);
+				List<VirtualNode> copyVNodes = new ArrayList<VirtualNode>();
+				List<VirtualLink> copyVLinks = new ArrayList<VirtualLink>();
+				VirtualNetwork copyVNet = createVirtual(rnd, 5, copyVNodes,
+						copyVLinks);
+
+				rnd = new Random(seed);
+				List<SubstrateNode> sNodes = new ArrayList<SubstrateNode>();
+				SubstrateNetwork sNet = createSubstrate(rnd, 12, sNodes);
+				List<VirtualNode> vNodes = new ArrayList<VirtualNode>();
+				List<VirtualLink> vLinks = new ArrayList<VirtualLink>();
+				VirtualNetwork vNet = createVirtual(rnd, 5, vNodes, vLinks);
+
+				NodeLinkMapping expected = new CopyingSearch().search(
+						copySNet, copyVNet, 10, omega);
+				NodeLinkMapping actual = new SubgraphIsomorphismAlgorithm()
+						.mapNetwork(sNet, vNet, 10, omega);
+
+				if (expected == null) {
+					assertNull(actual);
+					continue;
+				}
+				assertNotNull(actual);
+				found++;
+				assertEquals(
+						describe(expected, copySNodes, copyVNodes, copyVLinks,
+								copySNet),
+						describe(actual, sNodes, vNodes, vLinks, sNet));
+				// The same resources are occupied
+				for (int i = 0; i < sNodes.size(); i++)
+					assertEquals(copySNodes.get(i).get().get(0).getMappings()
+							.size(), sNodes.get(i).get().get(0).getMappings()
+							.size());
+				// All marks are closed, so nothing is recorded anymore
+				assertEquals(0, actual.mark());
+				actual.rollback(0);
+				assertEquals(vNodes.size(), actual.getMappedVNodesCount());
+			}
+		}
+		// Make sure the comparison is not vacuous
+		assertTrue(found > 0);
+	}
+
+	@Test
+	public void rollbackRestoresMapping() {
+		NodeLinkMapping m = new NodeLinkMapping();
+		VirtualNode a = new VirtualNode(1), b = new VirtualNode(1);
+		SubstrateNode x = new SubstrateNode(), y = new SubstrateNode();
+
+		// Added outside of a mark, so it cannot be rolled back
+		m.add(a, x);
+		int outer = m.mark();
+		assertEquals(0, outer);
+		int inner = m.mark();
+		m.add(b, y);
+		m.release(inner);
+		assertEquals(2, m.getMappedVNodesCount());
+		m.rollback(outer);
+		assertEquals(1, m.getMappedVNodesCount());
+		assertEquals(x, m.getSubstrateNode(a));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void closingWithoutMarkFails() {
+		new NodeLinkMapping().rollback(0);
+	}
+}
@@ -37,6 +37,8 @@ import java.util.Map;
 import java.util.Random;
 
 import vnreal.algorithms.AbstractLinkMapping;
+import vnreal.algorithms.utils.LinkMappingLpModel;
+import vnreal.algorithms.utils.LpSession;
 import vnreal.algorithms.utils.LpSolver;
 import vnreal.algorithms.utils.MiscelFunctions;
 import vnreal.algorithms.utils.NodeLinkAssignation;
@@ -109,30 +111,39 @@ public class PathSplittingVirtualLinkMapping extends AbstractLinkMapping {
 		processedLinks = 0;
 		mappedLinks = 0;
 
-		Random intGenerator = new Random();// FIXME Temp solution for executing
-		// at the same time different algorithms using
-		// this link mapping that must accede to different data files
 		LpSolver problemSolver = new LpSolver();
+		LinkMappingLpModel model = null;
 
-		String dataFileName = Consts.LP_SOLVER_DATAFILE
-				+ Integer.toString(intGenerator.nextInt(2001)) + ".dat";
+		if (Consts.LP_USE_MODEL_FILES) {
+			Random intGenerator = new Random();// FIXME Temp solution for executing
+			// at the same time different algorithms using
+			// this link mapping that must accede to different data files
+			String dataFileName = Consts.LP_SOLVER_DATAFILE
+					+ Integer.toString(intGenerator.nextInt(2001)) + ".dat";
 
-		dataSolverFile lpLinkMappingData = new dataSolverFile(
-				Consts.LP_SOLVER_FOLDER + dataFileName);
+			dataSolverFile lpLinkMappingData = new dataSolverFile(
+					Consts.LP_SOLVER_FOLDER + dataFileName);
 
-		lpLinkMappingData.createDataSolverFile(sNet, null, vNet, nodeMapping,
-				wBw, wCpu, false, 0); // Process all current VirtualNetworks
+			lpLinkMappingData.createDataSolverFile(sNet, null, vNet, nodeMapping,
+					wBw, wCpu, false, 0); // Process all current VirtualNetworks
 
-		problemSolver.solve(Consts.LP_SOLVER_FOLDER,
-				Consts.LP_LINKMAPPING_MODEL_HIDDENHOPS, dataFileName);
+			problemSolver.solve(Consts.LP_SOLVER_FOLDER,
+					Consts.LP_LINKMAPPING_MODEL_HIDDENHOPS, dataFileName);
+		} else {
+			model = new LinkMappingLpModel(sNet, vNet, nodeMapping, wBw, wCpu);
+			problemSolver.solve(model, LpSession.peek(sNet));
+		}
 
 		if (problemSolver.problemFeasible()) {
 			// In model HHVNE-Model.mod in /ILP-LP-Models is easy to see
 			// that lambda is the variable of the multi-commodity flow problem
 			// indicating if a substrate node is part of the solution to
 			// map a virtual node demand.
-			solverResult = MiscelFunctions.processSolverResult(
-					problemSolver.getSolverResult(), "lambda[]");
+			if (model != null)
+				solverResult = model.getLambda();
+			else
+				solverResult = MiscelFunctions.processSolverResult(
+						problemSolver.getSolverResult(), "lambda[]");
 
 			// Iterate all VirtualLinks on the current VirtualNetwork
 			for (Iterator<VirtualLink> links = vNet.getEdges().iterator(); links
@@ -54,7 +54,9 @@ import java.util.Random;
 
 import mulavito.algorithms.shortestpath.ksp.Yen;
 import vnreal.algorithms.AbstractLinkMapping;
+import vnreal.algorithms.utils.LinkMappingLpModel;
 import vnreal.algorithms.utils.LinkWeight;
+import vnreal.algorithms.utils.LpSession;
 import vnreal.algorithms.utils.LpSolver;
 import vnreal.algorithms.utils.MiscelFunctions;
 import vnreal.algorithms.utils.NodeLinkAssignation;
@@ -130,24 +132,34 @@ public class RoundingPathSplittingLinkMapping extends AbstractLinkMapping {
 		List<VirtualLink> unMappedLinks = new LinkedList<VirtualLink>();
 		List<List<SubstrateLink>> paths = null;
 
-		Random intGenerator = new Random();
-
-		String dataFileName = Consts.LP_SOLVER_DATAFILE
-				+ Integer.toString(intGenerator.nextInt(2001)) + ".dat";
 		LpSolver problemSolver = new LpSolver();
-		dataSolverFile lpLinkMappingData = new dataSolverFile(
-				Consts.LP_SOLVER_FOLDER + dataFileName);
-
-		lpLinkMappingData.createDataSolverFile(sNet, null, vNet, nodeMapping,
-				wBw, wCpu, false, 0); // Process all the current
+		LinkMappingLpModel model = null;
 
 		// Solving the multi-commodity flow problem
-		problemSolver.solve(Consts.LP_SOLVER_FOLDER,
-				Consts.LP_LINKMAPPING_MODEL_HIDDENHOPS, dataFileName);
+		if (Consts.LP_USE_MODEL_FILES) {
+			Random intGenerator = new Random();
+
+			String dataFileName = Consts.LP_SOLVER_DATAFILE
+					+ Integer.toString(intGenerator.nextInt(2001)) + ".dat";
+			dataSolverFile lpLinkMappingData = new dataSolverFile(
+					Consts.LP_SOLVER_FOLDER + dataFileName);
+
+			lpLinkMappingData.createDataSolverFile(sNet, null, vNet, nodeMapping,
+					wBw, wCpu, false, 0); // Process all the current
+
+			problemSolver.solve(Consts.LP_SOLVER_FOLDER,
+					Consts.LP_LINKMAPPING_MODEL_HIDDENHOPS, dataFileName);
+		} else {
+			model = new LinkMappingLpModel(sNet, vNet, nodeMapping, wBw, wCpu);
+			problemSolver.solve(model, LpSession.peek(sNet));
+		}
 
 		if (problemSolver.problemFeasible()) {
-			solverResult = MiscelFunctions.processSolverResult(
-					problemSolver.getSolverResult(), "lambda[]");
+			if (model != null)
+				solverResult = model.getLambda();
+			else
+				solverResult = MiscelFunctions.processSolverResult(
+						problemSolver.getSolverResult(), "lambda[]");
 
 			// Iterate all VirtualLinks on the current VirtualNetwork
 			for (Iterator<VirtualLink> links = vNet.getEdges().iterator(); links
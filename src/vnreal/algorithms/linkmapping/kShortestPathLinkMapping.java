@@ -38,7 +38,11 @@ import edu.uci.ics.jung.graph.util.Pair;
 
 import mulavito.algorithms.shortestpath.ksp.Eppstein;
 import mulavito.algorithms.shortestpath.ksp.KShortestPathAlgorithm;
+import mulavito.algorithms.shortestpath.ksp.KShortestPathCache;
+import mulavito.algorithms.shortestpath.ksp.TreeYen;
 import mulavito.algorithms.shortestpath.ksp.Yen;
+
+import org.apache.commons.collections15.Factory;
 import vnreal.algorithms.AbstractLinkMapping;
 import vnreal.algorithms.utils.LinkWeight;
 import vnreal.algorithms.utils.NodeLinkAssignation;
@@ -56,6 +60,9 @@ public class kShortestPathLinkMapping extends AbstractLinkMapping {
 	// Number of shortest paths
 	private int k;
 	private boolean eppstein;
+	private boolean treeYen;
+	// Paths of the current substrate, shared by all virtual networks
+	private KShortestPathCache<SubstrateNode, SubstrateLink> pathCache = null;
 
 	/**
 	 * Link mapping algorithm using k-Shortest-Paths. By default, the algorithm
@@ -87,8 +94,26 @@ public class kShortestPathLinkMapping extends AbstractLinkMapping {
 	 *            false: Use the Yen ksp-Algorithm
 	 */
 	public kShortestPathLinkMapping(int k, boolean eppstein) {
+		this(k, eppstein, false);
+	}
+
+	/**
+	 * Link mapping algorithm using k-Shortest-Paths, choosing the variant of
+	 * Yen's algorithm as well.
+	 * 
+	 * @param k
+	 *            Number of shortest paths
+	 * @param eppstein
+	 *            true: Use the Eppstein ksp-Algorithm
+	 *            false: Use the Yen ksp-Algorithm
+	 * @param treeYen
+	 *            true: Run Yen as {@link TreeYen}, which reuses shortest path
+	 *            trees between queries. Ignored if eppstein is true.
+	 */
+	public kShortestPathLinkMapping(int k, boolean eppstein, boolean treeYen) {
 		this.k = k;
 		this.eppstein = eppstein;
+		this.treeYen = treeYen;
 	}
 
 	/**
@@ -102,13 +127,7 @@ public class kShortestPathLinkMapping extends AbstractLinkMapping {
 		this.mappedLinks = 0;
 
 		// Search for path in filtered substrate using KShortestPaths
-		LinkWeight linkWeight = new LinkWeight();
-		KShortestPathAlgorithm<SubstrateNode, SubstrateLink> kshortestPaths = null;
-		if (this.eppstein) {
-			kshortestPaths = new Eppstein<SubstrateNode, SubstrateLink>(sNet, linkWeight);
-		} else {
-			kshortestPaths = new Yen<SubstrateNode, SubstrateLink>(sNet, linkWeight);
-		}
+		KShortestPathCache<SubstrateNode, SubstrateLink> kshortestPaths = getPathCache(sNet);
 
 		// Iterate all VirtualLinks on the current VirtualNetwork
 		for (VirtualLink tVLink : vNet.getEdges()) {
@@ -181,4 +200,32 @@ public class kShortestPathLinkMapping extends AbstractLinkMapping {
 		}
 		return true;
 	}
+
+	/**
+	 * The k shortest paths only depend on the topology and the link weights,
+	 * which stay the same between virtual networks. Thus, the paths are
+	 * cached as long as the substrate does not change.
+	 */
+	private KShortestPathCache<SubstrateNode, SubstrateLink> getPathCache(
+			final SubstrateNetwork sNet) {
+		if (pathCache != null && pathCache.getGraph() == sNet)
+			return pathCache;
+		if (pathCache != null)
+			pathCache.dispose();
+
+		final LinkWeight linkWeight = new LinkWeight();
+		pathCache = new KShortestPathCache<SubstrateNode, SubstrateLink>(sNet,
+				linkWeight, new Factory<KShortestPathAlgorithm<SubstrateNode, SubstrateLink>>() {
+					@Override
+					public KShortestPathAlgorithm<SubstrateNode, SubstrateLink> create() {
+						if (eppstein)
+							return new Eppstein<SubstrateNode, SubstrateLink>(sNet, linkWeight);
+						else if (treeYen)
+							return new TreeYen<SubstrateNode, SubstrateLink>(sNet, linkWeight);
+						else
+							return new Yen<SubstrateNode, SubstrateLink>(sNet, linkWeight);
+					}
+				});
+		return pathCache;
+	}
 }
@@ -59,9 +59,11 @@ import java.util.Random;
 
 import vnreal.algorithms.AbstractNodeMapping;
 import vnreal.algorithms.utils.CopyNetwork;
+import vnreal.algorithms.utils.LpSession;
 import vnreal.algorithms.utils.LpSolver;
 import vnreal.algorithms.utils.MiscelFunctions;
 import vnreal.algorithms.utils.NodeLinkAssignation;
+import vnreal.algorithms.utils.NodeMappingLpModel;
 import vnreal.algorithms.utils.dataSolverFile;
 import vnreal.constraints.demands.AbstractDemand;
 import vnreal.constraints.demands.CpuDemand;
@@ -133,14 +135,7 @@ public class CoordinatedVirtualNodeMapping extends AbstractNodeMapping {
 	@Override
 	protected boolean nodeMapping(SubstrateNetwork sNet, VirtualNetwork vNet) {
 
-		Random intGenerator = new Random();
-		// Temporal solution for executing
-		// at the same time different algorithms using
-		// this link mapping that must accede to different data files
-
 		double hhFactor = 0;
-		String dataFileName = Consts.LP_SOLVER_DATAFILE
-				+ Integer.toString(intGenerator.nextInt(2001)) + ".dat";
 
 		candiNodes = new LinkedHashMap<VirtualNode, List<SubstrateNode>>();
 		LpSolver problemSolver = new LpSolver();
@@ -152,9 +147,6 @@ public class CoordinatedVirtualNodeMapping extends AbstractNodeMapping {
 			Map<List<String>, Double> solverResult;
 			Map<List<String>, Double> solverResultFlow;
 
-			dataSolverFile lpNodeMappingData = new dataSolverFile(
-					Consts.LP_SOLVER_FOLDER + dataFileName);
-
 			if (hhMappings != null) {
 				for (IHiddenHopMapping hhCpuMapping : hhMappings) {
 					if (hhCpuMapping instanceof BandwidthCpuHiddenHopMapping) {
@@ -165,17 +157,40 @@ public class CoordinatedVirtualNodeMapping extends AbstractNodeMapping {
 				}
 			}
 
-			lpNodeMappingData.createDataSolverFile(augmentedSubstrate, sNet,
-					vNet, nodeMapping, wCpu, wBw, true, hhFactor);
-
-			problemSolver.solve(Consts.LP_SOLVER_FOLDER,
-					Consts.LP_NODEMAPPING_MODEL, dataFileName);
-
-			solverResult = MiscelFunctions.processSolverResult(
-					problemSolver.getSolverResult(), "lambda[]");
-
-			solverResultFlow = MiscelFunctions.processSolverResult(
-					problemSolver.getSolverResultFlow(), "flow[]");
+			if (Consts.LP_USE_MODEL_FILES) {
+				Random intGenerator = new Random();
+				// Temporal solution for executing
+				// at the same time different algorithms using
+				// this link mapping that must accede to different data files
+				String dataFileName = Consts.LP_SOLVER_DATAFILE
+						+ Integer.toString(intGenerator.nextInt(2001)) + ".dat";
+				dataSolverFile lpNodeMappingData = new dataSolverFile(
+						Consts.LP_SOLVER_FOLDER + dataFileName);
+
+				lpNodeMappingData.createDataSolverFile(augmentedSubstrate, sNet,
+						vNet, nodeMapping, wCpu, wBw, true, hhFactor);
+
+				problemSolver.solve(Consts.LP_SOLVER_FOLDER,
+						Consts.LP_NODEMAPPING_MODEL, dataFileName);
+				if (!problemSolver.problemFeasible())
+					return false;
+
+				solverResult = MiscelFunctions.processSolverResult(
+						problemSolver.getSolverResult(), "lambda[]");
+
+				solverResultFlow = MiscelFunctions.processSolverResult(
+						problemSolver.getSolverResultFlow(), "flow[]");
+			} else {
+				NodeMappingLpModel model = new NodeMappingLpModel(
+						augmentedSubstrate, sNet, vNet, nodeMapping, wCpu,
+						wBw, hhFactor);
+				problemSolver.solve(model, LpSession.peek(sNet));
+				if (!problemSolver.problemFeasible())
+					return false;
+
+				solverResult = model.getLambda();
+				solverResultFlow = model.getFlow();
+			}
 
 			return virtualNodeMapping(sNet, unMappedVirtualNodes, augmentedSubstrate,
 					augmentedCorrespond, solverResult, solverResultFlow);
@@ -51,6 +51,7 @@ import java.util.Map;
 import vnreal.algorithms.AbstractNodeMapping;
 import vnreal.algorithms.utils.MiscelFunctions;
 import vnreal.algorithms.utils.NodeLinkAssignation;
+import vnreal.algorithms.utils.NodeRank;
 import vnreal.network.Node;
 import vnreal.network.substrate.SubstrateNetwork;
 import vnreal.network.substrate.SubstrateNode;
@@ -60,6 +61,9 @@ import vnreal.network.virtual.VirtualNode;
 public class NodeRankingBasedAlgorithm extends AbstractNodeMapping {
 	private double epsilon;
 	private int dist;
+	private boolean warmStart = false;
+	// NodeRank of the substrate, kept between the VNRs
+	private NodeRank substrateRank = null;
 
 	@Deprecated
 	public NodeRankingBasedAlgorithm(
@@ -76,6 +80,19 @@ public class NodeRankingBasedAlgorithm extends AbstractNodeMapping {
 		this.dist = dist;
 	}
 
+	/**
+	 * @param warmStart
+	 *            If true, the NodeRank of the substrate starts from the
+	 *            ranking of the previous VNR instead of the initial ranking.
+	 *            This needs fewer iterations, but the ranking may differ
+	 *            slightly from a ranking computed from scratch.
+	 */
+	public NodeRankingBasedAlgorithm(boolean nodeOverload, double epsilon, int dist,
+			boolean warmStart) {
+		this(nodeOverload, epsilon, dist);
+		this.warmStart = warmStart;
+	}
+
 	@Override
 	protected boolean nodeMapping(SubstrateNetwork sNet, VirtualNetwork vNet) {
 		/*
@@ -86,8 +103,15 @@ public class NodeRankingBasedAlgorithm extends AbstractNodeMapping {
 		 * through topology-aware node ranking, SIGCOMM Comput. Commun. Rev. 41 (2011) 38--47.
 		 * 
 		 */
+		if (substrateRank == null || substrateRank.getNetwork() != sNet
+				|| !substrateRank.matchesTopology()) {
+			substrateRank = new NodeRank(sNet);
+		} else {
+			// Only the residual resources have changed since the last VNR
+			substrateRank.refresh();
+		}
 		Map<Node<?>, Double> SortedNodeNR_i_opt_subs = MiscelFunctions
-				.sortByValue(MiscelFunctions.create_NR(sNet, epsilon));
+				.sortByValue(substrateRank.compute(epsilon, warmStart));
 		Map<Node<?>, Double> SortedNodeNR_i_opt_virt = MiscelFunctions
 				.sortByValue(MiscelFunctions.create_NR(vNet, epsilon));
 		boolean mappingPerformed;
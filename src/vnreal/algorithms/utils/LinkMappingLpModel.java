@@ -0,0 +1,264 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package vnreal.algorithms.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import vnreal.constraints.demands.AbstractDemand;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.substrate.CompactSubstrateNetwork;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * In-memory version of the multi-commodity flow problem solved for the path
+ * splitting link mapping (HHVNE-Model.mod together with the data file of
+ * {@link dataSolverFile#createDataSolverFile}).
+ * 
+ * Every pair of different substrate nodes hosting the end points of at least
+ * one virtual link is a commodity whose demand is the sum of the bandwidth
+ * demands of these virtual links. The variable <code>lambda[s,t,i,j]</code>
+ * is the fraction of the commodity from <code>s</code> to <code>t</code>
+ * routed over the substrate link from <code>i</code> to <code>j</code>. The
+ * objective weights the bandwidth spent on every link with
+ * <code>w1 / (residual bandwidth + delta)</code>. If the virtual links carry
+ * hidden hop CPU demands, the CPU spent at every intermediate node of a path
+ * is bounded by its residual CPU and weighted with
+ * <code>w2 / (residual CPU + delta)</code>.
+ * 
+ * See: Minlan Yu, Yung Yi, Jennifer Rexford, and Mung Chiang. Rethinking
+ * virtual network embedding: Substrate support for path splitting and
+ * migration. ACM SIGCOMM CCR, 38(2):17–29, April 2008.
+ * 
+ * @since 2015-06-15
+ */
+public class LinkMappingLpModel extends LpModel {
+	/** Added to the residual capacities to avoid a division by zero. */
+	public static final double DELTA = 0.0001;
+
+	private final CompactSubstrateNetwork substrate;
+	private final List<SubstrateNode> commoditySource = new ArrayList<SubstrateNode>();
+	private final List<SubstrateNode> commodityDest = new ArrayList<SubstrateNode>();
+	/** lambda[c][l] is the column of commodity c on substrate link l. */
+	private final int[][] lambda;
+	private boolean hiddenHops = false;
+
+	/**
+	 * @param sNet
+	 *            Substrate Network
+	 * @param vNet
+	 *            VNR to be mapped
+	 * @param nodeMapping
+	 *            Indication of the performed node mapping
+	 * @param wBandwidth
+	 *            Bandwidth considered weight
+	 * @param wCpu
+	 *            Cpu considered weight
+	 */
+	public LinkMappingLpModel(SubstrateNetwork sNet, VirtualNetwork vNet,
+			Map<VirtualNode, SubstrateNode> nodeMapping, double wBandwidth,
+			double wCpu) {
+		this.substrate = new CompactSubstrateNetwork(sNet);
+
+		// Aggregate the virtual links into commodities
+		Map<List<SubstrateNode>, double[]> commodities = new LinkedHashMap<List<SubstrateNode>, double[]>();
+		for (VirtualLink vLink : vNet.getEdges()) {
+			SubstrateNode src = nodeMapping.get(vNet.getSource(vLink));
+			SubstrateNode dst = nodeMapping.get(vNet.getDest(vLink));
+			if (src.equals(dst))
+				continue;
+
+			double bw = 0.0, hhCpu = 0.0;
+			for (AbstractDemand dem : vLink) {
+				if (dem instanceof BandwidthDemand) {
+					bw = ((BandwidthDemand) dem).getDemandedBandwidth();
+					break;
+				}
+			}
+			for (AbstractDemand dem : vLink.getHiddenHopDemands()) {
+				if (dem instanceof CpuDemand) {
+					hhCpu = ((CpuDemand) dem).getDemandedCycles();
+					hiddenHops = true;
+					break;
+				}
+			}
+
+			List<SubstrateNode> key = Arrays.asList(src, dst);
+			double[] demand = commodities.get(key);
+			if (demand == null) {
+				demand = new double[2];
+				commodities.put(key, demand);
+			}
+			demand[0] += bw;
+			demand[1] += hhCpu;
+		}
+
+		int numNodes = substrate.getNodeCount();
+		int numLinks = substrate.getLinkCount();
+		lambda = new int[commodities.size()][numLinks];
+
+		// Link capacity rows
+		int[] capacityRow = new int[numLinks];
+		for (int l = 0; l < numLinks; l++)
+			capacityRow[l] = addRow(Double.NEGATIVE_INFINITY,
+					substrate.getBandwidth(l));
+
+		// Hidden hop CPU rows, only for nodes offering CPU
+		int[] cpuRow = new int[numNodes];
+		if (hiddenHops) {
+			for (int n = 0; n < numNodes; n++)
+				if (substrate.getNode(n).get(CpuResource.class) != null)
+					cpuRow[n] = addRow(Double.NEGATIVE_INFINITY,
+							substrate.getCpu(n));
+		}
+
+		int c = 0;
+		for (Map.Entry<List<SubstrateNode>, double[]> e : commodities
+				.entrySet()) {
+			int src = substrate.indexOf(e.getKey().get(0));
+			int dst = substrate.indexOf(e.getKey().get(1));
+			double bw = MiscelFunctions.round(e.getValue()[0], 3);
+			double hhCpu = MiscelFunctions.round(e.getValue()[1], 3);
+			commoditySource.add(e.getKey().get(0));
+			commodityDest.add(e.getKey().get(1));
+
+			// Flow conservation rows: outgoing - incoming fraction
+			int[] flowRow = new int[numNodes];
+			for (int n = 0; n < numNodes; n++) {
+				double rhs = (n == src) ? 1.0 : (n == dst) ? -1.0 : 0.0;
+				flowRow[n] = addRow(rhs, rhs);
+			}
+
+			for (int l = 0; l < numLinks; l++) {
+				int i = substrate.getSource(l);
+				int j = substrate.getDest(l);
+				double cost = wBandwidth * bw
+						/ (substrate.getBandwidth(l) + DELTA);
+				int col = addColumn(0.0, 1.0, cost);
+				lambda[c][l] = col;
+
+				setCoefficient(capacityRow[l], col, bw);
+				if (i != j) {
+					setCoefficient(flowRow[i], col, 1.0);
+					setCoefficient(flowRow[j], col, -1.0);
+				}
+				// The source of a link carries a hidden hop unless it is the
+				// start of the path
+				if (cpuRow[i] != 0 && i != src) {
+					setCoefficient(cpuRow[i], col, hhCpu);
+					addCost(col, wCpu * hhCpu / (substrate.getCpu(i) + DELTA));
+				}
+			}
+			c++;
+		}
+	}
+
+	/**
+	 * The rows of the substrate links and nodes come first, followed by one
+	 * block of rows and columns per commodity. The models of two requests on
+	 * the same substrate thus agree on the substrate rows and on the blocks
+	 * of the commodities both have, whatever the sizes of the requests, so
+	 * the basis tells which links and nodes have been saturated before.
+	 */
+	@Override
+	public boolean canReuseBasisOf(LpModel previous) {
+		if (previous.getClass() != getClass())
+			return false;
+		LinkMappingLpModel other = (LinkMappingLpModel) previous;
+		if (other.hiddenHops != hiddenHops
+				|| other.substrate.getNodeCount() != substrate.getNodeCount()
+				|| other.substrate.getLinkCount() != substrate.getLinkCount())
+			return false;
+		for (int n = 0; n < substrate.getNodeCount(); n++)
+			if (other.substrate.getNode(n) != substrate.getNode(n))
+				return false;
+		for (int l = 0; l < substrate.getLinkCount(); l++)
+			if (other.substrate.getLink(l) != substrate.getLink(l))
+				return false;
+		return true;
+	}
+
+	public int getCommodityCount() {
+		return lambda.length;
+	}
+
+	public SubstrateNode getCommoditySource(int commodity) {
+		return commoditySource.get(commodity);
+	}
+
+	public SubstrateNode getCommodityDest(int commodity) {
+		return commodityDest.get(commodity);
+	}
+
+	public CompactSubstrateNetwork getSubstrate() {
+		return substrate;
+	}
+
+	/**
+	 * @return The fraction of the given commodity routed over the substrate
+	 *         link with the given index in {@link #getSubstrate()}
+	 */
+	public double getLambda(int commodity, int link) {
+		return getValue(lambda[commodity][link]);
+	}
+
+	/**
+	 * @return The solution in the form produced by
+	 *         {@link MiscelFunctions#processSolverResult(Map, String)} for
+	 *         the <code>lambda</code> variables of the model file: the key
+	 *         holds the IDs of the commodity source and destination and of
+	 *         the substrate link end points.
+	 */
+	public Map<List<String>, Double> getLambda() {
+		Map<List<String>, Double> result = new LinkedHashMap<List<String>, Double>();
+		for (int c = 0; c < lambda.length; c++) {
+			String src = Long.toString(commoditySource.get(c).getId());
+			String dst = Long.toString(commodityDest.get(c).getId());
+			for (int l = 0; l < lambda[c].length; l++) {
+				result.put(Arrays.asList(src, dst,
+						Long.toString(substrate.getNode(substrate.getSource(l)).getId()),
+						Long.toString(substrate.getNode(substrate.getDest(l)).getId())),
+						getValue(lambda[c][l]));
+			}
+		}
+		return result;
+	}
+}
@@ -31,10 +31,10 @@
  * ***** END LICENSE BLOCK ***** */
 package vnreal.algorithms.utils;
 
-import mulavito.graph.transformers.IEdgeWeightTransformer;
+import mulavito.graph.transformers.IVersionedEdgeWeightTransformer;
 import vnreal.network.substrate.SubstrateLink;
 
-public class LinkWeight implements IEdgeWeightTransformer<SubstrateLink> {
+public class LinkWeight implements IVersionedEdgeWeightTransformer<SubstrateLink> {
 
 	@Override
 	public void set(SubstrateLink e, Number w) {
@@ -48,4 +48,10 @@ public class LinkWeight implements IEdgeWeightTransformer<SubstrateLink> {
 		return 1.0;
 	}
 
+	@Override
+	public long getVersion() {
+		// All links always weigh 1.0
+		return 0;
+	}
+
 }
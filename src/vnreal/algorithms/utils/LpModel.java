@@ -0,0 +1,317 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package vnreal.algorithms.utils;
+
+import java.util.Arrays;
+
+import org.gnu.glpk.GLPK;
+import org.gnu.glpk.GLPKConstants;
+import org.gnu.glpk.SWIGTYPE_p_double;
+import org.gnu.glpk.SWIGTYPE_p_int;
+import org.gnu.glpk.glp_prob;
+
+/**
+ * Linear program assembled in memory and loaded into a GLPK problem object
+ * directly through the API, without writing a MathProg data file and
+ * translating a model file.
+ * 
+ * Subclasses add columns and rows while walking the networks and remember the
+ * returned indices in arrays, so the values of the variables can be looked up
+ * by index after {@link LpSolver#solve(LpModel)} instead of parsing column
+ * names.
+ * 
+ * @since 2015-06-15
+ */
+public abstract class LpModel {
+	private int numCols = 0;
+	private double[] colLb = new double[64];
+	private double[] colUb = new double[64];
+	private double[] colCost = new double[64];
+
+	private int numRows = 0;
+	private int[] rowType = new int[64];
+	private double[] rowLb = new double[64];
+	private double[] rowUb = new double[64];
+
+	// Constraint matrix in coordinate form, as expected by glp_load_matrix
+	private int numNz = 0;
+	private int[] nzRow = new int[256];
+	private int[] nzCol = new int[256];
+	private double[] nzVal = new double[256];
+
+	private double[] values = null;
+	private double objective;
+
+	/**
+	 * Add a variable.
+	 * 
+	 * @param lb
+	 *            Lower bound, or {@link Double#NEGATIVE_INFINITY}
+	 * @param ub
+	 *            Upper bound, or {@link Double#POSITIVE_INFINITY}
+	 * @param cost
+	 *            Coefficient in the (minimized) objective function
+	 * @return The column index of the variable, starting at 1 like in GLPK
+	 */
+	protected final int addColumn(double lb, double ub, double cost) {
+		if (numCols + 1 == colLb.length) {
+			colLb = Arrays.copyOf(colLb, 2 * colLb.length);
+			colUb = Arrays.copyOf(colUb, 2 * colUb.length);
+			colCost = Arrays.copyOf(colCost, 2 * colCost.length);
+		}
+		numCols++;
+		colLb[numCols] = lb;
+		colUb[numCols] = ub;
+		colCost[numCols] = cost;
+		return numCols;
+	}
+
+	/**
+	 * Add to the objective coefficient of a variable.
+	 */
+	protected final void addCost(int col, double cost) {
+		colCost[col] += cost;
+	}
+
+	/**
+	 * Add a constraint <code>lb &lt;= row &lt;= ub</code>. Infinite bounds
+	 * are left out.
+	 * 
+	 * @return The row index of the constraint, starting at 1 like in GLPK
+	 */
+	protected final int addRow(double lb, double ub) {
+		if (numRows + 1 == rowLb.length) {
+			rowType = Arrays.copyOf(rowType, 2 * rowType.length);
+			rowLb = Arrays.copyOf(rowLb, 2 * rowLb.length);
+			rowUb = Arrays.copyOf(rowUb, 2 * rowUb.length);
+		}
+		numRows++;
+		rowType[numRows] = boundsType(lb, ub);
+		rowLb[numRows] = lb;
+		rowUb[numRows] = ub;
+		return numRows;
+	}
+
+	/**
+	 * Set the coefficient of a variable in a constraint. Each pair of row and
+	 * column may be set only once; zero coefficients are ignored.
+	 */
+	protected final void setCoefficient(int row, int col, double value) {
+		if (value == 0.0)
+			return;
+		if (numNz + 1 == nzRow.length) {
+			nzRow = Arrays.copyOf(nzRow, 2 * nzRow.length);
+			nzCol = Arrays.copyOf(nzCol, 2 * nzCol.length);
+			nzVal = Arrays.copyOf(nzVal, 2 * nzVal.length);
+		}
+		numNz++;
+		nzRow[numNz] = row;
+		nzCol[numNz] = col;
+		nzVal[numNz] = value;
+	}
+
+	private static int boundsType(double lb, double ub) {
+		boolean hasLb = lb != Double.NEGATIVE_INFINITY;
+		boolean hasUb = ub != Double.POSITIVE_INFINITY;
+		if (hasLb && hasUb)
+			return lb == ub ? GLPKConstants.GLP_FX : GLPKConstants.GLP_DB;
+		if (hasLb)
+			return GLPKConstants.GLP_LO;
+		if (hasUb)
+			return GLPKConstants.GLP_UP;
+		return GLPKConstants.GLP_FR;
+	}
+
+	private static double finite(double bound) {
+		return Double.isInfinite(bound) ? 0.0 : bound;
+	}
+
+	public int getNumCols() {
+		return numCols;
+	}
+
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * @return true if the given model has the same rows, columns and
+	 *         non-zero pattern of the constraint matrix in the same order,
+	 *         so a basis of one model refers to the same variables and
+	 *         constraints in the other
+	 */
+	public boolean hasSameStructure(LpModel other) {
+		if (other.getClass() != getClass() || other.numCols != numCols
+				|| other.numRows != numRows || other.numNz != numNz)
+			return false;
+		for (int k = 1; k <= numNz; k++)
+			if (other.nzRow[k] != nzRow[k] || other.nzCol[k] != nzCol[k])
+				return false;
+		return true;
+	}
+
+	/**
+	 * By default, a basis is only reused between models of the same
+	 * structure. Subclasses whose rows and columns have a stable layout may
+	 * allow more.
+	 * 
+	 * @return true if the basis the previous model left in the problem
+	 *         object is a starting point for this model: every row and column
+	 *         both models have plays the same role in both, and the others
+	 *         are at the end
+	 */
+	public boolean canReuseBasisOf(LpModel previous) {
+		return hasSameStructure(previous);
+	}
+
+	/**
+	 * Copy the model into a GLPK problem object. The problem object may hold
+	 * a previous model; it is resized to the dimensions of this model by
+	 * removing or adding rows and columns at the end, and the basis statuses
+	 * of the rows and columns it already had are kept, so the simplex method
+	 * can start from the previous basis (see
+	 * {@link #canReuseBasisOf(LpModel)}). GLPK makes added rows basic and
+	 * added columns non-basic, so the basis stays valid if the model grows.
+	 * If it shrinks, statuses are changed from the end until there is one
+	 * basic variable per row again.
+	 */
+	public void load(glp_prob lp) {
+		GLPK.glp_set_obj_dir(lp, GLPKConstants.GLP_MIN);
+		boolean shrunk = GLPK.glp_get_num_cols(lp) > numCols
+				|| GLPK.glp_get_num_rows(lp) > numRows;
+		int oldCols = GLPK.glp_get_num_cols(lp);
+		if (oldCols > numCols) {
+			SWIGTYPE_p_int num = range(numCols + 1, oldCols);
+			GLPK.glp_del_cols(lp, oldCols - numCols, num);
+			GLPK.delete_intArray(num);
+		} else if (oldCols < numCols)
+			GLPK.glp_add_cols(lp, numCols - oldCols);
+		int oldRows = GLPK.glp_get_num_rows(lp);
+		if (oldRows > numRows) {
+			SWIGTYPE_p_int num = range(numRows + 1, oldRows);
+			GLPK.glp_del_rows(lp, oldRows - numRows, num);
+			GLPK.delete_intArray(num);
+		} else if (oldRows < numRows)
+			GLPK.glp_add_rows(lp, numRows - oldRows);
+
+		for (int j = 1; j <= numCols; j++) {
+			GLPK.glp_set_col_bnds(lp, j, boundsType(colLb[j], colUb[j]),
+					finite(colLb[j]), finite(colUb[j]));
+			GLPK.glp_set_obj_coef(lp, j, colCost[j]);
+		}
+		for (int i = 1; i <= numRows; i++)
+			GLPK.glp_set_row_bnds(lp, i, rowType[i], finite(rowLb[i]),
+					finite(rowUb[i]));
+
+		SWIGTYPE_p_int ia = GLPK.new_intArray(numNz + 1);
+		SWIGTYPE_p_int ja = GLPK.new_intArray(numNz + 1);
+		SWIGTYPE_p_double ar = GLPK.new_doubleArray(numNz + 1);
+		try {
+			for (int k = 1; k <= numNz; k++) {
+				GLPK.intArray_setitem(ia, k, nzRow[k]);
+				GLPK.intArray_setitem(ja, k, nzCol[k]);
+				GLPK.doubleArray_setitem(ar, k, nzVal[k]);
+			}
+			GLPK.glp_load_matrix(lp, numNz, ia, ja, ar);
+		} finally {
+			GLPK.delete_intArray(ia);
+			GLPK.delete_intArray(ja);
+			GLPK.delete_doubleArray(ar);
+		}
+
+		if (shrunk)
+			repairBasis(lp);
+	}
+
+	/**
+	 * Make the last basic columns non-basic, or the last non-basic rows
+	 * basic, until the number of basic variables equals the number of rows.
+	 * GLPK adjusts the non-basic statuses to the bounds.
+	 */
+	private void repairBasis(glp_prob lp) {
+		int basic = 0;
+		for (int i = 1; i <= numRows; i++)
+			if (GLPK.glp_get_row_stat(lp, i) == GLPKConstants.GLP_BS)
+				basic++;
+		for (int j = 1; j <= numCols; j++)
+			if (GLPK.glp_get_col_stat(lp, j) == GLPKConstants.GLP_BS)
+				basic++;
+
+		for (int j = numCols; j >= 1 && basic > numRows; j--) {
+			if (GLPK.glp_get_col_stat(lp, j) == GLPKConstants.GLP_BS) {
+				GLPK.glp_set_col_stat(lp, j, GLPKConstants.GLP_NL);
+				basic--;
+			}
+		}
+		for (int i = numRows; i >= 1 && basic < numRows; i--) {
+			if (GLPK.glp_get_row_stat(lp, i) != GLPKConstants.GLP_BS) {
+				GLPK.glp_set_row_stat(lp, i, GLPKConstants.GLP_BS);
+				basic++;
+			}
+		}
+	}
+
+	/**
+	 * @return A GLPK array holding the numbers from first to last at the
+	 *         positions 1, 2, ...
+	 */
+	private static SWIGTYPE_p_int range(int first, int last) {
+		SWIGTYPE_p_int num = GLPK.new_intArray(last - first + 2);
+		for (int k = first; k <= last; k++)
+			GLPK.intArray_setitem(num, k - first + 1, k);
+		return num;
+	}
+
+	/**
+	 * Fetch the primal values of all variables after the problem has been
+	 * solved by the simplex method.
+	 */
+	public void readSolution(glp_prob lp) {
+		values = new double[numCols + 1];
+		for (int j = 1; j <= numCols; j++)
+			values[j] = GLPK.glp_get_col_prim(lp, j);
+		objective = GLPK.glp_get_obj_val(lp);
+	}
+
+	/**
+	 * @return The value of the given variable in the last solution
+	 */
+	protected final double getValue(int col) {
+		if (values == null)
+			throw new IllegalStateException("The model has not been solved");
+		return values[col];
+	}
+
+	public double getObjective() {
+		return objective;
+	}
+}
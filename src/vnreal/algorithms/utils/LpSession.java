@@ -0,0 +1,213 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package vnreal.algorithms.utils;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.gnu.glpk.GLPK;
+import org.gnu.glpk.GLPKConstants;
+import org.gnu.glpk.GlpkException;
+import org.gnu.glpk.glp_prob;
+import org.gnu.glpk.glp_smcp;
+
+import vnreal.network.substrate.SubstrateNetwork;
+
+/**
+ * Persistent LP state for the virtual network requests embedded into one
+ * substrate network by one algorithm run.
+ * 
+ * Consecutive requests lead to models over the same substrate; only the
+ * residual capacities and the set of demands differ. Instead of creating and
+ * presolving a new problem for every request, the session keeps one GLPK
+ * problem object per kind of {@link LpModel}, loads each new model into it in
+ * place and restarts the simplex method from the basis of the previous
+ * solution. The basis is reused if the new model says it can start from it
+ * (see {@link LpModel#canReuseBasisOf(LpModel)}), which the link mapping
+ * model does for requests of any size; otherwise, and if the basis is not
+ * valid for the new model, an advanced initial basis is constructed
+ * instead.
+ * 
+ * A session is opened by the algorithm owning it, usually in
+ * {@link vnreal.algorithms.GenericMappingAlgorithm}, and must be closed by it
+ * to free the GLPK problem objects. Node and link mappings look up the open
+ * session of their substrate network with {@link #peek(SubstrateNetwork)};
+ * without one, every model is solved from scratch in a problem object of its
+ * own.
+ * 
+ * The session also records the time spent in the solver, which is reported
+ * by the metric {@link vnreal.evaluations.metrics.LpSolveTimePerVnr}.
+ * 
+ * @since 2015-06-15
+ */
+public final class LpSession implements Closeable {
+	private static final Map<SubstrateNetwork, LpSession> sessions = new WeakHashMap<SubstrateNetwork, LpSession>();
+
+	private final Map<Class<? extends LpModel>, glp_prob> problems = new HashMap<Class<? extends LpModel>, glp_prob>();
+	/** The model last loaded into the problem object of its kind */
+	private final Map<Class<? extends LpModel>, LpModel> loaded = new HashMap<Class<? extends LpModel>, LpModel>();
+	private boolean closed = false;
+	private int solves = 0;
+	private int warmStarts = 0;
+	private long solveNanos = 0;
+
+	private LpSession() {
+	}
+
+	/**
+	 * Open a new session for the given substrate network. It replaces the
+	 * session of a previous algorithm run, whose statistics are then no
+	 * longer available through {@link #peek(SubstrateNetwork)}.
+	 * 
+	 * @return The new session, which the caller has to close
+	 */
+	public static LpSession open(SubstrateNetwork sNet) {
+		LpSession session = new LpSession();
+		synchronized (sessions) {
+			sessions.put(sNet, session);
+		}
+		return session;
+	}
+
+	/**
+	 * @return The session last opened for the given substrate network, which
+	 *         may have been closed already, or <code>null</code>
+	 */
+	public static LpSession peek(SubstrateNetwork sNet) {
+		synchronized (sessions) {
+			return sessions.get(sNet);
+		}
+	}
+
+	/**
+	 * Solve the given model, starting from the basis of the last model of the
+	 * same kind if the model can reuse it.
+	 * 
+	 * @return true if an optimal solution was found. It has then been read
+	 *         back into the model.
+	 * @throws IllegalStateException
+	 *             if the session has been closed
+	 */
+	public synchronized boolean solve(LpModel model) {
+		if (closed)
+			throw new IllegalStateException("The LP session has been closed");
+
+		long start = System.nanoTime();
+		try {
+			glp_prob lp = problems.get(model.getClass());
+			LpModel previous = loaded.get(model.getClass());
+			boolean warm = lp != null && previous != null
+					&& model.canReuseBasisOf(previous);
+			if (lp == null) {
+				lp = GLPK.glp_create_prob();
+				problems.put(model.getClass(), lp);
+			}
+			model.load(lp);
+			loaded.put(model.getClass(), model);
+
+			// The presolver would discard the basis
+			glp_smcp smcp = new glp_smcp();
+			GLPK.glp_init_smcp(smcp);
+			smcp.setPresolve(GLPKConstants.GLP_OFF);
+
+			int ret;
+			if (warm) {
+				ret = GLPK.glp_simplex(lp, smcp);
+				if (ret == 0)
+					warmStarts++;
+			} else {
+				ret = -1;
+			}
+			if (ret != 0) {
+				GLPK.glp_adv_basis(lp, 0);
+				ret = GLPK.glp_simplex(lp, smcp);
+			}
+
+			if (ret != 0 || GLPK.glp_get_status(lp) != GLPKConstants.GLP_OPT) {
+				// Do not start the next model from a broken basis
+				loaded.remove(model.getClass());
+				return false;
+			}
+			model.readSolution(lp);
+			return true;
+		} catch (GlpkException ex) {
+			ex.printStackTrace();
+			freeProblems();
+			return false;
+		} finally {
+			solves++;
+			solveNanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Free the GLPK problem objects. Further models cannot be solved in this
+	 * session; the statistics are kept.
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+		freeProblems();
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	private void freeProblems() {
+		for (glp_prob lp : problems.values())
+			GLPK.glp_delete_prob(lp);
+		problems.clear();
+		loaded.clear();
+	}
+
+	public synchronized int getSolves() {
+		return solves;
+	}
+
+	/**
+	 * @return The number of solves which could reuse the previous basis
+	 */
+	public synchronized int getWarmStarts() {
+		return warmStarts;
+	}
+
+	/**
+	 * @return The total time spent loading and solving models, in
+	 *         milliseconds
+	 */
+	public synchronized double getSolveTime() {
+		return solveNanos / 1e6;
+	}
+}
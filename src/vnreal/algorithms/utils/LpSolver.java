@@ -202,12 +202,75 @@ public class LpSolver {
 
 			if (ret != 0 || status != GLPKConstants.GLP_OPT) {
 				problemFeasible = false;
+			} else {
+				optSol = GLPK.glp_get_obj_val(lp);
 			}
 			GLPK.glp_mpl_free_wksp(tran);
 			GLPK.glp_delete_prob(lp);
 		} catch (GlpkException ex) {
 			ex.printStackTrace();
+			problemFeasible = false;
+		}
+	}
+
+	/**
+	 * Solves an LP problem built in memory. The values of the variables are
+	 * read back into the model; the result maps of this solver are left
+	 * empty.
+	 * 
+	 * @param model
+	 *            The problem to solve
+	 */
+	public void solve(LpModel model) {
+		initialize();
+		glp_prob lp = null;
+		glp_smcp smcp;
+		int ret, status;
+		problemFeasible = true;
+		try {
+			lp = GLPK.glp_create_prob();
+			model.load(lp);
+			// Set solver parameters
+			smcp = new glp_smcp();
+			GLPK.glp_init_smcp(smcp);
+			smcp.setPresolve(GLPKConstants.GLP_ON);
+			// Solve the problem
+			ret = GLPK.glp_simplex(lp, smcp);
+			status = GLPK.glp_get_status(lp);
+
+			if (ret != 0 || status != GLPKConstants.GLP_OPT) {
+				problemFeasible = false;
+			} else {
+				model.readSolution(lp);
+				optSol = model.getObjective();
+			}
+			GLPK.glp_delete_prob(lp);
+		} catch (GlpkException ex) {
+			ex.printStackTrace();
+			problemFeasible = false;
+		}
+	}
+
+	/**
+	 * Solves an LP problem built in memory within the given session, starting
+	 * from the basis of the model solved before.
+	 * 
+	 * @param model
+	 *            The problem to solve
+	 * @param session
+	 *            The session of the substrate network the model is built on.
+	 *            If it is <code>null</code> or closed, the model is solved
+	 *            from scratch like by {@link #solve(LpModel)}.
+	 */
+	public void solve(LpModel model, LpSession session) {
+		if (session == null || session.isClosed()) {
+			solve(model);
+			return;
 		}
+		initialize();
+		problemFeasible = session.solve(model);
+		if (problemFeasible)
+			optSol = model.getObjective();
 	}
 
 	/**
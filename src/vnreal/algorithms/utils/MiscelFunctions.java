@@ -69,14 +69,59 @@ import vnreal.network.virtual.VirtualNode;
 
 public class MiscelFunctions {
 
+	private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+			1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+	/** Veltkamp splitter for doubles (2^27 + 1) */
+	private static final double SPLITTER = 134217729.0;
+	/** Largest scaled value for which the exact fast path below applies (2^51) */
+	private static final double MAX_SCALED = 2251799813685248.0;
+
 	/**
 	 * Round the double d to the with c values after the comma
 	 * 
+	 * The result is the same as rounding the exact decimal value of d with
+	 * {@link BigDecimal#ROUND_HALF_UP}, but computed without allocating
+	 * objects: d * 10^c is evaluated exactly as the sum of two doubles
+	 * (Dekker's product), so ties and near-ties are decided exactly. Values
+	 * outside the range of the fast path fall back to {@link BigDecimal}.
+	 * 
 	 * @param d
 	 * @param c
 	 * @return
 	 */
 	public static double round(double d, int decimalPlace) {
+		if (decimalPlace >= 0 && decimalPlace < POW10.length) {
+			double scale = POW10[decimalPlace];
+			double a = Math.abs(d);
+
+			// p = a * scale exactly equals t + err
+			double t = a * scale;
+			if (t < MAX_SCALED) {
+				double c = SPLITTER * a;
+				double aHi = c - (c - a);
+				double aLo = a - aHi;
+				c = SPLITTER * scale;
+				double sHi = c - (c - scale);
+				double sLo = scale - sHi;
+				double err = ((aHi * sHi - t) + aHi * sLo + aLo * sHi) + aLo * sLo;
+
+				double k = Math.floor(t);
+				// Both differences are exact, as t < 2^51
+				double frac = t - k;
+				if (frac + err < 0.0) {
+					// t was rounded up to (or past) the integer k
+					k -= 1.0;
+					frac += 1.0;
+				}
+				if (frac - 0.5 >= -err)
+					k += 1.0;
+
+				if (k == 0.0)
+					return 0.0;
+				return d < 0.0 ? -k / scale : k / scale;
+			}
+		}
+
 		BigDecimal bd = new BigDecimal(d);
 		bd = bd.setScale(decimalPlace, BigDecimal.ROUND_HALF_UP);
 		return bd.doubleValue();
@@ -352,58 +397,11 @@ public class MiscelFunctions {
 	 * 
 	 * @param net
 	 * @return the optimal NR
+	 * @see NodeRank
 	 */
 	public static Map<Node<?>, Double> create_NR(Network<?, ?, ?> net,
 			double epsilon) {
-		Map<Node<?>, Double> nodeAr = new LinkedHashMap<Node<?>, Double>();
-		Map<Node<?>, Double> nodeNR_i = new LinkedHashMap<Node<?>, Double>();
-		Map<Node<?>, Double> nodeNR_i_1 = new LinkedHashMap<Node<?>, Double>();
-		Map<NodexNode, Double> p_J_u_v = new LinkedHashMap<NodexNode, Double>();
-		Map<NodexNode, Double> p_F_u_v = new LinkedHashMap<NodexNode, Double>();
-		NodexNode tempNodePair;
-		Map<Node<?>, List<Node<?>>> nodeNeighbors = new LinkedHashMap<Node<?>, List<Node<?>>>();
-		List<Node<?>> tempNodeNeighbors = new LinkedList<Node<?>>();
-		double delta = epsilon + 1;
-
-		for (Node<?> node : net.getVertices())
-			nodeAr.put(node, getAr(net, node));
-
-		for (Node<?> node : net.getVertices()) {
-			nodeNR_i.put(node, calculateNr_0_pJF(net.getVertices(), node,
-					nodeAr));
-			tempNodeNeighbors.clear();
-
-			if (net instanceof SubstrateNetwork)
-				for (SubstrateLink sLink : ((SubstrateNetwork) net)
-						.getOutEdges((SubstrateNode) node))
-					tempNodeNeighbors.add(((SubstrateNetwork) net)
-							.getDest(sLink));
-
-			if (net instanceof VirtualNetwork)
-				for (VirtualLink vLink : ((VirtualNetwork) net)
-						.getOutEdges((VirtualNode) node))
-					tempNodeNeighbors
-							.add(((VirtualNetwork) net).getDest(vLink));
-
-			nodeNeighbors.put(node, tempNodeNeighbors);
-			for (Node<?> node2 : net.getVertices()) {
-				if (!node.equals(node2)) {
-					tempNodePair = new NodexNode(node, node2);
-					p_J_u_v.put(tempNodePair, calculateNr_0_pJF(net
-							.getVertices(), node2, nodeAr));
-					if (tempNodeNeighbors.contains(node2))
-						p_F_u_v.put(tempNodePair, calculateNr_0_pJF(
-								tempNodeNeighbors, node2, nodeAr));
-				}
-			}
-		}
-		while (delta > epsilon) {
-			nodeNR_i_1 = calculateNR_i_1(nodeNR_i, p_J_u_v, p_F_u_v, net
-					.getVertices());
-			delta = calculateNR_norm(nodeNR_i, nodeNR_i_1, net.getVertices());
-			nodeNR_i = nodeNR_i_1;
-		}
-		return nodeNR_i_1;
+		return new NodeRank(net).compute(epsilon);
 	}
 
 	/**
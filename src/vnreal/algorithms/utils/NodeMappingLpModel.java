@@ -0,0 +1,307 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package vnreal.algorithms.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import vnreal.constraints.demands.AbstractDemand;
+import vnreal.constraints.demands.BandwidthDemand;
+import vnreal.constraints.demands.CpuDemand;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.network.substrate.CompactSubstrateNetwork;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * In-memory version of the relaxed coordinated node and link mapping problem
+ * (VNE-Model-NodeMapping.mod together with the data file of
+ * {@link dataSolverFile#createDataSolverFile}).
+ * 
+ * The augmented substrate contains one meta node per virtual node, connected
+ * to its candidate substrate nodes by meta links. The variable
+ * <code>flow[s,t,i,j]</code> is the bandwidth of the commodity between the
+ * meta nodes <code>s</code> and <code>t</code> on the link from
+ * <code>i</code> to <code>j</code>, and <code>lambda[i,j]</code> is the
+ * relaxed binary variable telling whether that link is used. Every meta node
+ * is attached to exactly one (fractional) substrate node, every substrate
+ * node hosts at most one meta node and must offer the CPU of the virtual
+ * nodes attached to it.
+ * 
+ * See: N. M. M. K. Chowdhury, Muntasir Raihnan Rahman, and Raouf Boutaba.
+ * Virtual network embedding with coordinated node and link mapping. In Proc.
+ * IEEE INFOCOM. IEEE Infocom, April 2009
+ * 
+ * @since 2015-06-15
+ */
+public class NodeMappingLpModel extends LpModel {
+	private final CompactSubstrateNetwork augmented;
+	private final List<SubstrateNode> commoditySource = new ArrayList<SubstrateNode>();
+	private final List<SubstrateNode> commodityDest = new ArrayList<SubstrateNode>();
+	/** flow[c][l] is the column of commodity c on augmented link l. */
+	private final int[][] flow;
+	/** lambda[l] is the column of the usage of augmented link l. */
+	private final int[] lambda;
+
+	/**
+	 * @param substrate
+	 *            Augmented substrate network
+	 * @param subsOriginal
+	 *            Original substrate network before augmentation
+	 * @param vNet
+	 *            VNR to be mapped
+	 * @param nodeMapping
+	 *            Virtual nodes to their meta nodes
+	 * @param w1
+	 *            Weight of the bandwidth spent on the substrate links
+	 * @param w2
+	 *            Weight of the CPU spent on the substrate nodes
+	 * @param hhFactor
+	 *            CPU needed per unit of bandwidth routed through a node
+	 */
+	public NodeMappingLpModel(SubstrateNetwork substrate,
+			SubstrateNetwork subsOriginal, VirtualNetwork vNet,
+			Map<VirtualNode, SubstrateNode> nodeMapping, double w1,
+			double w2, double hhFactor) {
+		this.augmented = new CompactSubstrateNetwork(substrate);
+		final double delta = LinkMappingLpModel.DELTA;
+		int numNodes = augmented.getNodeCount();
+		int numLinks = augmented.getLinkCount();
+
+		boolean[] originalNode = new boolean[numNodes];
+		for (SubstrateNode n : subsOriginal.getVertices())
+			originalNode[augmented.indexOf(n)] = true;
+		boolean[] originalLink = new boolean[numLinks];
+		for (SubstrateLink l : subsOriginal.getEdges())
+			originalLink[augmented.indexOf(l)] = true;
+
+		// CPU demand of every meta node
+		double[] nodeDemand = new double[numNodes];
+		Set<SubstrateNode> metaNodes = new LinkedHashSet<SubstrateNode>();
+		for (VirtualNode vNode : vNet.getVertices()) {
+			SubstrateNode meta = nodeMapping.get(vNode);
+			if (!metaNodes.add(meta))
+				continue;
+			for (AbstractDemand dem : vNode) {
+				if (dem instanceof CpuDemand) {
+					nodeDemand[augmented.indexOf(meta)] = ((CpuDemand) dem)
+							.getDemandedCycles();
+					break;
+				}
+			}
+		}
+
+		// Aggregate the virtual links into commodities
+		Map<List<SubstrateNode>, Double> commodities = new LinkedHashMap<List<SubstrateNode>, Double>();
+		for (VirtualLink vLink : vNet.getEdges()) {
+			SubstrateNode src = nodeMapping.get(vNet.getSource(vLink));
+			SubstrateNode dst = nodeMapping.get(vNet.getDest(vLink));
+			if (src.equals(dst))
+				continue;
+			double bw = 0.0;
+			for (AbstractDemand dem : vLink) {
+				if (dem instanceof BandwidthDemand) {
+					bw = ((BandwidthDemand) dem).getDemandedBandwidth();
+					break;
+				}
+			}
+			List<SubstrateNode> key = Arrays.asList(src, dst);
+			Double old = commodities.get(key);
+			commodities.put(key, old == null ? bw : old + bw);
+		}
+
+		// Link usage variables and link capacity rows
+		lambda = new int[numLinks];
+		int[] capacityRow = new int[numLinks];
+		Map<Long, Integer> byEndPoints = new HashMap<Long, Integer>();
+		for (int l = 0; l < numLinks; l++) {
+			int i = augmented.getSource(l);
+			int j = augmented.getDest(l);
+			lambda[l] = addColumn(0.0, 1.0, 0.0);
+			capacityRow[l] = addRow(Double.NEGATIVE_INFINITY, 0.0);
+			setCoefficient(capacityRow[l], lambda[l],
+					-augmented.getBandwidth(l));
+
+			// Both directions of a link are used alike
+			Integer reverse = byEndPoints.get((long) j * numNodes + i);
+			if (reverse != null) {
+				int row = addRow(0.0, 0.0);
+				setCoefficient(row, lambda[l], 1.0);
+				setCoefficient(row, lambda[reverse], -1.0);
+			} else {
+				byEndPoints.put((long) i * numNodes + j, l);
+			}
+		}
+
+		// Every meta node is attached to exactly one substrate node
+		int[] metaRow = new int[numNodes];
+		for (SubstrateNode meta : metaNodes) {
+			int m = augmented.indexOf(meta);
+			if (!originalNode[m])
+				metaRow[m] = addRow(1.0, 1.0);
+		}
+		// Every substrate node hosts at most one meta node and offers their CPU
+		int[] hostRow = new int[numNodes];
+		int[] cpuRow = new int[numNodes];
+		for (int n = 0; n < numNodes; n++) {
+			if (!originalNode[n])
+				continue;
+			hostRow[n] = addRow(Double.NEGATIVE_INFINITY, 1.0);
+			if (augmented.getNode(n).get(CpuResource.class) != null)
+				cpuRow[n] = addRow(Double.NEGATIVE_INFINITY,
+						augmented.getCpu(n));
+		}
+		for (int l = 0; l < numLinks; l++) {
+			int m = augmented.getSource(l);
+			int w = augmented.getDest(l);
+			if (metaRow[m] == 0 || !originalNode[w])
+				continue;
+			setCoefficient(metaRow[m], lambda[l], 1.0);
+			setCoefficient(hostRow[w], lambda[l], 1.0);
+			if (cpuRow[w] != 0)
+				setCoefficient(cpuRow[w], lambda[l], nodeDemand[m]);
+			addCost(lambda[l], w2 * nodeDemand[m]
+					/ (augmented.getCpu(w) + delta));
+		}
+
+		flow = new int[commodities.size()][numLinks];
+		int c = 0;
+		for (Map.Entry<List<SubstrateNode>, Double> e : commodities.entrySet()) {
+			int src = augmented.indexOf(e.getKey().get(0));
+			int dst = augmented.indexOf(e.getKey().get(1));
+			double bw = MiscelFunctions.round(e.getValue(), 3);
+			commoditySource.add(e.getKey().get(0));
+			commodityDest.add(e.getKey().get(1));
+
+			// Flow conservation rows: outgoing - incoming bandwidth
+			int[] flowRow = new int[numNodes];
+			for (int n = 0; n < numNodes; n++) {
+				double rhs = (n == src) ? bw : (n == dst) ? -bw : 0.0;
+				flowRow[n] = addRow(rhs, rhs);
+			}
+
+			for (int l = 0; l < numLinks; l++) {
+				int i = augmented.getSource(l);
+				int j = augmented.getDest(l);
+				double cost = originalLink[l] ? w1
+						/ (augmented.getBandwidth(l) + delta) : 0.0;
+				int col = addColumn(0.0, Double.POSITIVE_INFINITY, cost);
+				flow[c][l] = col;
+
+				setCoefficient(capacityRow[l], col, 1.0);
+				if (i != j) {
+					setCoefficient(flowRow[i], col, 1.0);
+					setCoefficient(flowRow[j], col, -1.0);
+				}
+				// Traffic forwarded by a substrate node needs CPU as well
+				if (hhFactor > 0 && originalLink[l] && cpuRow[i] != 0
+						&& i != src)
+					setCoefficient(cpuRow[i], col, hhFactor);
+			}
+			c++;
+		}
+	}
+
+	public CompactSubstrateNetwork getSubstrate() {
+		return augmented;
+	}
+
+	public int getCommodityCount() {
+		return flow.length;
+	}
+
+	/**
+	 * @return The bandwidth of the given commodity on the augmented link with
+	 *         the given index in {@link #getSubstrate()}
+	 */
+	public double getFlow(int commodity, int link) {
+		return getValue(flow[commodity][link]);
+	}
+
+	/**
+	 * @return The usage of the augmented link with the given index in
+	 *         {@link #getSubstrate()}
+	 */
+	public double getLambda(int link) {
+		return getValue(lambda[link]);
+	}
+
+	private List<String> endPoints(int link) {
+		return Arrays.asList(
+				Long.toString(augmented.getNode(augmented.getSource(link)).getId()),
+				Long.toString(augmented.getNode(augmented.getDest(link)).getId()));
+	}
+
+	/**
+	 * @return The <code>lambda</code> variables in the form produced by
+	 *         {@link MiscelFunctions#processSolverResult(Map, String)}, keyed
+	 *         by the IDs of the link end points
+	 */
+	public Map<List<String>, Double> getLambda() {
+		Map<List<String>, Double> result = new LinkedHashMap<List<String>, Double>();
+		for (int l = 0; l < lambda.length; l++)
+			result.put(endPoints(l), getValue(lambda[l]));
+		return result;
+	}
+
+	/**
+	 * @return The <code>flow</code> variables in the form produced by
+	 *         {@link MiscelFunctions#processSolverResult(Map, String)}, keyed
+	 *         by the IDs of the commodity end points and of the link end
+	 *         points
+	 */
+	public Map<List<String>, Double> getFlow() {
+		Map<List<String>, Double> result = new LinkedHashMap<List<String>, Double>();
+		for (int c = 0; c < flow.length; c++) {
+			String src = Long.toString(commoditySource.get(c).getId());
+			String dst = Long.toString(commodityDest.get(c).getId());
+			for (int l = 0; l < flow[c].length; l++) {
+				List<String> key = new ArrayList<String>(4);
+				key.add(src);
+				key.add(dst);
+				key.addAll(endPoints(l));
+				result.put(key, getValue(flow[c][l]));
+			}
+		}
+		return result;
+	}
+}
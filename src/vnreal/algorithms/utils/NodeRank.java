@@ -0,0 +1,263 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package vnreal.algorithms.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import vnreal.network.Network;
+import vnreal.network.Node;
+
+/**
+ * NodeRank of the nodes of a network, see Algorithm 1 in: X. Cheng, S. Su, Z.
+ * Zhang, H. Wang, F. Yang, Y. Luo, J. Wang, Virtual network embedding through
+ * topology-aware node ranking, SIGCOMM Comput. Commun. Rev. 41 (2011) 38--47.
+ * 
+ * The random walk either jumps to any other node <code>v</code> with the
+ * probability <code>Ar(v) / sum(Ar)</code>, which does not depend on the
+ * current node, or forwards to a neighbor <code>v</code> of the current node
+ * <code>u</code> with the probability
+ * <code>Ar(v) / sum(Ar(neighbors of u))</code>. The jump term is therefore
+ * computed once per iteration from the total rank, and only the forward
+ * probabilities are stored, as a sparse list of the incoming neighbors of
+ * every node. One iteration takes O(V+E) time.
+ * 
+ * An instance keeps the topology of the network it was created for.
+ * {@link #refresh()} reads the residual resources again, and
+ * {@link #compute(double, boolean)} may start from the last ranking instead
+ * of the initial one, which needs much fewer iterations if only a few
+ * resources changed in between.
+ * 
+ * @since 2015-06-15
+ */
+public class NodeRank {
+	public static final double P_JUMP = 0.15;
+	public static final double P_FORWARD = 0.85;
+
+	private final Network<?, ?, ?> net;
+	private final Node<?>[] nodes;
+	private final int numEdges;
+
+	/** The neighbors of every node, as returned by the network. */
+	private final int[] outOffset;
+	private final int[] outTarget;
+	/** The distinct neighbors u != v of every node v, transposed. */
+	private final int[] inOffset;
+	private final int[] inSource;
+
+	private final double[] ar;
+	private final double[] jump;
+	private final double[] inProb;
+	private double[] rank = null;
+	private int iterations = 0;
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public NodeRank(Network<?, ?, ?> net) {
+		this.net = net;
+		Network raw = net;
+		int n = net.getVertexCount();
+		nodes = net.getVertices().toArray(new Node<?>[n]);
+		numEdges = net.getEdgeCount();
+		HashMap<Node<?>, Integer> index = new HashMap<Node<?>, Integer>(2 * n);
+		for (int i = 0; i < n; i++)
+			index.put(nodes[i], i);
+
+		outOffset = new int[n + 1];
+		int[] targets = new int[16];
+		int size = 0;
+		for (int u = 0; u < n; u++) {
+			for (Object e : raw.getOutEdges(nodes[u])) {
+				// Undirected links have no destination
+				Object dest = raw.getDest(e);
+				if (dest == null)
+					continue;
+				if (size == targets.length)
+					targets = Arrays.copyOf(targets, 2 * size);
+				targets[size++] = index.get(dest);
+			}
+			outOffset[u + 1] = size;
+		}
+		outTarget = Arrays.copyOf(targets, size);
+
+		// Transpose the distinct neighbors, leaving out the node itself
+		int[] mark = new int[n];
+		Arrays.fill(mark, -1);
+		int[] inDegree = new int[n];
+		for (int u = 0; u < n; u++) {
+			for (int p = outOffset[u]; p < outOffset[u + 1]; p++) {
+				int v = outTarget[p];
+				if (v != u && mark[v] != u) {
+					mark[v] = u;
+					inDegree[v]++;
+				}
+			}
+		}
+		inOffset = new int[n + 1];
+		for (int v = 0; v < n; v++)
+			inOffset[v + 1] = inOffset[v] + inDegree[v];
+		inSource = new int[inOffset[n]];
+		int[] fill = Arrays.copyOf(inOffset, n);
+		Arrays.fill(mark, -1);
+		for (int u = 0; u < n; u++) {
+			for (int p = outOffset[u]; p < outOffset[u + 1]; p++) {
+				int v = outTarget[p];
+				if (v != u && mark[v] != u) {
+					mark[v] = u;
+					inSource[fill[v]++] = u;
+				}
+			}
+		}
+
+		ar = new double[n];
+		jump = new double[n];
+		inProb = new double[inSource.length];
+		refresh();
+	}
+
+	/**
+	 * Read the available resources of the nodes and links again. The topology
+	 * of the network must not have changed.
+	 */
+	public void refresh() {
+		int n = nodes.length;
+		double sumAr = 0;
+		for (int v = 0; v < n; v++) {
+			ar[v] = MiscelFunctions.getAr(net, nodes[v]);
+			sumAr += ar[v];
+		}
+		for (int v = 0; v < n; v++)
+			jump[v] = (sumAr != 0) ? ar[v] / sumAr : 1;
+
+		double[] sumNeighborAr = new double[n];
+		for (int u = 0; u < n; u++)
+			for (int p = outOffset[u]; p < outOffset[u + 1]; p++)
+				sumNeighborAr[u] += ar[outTarget[p]];
+		for (int v = 0; v < n; v++) {
+			for (int p = inOffset[v]; p < inOffset[v + 1]; p++) {
+				double sum = sumNeighborAr[inSource[p]];
+				inProb[p] = (sum != 0) ? ar[v] / sum : 1;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the network still has the number of nodes and links
+	 *         this instance was created for
+	 */
+	public boolean matchesTopology() {
+		return net.getVertexCount() == nodes.length
+				&& net.getEdgeCount() == numEdges;
+	}
+
+	public Network<?, ?, ?> getNetwork() {
+		return net;
+	}
+
+	/**
+	 * @return The number of iterations of the last computation
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Iterate until the Euclidean distance between two consecutive rankings
+	 * is at most epsilon.
+	 * 
+	 * @param epsilon
+	 *            The convergence threshold
+	 * @param warmStart
+	 *            Start from the last computed ranking, scaled to the total
+	 *            rank of the initial ranking, instead of the initial ranking
+	 * @return The NodeRank of every node, in the order of the vertices of the
+	 *         network
+	 */
+	public Map<Node<?>, Double> compute(double epsilon, boolean warmStart) {
+		int n = nodes.length;
+		double[] current = new double[n];
+		if (warmStart && rank != null) {
+			double sumRank = 0, sumJump = 0;
+			for (int v = 0; v < n; v++) {
+				sumRank += rank[v];
+				sumJump += jump[v];
+			}
+			double scale = (sumRank != 0) ? sumJump / sumRank : 1;
+			for (int v = 0; v < n; v++)
+				current[v] = rank[v] * scale;
+		} else {
+			System.arraycopy(jump, 0, current, 0, n);
+		}
+
+		double[] next = new double[n];
+		double delta = epsilon + 1;
+		iterations = 0;
+		while (delta > epsilon) {
+			double total = 0;
+			for (int v = 0; v < n; v++)
+				total += current[v];
+
+			double sum = 0;
+			for (int v = 0; v < n; v++) {
+				double forward = 0;
+				for (int p = inOffset[v]; p < inOffset[v + 1]; p++)
+					forward += inProb[p] * current[inSource[p]];
+				// A jump reaches v from every other node
+				next[v] = jump[v] * P_JUMP * (total - current[v])
+						+ P_FORWARD * forward;
+				sum += (next[v] - current[v]) * (next[v] - current[v]);
+			}
+			delta = Math.sqrt(sum);
+
+			double[] tmp = current;
+			current = next;
+			next = tmp;
+			iterations++;
+		}
+		rank = current;
+
+		Map<Node<?>, Double> result = new LinkedHashMap<Node<?>, Double>();
+		for (int v = 0; v < n; v++)
+			result.put(nodes[v], rank[v]);
+		return result;
+	}
+
+	/**
+	 * Compute the NodeRank from the initial ranking.
+	 * 
+	 * @see #compute(double, boolean)
+	 */
+	public Map<Node<?>, Double> compute(double epsilon) {
+		return compute(epsilon, false);
+	}
+}
@@ -31,6 +31,7 @@
  * ***** END LICENSE BLOCK ***** */
 package vnreal.algorithms.utils.SubgraphBasicVN;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -55,6 +56,11 @@ public class NodeLinkMapping {
 
 	private Collection<ResourceDemandEntry> mappings;
 
+	// The virtual nodes and links in the order they were added while a mark
+	// was open, see mark()
+	private ArrayList<Object> undoLog;
+	private int openMarks;
+
 	// TODO: implement hashCode in NetworkEntity class
 	public NodeLinkMapping() {
 		clear();
@@ -87,6 +93,8 @@ public class NodeLinkMapping {
 		mappedVLinks = copy.mappedVLinks;
 
 		mappings = new LinkedList<ResourceDemandEntry>(copy.mappings);
+		undoLog = new ArrayList<Object>();
+		openMarks = 0;
 	}
 
 	public void clear() {
@@ -99,6 +107,59 @@ public class NodeLinkMapping {
 		mappedVLinks = 0;
 
 		mappings = new LinkedList<ResourceDemandEntry>();
+		undoLog = new ArrayList<Object>();
+		openMarks = 0;
+	}
+
+	/**
+	 * Open a mark. Until it is closed by {@link #rollback(int)} or
+	 * {@link #release(int)}, the virtual nodes and links added are recorded,
+	 * so they can be removed again. Marks nest; nothing is recorded while no
+	 * mark is open.
+	 * 
+	 * @return A position in the history of this mapping that can be restored
+	 *         with {@link #rollback(int)}
+	 */
+	public int mark() {
+		openMarks++;
+		return undoLog.size();
+	}
+
+	/**
+	 * Remove all virtual nodes and links added since the given mark, in
+	 * reverse order, and close the mark. This allows searching by modifying a
+	 * single mapping in place instead of copying it for every step.
+	 */
+	public void rollback(int mark) {
+		for (int i = undoLog.size() - 1; i >= mark; i--) {
+			Object entry = undoLog.remove(i);
+			if (entry instanceof VirtualNode) {
+				VirtualNode vn = (VirtualNode) entry;
+				if (nodes.containsKey(vn))
+					remove(vn, nodes.get(vn));
+			} else {
+				VirtualLink vl = (VirtualLink) entry;
+				if (links.containsKey(vl))
+					remove(vl, links.get(vl));
+			}
+		}
+		closeMark();
+	}
+
+	/**
+	 * Close the given mark and keep the virtual nodes and links added since.
+	 * They can still be removed by rolling back an enclosing mark.
+	 */
+	public void release(int mark) {
+		closeMark();
+	}
+
+	private void closeMark() {
+		if (openMarks == 0)
+			throw new IllegalStateException("No mark is open");
+		openMarks--;
+		if (openMarks == 0)
+			undoLog.clear();
 	}
 
 	public Collection<ResourceDemandEntry> occupyAllResources(
@@ -132,11 +193,15 @@ public class NodeLinkMapping {
 		list.add(vn);
 		nodes.put(vn, sn);
 		mappedVNodes++;
+		if (openMarks > 0)
+			undoLog.add(vn);
 	}
 	
 	public void remove(VirtualNode vn, SubstrateNode sn) {
 		Collection<VirtualNode> list = nodeMappings.get(sn);
 		list.remove(vn);
+		if (list.isEmpty())
+			nodeMappings.remove(sn);
 		nodes.remove(vn);
 		mappedVNodes--;
 	}
@@ -151,11 +216,15 @@ public class NodeLinkMapping {
 		list.add(vl);
 		links.put(vl, sl);
 		mappedVLinks++;
+		if (openMarks > 0)
+			undoLog.add(vl);
 	}
 	
 	public void remove(VirtualLink vl, List<SubstrateLink> sl) {
 		Collection<VirtualLink> list = linkMappings.get(sl);
 		list.remove(vl);
+		if (list.isEmpty())
+			linkMappings.remove(sl);
 		links.remove(vl);
 		mappedVLinks--;
 	}
@@ -515,14 +515,17 @@ public class Utils {
 		
 		if (hiddenHopCPUDemands != null)
 			for (AbstractDemand hd : hiddenHopCPUDemands) {
+				boolean found = false;
 				for (AbstractResource r : s.get()) {
 					if (r.accepts(hd) && r.fulfills(hd) && hd.occupy(r)) {
 						result.add(new ResourceDemandEntry(r, hd));
-						continue;
+						found = true;
+						break;
 					}
 				}
 
-				throw new AssertionError();
+				if (!found)
+					throw new AssertionError();
 			}
 		
 		return result;
@@ -31,7 +31,6 @@
  * ***** END LICENSE BLOCK ***** */
 package vnreal.constraints;
 
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -47,7 +46,7 @@ import vnreal.network.NetworkEntity;
  * @since 2010-08-20
  */
 public abstract class AbstractConstraint {
-	protected final List<Mapping> mappings = new LinkedList<Mapping>();
+	private final MappingRegistry mappings = new MappingRegistry(this);
 	private NetworkEntity<? extends AbstractConstraint> owner;
 	private String name;
 	
@@ -56,7 +55,7 @@ public abstract class AbstractConstraint {
 			NetworkEntity<? extends AbstractConstraint> owner) {
 		this.owner = owner;
 		//TODO: hashCode good at this point?  
-		this.name = (owner == null ? "null" : owner.getName()) + "_" + IDSource.getID();
+		this.name = (owner == null ? "null" : owner.getName()) + "_" + IDSource.getConstraintID();
 	}
 	
 	protected AbstractConstraint(
@@ -65,8 +64,20 @@ public abstract class AbstractConstraint {
 		this.name = name;
 	}
 
+	/**
+	 * @return An unmodifiable view of the mappings of this constraint, in the
+	 *         order they were registered.
+	 */
 	public final List<Mapping> getMappings() {
-		return Collections.unmodifiableList(this.mappings);
+		return mappings.asList();
+	}
+
+	/**
+	 * @return The first registered mapping of this constraint, or
+	 *         <code>null</code> if there is none.
+	 */
+	public final Mapping getFirstMapping() {
+		return mappings.first();
 	}
 
 	public final boolean register(Mapping mapping) {
@@ -80,7 +91,7 @@ public abstract class AbstractConstraint {
 	public final boolean unregisterAll() {
 		boolean deletedAll = true;
 		List<Mapping> delete = new LinkedList<Mapping>();
-		delete.addAll(mappings);
+		delete.addAll(mappings.asList());
 
 		for (Mapping f : delete)
 			deletedAll = deletedAll && f.unregister();
@@ -88,6 +99,17 @@ public abstract class AbstractConstraint {
 		return deletedAll;
 	}
 	
+	/**
+	 * @param peer
+	 *            The demand (for a resource) or resource (for a demand) of the
+	 *            requested mapping
+	 * @return The first mapping between this constraint and the given one, or
+	 *         <code>null</code> if there is none.
+	 */
+	protected final Mapping findMapping(AbstractConstraint peer) {
+		return mappings.get(peer);
+	}
+	
 	public String getName() {
 		return name;
 	}
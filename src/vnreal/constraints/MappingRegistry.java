@@ -0,0 +1,151 @@
+package vnreal.constraints;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import vnreal.mapping.Mapping;
+
+/**
+ * The mappings registered at a single constraint.
+ *
+ * Adding and removing a mapping as well as finding the mapping to a given
+ * peer (the demand of a resource, or the resource of a demand) take constant
+ * time, unless the same peer is mapped several times. The registered
+ * mappings are exposed as an unmodifiable list in the order of registration;
+ * its iterator and {@link #first()} are fast, indexed access is linear.
+ *
+ * @see AbstractConstraint#getMappings()
+ */
+final class MappingRegistry {
+	private final AbstractConstraint owner;
+	private final LinkedHashSet<Mapping> mappings = new LinkedHashSet<Mapping>();
+	/** The first registered mapping for each peer. */
+	private final Map<AbstractConstraint, Mapping> byPeer = new HashMap<AbstractConstraint, Mapping>();
+	/** The further mappings of peers mapped more than once, in the order of registration. */
+	private final Map<AbstractConstraint, LinkedList<Mapping>> duplicates = new HashMap<AbstractConstraint, LinkedList<Mapping>>();
+	private final List<Mapping> view = new View();
+
+	MappingRegistry(AbstractConstraint owner) {
+		this.owner = owner;
+	}
+
+	private AbstractConstraint getPeer(Mapping mapping) {
+		if (mapping.getDemand() == owner)
+			return mapping.getResource();
+		return mapping.getDemand();
+	}
+
+	boolean add(Mapping mapping) {
+		if (!mappings.add(mapping))
+			return false;
+
+		AbstractConstraint peer = getPeer(mapping);
+		if (byPeer.containsKey(peer)) {
+			LinkedList<Mapping> further = duplicates.get(peer);
+			if (further == null) {
+				further = new LinkedList<Mapping>();
+				duplicates.put(peer, further);
+			}
+			further.add(mapping);
+		} else {
+			byPeer.put(peer, mapping);
+		}
+		return true;
+	}
+
+	boolean remove(Mapping mapping) {
+		if (!mappings.remove(mapping))
+			return false;
+
+		AbstractConstraint peer = getPeer(mapping);
+		LinkedList<Mapping> further = duplicates.get(peer);
+		if (byPeer.get(peer) != mapping) {
+			further.remove(mapping);
+		} else if (further == null) {
+			byPeer.remove(peer);
+		} else {
+			// The next mapping of the peer becomes the first one
+			byPeer.put(peer, further.removeFirst());
+		}
+		if (further != null && further.isEmpty())
+			duplicates.remove(peer);
+		return true;
+	}
+
+	/**
+	 * @param peer
+	 *            A demand if the owner is a resource, a resource otherwise
+	 * @return The first registered mapping between the owner and the given
+	 *         peer, or <code>null</code>.
+	 */
+	Mapping get(AbstractConstraint peer) {
+		return byPeer.get(peer);
+	}
+
+	/**
+	 * @return The first registered mapping, or <code>null</code>.
+	 */
+	Mapping first() {
+		return mappings.isEmpty() ? null : mappings.iterator().next();
+	}
+
+	List<Mapping> asList() {
+		return view;
+	}
+
+	private final class View extends AbstractList<Mapping> {
+		@Override
+		public Mapping get(int index) {
+			if (index < 0 || index >= mappings.size())
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mappings.size());
+			if (index == 0)
+				return first();
+
+			Iterator<Mapping> it = mappings.iterator();
+			for (int i = 0; i < index; i++)
+				it.next();
+			return it.next();
+		}
+
+		@Override
+		public int size() {
+			return mappings.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return mappings.contains(o);
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return mappings.isEmpty();
+		}
+
+		@Override
+		public Iterator<Mapping> iterator() {
+			final Iterator<Mapping> it = mappings.iterator();
+			return new Iterator<Mapping>() {
+				@Override
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+
+				@Override
+				public Mapping next() {
+					return it.next();
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+}
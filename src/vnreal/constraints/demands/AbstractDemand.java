@@ -109,11 +109,7 @@ public abstract class AbstractDemand extends AbstractConstraint {
 	public abstract boolean free(AbstractResource res);
 
 	protected final Mapping getMapping(AbstractResource res) {
-		for (Mapping f : mappings)
-			if (f.getResource() == res)
-				return f;
-
-		return null;
+		return findMapping(res);
 	}
 	
 	public abstract AbstractDemand getCopy(
@@ -31,7 +31,6 @@
  * ***** END LICENSE BLOCK ***** */
 package vnreal.constraints.demands;
 
-import java.util.List;
 
 import vnreal.algorithms.utils.SubgraphBasicVN.Utils;
 import vnreal.constraints.AbstractConstraint;
@@ -115,9 +114,7 @@ public class BackupDemand extends AbstractDemand implements INodeConstraint, ILi
 				if (res.getMappings().size() >= res.backupSharingFactor)
 					return false;
 				
-				List<BackupDemand> demands = res.getBackupCapacityDemands();
-				demands.add(BackupDemand.this);
-				return res.getAvailCapacityFromResource() + res.getReservedCapacity() >= res.getRequiredBackupCapacity(demands);
+				return res.getAvailCapacityFromResource() + res.getReservedCapacity() >= res.getRequiredBackupCapacityWith(BackupDemand.this);
 			}
 		};
 	}
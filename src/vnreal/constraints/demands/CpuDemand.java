@@ -128,8 +128,8 @@ public class CpuDemand extends AbstractDemand implements INodeConstraint,
 
 	@Override
 	public AbstractDemand getCopy(NetworkEntity<? extends AbstractDemand> owner) {
-		CpuDemand clone = null;
-			clone = new CpuDemand((Node<? extends AbstractConstraint>) owner, this.getName());
+		// CPU demands are owned by links as well, as hidden hop demands
+		CpuDemand clone = new CpuDemand(owner, this.getName());
 		
 		clone.demandedCycles = this.demandedCycles;
 		
@@ -109,11 +109,7 @@ public abstract class AbstractResource extends AbstractConstraint {
 	public abstract boolean fulfills(AbstractDemand dem);
 
 	protected final Mapping getMapping(AbstractDemand dem) {
-		for (Mapping f : mappings)
-			if (f.getDemand() == dem)
-				return f;
-
-		return null;
+		return findMapping(dem);
 	}
 
 	// required for visitor pattern
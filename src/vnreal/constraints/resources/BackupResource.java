@@ -31,12 +31,12 @@
  * ***** END LICENSE BLOCK ***** */
 package vnreal.constraints.resources;
 
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 
+import vnreal.algorithms.utils.MiscelFunctions;
 import vnreal.algorithms.utils.SubgraphBasicVN.Utils;
 import vnreal.constraints.AbstractConstraint;
 import vnreal.constraints.ILinkConstraint;
@@ -59,6 +59,27 @@ public final class BackupResource extends AbstractResource implements INodeConst
 	public AbstractDemand reservedCapacity = null;
 	public final int backupSharingFactor;
 	
+	/**
+	 * The backup capacity needed if a single original entity fails, i.e. the
+	 * sum of the backup demands of that entity mapped to this resource.
+	 */
+	private static final class FailureSlot {
+		final NetworkEntity<?> originalOwner;
+		double capacity = 0.0d;
+		int demands = 0;
+		int index;
+		
+		FailureSlot(NetworkEntity<?> originalOwner) {
+			this.originalOwner = originalOwner;
+		}
+	}
+	
+	// The slots by original owner and as a max-heap by capacity, so the
+	// required capacity is updated in O(log n) per backup demand
+	private final HashMap<NetworkEntity<?>, FailureSlot> slots = new HashMap<NetworkEntity<?>, FailureSlot>();
+	private final ArrayList<FailureSlot> heap = new ArrayList<FailureSlot>();
+	private int slotDemands = 0;
+	
 	public static void main(String[] args) {
 		
 		int backupSharingFactor = 2;
@@ -247,7 +268,24 @@ public final class BackupResource extends AbstractResource implements INodeConst
 		return result;
 	}
 	
-	private void allocate(List<BackupDemand> backupCapacities) {
+	/**
+	 * Resize the reservation on the capacity resource to the required backup
+	 * capacity, after a backup demand has been added or removed.
+	 */
+	private void allocate(BackupDemand changed, boolean added) {
+		if (slotDemands + (added ? 1 : -1) != this.getMappings().size()
+				|| !update(changed, added)) {
+			// Mappings changed behind our back
+			rebuild();
+		}
+		
+		double reserved = getRequiredBackupCapacity();
+		
+		if (this.reservedCapacity != null && reserved > 0.0d
+				&& !this.reservedCapacity.getMappings().isEmpty()
+				&& resize(reserved)) {
+			return;
+		}
 		
 		if (this.reservedCapacity != null) {
 			for (Mapping m : new LinkedList<Mapping>(this.reservedCapacity.getMappings())) {
@@ -257,21 +295,6 @@ public final class BackupResource extends AbstractResource implements INodeConst
 			this.reservedCapacity = null;
 		}
 		
-		double reserved = getRequiredBackupCapacity(backupCapacities);
-		
-//		LinkedList<BackupDemand> mapped = new LinkedList<BackupDemand>();
-//		for (BackupDemand d : backupCapacities) {
-//			double free = getAvailableFreeSlotCapacity(mapped, reserved);
-//			double needed = d.demandedBackupCapacity - free;
-//			
-//			if (needed > 0.0d) {
-//				reserved += needed;
-//			}
-//			
-//			mapped.add(d);
-//		}
-
-		
 		if (reserved > 0.0d) {
 			if (this.getOwner() instanceof Node) {
 				this.reservedCapacity = new CapacityDemand(reserved, null);
@@ -282,12 +305,143 @@ public final class BackupResource extends AbstractResource implements INodeConst
 			AbstractResource capacityResource = this.getCapacityResource();
 			Utils.occupyResource(this.reservedCapacity, capacityResource);
 		}
+	}
+	
+	/**
+	 * Change the demand of the reservation and the occupied capacity of its
+	 * resource, without mapping it again.
+	 * 
+	 * @return false if the additional capacity is not available
+	 */
+	private boolean resize(double reserved) {
+		double current = getReservedCapacity();
+		if (reserved - current > getAvailCapacityFromResource()) {
+			return false;
+		}
 		
+		AbstractResource res = this.reservedCapacity.getFirstMapping().getResource();
+		if (res instanceof CapacityResource) {
+			CapacityResource cr = (CapacityResource) res;
+			cr.occupiedCapacity += reserved - current;
+			((CapacityDemand) this.reservedCapacity).setDemandedCapacity(reserved);
+		} else {
+			// Like BandwidthResource, which occupies and frees rounded values
+			BandwidthResource br = (BandwidthResource) res;
+			br.occupiedBandwidth += MiscelFunctions.round(reserved, 3)
+					- MiscelFunctions.round(current, 3);
+			((BandwidthDemand) this.reservedCapacity).setDemandedBandwidth(reserved);
+		}
+		return true;
+	}
+	
+	/**
+	 * @return false if the demand was not found
+	 */
+	private boolean update(BackupDemand d, boolean added) {
+		FailureSlot slot = slots.get(d.getOriginalOwner());
+		if (added) {
+			if (slot == null) {
+				slot = new FailureSlot(d.getOriginalOwner());
+				slots.put(slot.originalOwner, slot);
+				slot.index = heap.size();
+				heap.add(slot);
+			}
+			slot.capacity += d.demandedBackupCapacity;
+			slot.demands++;
+			slotDemands++;
+			siftUp(slot.index);
+			return true;
+		}
 		
+		if (slot == null) {
+			return false;
+		}
+		slot.demands--;
+		slotDemands--;
+		if (slot.demands == 0) {
+			slots.remove(slot.originalOwner);
+			FailureSlot last = heap.remove(heap.size() - 1);
+			if (last != slot) {
+				last.index = slot.index;
+				heap.set(slot.index, last);
+				siftDown(siftUp(last.index));
+			}
+		} else {
+			slot.capacity -= d.demandedBackupCapacity;
+			siftDown(slot.index);
+		}
+		return true;
+	}
+	
+	private void rebuild() {
+		slots.clear();
+		heap.clear();
+		slotDemands = 0;
+		for (BackupDemand d : getBackupCapacityDemands()) {
+			update(d, true);
+		}
+	}
+	
+	private int siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (heap.get(parent).capacity >= heap.get(i).capacity)
+				break;
+			swap(i, parent);
+			i = parent;
+		}
+		return i;
+	}
+	
+	private void siftDown(int i) {
+		while (true) {
+			int largest = i;
+			for (int child = 2 * i + 1; child <= 2 * i + 2 && child < heap.size(); ++child) {
+				if (heap.get(child).capacity > heap.get(largest).capacity)
+					largest = child;
+			}
+			if (largest == i)
+				return;
+			swap(i, largest);
+			i = largest;
+		}
+	}
+	
+	private void swap(int i, int j) {
+		FailureSlot si = heap.get(i);
+		FailureSlot sj = heap.get(j);
+		heap.set(i, sj);
+		sj.index = i;
+		heap.set(j, si);
+		si.index = j;
+	}
+	
+	/**
+	 * @return The backup capacity required by the mapped backup demands,
+	 *         i.e. the largest capacity needed for the failure of a single
+	 *         original entity
+	 */
+	public double getRequiredBackupCapacity() {
+		if (slotDemands != this.getMappings().size())
+			rebuild();
+		
+		return heap.isEmpty() ? 0.0d : heap.get(0).capacity;
+	}
+	
+	/**
+	 * @return The backup capacity required if the given demand is mapped in
+	 *         addition to the mapped ones
+	 */
+	public double getRequiredBackupCapacityWith(BackupDemand d) {
+		double required = getRequiredBackupCapacity();
+		FailureSlot slot = slots.get(d.getOriginalOwner());
+		double withD = (slot == null ? 0.0d : slot.capacity) + d.demandedBackupCapacity;
+		return Math.max(required, withD);
 	}
 	
 	public double getRequiredBackupCapacity(List<BackupDemand> backupCapacities) {
 		HashMap<NetworkEntity<?>, Double> demandsMap = new HashMap<NetworkEntity<?>, Double>();
+		double result = 0.0d;
 		for (BackupDemand d : backupCapacities) {
 			Double mapEntry = demandsMap.get(d.getOriginalOwner());
 			if (mapEntry == null) {
@@ -296,23 +450,10 @@ public final class BackupResource extends AbstractResource implements INodeConst
 			mapEntry += d.demandedBackupCapacity;
 			
 			demandsMap.put(d.getOriginalOwner(), mapEntry);
+			result = Math.max(result, mapEntry);
 		}
 		
-		LinkedList<Double> demands = new LinkedList<Double>(demandsMap.values());
-		Collections.sort(demands, new Comparator<Double>() {
-
-			@Override
-			public int compare(Double arg0, Double arg1) {
-				if (arg0 > arg1)
-					return -1;
-				if (arg0 < arg1)
-					return +1;
-				return 0;
-			}
-			
-		});
-		
-		return demands.isEmpty() ? 0.0d : demands.getFirst();
+		return result;
 	}
 
 
@@ -342,7 +483,7 @@ public final class BackupResource extends AbstractResource implements INodeConst
 			public boolean visit(BackupDemand dem) {
 				if (fulfills(dem)) {
 					new Mapping(dem, getThis());
-					BackupResource.this.allocate(getBackupCapacityDemands());
+					BackupResource.this.allocate(dem, true);
 					return true;
 				} else
 					return false;
@@ -357,7 +498,7 @@ public final class BackupResource extends AbstractResource implements INodeConst
 			public boolean visit(BackupDemand dem) {
 				if (getMapping(dem) != null) {
 					if (getMapping(dem).unregister()) {
-						BackupResource.this.allocate(getBackupCapacityDemands());
+						BackupResource.this.allocate(dem, false);
 						return true;
 					}
 					return false;
@@ -61,50 +61,92 @@ public class ClassLoader {
 
 		Collection<Class<T>> result = new LinkedList<Class<T>>();
 
-		if (folder.isDirectory()) {
-			for (File entry : folder.listFiles()) {
-				String name = entry.getName();
-				String pkgname = (pkg.length() == 0 ? "" : pkg + ".") + name;
-
-				if (entry.isDirectory()) {
-					result.addAll(getClasses(entry, pkgname, theInterface));
-				} else if (name.toLowerCase().endsWith(CLASS_FILE_ENDS_WITH)) {
-
-					Class<?> classObject = null;
-					String className = pkgname.substring(0, pkgname.length() - CLASS_FILE_ENDS_WITH.length());
-					if (className.contains("vnreal.gui."))
-						continue; // Ignore GUI classes on headless machines
-
-					try {
-						classObject = Class.forName(className);
-					} catch (ClassNotFoundException e) {
-						if (ClassLoader.debug) {
-							System.err.println("WARNING: class \"" + className + "\" not found.");
-							e.printStackTrace();
-						}
-						continue;
-					}
-
-					if (classObject.isInterface() || Modifier.isAbstract(classObject.getModifiers()) ||
-							classObject.isEnum() || classObject.isPrimitive()) {
-						continue;
-					}
-
-					if (theInterface != Object.class && !implementsInterface(classObject, theInterface)) {
-						if (ClassLoader.debug) {
-							System.err.println("WARNING: class \"" + className + "\" ignored;"
-									+ " does not implement required interfaces.");
-						}
-						continue;
-					}
+		for (String className : getClassNames(folder, pkg)) {
+			Class<?> classObject = getConcreteClass(className);
+			if (classObject == null) {
+				continue;
+			}
 
-					result.add((Class<T>) classObject);
+			if (theInterface != Object.class && !implementsInterface(classObject, theInterface)) {
+				if (ClassLoader.debug) {
+					System.err.println("WARNING: class \"" + className + "\" ignored;"
+							+ " does not implement required interfaces.");
 				}
+				continue;
 			}
+
+			result.add((Class<T>) classObject);
 		}
 
 		return result;
 	}
+
+	/**
+	 * Search a folder for class files, without loading any of them.
+	 * 
+	 * @param folder The folder within which to search for classes. Subfolders
+	 *               will be traversed recursively. 
+	 * @param pkg The package prefix associated with <code>folder</code>, see
+	 *            {@link #getClasses(File, String, Class)}.
+	 * @return The binary names of all classes found, except GUI classes.
+	 */
+	public static Collection<String> getClassNames(final File folder, String pkg) {
+		Collection<String> result = new LinkedList<String>();
+		collectClassNames(folder, pkg, result);
+		return result;
+	}
+
+	private static void collectClassNames(final File folder, String pkg, Collection<String> result) {
+		if (!folder.isDirectory()) {
+			return;
+		}
+		for (File entry : folder.listFiles()) {
+			String name = entry.getName();
+			String pkgname = (pkg.length() == 0 ? "" : pkg + ".") + name;
+
+			if (entry.isDirectory()) {
+				collectClassNames(entry, pkgname, result);
+			} else if (name.toLowerCase().endsWith(CLASS_FILE_ENDS_WITH)) {
+				String className = pkgname.substring(0, pkgname.length() - CLASS_FILE_ENDS_WITH.length());
+				if (className.contains("vnreal.gui."))
+					continue; // Ignore GUI classes on headless machines
+				result.add(className);
+			}
+		}
+	}
+
+	/**
+	 * Load a class without initializing it. Static initializers only run
+	 * once a plugin is actually instantiated.
+	 * 
+	 * @param className The binary name of the class
+	 * @return The class, or <code>null</code> if it cannot be found or cannot
+	 *         be instantiated (interfaces, abstract classes, enums).
+	 */
+	public static Class<?> getConcreteClass(String className) {
+		Class<?> classObject;
+		try {
+			classObject = Class.forName(className, false, ClassLoader.class.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			if (ClassLoader.debug) {
+				System.err.println("WARNING: class \"" + className + "\" not found.");
+				e.printStackTrace();
+			}
+			return null;
+		} catch (LinkageError e) {
+			if (ClassLoader.debug) {
+				System.err.println("WARNING: class \"" + className + "\" cannot be linked.");
+				e.printStackTrace();
+			}
+			return null;
+		}
+
+		if (classObject.isInterface() || Modifier.isAbstract(classObject.getModifiers()) ||
+				classObject.isEnum() || classObject.isPrimitive()) {
+			return null;
+		}
+		return classObject;
+	}
 	
 	
 	/**
@@ -39,6 +39,12 @@ public final class Consts  {
 	// LP solver files folder
 	public static String LP_SOLVER_FOLDER = ALEVIN_DIR + File.separator + "ILP-LP-Models" + File.separator;
 	public static String LP_SOLVER_DATAFILE = "datafile";
+	/**
+	 * Solve the LP models of the path splitting link mapping and the
+	 * coordinated node mapping from the MathProg model and data files instead
+	 * of building them in memory. Useful to inspect the generated data files.
+	 */
+	public static boolean LP_USE_MODEL_FILES = false;
 	public static String LP_LINKMAPPING_MODEL = "VNE-Model.mod";
 	public static String LP_LINKMAPPING_MODEL_HIDDENHOPS = "HHVNE-Model.mod";
 	public static String LP_NODEMAPPING_MODEL = "VNE-Model-NodeMapping.mod";
@@ -0,0 +1,384 @@
+package vnreal.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import tests.scenarios.AbstractScenarioTest;
+import tests.scenarios.ScenarioTestInterface;
+import vnreal.algorithms.AbstractAlgorithm;
+import vnreal.algorithms.AlgorithmParameter;
+import vnreal.algorithms.utils.SubgraphBasicVN.Utils;
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+import vnreal.evaluations.metrics.EvaluationMetric;
+import vnreal.evaluations.utils.VnrUtils;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualNetwork;
+
+/**
+ * Discrete-event simulation of online embedding. Virtual network requests
+ * arrive as a Poisson process and, once embedded, stay for an exponentially
+ * distributed lifetime.
+ *
+ * Arrivals and departures are kept in an event calendar ordered by time, so
+ * every event is handled in O(log n) for n pending events. Requests are
+ * embedded one at a time by a {@link ScenarioTestInterface}, the same way as
+ * in the evaluation of the scenario tests: an arriving request is mapped on
+ * its own, and a departing or rejected request is released via
+ * {@link ScenarioTestInterface#unmap(Object, Object)}, so algorithms keeping
+ * their own view of the substrate, like the lock tree of the DPVNE tests,
+ * see every departure. A request counts as embedded if all of its virtual
+ * nodes have been mapped.
+ *
+ * If a {@link RunSink} is set, the state of the simulation is sampled at
+ * fixed intervals of simulated time and every sample is handed to the sink as
+ * a {@link Run}. Its parameters hold the simulated time and the number of
+ * arrivals so far; its results hold the acceptance ratio, the number of
+ * active requests, the utilization of CPU and bandwidth and the given
+ * metrics, evaluated on a stack of the substrate and all active requests.
+ *
+ * @since 2015-06-15
+ */
+public class OnlineSimulator {
+	/**
+	 * Creates the virtual networks of arriving requests.
+	 */
+	public interface RequestGenerator {
+		/**
+		 * @param layer The layer of the new virtual network, unique within a
+		 * simulation
+		 * @param rng The random number generator of the simulation
+		 * @return The virtual network of the next request
+		 */
+		VirtualNetwork generate(int layer, Random rng);
+	}
+
+	/**
+	 * Creates the algorithm instances embedding the requests, e.g. via
+	 * {@link Registry#getAlgorithm(String, vnreal.algorithms.AlgorithmParameter)}.
+	 */
+	public interface AlgorithmFactory {
+		/**
+		 * @return A new instance of the algorithm; most algorithms can only
+		 * process a single stack
+		 */
+		AbstractAlgorithm create();
+	}
+
+	private static final class Event implements Comparable<Event> {
+		final double time;
+		final long seq;
+		/** The departing request, or <code>null</code> for an arrival. */
+		final VirtualNetwork request;
+
+		Event(double time, long seq, VirtualNetwork request) {
+			this.time = time;
+			this.seq = seq;
+			this.request = request;
+		}
+
+		@Override
+		public int compareTo(Event o) {
+			if (time != o.time)
+				return time < o.time ? -1 : 1;
+			// Resources are released before new requests arrive
+			if ((request == null) != (o.request == null))
+				return request != null ? -1 : 1;
+			return seq < o.seq ? -1 : (seq == o.seq ? 0 : 1);
+		}
+	}
+
+	/**
+	 * Lets every request be embedded by a new algorithm instance, processed
+	 * like a {@link Run}.
+	 */
+	private static final class FactoryScenarioTest extends AbstractScenarioTest {
+		private final AlgorithmFactory algorithms;
+
+		FactoryScenarioTest(AlgorithmFactory algorithms) {
+			super(OnlineSimulator.class.getSimpleName(), false);
+			this.algorithms = algorithms;
+		}
+
+		@Override
+		public NetworkStack map(AlgorithmParameter param,
+				SubstrateNetwork substrate, List<VirtualNetwork> virtuals) {
+			NetworkStack stack = new NetworkStack(substrate, virtuals);
+			Scenario scen = new Scenario();
+			scen.setNetworkStack(stack);
+			Run run = new Run(scen, new LinkedHashMap<String, Map<String, String>>());
+			run.setAlgorithm(algorithms.create());
+			// A failing algorithm rejects the request
+			run.process();
+			return stack;
+		}
+
+		@Override
+		public LinkedList<AlgorithmParameter> getAlgorithmParams() {
+			LinkedList<AlgorithmParameter> result = new LinkedList<AlgorithmParameter>();
+			result.add(new AlgorithmParameter());
+			return result;
+		}
+	}
+
+	private final SubstrateNetwork sNet;
+	private final ScenarioTestInterface<SubstrateNetwork, VirtualNetwork, NetworkStack> algorithm;
+	private final AlgorithmParameter param;
+	private final RequestGenerator generator;
+	private final double arrivalRate;
+	private final double departureRate;
+	private final Random rng;
+
+	private final PriorityQueue<Event> calendar = new PriorityQueue<Event>();
+	private final Set<VirtualNetwork> active = new LinkedHashSet<VirtualNetwork>();
+	private long seq = 0;
+	private double now = 0.0;
+	private int pendingArrivals = 0;
+
+	private int arrivals = 0;
+	private int accepted = 0;
+	private int departures = 0;
+
+	private RunSink sink = null;
+	private double sampleInterval = 1.0;
+	private LinkedHashMap<String, Map<String, String>> params = new LinkedHashMap<String, Map<String, String>>();
+	private List<EvaluationMetric<NetworkStack>> metrics = new LinkedList<EvaluationMetric<NetworkStack>>();
+	private int samples = 0;
+	private int sampleArrivals = 0;
+	private int sampleAccepted = 0;
+
+	/**
+	 * @param sNet The substrate network, which is shared by all requests
+	 * @param algorithms Creates the algorithm embedding each arriving request
+	 * @param generator Creates the virtual network of every request
+	 * @param arrivalRate The mean number of arrivals per unit of time
+	 * @param departureRate The reciprocal of the mean lifetime of a request
+	 * @param seed The seed of all random decisions of the simulation
+	 */
+	public OnlineSimulator(SubstrateNetwork sNet, AlgorithmFactory algorithms,
+			RequestGenerator generator, double arrivalRate, double departureRate, long seed) {
+		this(sNet, new FactoryScenarioTest(algorithms), new AlgorithmParameter(),
+				generator, arrivalRate, departureRate, seed);
+	}
+
+	/**
+	 * @param sNet The substrate network, which is shared by all requests
+	 * @param algorithm Maps each arriving request and releases it again
+	 * @param param The parameters of the algorithm, passed to every mapping
+	 * @param generator Creates the virtual network of every request
+	 * @param arrivalRate The mean number of arrivals per unit of time
+	 * @param departureRate The reciprocal of the mean lifetime of a request
+	 * @param seed The seed of all random decisions of the simulation
+	 */
+	public OnlineSimulator(SubstrateNetwork sNet,
+			ScenarioTestInterface<SubstrateNetwork, VirtualNetwork, NetworkStack> algorithm,
+			AlgorithmParameter param, RequestGenerator generator,
+			double arrivalRate, double departureRate, long seed) {
+		if (arrivalRate <= 0.0 || departureRate <= 0.0)
+			throw new IllegalArgumentException("Arrival and departure rates have to be positive");
+
+		this.sNet = sNet;
+		this.algorithm = algorithm;
+		this.param = param;
+		this.generator = generator;
+		this.arrivalRate = arrivalRate;
+		this.departureRate = departureRate;
+		this.rng = new Random(seed);
+	}
+
+	/**
+	 * Stream samples of the simulation to the given sink.
+	 *
+	 * @param sink Receives one {@link Run} per sample
+	 * @param sampleInterval The simulated time between two samples
+	 * @param params The parameters every sample starts with, e.g. those of the
+	 * experiment
+	 * @param metrics Evaluated at every sample
+	 */
+	public void setSink(RunSink sink, double sampleInterval,
+			LinkedHashMap<String, Map<String, String>> params,
+			List<EvaluationMetric<NetworkStack>> metrics) {
+		if (sampleInterval <= 0.0)
+			throw new IllegalArgumentException("The sample interval has to be positive");
+
+		this.sink = sink;
+		this.sampleInterval = sampleInterval;
+		this.params = params;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Simulate the given number of arrivals, followed by the departure of all
+	 * requests that are still embedded.
+	 */
+	public void run(int maxArrivals) {
+		pendingArrivals = maxArrivals;
+		scheduleArrival();
+		double nextSample = now + sampleInterval;
+
+		Event e;
+		while ((e = calendar.poll()) != null) {
+			while (sink != null && nextSample <= e.time) {
+				now = nextSample;
+				sample();
+				nextSample += sampleInterval;
+			}
+			now = e.time;
+
+			if (e.request == null) {
+				arrive();
+				scheduleArrival();
+			} else {
+				depart(e.request);
+			}
+		}
+
+		if (sink != null)
+			sample();
+	}
+
+	private void scheduleArrival() {
+		if (pendingArrivals > 0) {
+			pendingArrivals--;
+			schedule(null, Utils.exponentialDistribution(rng, arrivalRate));
+		}
+	}
+
+	private void schedule(VirtualNetwork request, double delay) {
+		calendar.add(new Event(now + delay, seq++, request));
+	}
+
+	private void arrive() {
+		arrivals++;
+		sampleArrivals++;
+		VirtualNetwork vNet = generator.generate(arrivals, rng);
+
+		if (embed(vNet)) {
+			accepted++;
+			sampleAccepted++;
+			active.add(vNet);
+			schedule(vNet, Utils.exponentialDistribution(rng, departureRate));
+		}
+	}
+
+	private void depart(VirtualNetwork vNet) {
+		departures++;
+		active.remove(vNet);
+		unmap(vNet);
+	}
+
+	/**
+	 * Embed a single request. A request which has not been embedded completely
+	 * is released again.
+	 *
+	 * @return true if the request has been embedded
+	 */
+	protected boolean embed(VirtualNetwork vNet) {
+		algorithm.map(param, sNet, Collections.singletonList(vNet));
+		if (VnrUtils.isMapped(vNet))
+			return true;
+
+		// Release whatever a failed attempt left behind
+		unmap(vNet);
+		return false;
+	}
+
+	/**
+	 * Release all substrate resources held by a request.
+	 */
+	protected void unmap(VirtualNetwork vNet) {
+		algorithm.unmap(sNet, vNet);
+	}
+
+	private void sample() {
+		NetworkStack stack = new NetworkStack(sNet, new LinkedList<VirtualNetwork>(active));
+		Scenario scen = new Scenario();
+		scen.setNetworkStack(stack);
+
+		LinkedHashMap<String, Map<String, String>> runParams = new LinkedHashMap<String, Map<String, String>>(params);
+		Map<String, String> simParams = new LinkedHashMap<String, String>();
+		simParams.put("Time", Double.toString(now));
+		simParams.put("Arrivals", Integer.toString(arrivals));
+		runParams.put(getClass().getSimpleName(), simParams);
+
+		Run run = new Run(scen, runParams);
+		run.evaluate(metrics);
+
+		Map<String, Double> results = run.getResults();
+		results.put("AcceptanceRatio", arrivals == 0 ? 0.0 : (double) accepted / arrivals);
+		results.put("IntervalAcceptanceRatio", sampleArrivals == 0 ? 0.0 : (double) sampleAccepted / sampleArrivals);
+		results.put("ActiveRequests", (double) active.size());
+		results.put("CpuUtilization", getCpuUtilization());
+		results.put("BandwidthUtilization", getBandwidthUtilization());
+		sampleArrivals = 0;
+		sampleAccepted = 0;
+
+		sink.submit(samples++, run);
+	}
+
+	/**
+	 * @return The fraction of the CPU cycles of the substrate in use
+	 */
+	public double getCpuUtilization() {
+		double total = 0.0, available = 0.0;
+		for (SubstrateNode sn : sNet.getVertices()) {
+			CpuResource res = (CpuResource) sn.get(CpuResource.class);
+			if (res != null) {
+				total += res.getCycles();
+				available += res.getAvailableCycles();
+			}
+		}
+		return total == 0.0 ? 0.0 : (total - available) / total;
+	}
+
+	/**
+	 * @return The fraction of the bandwidth of the substrate in use
+	 */
+	public double getBandwidthUtilization() {
+		double total = 0.0, available = 0.0;
+		for (SubstrateLink sl : sNet.getEdges()) {
+			BandwidthResource res = (BandwidthResource) sl.get(BandwidthResource.class);
+			if (res != null) {
+				total += res.getBandwidth();
+				available += res.getAvailableBandwidth();
+			}
+		}
+		return total == 0.0 ? 0.0 : (total - available) / total;
+	}
+
+	/**
+	 * @return The current simulated time
+	 */
+	public double getTime() {
+		return now;
+	}
+
+	public int getArrivals() {
+		return arrivals;
+	}
+
+	public int getAccepted() {
+		return accepted;
+	}
+
+	public int getDepartures() {
+		return departures;
+	}
+
+	/**
+	 * @return The requests which are currently embedded
+	 */
+	public Set<VirtualNetwork> getActive() {
+		return Collections.unmodifiableSet(active);
+	}
+}
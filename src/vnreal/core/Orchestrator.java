@@ -7,6 +7,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
@@ -29,10 +34,31 @@ import vnreal.io.experiment.GeneratorElementType;
 import vnreal.io.experiment.MetricType;
 import vnreal.io.experiment.ParamType;
 import vnreal.io.experiment.RNGType;
+import vnreal.network.IDSource;
 import vnreal.network.NetworkStack;
 
 public class Orchestrator {
+	/**
+	 * System property with the maximum size in bytes of the scenarios kept
+	 * for experiments with several algorithms; 0 disables the cache. By
+	 * default a quarter of the heap is used.
+	 */
+	public static final String SCENARIO_CACHE_PROPERTY = "vnreal.scenario.cache";
+	
 	public static void execute(String xmlfile) throws SAXException, JAXBException, ClassNotFoundException {
+		execute(xmlfile, 1);
+	}
+	
+	/**
+	 * Execute an experiment.
+	 * 
+	 * @param xmlfile The experiment specification
+	 * @param workers The number of runs to process in parallel. With more than
+	 * one worker, every run gets its own scenario generator chain, algorithm
+	 * instance and metrics; results are still exported in the order of a
+	 * serial execution.
+	 */
+	public static void execute(String xmlfile, int workers) throws SAXException, JAXBException, ClassNotFoundException {
 		SchemaFactory schemaFactory = SchemaFactory.newInstance( XMLConstants.W3C_XML_SCHEMA_NS_URI );
 	    Schema schema = schemaFactory.newSchema(new File(vnreal.core.Consts.EXPERIMENT_XML));
 	    JAXBContext jaxbContext = JAXBContext.newInstance("vnreal.io.experiment");
@@ -49,9 +75,9 @@ public class Orchestrator {
 		List<LinkedHashMap<String, Map<String, String>>> runParams = getRunParams(params);
 		
 		// Prepare Metrics and Exporters in advance
-		List<EvaluationMetric<NetworkStack>> metrics = new LinkedList<EvaluationMetric<NetworkStack>>();
+		List<String> metrics = new LinkedList<String>();
 		for (MetricType metric : exp.getEvaluation().getMetric()) {
-			metrics.add(reg.getMetric(metric.getName()));
+			metrics.add(metric.getName());
 		}
 		List<IResultExporter> exportersL = new LinkedList<IResultExporter>();
 		Experiment.Exporters exporters = exp.getExporters();
@@ -65,43 +91,126 @@ public class Orchestrator {
 			exporter.init(exporters.getResultsDir(), expParam);
 			exportersL.add(exporter);
 		}
+		// Runs finished ahead of a slow one are kept for a while only
+		RunSink sink = new RunSink(exportersL, 2 * Math.max(1, workers));
+		
+		// Every algorithm runs on the same scenarios, which need to be generated only once
+		ScenarioCache cache = null;
+		if (exp.getAlgorithm().size() > 1) {
+			cache = new ScenarioCache(Long.getLong(SCENARIO_CACHE_PROPERTY, Runtime.getRuntime().maxMemory() / 4));
+		}
 
-				
+		try {
+			if (workers > 1)
+				executeParallel(exp, runParams, metrics, sink, cache, workers);
+			else
+				executeSerial(exp, runParams, metrics, sink, cache);
+		} finally {
+			// Finalize all exporters
+			sink.close();
+		}
+	}
+	
+	private static void executeSerial(Experiment exp, List<LinkedHashMap<String, Map<String, String>>> runParams,
+			List<String> metrics, RunSink sink, ScenarioCache cache) throws ClassNotFoundException {
+		int index = 0;
 		for (AlgorithmType algoT : exp.getAlgorithm()) {  // This is currently buggy! At the moment, only the last algorithm is actually employed!
-			// Set up the algorithm
-			AlgorithmParameter algoParam = new AlgorithmParameter();
-			for (ParamType param : algoT.getParameter()) {
-				algoParam.put(param.getName(), param.getValue());
-			}
-			
-			// Build and execute the run
+			AlgorithmParameter algoParam = getAlgorithmParameter(algoT);
 			for (LinkedHashMap<String, Map<String, String>> parSet : runParams) {
-				ScenarioGeneratorChain generator = new ScenarioGeneratorChain();
-				generator.init(parSet);
-				Scenario scen = generator.generate();
-				generator.reset(); // Need to reset the generator for the next round
-				Run run = new Run(scen, parSet);
-				
-				// Unfortunately, some algorithms currently keep state and thus must
-				// be initialized here (instead of once outside the loop)
-				AbstractAlgorithm algo = reg.getAlgorithm(algoT.getName(), algoParam);
-				run.setAlgorithm(algo);
-				
-				// Perform the actual embedding
-				run.process();
-				
-				run.evaluate(metrics);
-				
-				// Finally, export the results
-				for (IResultExporter exporter : exportersL)
-					exporter.export(run);
+				sink.submit(index++, executeRun(algoT.getName(), algoParam, parSet, metrics, cache));
+			}
+		}
+	}
+	
+	private static void executeParallel(Experiment exp, List<LinkedHashMap<String, Map<String, String>>> runParams,
+			final List<String> metrics, final RunSink sink, final ScenarioCache cache, int workers) throws ClassNotFoundException {
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		List<Future<Void>> futures = new LinkedList<Future<Void>>();
+		
+		int index = 0;
+		for (AlgorithmType algoT : exp.getAlgorithm()) {
+			final String algoName = algoT.getName();
+			final AlgorithmParameter algoParam = getAlgorithmParameter(algoT);
+			for (final LinkedHashMap<String, Map<String, String>> parSet : runParams) {
+				final int runIndex = index++;
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws ClassNotFoundException {
+						sink.submit(runIndex, executeRun(algoName, algoParam, parSet, metrics, cache));
+						return null;
+					}
+				}));
 			}
 		}
+		executor.shutdown();
 		
-		// Finalize all exporters
-		for (IResultExporter exporter : exportersL)
-			exporter.close();
+		try {
+			for (Future<Void> f : futures)
+				f.get();
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Experiment execution was interrupted", e);
+		} catch (ExecutionException e) {
+			executor.shutdownNow();
+			if (e.getCause() instanceof ClassNotFoundException)
+				throw (ClassNotFoundException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+	}
+	
+	private static AlgorithmParameter getAlgorithmParameter(AlgorithmType algoT) {
+		AlgorithmParameter algoParam = new AlgorithmParameter();
+		for (ParamType param : algoT.getParameter()) {
+			algoParam.put(param.getName(), param.getValue());
+		}
+		return algoParam;
+	}
+	
+	/**
+	 * Generate the scenario for a single parameter set, embed it with a fresh
+	 * instance of the given algorithm and evaluate the result. This method
+	 * does not share any state with concurrent invocations, except for the
+	 * cache, which hands out a scenario of its own to every run.
+	 * 
+	 * @param cache The cache of generated scenarios, or <code>null</code>
+	 */
+	private static Run executeRun(String algoName, AlgorithmParameter algoParam,
+			LinkedHashMap<String, Map<String, String>> parSet, List<String> metricNames,
+			ScenarioCache cache) throws ClassNotFoundException {
+		Registry reg = Registry.getInstance();
 		
+		// Every run numbers its entities from 0, independent of concurrent runs
+		IDSource previousIds = IDSource.bind(new IDSource());
+		try {
+			Scenario scen;
+			if (cache != null) {
+				scen = cache.get(parSet);
+			} else {
+				ScenarioGeneratorChain generator = new ScenarioGeneratorChain();
+				generator.init(parSet);
+				scen = generator.generate();
+			}
+			Run run = new Run(scen, parSet);
+			
+			// Unfortunately, some algorithms currently keep state and thus must
+			// be initialized here (instead of once outside the loop)
+			AbstractAlgorithm algo = reg.getAlgorithm(algoName, algoParam);
+			run.setAlgorithm(algo);
+			
+			// Perform the actual embedding
+			run.process();
+			
+			List<EvaluationMetric<NetworkStack>> metrics = new LinkedList<EvaluationMetric<NetworkStack>>();
+			for (String metric : metricNames) {
+				metrics.add(reg.getMetric(metric));
+			}
+			run.evaluate(metrics);
+			
+			return run;
+		} finally {
+			IDSource.bind(previousIds);
+		}
 	}
 	
 	/**
@@ -0,0 +1,156 @@
+package vnreal.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import javax.tools.JavaFileObject;
+
+/**
+ * A file listing the plugins the {@link Registry} found on a classpath, so
+ * that later starts with the same classpath do not have to scan it again.
+ *
+ * The first line of the file is a fingerprint of the classpath: the entries
+ * and the name, size and modification time of every class file within them.
+ * It is followed by the binary names of all registered classes, one per line.
+ * The index is only used if the fingerprint still matches; otherwise the
+ * classpath is scanned and the index is written anew.
+ *
+ * @since 2015-06-15
+ */
+final class PluginIndex {
+	private static final String CLASS_FILE_ENDS_WITH = JavaFileObject.Kind.CLASS.extension;
+
+	private final File file;
+	private final String fingerprint;
+
+	/**
+	 * @param file The file the index is stored in
+	 * @param classpath The classpath, as in the system property
+	 * <code>java.class.path</code>
+	 */
+	PluginIndex(File file, String classpath) {
+		this.file = file;
+		this.fingerprint = fingerprint(classpath);
+	}
+
+	/**
+	 * @return The classes of the index, or <code>null</code> if there is no
+	 *         index for this classpath or one of its classes cannot be loaded
+	 */
+	List<Class<?>> load() {
+		if (!file.isFile()) {
+			return null;
+		}
+
+		List<Class<?>> result = new ArrayList<Class<?>>();
+		try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			if (!fingerprint.equals(in.readLine())) {
+				return null;
+			}
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				Class<?> c = ClassLoader.getConcreteClass(line);
+				if (c == null) {
+					return null;
+				}
+				result.add(c);
+			}
+		} catch (IOException e) {
+			if (ClassLoader.debug) {
+				System.err.println("WARNING: plugin index \"" + file + "\" cannot be read.");
+				e.printStackTrace();
+			}
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * Write the given classes to the index. Failures are not fatal, the next
+	 * start just scans the classpath again.
+	 */
+	void save(Collection<Class<?>> classes) {
+		// Keep the order of the scan, later classes replace earlier ones of the same name
+		LinkedHashSet<String> names = new LinkedHashSet<String>();
+		for (Class<?> c : classes) {
+			names.add(c.getName());
+		}
+
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8))) {
+				out.println(fingerprint);
+				for (String name : names) {
+					out.println(name);
+				}
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			System.err.println("WARNING: plugin index \"" + file + "\" cannot be written: "
+					+ e.getLocalizedMessage());
+			tmp.delete();
+		}
+	}
+
+	private static String fingerprint(String classpath) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+
+		for (String child : classpath.split(File.pathSeparator)) {
+			update(md, child);
+			File entry = new File(child);
+			if (entry.isDirectory()) {
+				fingerprint(md, entry, "");
+			} else {
+				update(md, entry.length() + ":" + entry.lastModified());
+			}
+		}
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : md.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static void fingerprint(MessageDigest md, File folder, String prefix) {
+		File[] entries = folder.listFiles();
+		if (entries == null) {
+			return;
+		}
+		// listFiles() gives no guarantee about the order
+		Arrays.sort(entries);
+		for (File entry : entries) {
+			String name = prefix + entry.getName();
+			if (entry.isDirectory()) {
+				fingerprint(md, entry, name + "/");
+			} else if (name.toLowerCase().endsWith(CLASS_FILE_ENDS_WITH)) {
+				update(md, name + ":" + entry.length() + ":" + entry.lastModified());
+			}
+		}
+	}
+
+	private static void update(MessageDigest md, String s) {
+		md.update(s.getBytes(StandardCharsets.UTF_8));
+		md.update((byte) '\n');
+	}
+}
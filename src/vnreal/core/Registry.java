@@ -4,6 +4,8 @@ import java.io.File;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 
 
@@ -45,20 +47,36 @@ public class Registry {
 	private static Registry singleton = null;
 	
 	
+	/**
+	 * System property naming a file in which the plugins found on the
+	 * classpath are kept between runs. If it is not set, the classpath is
+	 * scanned at every start.
+	 */
+	public static final String INDEX_PROPERTY = "vnreal.registry.index";
+
 	/**
 	 * Private constructor to avoid having more than one object.
 	 */
 	private Registry() {
+		String classpath = System.getProperty("java.class.path");
+		String indexFile = System.getProperty(INDEX_PROPERTY);
+		PluginIndex index = (indexFile == null ? null : new PluginIndex(new File(indexFile), classpath));
+
+		List<Class<?>> indexed = (index == null ? null : index.load());
+		if (indexed != null) {
+			for (Class<?> c : indexed) {
+				register(c);
+			}
+			return;
+		}
 		
 		// By default: Load all algorithms and metrics found in the classpath.
-		for (String child : System.getProperty("java.class.path").split(File.pathSeparator)) {
-			loadMetrics(new File(child));
-			loadAlgorithms(new File(child));
-			loadResGens(new File(child));
-			loadDemGens(new File(child));
-			loadNetGens(new File(child));
-			loadScenGenChainElems(new File(child));
-			loadExporters(new File(child));
+		List<Class<?>> found = new LinkedList<Class<?>>();
+		for (String child : classpath.split(File.pathSeparator)) {
+			found.addAll(loadAll(new File(child)));
+		}
+		if (index != null) {
+			index.save(found);
 		}
 		
 	}
@@ -69,12 +87,66 @@ public class Registry {
 	 * 
 	 * @return The registry
 	 */
-	public static Registry getInstance() {
+	public static synchronized Registry getInstance() {
 		if (singleton == null)
 			singleton = new Registry();
 		return singleton;
 	}
 	
+	/**
+	 * Load all metrics, algorithms, generators, scenario generator chain
+	 * elements and exporters from a particular folder. Each class is loaded
+	 * once and sorted into every matching category.
+	 * 
+	 * @param folder The folder containing the package structure, see
+	 * {@link #loadMetrics(File)}.
+	 * @return The classes which have been registered
+	 */
+	public List<Class<?>> loadAll(File folder) {
+		List<Class<?>> result = new LinkedList<Class<?>>();
+		for (String className : ClassLoader.getClassNames(folder, "")) {
+			Class<?> c = ClassLoader.getConcreteClass(className);
+			if (c != null && register(c)) {
+				result.add(c);
+			}
+		}
+		return result;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private boolean register(Class<?> c) {
+		boolean registered = false;
+		if (EvaluationMetric.class.isAssignableFrom(c)) {
+			metrics.put(c.getSimpleName(), (Class<EvaluationMetric>) c);
+			registered = true;
+		}
+		if (AbstractAlgorithm.class.isAssignableFrom(c)) {
+			algorithms.put(c.getSimpleName(), (Class<AbstractAlgorithm>) c);
+			registered = true;
+		}
+		if (AbstractResourceGenerator.class.isAssignableFrom(c)) {
+			resGens.put(c.getSimpleName(), (Class<AbstractResourceGenerator>) c);
+			registered = true;
+		}
+		if (AbstractDemandGenerator.class.isAssignableFrom(c)) {
+			demGens.put(c.getSimpleName(), (Class<AbstractDemandGenerator>) c);
+			registered = true;
+		}
+		if (AbstractNetworkStackGenerator.class.isAssignableFrom(c)) {
+			netGens.put(c.getSimpleName(), (Class<AbstractNetworkStackGenerator>) c);
+			registered = true;
+		}
+		if (IChainElement.class.isAssignableFrom(c)) {
+			scenGenChainElems.put(c.getSimpleName(), (Class<IChainElement>) c);
+			registered = true;
+		}
+		if (IResultExporter.class.isAssignableFrom(c)) {
+			exporters.put(c.getSimpleName(), (Class<IResultExporter>) c);
+			registered = true;
+		}
+		return registered;
+	}
+	
 	/**
 	 * Load all metrics from a particular folder.
 	 * 
@@ -0,0 +1,133 @@
+package vnreal.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import vnreal.io.IResultExporter;
+
+/**
+ * This class hands finished runs over to a list of result exporters. Runs may
+ * be submitted by several worker threads in any order; each run carries its
+ * position within the experiment, and the sink forwards runs to the exporters
+ * strictly in that order. Exporters are therefore only ever called from one
+ * thread at a time and see exactly the sequence a serial experiment would
+ * produce.
+ *
+ * At most a given number of runs wait for a predecessor. A worker submitting a
+ * run beyond that window blocks until the predecessors have been exported, so
+ * a single slow run does not make all later runs pile up in memory. The run
+ * which is exported next is never blocked.
+ *
+ * @since 2015-06-01
+ */
+public class RunSink {
+	/** The default number of runs which may wait for a predecessor */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private final List<IResultExporter> exporters;
+	private final int capacity;
+	private final TreeMap<Integer, Run> pending = new TreeMap<Integer, Run>();
+	private int next = 0;
+	private boolean closed = false;
+
+	public RunSink(List<IResultExporter> exporters) {
+		this(exporters, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param exporters The exporters to forward the runs to
+	 * @param capacity The number of runs which may wait for a predecessor,
+	 * at least 1
+	 */
+	public RunSink(List<IResultExporter> exporters, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("The capacity must be at least 1");
+		this.exporters = exporters;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Submit a finished run. Blocks while the run is too far ahead of the
+	 * runs which have been exported.
+	 *
+	 * @param index The position of the run within the experiment, starting at 0
+	 * @param run The finished and evaluated run
+	 * @throws IllegalStateException if the sink has been closed
+	 * @throws RuntimeException if the thread has been interrupted while waiting
+	 */
+	public synchronized void submit(int index, Run run) {
+		if (run == null)
+			throw new IllegalArgumentException("Run " + index + " is null");
+		if (index < next || pending.containsKey(index))
+			throw new IllegalArgumentException("Run " + index + " has already been submitted");
+
+		while (!closed && index - next >= capacity) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while waiting to submit run " + index, e);
+			}
+		}
+		if (closed)
+			throw new IllegalStateException("Run " + index + " has been submitted after closing");
+
+		pending.put(index, run);
+
+		// Forward all runs which are now contiguous to the last exported one
+		Run r;
+		boolean exported = false;
+		while ((r = pending.remove(next)) != null) {
+			for (IResultExporter exporter : exporters)
+				exporter.export(r);
+			next++;
+			exported = true;
+		}
+		if (exported)
+			notifyAll();
+	}
+
+	/**
+	 * @return The number of runs that have been forwarded to the exporters
+	 */
+	public synchronized int getExported() {
+		return next;
+	}
+
+	/**
+	 * @return The number of runs waiting for a predecessor
+	 */
+	public synchronized int getPending() {
+		return pending.size();
+	}
+
+	/**
+	 * Finalize all exporters. Runs still waiting for a predecessor, which can
+	 * only happen if a preceding run failed, are exported in their order
+	 * first, and the missing runs are reported. Workers still waiting to
+	 * submit a run fail.
+	 */
+	public synchronized void close() {
+		if (closed)
+			return;
+		closed = true;
+		notifyAll();
+
+		if (!pending.isEmpty()) {
+			StringBuilder missing = new StringBuilder();
+			for (Map.Entry<Integer, Run> e : pending.entrySet()) {
+				for (int i = next; i < e.getKey(); i++)
+					missing.append(missing.length() == 0 ? "" : ", ").append(i);
+				for (IResultExporter exporter : exporters)
+					exporter.export(e.getValue());
+				next = e.getKey() + 1;
+			}
+			pending.clear();
+			System.err.println("WARNING: runs " + missing + " are missing, later runs have been exported without them.");
+		}
+
+		for (IResultExporter exporter : exporters)
+			exporter.close();
+	}
+}
@@ -0,0 +1,127 @@
+package vnreal.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import vnreal.io.SnapshotExporter;
+import vnreal.io.SnapshotImporter;
+
+/**
+ * Scenarios generated by a {@link ScenarioGeneratorChain}, so that runs with
+ * the same parameter set (including the seed of the RNG) do not have to
+ * generate their scenario again, e.g. when several algorithms are compared.
+ *
+ * Every caller gets a scenario of its own. The scenarios are kept as
+ * snapshots of the {@link SnapshotExporter}, which preserve coordinates,
+ * hidden hop demands and the IDs referenced by {@link vnreal.constraints.resources.IdResource}s
+ * and {@link vnreal.constraints.demands.IdDemand}s, and are decoded for every
+ * hit. Like a generated scenario, a decoded one takes its IDs from the
+ * {@link vnreal.network.IDSource} bound to the calling thread.
+ *
+ * The cache holds at most a given number of bytes of snapshots; the least
+ * recently used ones are evicted first. It can be shared by several threads.
+ *
+ * @since 2015-06-15
+ */
+public class ScenarioCache {
+	private final long maxBytes;
+	private final LinkedHashMap<List<Object>, byte[]> snapshots = new LinkedHashMap<List<Object>, byte[]>(16, 0.75f, true);
+	private long bytes = 0;
+	private int hits = 0;
+	private int misses = 0;
+
+	/**
+	 * @param maxBytes The maximum total size of all cached snapshots
+	 */
+	public ScenarioCache(long maxBytes) {
+		if (maxBytes < 0)
+			throw new IllegalArgumentException("The size of the cache must not be negative");
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Get the scenario of a parameter set, generating it if it is not cached.
+	 *
+	 * @param params The parameters of the scenario generator chain, see
+	 * {@link ScenarioGeneratorChain#init(LinkedHashMap)}
+	 * @return A scenario which is not shared with any other caller
+	 * @throws ClassNotFoundException if a chain element does not exist
+	 */
+	public Scenario get(LinkedHashMap<String, Map<String, String>> params) throws ClassNotFoundException {
+		List<Object> key = getKey(params);
+
+		byte[] snapshot;
+		synchronized (this) {
+			snapshot = snapshots.get(key);
+			if (snapshot != null)
+				hits++;
+			else
+				misses++;
+		}
+		if (snapshot != null)
+			return SnapshotImporter.importScenario(snapshot);
+
+		// Generated outside of the lock, so concurrent runs are not serialized
+		ScenarioGeneratorChain generator = new ScenarioGeneratorChain();
+		generator.init(params);
+		Scenario scen = generator.generate();
+
+		if (maxBytes > 0)
+			put(key, SnapshotExporter.toBytes(scen.getNetworkStack()));
+		return scen;
+	}
+
+	private synchronized void put(List<Object> key, byte[] snapshot) {
+		if (snapshot.length > maxBytes)
+			return;
+
+		byte[] previous = snapshots.put(key, snapshot);
+		if (previous != null)
+			bytes -= previous.length;
+		bytes += snapshot.length;
+
+		Iterator<byte[]> it = snapshots.values().iterator();
+		while (bytes > maxBytes) {
+			bytes -= it.next().length;
+			it.remove();
+		}
+	}
+
+	/**
+	 * The order of the chain elements matters, the order of the parameters of
+	 * a single element does not.
+	 */
+	private static List<Object> getKey(LinkedHashMap<String, Map<String, String>> params) {
+		List<Object> key = new ArrayList<Object>(2 * params.size());
+		for (Map.Entry<String, Map<String, String>> e : params.entrySet()) {
+			key.add(e.getKey());
+			key.add(new TreeMap<String, String>(e.getValue()));
+		}
+		return key;
+	}
+
+	/**
+	 * @return The number of scenarios which have been taken from the cache
+	 */
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return The number of scenarios which have been generated
+	 */
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return The total size of all cached snapshots in bytes
+	 */
+	public synchronized long getSize() {
+		return bytes;
+	}
+}
@@ -0,0 +1,29 @@
+package vnreal.evaluations.metrics.DPVNE;
+
+import vnreal.evaluations.metrics.EvaluationMetric;
+import vnreal.network.NetworkStack;
+
+/**
+ * The number of virtual network requests processed per second.
+ * 
+ * @since 2015-06-15
+ */
+public class Throughput implements EvaluationMetric<NetworkStack> {
+
+	double throughput;
+
+	public Throughput(double throughput) {
+		this.throughput = throughput;
+	}
+
+	@Override
+	public double calculate(NetworkStack stack) {
+		return throughput;
+	}
+
+	@Override
+	public String toString() {
+		return "Throughput";
+	}
+
+}
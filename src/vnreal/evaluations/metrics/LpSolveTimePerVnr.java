@@ -0,0 +1,59 @@
+/* ***** BEGIN LICENSE BLOCK *****
+ * Copyright (C) 2010-2011, The VNREAL Project Team.
+ * 
+ * This work has been funded by the European FP7
+ * Network of Excellence "Euro-NF" (grant agreement no. 216366)
+ * through the Specific Joint Developments and Experiments Project
+ * "Virtual Network Resource Embedding Algorithms" (VNREAL). 
+ *
+ * The VNREAL Project Team consists of members from:
+ * - University of Wuerzburg, Germany
+ * - Universitat Politecnica de Catalunya, Spain
+ * - University of Passau, Germany
+ * See the file AUTHORS for details and contact information.
+ * 
+ * This file is part of ALEVIN (ALgorithms for Embedding VIrtual Networks).
+ *
+ * ALEVIN is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License Version 3 or later
+ * (the "GPL"), or the GNU Lesser General Public License Version 3 or later
+ * (the "LGPL") as published by the Free Software Foundation.
+ *
+ * ALEVIN is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * or the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License and
+ * GNU Lesser General Public License along with ALEVIN; see the file
+ * COPYING. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ***** END LICENSE BLOCK ***** */
+package vnreal.evaluations.metrics;
+
+import vnreal.algorithms.utils.LpSession;
+import vnreal.network.NetworkStack;
+
+/**
+ * Average time in milliseconds spent in the LP solver per virtual network
+ * request, for algorithms solving their LPs within an {@link LpSession} of
+ * the substrate network (e.g., CoordinatedMapping or the rounding path
+ * splitting link mapping). Only the last algorithm run on the substrate
+ * network is taken into account.
+ */
+public class LpSolveTimePerVnr implements EvaluationMetric<NetworkStack> {
+
+	@Override
+	public double calculate(NetworkStack stack) {
+		LpSession session = LpSession.peek(stack.getSubstrate());
+		if (session == null || stack.getVirtuals().isEmpty())
+			return 0.0;
+		return session.getSolveTime() / stack.getVirtuals().size();
+	}
+
+	@Override
+	public String toString() {
+		return "LP solve time per VNR [ms]";
+	}
+
+}
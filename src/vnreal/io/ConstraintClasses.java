@@ -0,0 +1,256 @@
+package vnreal.io;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import vnreal.AdditionalConstructParameter;
+import vnreal.ExchangeParameter;
+import vnreal.network.NetworkEntity;
+
+/**
+ * Reflection data of constraint classes used when reading and writing
+ * scenarios, looked up once per class and shared by all threads.
+ *
+ * @since 2015-06-15
+ */
+final class ConstraintClasses {
+	private static final Map<String, Class<?>> classes = new ConcurrentHashMap<String, Class<?>>();
+	private static final Map<Class<?>, Map<String, Method>> setters = new ConcurrentHashMap<Class<?>, Map<String, Method>>();
+	private static final Map<List<Class<?>>, Constructor<?>> constructors = new ConcurrentHashMap<List<Class<?>>, Constructor<?>>();
+	private static final Map<Class<?>, List<Property>> parameters = new ConcurrentHashMap<Class<?>, List<Property>>();
+	private static final Map<Class<?>, List<Property>> constructParameters = new ConcurrentHashMap<Class<?>, List<Property>>();
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private ConstraintClasses() {
+	}
+
+	/**
+	 * @see Class#forName(String)
+	 */
+	static Class<?> forName(String name) throws ClassNotFoundException {
+		Class<?> c = classes.get(name);
+		if (c == null) {
+			c = Class.forName(name);
+			classes.put(name, c);
+		}
+		return c;
+	}
+
+	/**
+	 * @return The public constructor of the given class with the given
+	 *         parameter types
+	 * @see Class#getConstructor(Class...)
+	 */
+	static Constructor<?> getConstructor(Class<?> c, Class<?>[] parameterTypes)
+			throws NoSuchMethodException {
+		List<Class<?>> key = new ArrayList<Class<?>>(parameterTypes.length + 1);
+		key.add(c);
+		key.addAll(Arrays.asList(parameterTypes));
+
+		Constructor<?> con = constructors.get(key);
+		if (con == null) {
+			con = c.getConstructor(parameterTypes);
+			constructors.put(key, con);
+		}
+		return con;
+	}
+
+	/**
+	 * @return The {@link ExchangeParameter} setter of the given field,
+	 *         ignoring case, or <code>null</code>
+	 * @see XMLUtils#getSetterIgnoreCase(Method[], String)
+	 */
+	static Method getSetter(Class<?> c, String fieldName) {
+		Map<String, Method> table = setters.get(c);
+		if (table == null) {
+			table = new HashMap<String, Method>();
+			for (Method m : c.getMethods()) {
+				String name = m.getName().toLowerCase(Locale.ROOT);
+				if (m.isAnnotationPresent(ExchangeParameter.class)
+						&& name.startsWith("set") && !table.containsKey(name)) {
+					table.put(name, m);
+				}
+			}
+			table = Collections.unmodifiableMap(table);
+			setters.put(c, table);
+		}
+		return table.get(("set" + fieldName).toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Create a constraint from the parameters read from a scenario file.
+	 *
+	 * @param c
+	 *            The class of the constraint
+	 * @param owner
+	 *            The entity the constraint belongs to
+	 * @param constructParameters
+	 *            The additional construction parameters, in the order of the
+	 *            constructor
+	 * @param parameters
+	 *            The values of the {@link ExchangeParameter} setters by field
+	 *            name
+	 * @return The new constraint
+	 */
+	static Object newInstance(Class<?> c, NetworkEntity<?> owner,
+			Collection<Object> constructParameters, Map<String, Object> parameters)
+			throws InstantiationException, IllegalAccessException,
+			InvocationTargetException, NoSuchMethodException {
+		Class<?>[] clArr = new Class<?>[constructParameters.size() + 1];
+		Object[] obArr = new Object[constructParameters.size() + 1];
+		clArr[0] = owner.getClass().getSuperclass();
+		obArr[0] = owner;
+		int i = 1;
+		for (Object ob : constructParameters) {
+			clArr[i] = ob.getClass();
+			obArr[i++] = ob;
+		}
+
+		Object constraint = getConstructor(c, clArr).newInstance(obArr);
+		for (Map.Entry<String, Object> e : parameters.entrySet()) {
+			getSetter(c, e.getKey()).invoke(constraint, e.getValue());
+		}
+		return constraint;
+	}
+
+	/**
+	 * @return The {@link ExchangeParameter} getters of the given class in the
+	 *         order of {@link Class#getMethods()}
+	 */
+	static List<Property> getParameters(Class<?> c) {
+		List<Property> table = parameters.get(c);
+		if (table == null) {
+			table = new ArrayList<Property>();
+			for (Method m : c.getMethods()) {
+				if (m.isAnnotationPresent(ExchangeParameter.class)
+						&& m.getName().contains("get")) {
+					table.add(new Property(m.getName().substring(3), m));
+				}
+			}
+			table = Collections.unmodifiableList(table);
+			parameters.put(c, table);
+		}
+		return table;
+	}
+
+	/**
+	 * @return The getters named by the {@link AdditionalConstructParameter}
+	 *         annotation of the given class; empty if it has none
+	 */
+	static List<Property> getConstructParameters(Class<?> c) {
+		List<Property> table = constructParameters.get(c);
+		if (table == null) {
+			table = new ArrayList<Property>();
+			AdditionalConstructParameter acp = c.getAnnotation(AdditionalConstructParameter.class);
+			if (acp != null) {
+				for (int i = 0; i < acp.parameterGetters().length; i++) {
+					table.add(new Property(acp.parameterNames()[i],
+							findGetter(c, acp.parameterGetters()[i])));
+				}
+			}
+			table = Collections.unmodifiableList(table);
+			constructParameters.put(c, table);
+		}
+		return table;
+	}
+
+	private static Method findGetter(Class<?> c, String getterName) {
+		for (Method m : c.getMethods()) {
+			if (m.getName().equals(getterName)) {
+				return m;
+			}
+		}
+		throw new Error("Cannot find any getter for: " + getterName
+				+ " for class " + c.getName() + "! Stop Exporting!");
+	}
+
+	/**
+	 * A getter of a constraint class together with the type name under which
+	 * its value is written to a scenario file.
+	 */
+	static final class Property {
+		final String name;
+		final String type;
+		private final MethodHandle getter;
+
+		private Property(String name, Method m) {
+			this.name = name;
+			String retName = m.getGenericReturnType().toString();
+			if (retName.equals("class vnreal.network.substrate.SubstrateNetwork")) {
+				type = "localSNet";
+			} else if (retName.equals("int") || retName.equals("class java.lang.Integer")) {
+				type = "Integer";
+			} else if (retName.equals("class java.lang.String")) {
+				type = "String";
+			} else if (retName.equals("double") || retName.equals("class java.lang.Double")) {
+				type = "Double";
+			} else if (retName.equals("boolean") || retName.equals("class java.lang.Boolean")) {
+				type = "Boolean";
+			} else if (retName.equals("java.util.ArrayList<java.lang.String>")) {
+				type = "Collection_String";
+			} else {
+				throw new Error("Cannot export datatype: " + retName);
+			}
+
+			if (type.equals("localSNet")) {
+				getter = null;
+			} else {
+				try {
+					m.setAccessible(true);
+					getter = MethodHandles.lookup().unreflect(m).asType(GETTER_TYPE);
+				} catch (IllegalAccessException e) {
+					throw new Error("Cannot access getter " + m.getName() + ": " + e.getLocalizedMessage());
+				}
+			}
+		}
+
+		/**
+		 * @return The value of the property of the given object, or
+		 *         <code>null</code> for a "localSNet" property
+		 */
+		Object get(Object ob) {
+			if (getter == null) {
+				return null;
+			}
+			try {
+				return getter.invokeExact(ob);
+			} catch (Throwable e) {
+				throw new Error("Something went wrong while exporting data types: " + e.getLocalizedMessage());
+			}
+		}
+
+		/**
+		 * @return The value of the property of the given object as written to
+		 *         a scenario file
+		 */
+		String getValue(Object ob) {
+			if (getter == null) {
+				return "";
+			}
+			Object val = get(ob);
+			if (type.equals("String")) {
+				return (String) val;
+			} else if (type.equals("Collection_String")) {
+				StringBuilder out = new StringBuilder();
+				for (Object s : (List<?>) val) {
+					out.append(s).append(',');
+				}
+				return out.toString();
+			}
+			return String.valueOf(val);
+		}
+	}
+}
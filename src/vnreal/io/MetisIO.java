@@ -5,14 +5,14 @@ import java.io.BufferedWriter;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.ListIterator;
-import java.util.Map;
 
 import vnreal.algorithms.DPVNE.Partition;
-import vnreal.algorithms.DPVNE.PartitionConnection;
+import vnreal.algorithms.DPVNE.PartitioningUtils;
 import vnreal.constraints.resources.AbstractResource;
 import vnreal.constraints.resources.BandwidthResource;
 import vnreal.constraints.resources.CpuResource;
@@ -257,79 +257,18 @@ public class MetisIO {
 			SubstrateNetwork origNetwork,
 			String fileName) {
 		
-		Map<Integer, Partition> result = new HashMap<Integer, Partition>();
-	    HashMap<SubstrateNode, Integer> origMap = new HashMap<SubstrateNode, Integer>();
-	    HashMap<Integer, SubstrateNode> map = new HashMap<Integer, SubstrateNode>();
-		Iterator<SubstrateNode> nodeItr = origNetwork.getVertices().iterator();
-
+		int[] parts = new int[origNetwork.getVertexCount()];
 		BufferedReader br = null;
 		try {
 			br = new BufferedReader(new FileReader(fileName));
 
 			String line;
 			int pos = 0;
-			
-			//create Partitions
-			while((line = br.readLine()) != null) {
-				Integer partNo = Integer.parseInt(line);
-				//get current Partition
-				Partition part = result.get(partNo);
-				if (part == null) {
-					part = new Partition();
-					result.put(partNo, part);
-				}
-				SubstrateNetwork sNetwork = part.getSubstrateNetwork();
-				
-				//add cloneNode to Partition and map originalNode and cloneNode
-				SubstrateNode node = nodeItr.next();
-				origMap.put(node, pos);
-				SubstrateNode cloneNode = node.getCopy(true);
-				map.put(pos, cloneNode);
-				sNetwork.addVertex(cloneNode);
-				
-				for (SubstrateLink l : origNetwork.getInEdges(node)) {
-					if (origMap.containsKey(origNetwork.getOpposite(node, l))){
-						SubstrateLink newLink = l.getCopy(true);
-						int mapNo = -1;
-						SubstrateNode oppositeNode = origNetwork.getOpposite(node, l);
-						mapNo = origMap.get(oppositeNode);
-						//add inEdges inside a Partition
-						if (sNetwork.containsVertex(map.get(mapNo))) {
-							sNetwork.addEdge(newLink, map.get(mapNo), cloneNode);
-						}else{
-							//add PartitionConnections
-							Iterator<Partition> partItr = result.values().iterator();
-							while(partItr.hasNext()){
-								Partition neighborPart = partItr.next();
-								
-								if(!neighborPart.equals(part)){ //current Partition unequal neighborPartition
-									if(neighborPart.getSubstrateNetwork().containsVertex(map.get(mapNo))){ //oppositeNode is in neighborPartition
-										//add inPartitionConnection
-										part.getDirectedEdgesToNeighbors().add(new PartitionConnection(cloneNode.getName(), part, oppositeNode.getName(), neighborPart, newLink));
-										//create outPartitionConnection
-										SubstrateLink backwardLink = origNetwork.findEdge(node, origNetwork.getOpposite(node, l));
-										//add outPartitionConnection
-										neighborPart.getDirectedEdgesToNeighbors().add(new PartitionConnection(oppositeNode.getName(), neighborPart, cloneNode.getName(), part, backwardLink.getCopy(true)));
-									}
-								}
-							}
-						}
-					}
-					
-				}
-				for (SubstrateLink l : origNetwork.getOutEdges(node)) {
-					if (origMap.containsKey(origNetwork.getOpposite(node, l))){
-						int mapNo = -1;
-						mapNo = origMap.get(origNetwork.getOpposite(node, l));
-						//add inEdges inside a Partition
-						if (sNetwork.containsVertex(map.get(mapNo))) {
-							SubstrateLink newLink = l.getCopy(true);
-							sNetwork.addEdge(newLink, cloneNode, map.get(mapNo));
-						}
-					}
-				}
-				
-				++pos;
+			while((line = br.readLine()) != null && pos < parts.length) {
+				parts[pos++] = Integer.parseInt(line);
+			}
+			if (pos < parts.length) {
+				parts = Arrays.copyOf(parts, pos);
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -343,7 +282,7 @@ public class MetisIO {
 			}
 		}
 		
-		return new LinkedList<Partition>(result.values());
+		return PartitioningUtils.createPartitions(origNetwork, parts);
 	}
 
 }
@@ -0,0 +1,261 @@
+package vnreal.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import vnreal.constraints.AbstractConstraint;
+import vnreal.constraints.demands.AbstractDemand;
+import vnreal.mapping.Mapping;
+import vnreal.network.Network;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * This class writes a {@link NetworkStack} to a binary snapshot, which can be
+ * read much faster than the XML format by the {@link SnapshotImporter}.
+ *
+ * A snapshot holds the same data as a scenario written by the
+ * {@link XMLExporter}: the substrate network, all virtual networks, the
+ * constraints with their construction parameters and
+ * {@link vnreal.ExchangeParameter}s, and the mappings of the demands.
+ * Converting between both formats is therefore lossless.
+ *
+ * All numbers are big endian. A snapshot consists of
+ * <ol>
+ * <li>the header: <code>int</code> {@link #MAGIC}, <code>short</code>
+ * {@link #VERSION},</li>
+ * <li>the string table: <code>int</code> count, and per string an
+ * <code>int</code> length followed by the UTF-8 bytes,</li>
+ * <li>the substrate: <code>byte</code> flags, <code>int</code> node count, per
+ * node <code>long</code> id, <code>double</code> x and y and its resources;
+ * <code>int</code> link count, per link <code>long</code> id, source and
+ * destination and its resources,</li>
+ * <li>the virtual networks: <code>int</code> count, per network
+ * <code>int</code> layer, <code>byte</code> flags, the nodes and links as in
+ * the substrate with demands
+ * instead of resources, and the hidden hop demands after the demands of every
+ * link.</li>
+ * </ol>
+ * The flags of a network are {@link #DIRECTED} and {@link #AUTO_UNREGISTER}.
+ * A list of constraints is written as <code>int</code> count, and per
+ * constraint the string of its type, the construction parameters and the
+ * parameters, each as <code>int</code> count followed by the string of the name
+ * and the value. Demands are followed by their mappings: <code>int</code>
+ * count, and per mapping the string of the resource type and the
+ * <code>long</code> id of the substrate entity. Strings are written as
+ * <code>int</code> index into the string table, or -1 for <code>null</code>.
+ * Values are written as a <code>byte</code> tag, followed by an
+ * <code>int</code>, a <code>double</code>, a string, a <code>boolean</code>,
+ * nothing for the substrate network of the stack, or <code>int</code> count
+ * and strings for a list of strings.
+ *
+ * @since 2015-06-15
+ */
+public class SnapshotExporter {
+	/** "ALVS" */
+	static final int MAGIC = 0x414C5653;
+	static final short VERSION = 2;
+
+	static final byte INTEGER = 1;
+	static final byte DOUBLE = 2;
+	static final byte STRING = 3;
+	static final byte BOOLEAN = 4;
+	static final byte LOCAL_SNET = 5;
+	static final byte COLLECTION_STRING = 6;
+
+	static final byte DIRECTED = 1;
+	static final byte AUTO_UNREGISTER = 2;
+
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private final DataOutputStream out = new DataOutputStream(buffer);
+	private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+	private final List<String> strings = new ArrayList<String>();
+
+	private SnapshotExporter() {
+	}
+
+	/**
+	 * Write the given stack to a snapshot file.
+	 *
+	 * @param filename Path and name of the file
+	 * @param stack The stack to export
+	 */
+	public static void exportStack(String filename, NetworkStack stack) {
+		try {
+			OutputStream file = new BufferedOutputStream(new FileOutputStream(filename));
+			try {
+				write(stack, file);
+			} finally {
+				file.close();
+			}
+		} catch (IOException e) {
+			throw new Error("Exporter error: " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Write the given stack to a snapshot in memory.
+	 *
+	 * @param stack The stack to export
+	 * @return The snapshot, as it would be written to a file
+	 * @see SnapshotImporter#importScenario(byte[])
+	 */
+	public static byte[] toBytes(NetworkStack stack) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			write(stack, bytes);
+		} catch (IOException e) {
+			throw new Error("Exporter error: " + e.getLocalizedMessage());
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void write(NetworkStack stack, OutputStream os) throws IOException {
+		SnapshotExporter exp = new SnapshotExporter();
+		exp.writeStack(stack);
+
+		DataOutputStream file = new DataOutputStream(os);
+		file.writeInt(MAGIC);
+		file.writeShort(VERSION);
+		file.writeInt(exp.strings.size());
+		for (String s : exp.strings) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			file.writeInt(bytes.length);
+			file.write(bytes);
+		}
+		exp.buffer.writeTo(file);
+		file.flush();
+	}
+
+	private void writeStack(NetworkStack stack) throws IOException {
+		writeFlags(stack.getSubstrate());
+		out.writeInt(stack.getSubstrate().getVertexCount());
+		for (SubstrateNode sn : stack.getSubstrate().getVertices()) {
+			out.writeLong(sn.getId());
+			out.writeDouble(sn.getCoordinateX());
+			out.writeDouble(sn.getCoordinateY());
+			writeConstraints(sn.get());
+		}
+
+		out.writeInt(stack.getSubstrate().getEdgeCount());
+		for (SubstrateLink sl : stack.getSubstrate().getEdges()) {
+			Pair<SubstrateNode> p = stack.getSubstrate().getEndpoints(sl);
+			out.writeLong(sl.getId());
+			out.writeLong(p.getFirst().getId());
+			out.writeLong(p.getSecond().getId());
+			writeConstraints(sl.get());
+		}
+
+		List<VirtualNetwork> vNets = stack.getVirtuals();
+		out.writeInt(vNets.size());
+		int layer = 1;
+		for (VirtualNetwork vNet : vNets) {
+			out.writeInt(layer++);
+			writeFlags(vNet);
+
+			out.writeInt(vNet.getVertexCount());
+			for (VirtualNode vn : vNet.getVertices()) {
+				out.writeLong(vn.getId());
+				out.writeDouble(vn.getCoordinateX());
+				out.writeDouble(vn.getCoordinateY());
+				writeConstraints(vn.get());
+			}
+
+			out.writeInt(vNet.getEdgeCount());
+			for (VirtualLink vl : vNet.getEdges()) {
+				Pair<VirtualNode> p = vNet.getEndpoints(vl);
+				out.writeLong(vl.getId());
+				out.writeLong(p.getFirst().getId());
+				out.writeLong(p.getSecond().getId());
+				writeConstraints(vl.get());
+				writeConstraints(vl.getHiddenHopDemands());
+			}
+		}
+	}
+
+	private void writeFlags(Network<?, ?, ?> net) throws IOException {
+		out.writeByte((net.isDirected() ? DIRECTED : 0)
+				| (net.isAutoUnregisterConstraints() ? AUTO_UNREGISTER : 0));
+	}
+
+	private void writeConstraints(Collection<? extends AbstractConstraint> constraints)
+			throws IOException {
+		out.writeInt(constraints.size());
+		for (AbstractConstraint c : constraints) {
+			writeString(c.getClass().getSimpleName());
+			writeProperties(c, ConstraintClasses.getConstructParameters(c.getClass()));
+			writeProperties(c, ConstraintClasses.getParameters(c.getClass()));
+
+			if (c instanceof AbstractDemand) {
+				List<Mapping> mappings = ((AbstractDemand) c).getMappings();
+				out.writeInt(mappings.size());
+				for (Mapping map : mappings) {
+					writeString(map.getResource().getClass().getSimpleName());
+					out.writeLong(map.getResource().getOwner().getId());
+				}
+			}
+		}
+	}
+
+	private void writeProperties(Object ob, List<ConstraintClasses.Property> properties)
+			throws IOException {
+		out.writeInt(properties.size());
+		for (ConstraintClasses.Property p : properties) {
+			writeString(p.name);
+			Object val = p.get(ob);
+			if (p.type.equals("Integer")) {
+				out.writeByte(INTEGER);
+				out.writeInt((Integer) val);
+			} else if (p.type.equals("Double")) {
+				out.writeByte(DOUBLE);
+				out.writeDouble((Double) val);
+			} else if (p.type.equals("String")) {
+				out.writeByte(STRING);
+				writeString((String) val);
+			} else if (p.type.equals("Boolean")) {
+				out.writeByte(BOOLEAN);
+				out.writeBoolean((Boolean) val);
+			} else if (p.type.equals("localSNet")) {
+				out.writeByte(LOCAL_SNET);
+			} else if (p.type.equals("Collection_String")) {
+				out.writeByte(COLLECTION_STRING);
+				List<?> list = (List<?>) val;
+				out.writeInt(list.size());
+				for (Object s : list) {
+					writeString((String) s);
+				}
+			} else {
+				throw new Error("Cannot export datatype: " + p.type);
+			}
+		}
+	}
+
+	private void writeString(String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+			return;
+		}
+		Integer i = stringIndex.get(s);
+		if (i == null) {
+			i = strings.size();
+			strings.add(s);
+			stringIndex.put(s, i);
+		}
+		out.writeInt(i);
+	}
+}
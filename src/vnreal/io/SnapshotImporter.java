@@ -0,0 +1,338 @@
+package vnreal.io;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import vnreal.algorithms.utils.NodeLinkAssignation;
+import vnreal.constraints.demands.AbstractDemand;
+import vnreal.constraints.demands.IdDemand;
+import vnreal.constraints.resources.AbstractResource;
+import vnreal.constraints.resources.IdResource;
+import vnreal.core.Scenario;
+import vnreal.network.NetworkEntity;
+import vnreal.network.NetworkStack;
+import vnreal.network.substrate.SubstrateLink;
+import vnreal.network.substrate.SubstrateNetwork;
+import vnreal.network.substrate.SubstrateNode;
+import vnreal.network.virtual.VirtualLink;
+import vnreal.network.virtual.VirtualNetwork;
+import vnreal.network.virtual.VirtualNode;
+
+/**
+ * This class reads a snapshot written by the {@link SnapshotExporter}. The file
+ * is mapped into memory and decoded in a single pass.
+ *
+ * Like the {@link XMLImporter}, all entities get new IDs; the IDs stored in
+ * {@link IdResource}s and {@link IdDemand}s are translated accordingly.
+ *
+ * @since 2015-06-15
+ */
+public class SnapshotImporter {
+	private final ByteBuffer in;
+	private String[] strings;
+
+	//Old IDs from the file to new IDs
+	private final HashMap<Long, Long> idmap = new HashMap<Long, Long>();
+	//Substrate entities by their new id
+	private final HashMap<Long, NetworkEntity<? extends AbstractResource>> substrateEntities = new HashMap<Long, NetworkEntity<? extends AbstractResource>>();
+	private SubstrateNetwork sNet;
+
+	private SnapshotImporter(ByteBuffer in) {
+		this.in = in;
+	}
+
+	/**
+	 * This method is importing the {@link Scenario} of the given snapshot
+	 *
+	 * @param filename Path and Filename
+	 * @return The {@link Scenario}
+	 */
+	public static Scenario importScenario(String filename) {
+		ByteBuffer in;
+		try (FileChannel ch = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+		} catch (IOException e) {
+			throw new Error(e.getLocalizedMessage());
+		}
+		return importScenario(in, "Snapshot " + filename);
+	}
+
+	/**
+	 * This method is importing the {@link Scenario} of a snapshot in memory
+	 *
+	 * @param snapshot The snapshot, e.g. from {@link SnapshotExporter#toBytes(NetworkStack)}
+	 * @return The {@link Scenario}
+	 */
+	public static Scenario importScenario(byte[] snapshot) {
+		return importScenario(ByteBuffer.wrap(snapshot), "Snapshot");
+	}
+
+	private static Scenario importScenario(ByteBuffer in, String what) {
+		try {
+			Scenario scenario = new Scenario();
+			scenario.setNetworkStack(new SnapshotImporter(in).readStack());
+			return scenario;
+		} catch (BufferUnderflowException e) {
+			throw new Error(what + " is truncated");
+		}
+	}
+
+	private NetworkStack readStack() {
+		if (in.getInt() != SnapshotExporter.MAGIC) {
+			throw new Error("Not a scenario snapshot");
+		}
+		short version = in.getShort();
+		if (version != SnapshotExporter.VERSION) {
+			throw new Error("Unsupported snapshot version " + version);
+		}
+
+		strings = new String[in.getInt()];
+		for (int i = 0; i < strings.length; i++) {
+			byte[] bytes = new byte[in.getInt()];
+			in.get(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		byte flags = in.get();
+		sNet = new SubstrateNetwork((flags & SnapshotExporter.AUTO_UNREGISTER) != 0,
+				(flags & SnapshotExporter.DIRECTED) != 0);
+		int count = in.getInt();
+		for (int i = 0; i < count; i++) {
+			SubstrateNode sn = new SubstrateNode();
+			idmap.put(in.getLong(), sn.getId());
+			substrateEntities.put(sn.getId(), sn);
+			sn.setCoordinateX(in.getDouble());
+			sn.setCoordinateY(in.getDouble());
+
+			for (AbstractResource ar : readResources(sn)) {
+				sn.add(ar);
+			}
+			sNet.addVertex(sn);
+		}
+
+		count = in.getInt();
+		for (int i = 0; i < count; i++) {
+			SubstrateLink sl = new SubstrateLink();
+			idmap.put(in.getLong(), sl.getId());
+			substrateEntities.put(sl.getId(), sl);
+			SubstrateNode srcNode = getSubstrateNode(getNewID(in.getLong()));
+			SubstrateNode dstNode = getSubstrateNode(getNewID(in.getLong()));
+			if (srcNode == null || dstNode == null) {
+				throw new Error("SubstrateNetwork does not contain the end points of link " + sl.getId());
+			}
+
+			for (AbstractResource ar : readResources(sl)) {
+				sl.add(ar);
+			}
+			sNet.addEdge(sl, srcNode, dstNode);
+		}
+
+		ArrayList<VirtualNetwork> vNets = new ArrayList<VirtualNetwork>();
+		int vNetCount = in.getInt();
+		for (int v = 0; v < vNetCount; v++) {
+			int layer = in.getInt();
+			flags = in.get();
+			VirtualNetwork vNet = new VirtualNetwork(layer, (flags & SnapshotExporter.AUTO_UNREGISTER) != 0,
+					(flags & SnapshotExporter.DIRECTED) != 0);
+			HashMap<Long, VirtualNode> virtualNodes = new HashMap<Long, VirtualNode>();
+
+			count = in.getInt();
+			for (int i = 0; i < count; i++) {
+				VirtualNode vn = new VirtualNode(vNet.getLayer());
+				idmap.put(in.getLong(), vn.getId());
+				virtualNodes.put(vn.getId(), vn);
+				vn.setCoordinateX(in.getDouble());
+				vn.setCoordinateY(in.getDouble());
+
+				for (AbstractDemand ad : readDemands(vn)) {
+					vn.add(ad);
+				}
+				vNet.addVertex(vn);
+			}
+
+			count = in.getInt();
+			for (int i = 0; i < count; i++) {
+				VirtualLink vl = new VirtualLink(vNet.getLayer());
+				idmap.put(in.getLong(), vl.getId());
+				VirtualNode srcNode = virtualNodes.get(getNewID(in.getLong()));
+				VirtualNode dstNode = virtualNodes.get(getNewID(in.getLong()));
+				if (srcNode == null || dstNode == null) {
+					throw new Error("VirtualNetwork " + vNet.getLayer()
+							+ " does not contain the end points of link " + vl.getId());
+				}
+
+				for (AbstractDemand ad : readDemands(vl)) {
+					vl.add(ad);
+				}
+				for (AbstractDemand ad : readDemands(vl)) {
+					vl.addHiddenHopDemand(ad);
+				}
+				vNet.addEdge(vl, srcNode, dstNode);
+			}
+
+			vNets.add(vNet);
+		}
+
+		return new NetworkStack(sNet, vNets);
+	}
+
+	private List<AbstractResource> readResources(NetworkEntity<? extends AbstractResource> owner) {
+		int count = in.getInt();
+		List<AbstractResource> result = new ArrayList<AbstractResource>(count);
+		for (int i = 0; i < count; i++) {
+			AbstractResource ar = (AbstractResource) readConstraint(
+					"vnreal.constraints.resources.", owner);
+
+			//Treat the IDResource to contain the right ID
+			if (ar instanceof IdResource) {
+				IdResource idr = (IdResource) ar;
+				idr.setId(getNewID(Long.parseLong(idr.getId())) + "");
+			}
+			result.add(ar);
+		}
+		return result;
+	}
+
+	private List<AbstractDemand> readDemands(NetworkEntity<? extends AbstractDemand> owner) {
+		int count = in.getInt();
+		List<AbstractDemand> result = new ArrayList<AbstractDemand>(count);
+		for (int i = 0; i < count; i++) {
+			AbstractDemand ad = (AbstractDemand) readConstraint(
+					"vnreal.constraints.demands.", owner);
+
+			//Treat the IDDemand to contain the right ID
+			if (ad instanceof IdDemand) {
+				IdDemand idd = (IdDemand) ad;
+				idd.setDemandedId(getNewID(Long.parseLong(idd.getDemandedId())) + "");
+			}
+
+			int mappings = in.getInt();
+			for (int m = 0; m < mappings; m++) {
+				String resName = readString();
+				long id = getNewID(in.getLong());
+				occupy(ad, owner, resName, id);
+			}
+			result.add(ad);
+		}
+		return result;
+	}
+
+	private Object readConstraint(String pkg, NetworkEntity<?> owner) {
+		String type = readString();
+		try {
+			Class<?> c = ConstraintClasses.forName(pkg + type);
+
+			int count = in.getInt();
+			List<Object> constructParameters = new ArrayList<Object>(count);
+			for (int i = 0; i < count; i++) {
+				readString();
+				constructParameters.add(readValue());
+			}
+			count = in.getInt();
+			LinkedHashMap<String, Object> parameters = new LinkedHashMap<String, Object>();
+			for (int i = 0; i < count; i++) {
+				String name = readString();
+				parameters.put(name, readValue());
+			}
+
+			return ConstraintClasses.newInstance(c, owner, constructParameters, parameters);
+		} catch (ClassNotFoundException e) {
+			throw new Error("Constraint from snapshot not found: " + e.getMessage());
+		} catch (InstantiationException | IllegalAccessException
+				| IllegalArgumentException | InvocationTargetException
+				| NoSuchMethodException | SecurityException e) {
+			throw new Error("Creation of " + type + " failed: " + e.getLocalizedMessage());
+		}
+	}
+
+	private void occupy(AbstractDemand ad, NetworkEntity<?> owner, String resName, long id) {
+		NetworkEntity<? extends AbstractResource> se = substrateEntities.get(id);
+		if (se == null) {
+			throw new Error("Referenced substrate entity " + id + " not found");
+		}
+		Class<?> tClass;
+		try {
+			tClass = ConstraintClasses.forName("vnreal.constraints.resources." + resName);
+		} catch (ClassNotFoundException e) {
+			throw new Error("Creation of Mapping failed: " + e.getLocalizedMessage());
+		}
+
+		AbstractResource ar = null;
+		for (AbstractResource tmpAr : se) {
+			if (tmpAr.getClass() == tClass)
+				ar = tmpAr;
+		}
+		if (ar == null) {
+			throw new Error("Referenced resource type " + tClass.getName()
+					+ " in node " + owner.getId() + " not found");
+		}
+		if (!NodeLinkAssignation.occupy(ad, ar)) {
+			throw new Error("Demand " + ad.getClass().getSimpleName() + " from VNode "
+					+ owner.getId() + " could not mapped.");
+		}
+	}
+
+	private Object readValue() {
+		byte tag = in.get();
+		switch (tag) {
+		case SnapshotExporter.INTEGER:
+			return in.getInt();
+		case SnapshotExporter.DOUBLE:
+			return in.getDouble();
+		case SnapshotExporter.STRING:
+			return readString();
+		case SnapshotExporter.BOOLEAN:
+			return in.get() != 0;
+		case SnapshotExporter.LOCAL_SNET:
+			return sNet;
+		case SnapshotExporter.COLLECTION_STRING:
+			int count = in.getInt();
+			ArrayList<String> list = new ArrayList<String>(count);
+			for (int i = 0; i < count; i++) {
+				list.add(readString());
+			}
+			return list;
+		default:
+			throw new Error("Datatype " + tag + " not supported!");
+		}
+	}
+
+	private String readString() {
+		int i = in.getInt();
+		return i == -1 ? null : strings[i];
+	}
+
+	/**
+	 * @param id New ID of a node of the substrate network
+	 * @return The node, or <code>null</code>
+	 */
+	private SubstrateNode getSubstrateNode(long id) {
+		NetworkEntity<? extends AbstractResource> se = substrateEntities.get(id);
+		return (se instanceof SubstrateNode) ? (SubstrateNode) se : null;
+	}
+
+	/**
+	 * Find the corresponding new ID, or Error
+	 *
+	 * @param oldID Old ID from file
+	 * @return new ID
+	 */
+	private long getNewID(long oldID) {
+		Long newID = idmap.get(oldID);
+		if (newID != null) {
+			return newID;
+		}
+
+		throw new Error("Error while importing networks id " + oldID + " not found.");
+	}
+}
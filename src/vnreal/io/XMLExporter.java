@@ -1,19 +1,15 @@
 package vnreal.io;
 
+import java.io.BufferedOutputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Type;
-import java.util.AbstractMap.SimpleEntry;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
-import vnreal.AdditionalConstructParameter;
-import vnreal.ExchangeParameter;
 import vnreal.constraints.demands.AbstractDemand;
 import vnreal.constraints.resources.AbstractResource;
 import vnreal.core.Scenario;
@@ -46,6 +42,7 @@ import edu.uci.ics.jung.graph.util.Pair;
 public class XMLExporter {
 	
 	private final Object syncObject = new Object();
+	private OutputStream mOutStream = null;
 	private XMLStreamWriter mWriter = null;
 	private final boolean mExportNetworks;
 	
@@ -62,8 +59,8 @@ public class XMLExporter {
 			mExportNetworks = exportNetworks;
 			try {
 				
-				FileOutputStream outStream = new FileOutputStream(filename);
-				mWriter = new IndentingXMLStreamWriter(factory.createXMLStreamWriter(outStream, "UTF-8"));
+				mOutStream = new BufferedOutputStream(new FileOutputStream(filename));
+				mWriter = new IndentingXMLStreamWriter(factory.createXMLStreamWriter(mOutStream, "UTF-8"));
 
 				
 				mWriter.writeStartDocument("UTF-8", "1.0");
@@ -84,7 +81,8 @@ public class XMLExporter {
 	}
 	
 	/**
-	 * This method exports to the given TestRun
+	 * This method exports to the given TestRun. The run is flushed to the file
+	 * afterwards, so the memory used does not grow with the number of runs.
 	 * 
 	 * @param tr {@link TestRun} to export
 	 */
@@ -141,10 +139,14 @@ public class XMLExporter {
 				
 			    mWriter.flush();
 			    mWriter.close();
+			    mOutStream.close();
 			    
 			    mWriter = null;
+			    mOutStream = null;
 			} catch (XMLStreamException e) {
 				throw new Error("Exporter error while finishing export: "+e.getLocalizedMessage());
+			} catch (IOException e) {
+				throw new Error("Exporter error while finishing export: "+e.getLocalizedMessage());
 			} 
 		}
 	}
@@ -159,7 +161,7 @@ public class XMLExporter {
 	public static void exportResult(String filename, TestSeries series, boolean exportNetworks) {
 		XMLOutputFactory factory = XMLOutputFactory.newInstance();
 		try {
-			FileOutputStream xmlout = new FileOutputStream(filename);
+			OutputStream xmlout = new BufferedOutputStream(new FileOutputStream(filename));
 			XMLStreamWriter writer = new IndentingXMLStreamWriter(factory.createXMLStreamWriter(xmlout, "UTF-8"));
 			
 			writer.writeStartDocument("UTF-8", "1.0");
@@ -204,10 +206,11 @@ public class XMLExporter {
 			
 		    writer.flush();
 		    writer.close();
+		    xmlout.close();
 			
 		} catch (XMLStreamException e) {
 			throw new Error("Exporter error: "+e.getLocalizedMessage());
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			throw new Error("Exporter error: "+e.getLocalizedMessage());
 		}
 		
@@ -217,7 +220,7 @@ public class XMLExporter {
 	public static void exportStack(String filename, NetworkStack stack) {
 		XMLOutputFactory factory = XMLOutputFactory.newInstance();
 		try {
-			FileOutputStream xmlout = new FileOutputStream(filename);
+			OutputStream xmlout = new BufferedOutputStream(new FileOutputStream(filename));
 			XMLStreamWriter writer = new IndentingXMLStreamWriter(factory.createXMLStreamWriter(xmlout, "UTF-8"));
 			
 			writer.writeStartDocument("UTF-8", "1.0");
@@ -236,10 +239,11 @@ public class XMLExporter {
 			
 		    writer.flush();
 		    writer.close();
+		    xmlout.close();
 			
 		} catch (XMLStreamException e) {
 			throw new Error("Exporter error: "+e.getLocalizedMessage());
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			throw new Error("Exporter error: "+e.getLocalizedMessage());
 		}
 			
@@ -292,10 +296,10 @@ public class XMLExporter {
 		
 		
 		writer.writeStartElement("VirtualNetworks");
-		for(int i = 1; i < stack.size(); i++) {
+		int i = 1;
+		for(VirtualNetwork vNet : stack.getVirtuals()) {
 			writer.writeStartElement("VirtualNetwork");
-			writer.writeAttribute("layer", i+"");
-			VirtualNetwork vNet = (VirtualNetwork) stack.getLayer(i);
+			writer.writeAttribute("layer", (i++)+"");
 			writer.writeStartElement("VirtualNodes");
 			for(VirtualNode vn : vNet.getVertices()) {
 				writer.writeStartElement("VirtualNode");
@@ -392,18 +396,11 @@ public class XMLExporter {
 	 */
 	static void exportParameters(XMLStreamWriter writer,
 			Object ob) throws XMLStreamException {
-		Method[] mets = ob.getClass().getMethods();
-		for(Method m : mets) {
-			//lookup if the Method is marked as ExchangeParameter and NOT a setter
-			ExchangeParameter ep = m.getAnnotation(ExchangeParameter.class);
-			if(ep != null && m.getName().contains("get")) {
-				writer.writeEmptyElement("Parameter");
-				String paramName = m.getName().substring(3);
-				SimpleEntry<String, String> se = exportParamType(ob, m.getName());
-				writer.writeAttribute("name", paramName);
-				writer.writeAttribute("type", se.getKey());
-				writer.writeAttribute("value", se.getValue());
-			}
+		for(ConstraintClasses.Property p : ConstraintClasses.getParameters(ob.getClass())) {
+			writer.writeEmptyElement("Parameter");
+			writer.writeAttribute("name", p.name);
+			writer.writeAttribute("type", p.type);
+			writer.writeAttribute("value", p.getValue(ob));
 		}
 		
 	}
@@ -418,77 +415,14 @@ public class XMLExporter {
 	static void exportConstructParameters(XMLStreamWriter writer,
 			Object ob) throws XMLStreamException {
 		//Get the Construction Parameters
-		AdditionalConstructParameter acp = ob.getClass().getAnnotation(AdditionalConstructParameter.class);
-		if(acp != null) {
-			for(int i = 0; i < acp.parameterGetters().length; i++) {
-				writer.writeEmptyElement("ConstructParameter");
-				writer.writeAttribute("name", acp.parameterNames()[i]);
-				SimpleEntry<String, String> se = exportParamType(ob, acp.parameterGetters()[i]);
-				writer.writeAttribute("type", se.getKey());
-				writer.writeAttribute("value", se.getValue());
-			}
+		for(ConstraintClasses.Property p : ConstraintClasses.getConstructParameters(ob.getClass())) {
+			writer.writeEmptyElement("ConstructParameter");
+			writer.writeAttribute("name", p.name);
+			writer.writeAttribute("type", p.type);
+			writer.writeAttribute("value", p.getValue(ob));
 		}
 		
 		
 	}
 
-	/**
-	 * Exports the Parameter Type as a String
-	 * 
-	 * @param ob Resource or Demand
-	 * @param getterName Name of the getter
-	 * @return Name of the type for document
-	 */
-	static SimpleEntry<String, String> exportParamType(Object ob, String getterName){
-		//Try to get the getter
-		try {
-			SimpleEntry<String, String> e;
-			Method[] mets = ob.getClass().getMethods();
-			for(Method met: mets) {
-				if(met.getName().equals(getterName)) {
-					//Get the return type
-					Type t = met.getGenericReturnType();
-					String retName = t.toString();
-					if(retName.equals("class vnreal.network.substrate.SubstrateNetwork")) {
-						e = new SimpleEntry<String, String>("localSNet", "");
-						return e;
-					} else if(retName.equals("int") || retName.equals("class java.lang.Integer")) {
-						int val = (int)met.invoke(ob);
-						e = new SimpleEntry<String, String>("Integer", val+"");
-						return e;
-					} else if(retName.equals("class java.lang.String")) {
-						String val = (String)met.invoke(ob);
-						e = new SimpleEntry<String, String>("String", val);
-						return e;
-					} else if(retName.equals("double") || retName.equals("class java.lang.Double")) {
-						double val = (double)met.invoke(ob);
-						e = new SimpleEntry<String, String>("Double", val+"");
-						return e;
-					} else if(retName.equals("boolean") || retName.equals("class java.lang.Boolean")) {
-						int val = (int)met.invoke(ob);
-						e = new SimpleEntry<String, String>("Boolean", val+"");
-						return e;
-					} else if(retName.equals("java.util.ArrayList<java.lang.String>")) {
-						//FIXME: UNTESTED CODE!!!!!
-						String out = "";
-						@SuppressWarnings({ "unchecked" })
-						ArrayList<String> list = (ArrayList<String>)met.invoke(ob);
-						for(String s2 : list) {
-							String s = s2;
-							out += s+",";
-						}
-						e = new SimpleEntry<String, String>("Collection_String", out);
-						return e;
-					} else {
-						throw new Error("Cannot export datatype: "+retName);
-					}
-					//TODO: Test all data types and add more (ArrayList)
-				}
-			}
-			throw new Error("Cannot find any getter for: "+getterName+" for class "+ob.getClass().getName()+"! Stop Exporting!");
-		} catch(IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			throw new Error("Somethinh went wrong while exporting data types: "+e.getLocalizedMessage());
-		}
-	}
-
 }
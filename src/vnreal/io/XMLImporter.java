@@ -3,7 +3,6 @@ package vnreal.io;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -155,6 +154,9 @@ public class XMLImporter {
 		
 		//SubstrateNetwork stuff
 		private HashMap<Long, Long> idmap;
+		//Substrate entities and virtual nodes of the current network by their new id
+		private HashMap<Long, NetworkEntity<? extends AbstractResource>> substrateEntities;
+		private HashMap<Long, VirtualNode> virtualNodes;
 		private SubstrateNetwork currentSNet;
 		private NetworkEntity<? extends AbstractResource> currentSEntity;
 		private Class<? extends Object> currentClass;
@@ -217,6 +219,7 @@ public class XMLImporter {
 			if(localName.equals("ScenarioNetworks") || localName.equals("Scenario") ) {
 				currentScenario = new Scenario();
 				idmap = new HashMap<Long, Long>();
+				substrateEntities = new HashMap<Long, NetworkEntity<? extends AbstractResource>>();
 			}
 			
 			if(localName.equals("SubstrateNetwork")) {
@@ -228,6 +231,7 @@ public class XMLImporter {
 				SubstrateNode lNode = new SubstrateNode();
 				//Put the old and new id into the map
 				idmap.put(id, lNode.getId());
+				substrateEntities.put(lNode.getId(), lNode);
 				
 				double x = Double.parseDouble(attributes.getValue("coordinateX"));
 				double y = Double.parseDouble(attributes.getValue("coordinateY"));
@@ -242,7 +246,7 @@ public class XMLImporter {
 			if(localName.equals("Resource")) {
 				try {
 					String resName = attributes.getValue("type");
-					currentClass = Class.forName("vnreal.constraints.resources."+resName);
+					currentClass = ConstraintClasses.forName("vnreal.constraints.resources."+resName);
 					currentConstructParameters = new LinkedHashMap<String, Object>();
 					currentParameters = new LinkedHashMap<String, Object>();
 
@@ -274,6 +278,7 @@ public class XMLImporter {
 				long id = Long.parseLong(attributes.getValue("id"));
 				currentSEntity = new SubstrateLink();
 				idmap.put(id, currentSEntity.getId());
+				substrateEntities.put(currentSEntity.getId(), currentSEntity);
 				currentResources = new ArrayList<AbstractResource>();
 				
 				currentDestination = getNewID(Long.parseLong(attributes.getValue("destination")));
@@ -288,12 +293,14 @@ public class XMLImporter {
 			if(localName.equals("VirtualNetwork")) {
 				int layer = Integer.parseInt(attributes.getValue("layer"));
 				currentVNetwork = new VirtualNetwork(layer);
+				virtualNodes = new HashMap<Long, VirtualNode>();
 			}
 			
 			if(localName.equals("VirtualNode")) {
 				long id = Long.parseLong(attributes.getValue("id"));
 				VirtualNode lNode = new VirtualNode(currentVNetwork.getLayer());
 				idmap.put(id, lNode.getId());
+				virtualNodes.put(lNode.getId(), lNode);
 				
 				double x = Double.parseDouble(attributes.getValue("coordinateX"));
 				double y = Double.parseDouble(attributes.getValue("coordinateY"));
@@ -307,7 +314,7 @@ public class XMLImporter {
 			if(localName.equals("Demand") || localName.equals("HiddenHopDemand")) {
 				try {
 					String resName = attributes.getValue("type");
-					currentClass = Class.forName("vnreal.constraints.demands."+resName);	
+					currentClass = ConstraintClasses.forName("vnreal.constraints.demands."+resName);	
 					currentConstructParameters = new LinkedHashMap<String, Object>();
 					currentParameters = new LinkedHashMap<String, Object>();
 				} catch (ClassNotFoundException | SecurityException e) {
@@ -352,9 +359,8 @@ public class XMLImporter {
 				currentScenario.setNetworkStack(stack);
 				currentSNet = null;
 				currentVNets = null;
-				//DEBUG
-				System.out.println(idmap);
 				idmap = null;
+				substrateEntities = null;
 			}
 			
 			
@@ -375,6 +381,7 @@ public class XMLImporter {
 				currentVNets = null;
 				currentScenario = null;
 				idmap = null;
+				substrateEntities = null;
 			}
 			
 
@@ -394,41 +401,10 @@ public class XMLImporter {
 			
 			if(localName.equals("Resource")) {
 				//FIXME: Construction with Parameters only working when the parameters are in the right order in the XML
-				//TODO: make this code better
-				
-				//Prepare the Array ob Objects for the Construction of the Resource
-				@SuppressWarnings("rawtypes")
-				Class[] clArr;
-				Object[] obArr;
-				if(currentConstructParameters != null) {
-					clArr = new Class[currentConstructParameters.size()+1];
-					obArr = new Object[currentConstructParameters.size()+1];
-				} else {
-					clArr = new Class[1];
-					obArr = new Object[1];
-				}
- 				
-				clArr[0] = currentSEntity.getClass().getSuperclass();
-				obArr[0] = currentSEntity;
-				
-				if(currentConstructParameters != null) {
-					Object[] tmpObArr = currentConstructParameters.values().toArray();
-					for(int i = 1; i <currentConstructParameters.size()+1; i++) {
-						clArr[i] = tmpObArr[i-1].getClass();
-						obArr[i] = tmpObArr[i-1];
-					}
-				}
-				
 				AbstractResource ar;
 				try {
-					ar = (AbstractResource) currentClass.getConstructor(clArr).newInstance(obArr);
-					
-					//Call setter
-					Method[] methods = ar.getClass().getMethods();
-					for(String name : currentParameters.keySet()) {
-						Method setter = XMLUtils.getSetterIgnoreCase(methods, name);
-						setter.invoke(ar, currentParameters.get(name));
-					}
+					ar = (AbstractResource) ConstraintClasses.newInstance(currentClass, currentSEntity,
+							currentConstructParameters.values(), currentParameters);
 					
 					//Treat the IDResource to contain the right ID
 					if(ar.getClass().toString().equals("class vnreal.constraints.resources.IdResource")) {
@@ -449,8 +425,8 @@ public class XMLImporter {
 			}
 			
 			if(localName.equals("SubstrateLink")) {
-				SubstrateNode dstNode = XMLUtils.getSubstrateNodeForId(currentDestination, currentSNet);
-				SubstrateNode srcNode = XMLUtils.getSubstrateNodeForId(currentSource, currentSNet);
+				SubstrateNode dstNode = getSubstrateNode(currentDestination);
+				SubstrateNode srcNode = getSubstrateNode(currentSource);
 				
 				if(dstNode == null || srcNode == null) {
 					throw new Error("SubstrateNetwork not conatains nodes with ids "+currentDestination+" and "+currentSource);
@@ -474,42 +450,11 @@ public class XMLImporter {
 			
 			if(localName.equals("Demand") || localName.equals("HiddenHopDemand")) {
 				//FIXME: Construction with Parameters only working when the parameters are in the right order in the XML
-				//TODO: make this code better
-				
-				//Prepare the Array ob Objects for the Construction of the Resource
-				@SuppressWarnings("rawtypes")
-				Class[] clArr;
-				Object[] obArr;
-				if(currentConstructParameters != null) {
-					clArr = new Class[currentConstructParameters.size()+1];
-					obArr = new Object[currentConstructParameters.size()+1];
-				} else {
-					clArr = new Class[1];
-					obArr = new Object[1];
-				}
- 				
-				clArr[0] = currentVEntity.getClass().getSuperclass();
-				obArr[0] = currentVEntity;
-				
-				if(currentConstructParameters != null) {
-					Object[] tmpObArr = currentConstructParameters.values().toArray();
-					for(int i = 1; i <currentConstructParameters.size()+1; i++) {
-						clArr[i] = tmpObArr[i-1].getClass();
-						obArr[i] = tmpObArr[i-1];
-					}
-				}
-				
 				AbstractDemand ad;
 				try {
-					ad = (AbstractDemand) currentClass.getConstructor(clArr).newInstance(obArr);
-										
-					//Call setter
-					Method[] methods = ad.getClass().getMethods();		
-					for(String name : currentParameters.keySet()) {
-						Method setter = XMLUtils.getSetterIgnoreCase(methods, name);
-						setter.invoke(ad, currentParameters.get(name));
-					}
-
+					ad = (AbstractDemand) ConstraintClasses.newInstance(currentClass, currentVEntity,
+							currentConstructParameters.values(), currentParameters);
+					
 					//Treat the IDDemand to contain the right ID
 					if(ad.getClass().toString().equals("class vnreal.constraints.demands.IdDemand")) {
 						IdDemand idd = (IdDemand) ad;
@@ -522,18 +467,18 @@ public class XMLImporter {
 					if(currentMappings != null) {
 						for(long id : currentMappings.keySet()) {
 							AbstractResource ar = null;
-							NetworkEntity<? extends AbstractResource> se = XMLUtils.getSubstrateEntityForId(id, currentSNet);
+							NetworkEntity<? extends AbstractResource> se = substrateEntities.get(id);
+							if(se == null)
+								throw new Error("Referenced substrate entity "+id+" not found");
 							@SuppressWarnings("rawtypes")
-							Class tClass = Class.forName("vnreal.constraints.resources."+currentMappings.get(id));
-							if(se != null) {
-								for(AbstractResource tmpAr : se) {
-									if(tmpAr.getClass() == tClass)
-										ar = tmpAr;
-								}
-								if(ar == null)
-									throw new Error("Referenced resource type "+tClass.getName()+
-											" in node "+currentVEntity.getId()+" not found");
+							Class tClass = ConstraintClasses.forName("vnreal.constraints.resources."+currentMappings.get(id));
+							for(AbstractResource tmpAr : se) {
+								if(tmpAr.getClass() == tClass)
+									ar = tmpAr;
 							}
+							if(ar == null)
+								throw new Error("Referenced resource type "+tClass.getName()+
+										" in node "+currentVEntity.getId()+" not found");
 							boolean b = NodeLinkAssignation.occupy(ad, ar);
 							if(!b) {
 								throw new Error("Demand "+ad.getClass().getSimpleName()+" from VNode "+currentVEntity.getId()
@@ -573,8 +518,8 @@ public class XMLImporter {
 			
 			
 			if(localName.equals("VirtualLink")) {
-				VirtualNode dstNode = XMLUtils.getVirtualNodeForId(currentDestination, currentVNetwork);
-				VirtualNode srcNode = XMLUtils.getVirtualNodeForId(currentSource, currentVNetwork);
+				VirtualNode dstNode = virtualNodes.get(currentDestination);
+				VirtualNode srcNode = virtualNodes.get(currentSource);
 				
 				if(dstNode == null || srcNode == null) {
 					throw new Error("SVirtualNetwork "+currentVNetwork.getLayer()+" not conatains nodes with " +
@@ -603,6 +548,7 @@ public class XMLImporter {
 			if(localName.equals("VirtualNetwork")) {
 				currentVNets.add(currentVNetwork);
 				currentVNetwork = null;
+				virtualNodes = null;
 			}
 			
 		}
@@ -645,6 +591,15 @@ public class XMLImporter {
 			return ob;
 		}
 		
+		/**
+		 * @param id New ID of a node of the current substrate network
+		 * @return The node, or <code>null</code>
+		 */
+		private SubstrateNode getSubstrateNode(long id) {
+			NetworkEntity<? extends AbstractResource> se = substrateEntities.get(id);
+			return (se instanceof SubstrateNode) ? (SubstrateNode) se : null;
+		}
+		
 		/**
 		 * Find the corresponding new ID, or Error
 		 * 
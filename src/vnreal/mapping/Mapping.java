@@ -58,9 +58,9 @@ public final class Mapping {
 
 	public Mapping(AbstractDemand dem, AbstractResource res) {
 		this.demand = dem;
-		demand.register(this);
-
 		this.resource = res;
+
+		demand.register(this);
 		resource.register(this);
 	}
 
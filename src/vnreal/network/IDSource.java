@@ -1,23 +1,123 @@
 package vnreal.network;
 
-public class IDSource {
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 
-	private IDSource() {
-		throw new AssertionError();
+/**
+ * Source of the IDs of {@link NetworkEntity}s and of the default names of
+ * constraints.
+ *
+ * IDs are drawn from the scope bound to the current thread. By default all
+ * threads share one global scope. A run can bind its own scope via
+ * {@link #bind(IDSource)}, which makes its IDs dense, start at 0 and
+ * independent of other runs executed concurrently.
+ *
+ * Scopes are not inherited by new threads: a pooled thread would keep the
+ * scope of the run it has been created for. Tasks handed to another thread
+ * take the scope of the submitting thread along, see {@link #wrap(Callable)}
+ * and {@link #current()}.
+ */
+public final class IDSource {
+
+	private static final IDSource global = new IDSource();
+
+	private static final ThreadLocal<IDSource> current = new ThreadLocal<IDSource>() {
+		@Override
+		protected IDSource initialValue() {
+			return global;
+		}
+	};
+
+	private final AtomicLong entityId = new AtomicLong();
+	private final AtomicLong constraintId = new AtomicLong();
+
+	/**
+	 * Create a new, empty ID scope. It has to be bound with
+	 * {@link #bind(IDSource)} to be used.
+	 */
+	public IDSource() {
 	}
-	
-	
-	static long id = 0;
-	
+
+	/**
+	 * @return The next ID for a network entity of the current scope
+	 */
 	public static long getID() {
-		if(id == Long.MAX_VALUE)
-			id = 0;
-		
-		return id++;
+		return current.get().entityId.getAndIncrement();
 	}
-	
+
+	/**
+	 * @return The next ID used to name a constraint of the current scope
+	 */
+	public static long getConstraintID() {
+		return current.get().constraintId.getAndIncrement();
+	}
+
+	/**
+	 * Restart the IDs of the current scope at 0.
+	 */
 	public static void reset() {
-		id = 0;
+		IDSource scope = current.get();
+		scope.entityId.set(0);
+		scope.constraintId.set(0);
 	}
-	
+
+	/**
+	 * @return The scope bound to the current thread
+	 */
+	public static IDSource current() {
+		return current.get();
+	}
+
+	/**
+	 * @param task A task to be executed by another thread
+	 * @return The task, executed with the scope bound to the current thread.
+	 *         The scope of the executing thread is restored afterwards.
+	 */
+	public static <T> Callable<T> wrap(final Callable<T> task) {
+		final IDSource scope = current.get();
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				IDSource previous = bind(scope);
+				try {
+					return task.call();
+				} finally {
+					bind(previous);
+				}
+			}
+		};
+	}
+
+	/**
+	 * @see #wrap(Callable)
+	 */
+	public static Runnable wrap(final Runnable task) {
+		final IDSource scope = current.get();
+		return new Runnable() {
+			@Override
+			public void run() {
+				IDSource previous = bind(scope);
+				try {
+					task.run();
+				} finally {
+					bind(previous);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Bind a scope to the current thread.
+	 *
+	 * @param scope
+	 *            The scope to use from now on
+	 * @return The previously bound scope, to be restored once the caller is
+	 *         done
+	 */
+	public static IDSource bind(IDSource scope) {
+		IDSource previous = current.get();
+		current.set(scope);
+		return previous;
+	}
+
 }
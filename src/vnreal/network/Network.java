@@ -31,7 +31,10 @@
  * ***** END LICENSE BLOCK ***** */
 package vnreal.network;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -40,6 +43,10 @@ import vnreal.constraints.AbstractConstraint;
 import edu.uci.ics.jung.graph.DirectedOrderedSparseMultigraph;
 import edu.uci.ics.jung.graph.ObservableGraph;
 import edu.uci.ics.jung.graph.UndirectedOrderedSparseMultigraph;
+import edu.uci.ics.jung.graph.event.GraphEvent;
+import edu.uci.ics.jung.graph.event.GraphEventListener;
+import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Pair;
 
 @SuppressWarnings("serial")
 public abstract class Network<T extends AbstractConstraint, V extends Node<T>, E extends Link<T>>
@@ -49,6 +56,10 @@ public abstract class Network<T extends AbstractConstraint, V extends Node<T>, E
 	private boolean directed = true;
 	private String name = null;
 	protected int layer = 0;
+	
+	/** Incremented whenever a node or link is added or removed */
+	private volatile int modifications = 0;
+	private volatile Components<V> components = null;
 
 	protected Network(boolean autoUnregisterConstraints) {
 		this(autoUnregisterConstraints, true);
@@ -58,6 +69,12 @@ public abstract class Network<T extends AbstractConstraint, V extends Node<T>, E
 		super(directed ? new DirectedOrderedSparseMultigraph<V, E>() : new UndirectedOrderedSparseMultigraph<V,E>());
 		this.autoUnregisterConstraints = autoUnregisterConstraints;
 		this.directed = directed;
+		addGraphEventListener(new GraphEventListener<V, E>() {
+			@Override
+			public void handleGraphEvent(GraphEvent<V, E> evt) {
+				modifications++;
+			}
+		});
 	}
 	
 	public void setName(String name) {
@@ -92,6 +109,15 @@ public abstract class Network<T extends AbstractConstraint, V extends Node<T>, E
 		}
 	}
 	
+	@Override
+	public boolean addEdge(E e, Collection<? extends V> vertices, EdgeType edgeType) {
+		// not observed by ObservableGraph
+		boolean added = super.addEdge(e, vertices, edgeType);
+		if (added)
+			modifications++;
+		return added;
+	}
+	
 	public abstract void generateDuplicateEdges();
 
 	@Override
@@ -132,59 +158,158 @@ public abstract class Network<T extends AbstractConstraint, V extends Node<T>, E
 		return null;
 	}
 	
+	/**
+	 * @return true if all nodes are connected, ignoring the direction of
+	 *         links. An empty network counts as connected.
+	 */
 	public boolean isConnected() {
-		LinkedList<V> nodes = new LinkedList<V>(getVertices());
-		V first = nodes.getFirst();
-		for (V n : getVertices()) {
-			if (n == first)
-				continue;
-
-			if (findUndirectedPath(first, n).isEmpty()) {
-				return false;
-			}
-		}
-		return true;
+		return getComponentCount() <= 1;
 	}
 	
 	public boolean isDirected() {
 		return this.directed;
 	}
 	
-	Collection<List<E>> findUndirectedPath(
-			V n1, V n2) {
-		Collection<List<E>> result = new LinkedList<List<E>>();
-		findUndirectedPath(n1, n2,
-				new LinkedList<V>(),
-				new LinkedList<E>(),
-				result);
+	/**
+	 * @return true if the mappings of a vertex or edge are released when it
+	 *         is removed
+	 */
+	public boolean isAutoUnregisterConstraints() {
+		return this.autoUnregisterConstraints;
+	}
+	
+	/**
+	 * @return The number of connected components, ignoring the direction of
+	 *         links.
+	 */
+	public int getComponentCount() {
+		int[] root = getComponents().root;
+		int count = 0;
+		for (int i = 0; i < root.length; i++)
+			if (root[i] == i)
+				count++;
+		return count;
+	}
 	
+	/**
+	 * Determine the connected components, ignoring the direction of links.
+	 * 
+	 * @return The components in the order of their first node in
+	 *         {@link #getVertices()}; nodes of a component keep that order as
+	 *         well.
+	 */
+	public List<List<V>> getConnectedComponents() {
+		Components<V> c = getComponents();
+		
+		int[] component = new int[c.root.length];
+		List<List<V>> result = new ArrayList<List<V>>();
+		for (int i = 0; i < c.root.length; i++) {
+			int root = c.root[i];
+			if (root == i) {
+				component[i] = result.size();
+				result.add(new LinkedList<V>());
+			}
+			// roots always precede the nodes of their component
+			result.get(component[root]).add(c.nodes.get(i));
+		}
 		return result;
 	}
 	
+	/**
+	 * @return true if there is a path between the given nodes, ignoring the
+	 *         direction of links.
+	 */
+	public boolean areConnected(V n1, V n2) {
+		Components<V> c = getComponents();
+		Integer i1 = c.index.get(n1), i2 = c.index.get(n2);
+		return i1 != null && i2 != null && c.root[i1] == c.root[i2];
+	}
 	
-	void findUndirectedPath(V n1, V n2,
-			Collection<V> visited,
-			List<E> currentPath,
-			Collection<List<E>> result) {
-		if (n1 == n2) {
-			result.add(currentPath);
-			return;
+	/**
+	 * The connected components of the network as of a given modification.
+	 */
+	private static final class Components<V> {
+		final int version;
+		final List<V> nodes;
+		final HashMap<V, Integer> index;
+		/** For every node the index of the first node of its component */
+		final int[] root;
+		
+		Components(int version, List<V> nodes, HashMap<V, Integer> index, int[] root) {
+			this.version = version;
+			this.nodes = nodes;
+			this.index = index;
+			this.root = root;
 		}
-		if (visited.contains(n1)) {
-			return;
+	}
+	
+	/**
+	 * @return The connected components, computed again only if a node or
+	 *         link has been added or removed since the last call
+	 */
+	private Components<V> getComponents() {
+		Components<V> c = components;
+		int version = modifications;
+		if (c == null || c.version != version) {
+			c = computeComponents(version);
+			components = c;
 		}
-		visited.add(n1);
-	
-		LinkedList<E> ls = new LinkedList<E>();
-		ls.addAll(getOutEdges(n1));
-		ls.addAll(getInEdges(n1));
-		for (E l : ls) {
-			List<E> newPath = new LinkedList<E>(
-					currentPath);
-			newPath.add(l);
-			findUndirectedPath(getOpposite(n1, l), n2,
-					visited, newPath, result);
+		return c;
+	}
+	
+	/**
+	 * Union-find by rank over all links in O(V + E).
+	 */
+	private Components<V> computeComponents(int version) {
+		List<V> nodes = new ArrayList<V>(getVertices());
+		int n = nodes.size();
+		HashMap<V, Integer> index = new HashMap<V, Integer>(2 * n);
+		int[] parent = new int[n];
+		int[] rank = new int[n];
+		for (int i = 0; i < n; i++) {
+			index.put(nodes.get(i), i);
+			parent[i] = i;
+		}
+		
+		for (E e : getEdges()) {
+			Pair<V> ends = getEndpoints(e);
+			int r1 = find(parent, index.get(ends.getFirst()));
+			int r2 = find(parent, index.get(ends.getSecond()));
+			if (r1 == r2)
+				continue;
+			if (rank[r1] < rank[r2]) {
+				parent[r1] = r2;
+			} else {
+				parent[r2] = r1;
+				if (rank[r1] == rank[r2])
+					rank[r1]++;
+			}
+		}
+		
+		// the first node of a component becomes its representative
+		int[] first = new int[n];
+		Arrays.fill(first, -1);
+		int[] root = new int[n];
+		for (int i = 0; i < n; i++) {
+			int r = find(parent, i);
+			if (first[r] == -1)
+				first[r] = i;
+			root[i] = first[r];
+		}
+		return new Components<V>(version, nodes, index, root);
+	}
+	
+	private static int find(int[] parent, int i) {
+		int root = i;
+		while (parent[root] != root)
+			root = parent[root];
+		// path compression
+		while (parent[i] != root) {
+			int next = parent[i];
+			parent[i] = root;
+			i = next;
 		}
+		return root;
 	}
 	
 	public abstract LinkedList<String> removeDuplicateEdges();
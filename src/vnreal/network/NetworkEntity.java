@@ -51,8 +51,6 @@ public abstract class NetworkEntity<T extends AbstractConstraint> implements
 		Iterable<T> {
 	private final HashMap<Class<? extends AbstractConstraint>, T> constraints = new HashMap<Class<? extends AbstractConstraint>, T>();
 
-	private static Object syncObject = new Object();
-	
 	private String name = null, type = null;
 
 	private final long id;
@@ -65,9 +63,7 @@ public abstract class NetworkEntity<T extends AbstractConstraint> implements
 	protected NetworkEntity(int layer) {
 		this.layer = layer;
 		
-		synchronized (syncObject) {
-			this.id = IDSource.getID();
-		}
+		this.id = IDSource.getID();
 		
 		this.name = this.id + "";
 	}
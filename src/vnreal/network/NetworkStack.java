@@ -59,9 +59,8 @@ public final class NetworkStack extends AbstractLayerStack<Network<?, ?, ?>> {
 	private HashMap<String, Double> evaluationData = new HashMap<String, Double>();
 	
 	public NetworkStack(SubstrateNetwork substrate, List<VirtualNetwork> vns) {
-		//If we create a new Stack, we can reset the id Counter of the thread
-		//NetworkEntity.resetIDs();
-		//NO we can't! We need a better improved IDSource....
+		// IDs are not reset here, as the networks passed in already carry
+		// theirs. Runs which need dense IDs bind their own IDSource scope.
 		
 		this.substrate = substrate;
 		addLayer(substrate);
@@ -0,0 +1,350 @@
+package vnreal.network.substrate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import vnreal.constraints.resources.BandwidthResource;
+import vnreal.constraints.resources.CpuResource;
+
+/**
+ * Immutable, array based snapshot of the topology of a
+ * {@link SubstrateNetwork}, meant for the inner loops of embedding algorithms.
+ *
+ * Nodes and links are numbered densely in the order of
+ * {@link SubstrateNetwork#getVertices()} and
+ * {@link SubstrateNetwork#getEdges()}. Outgoing links are stored in compressed
+ * sparse row (CSR) form: the links leaving node <code>u</code> are
+ * <code>outLinks[outOffset[u]]</code> to
+ * <code>outLinks[outOffset[u + 1] - 1]</code>, leading to the nodes in
+ * <code>outTarget</code> at the same positions. In an undirected substrate
+ * every link appears in the rows of both its end points.
+ *
+ * The residual CPU and bandwidth of all nodes and links are copied into
+ * primitive arrays. They can be changed with {@link #reserveCpu(int, double)}
+ * and {@link #reserveBandwidth(int, double)} while a candidate embedding is
+ * evaluated; the constraints of the substrate are not touched. Once an
+ * embedding is committed through the usual demands and resources,
+ * {@link #refresh()} copies the residuals again.
+ */
+public final class CompactSubstrateNetwork {
+	private final SubstrateNetwork network;
+	private final SubstrateNode[] nodes;
+	private final SubstrateLink[] links;
+	private final HashMap<SubstrateNode, Integer> nodeIndex;
+	private final HashMap<SubstrateLink, Integer> linkIndex;
+
+	private final int[] linkSource;
+	private final int[] linkDest;
+	private final int[] outOffset;
+	private final int[] outLinks;
+	private final int[] outTarget;
+
+	private final double[] cpu;
+	private final double[] bandwidth;
+
+	public CompactSubstrateNetwork(SubstrateNetwork network) {
+		this.network = network;
+		int n = network.getVertexCount();
+		int m = network.getEdgeCount();
+
+		nodes = network.getVertices().toArray(new SubstrateNode[n]);
+		links = network.getEdges().toArray(new SubstrateLink[m]);
+		nodeIndex = new HashMap<SubstrateNode, Integer>(2 * n);
+		for (int i = 0; i < n; i++)
+			nodeIndex.put(nodes[i], i);
+		linkIndex = new HashMap<SubstrateLink, Integer>(2 * m);
+		for (int i = 0; i < m; i++)
+			linkIndex.put(links[i], i);
+
+		linkSource = new int[m];
+		linkDest = new int[m];
+		boolean directed = network.isDirected();
+		int[] degree = new int[n];
+		for (int i = 0; i < m; i++) {
+			linkSource[i] = nodeIndex.get(network.getSource(links[i]));
+			linkDest[i] = nodeIndex.get(network.getDest(links[i]));
+			degree[linkSource[i]]++;
+			if (!directed)
+				degree[linkDest[i]]++;
+		}
+
+		outOffset = new int[n + 1];
+		for (int u = 0; u < n; u++)
+			outOffset[u + 1] = outOffset[u] + degree[u];
+		outLinks = new int[outOffset[n]];
+		outTarget = new int[outOffset[n]];
+		int[] fill = Arrays.copyOf(outOffset, n);
+		for (int i = 0; i < m; i++) {
+			int pos = fill[linkSource[i]]++;
+			outLinks[pos] = i;
+			outTarget[pos] = linkDest[i];
+			if (!directed) {
+				pos = fill[linkDest[i]]++;
+				outLinks[pos] = i;
+				outTarget[pos] = linkSource[i];
+			}
+		}
+
+		cpu = new double[n];
+		bandwidth = new double[m];
+		refresh();
+	}
+
+	/**
+	 * Copy the residual capacities from the constraints of the substrate,
+	 * discarding all reservations made on this snapshot. Entities without a
+	 * {@link CpuResource} or {@link BandwidthResource} get a residual of 0.
+	 */
+	public void refresh() {
+		for (int i = 0; i < nodes.length; i++) {
+			CpuResource res = (CpuResource) nodes[i].get(CpuResource.class);
+			cpu[i] = res == null ? 0.0 : res.getAvailableCycles();
+		}
+		for (int i = 0; i < links.length; i++) {
+			BandwidthResource res = (BandwidthResource) links[i].get(BandwidthResource.class);
+			bandwidth[i] = res == null ? 0.0 : res.getAvailableBandwidth();
+		}
+	}
+
+	public SubstrateNetwork getNetwork() {
+		return network;
+	}
+
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	public int getLinkCount() {
+		return links.length;
+	}
+
+	public SubstrateNode getNode(int node) {
+		return nodes[node];
+	}
+
+	public SubstrateLink getLink(int link) {
+		return links[link];
+	}
+
+	/**
+	 * @return The index of the given node, or -1 if it is not part of the
+	 *         snapshot.
+	 */
+	public int indexOf(SubstrateNode node) {
+		Integer i = nodeIndex.get(node);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * @return The index of the given link, or -1 if it is not part of the
+	 *         snapshot.
+	 */
+	public int indexOf(SubstrateLink link) {
+		Integer i = linkIndex.get(link);
+		return i == null ? -1 : i;
+	}
+
+	public int getSource(int link) {
+		return linkSource[link];
+	}
+
+	public int getDest(int link) {
+		return linkDest[link];
+	}
+
+	public int getOutDegree(int node) {
+		return outOffset[node + 1] - outOffset[node];
+	}
+
+	/**
+	 * @return The CSR row offsets; must not be modified.
+	 */
+	public int[] getOutOffsets() {
+		return outOffset;
+	}
+
+	/**
+	 * @return The outgoing links of all nodes in CSR order; must not be
+	 *         modified.
+	 */
+	public int[] getOutLinks() {
+		return outLinks;
+	}
+
+	/**
+	 * @return The nodes reached via {@link #getOutLinks()}; must not be
+	 *         modified.
+	 */
+	public int[] getOutTargets() {
+		return outTarget;
+	}
+
+	public double getCpu(int node) {
+		return cpu[node];
+	}
+
+	public double getBandwidth(int link) {
+		return bandwidth[link];
+	}
+
+	/**
+	 * Reserve CPU on the snapshot only. A negative amount releases a
+	 * reservation.
+	 */
+	public void reserveCpu(int node, double amount) {
+		cpu[node] -= amount;
+	}
+
+	/**
+	 * Reserve bandwidth on the snapshot only. A negative amount releases a
+	 * reservation.
+	 */
+	public void reserveBandwidth(int link, double amount) {
+		bandwidth[link] -= amount;
+	}
+
+	/**
+	 * Breadth-first search over outgoing links.
+	 *
+	 * @return The hop distance of every node from the source, or -1 for
+	 *         unreachable nodes.
+	 */
+	public int[] bfs(int source) {
+		int[] dist = new int[nodes.length];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[nodes.length];
+		int head = 0, tail = 0;
+		dist[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int u = queue[head++];
+			for (int p = outOffset[u]; p < outOffset[u + 1]; p++) {
+				int v = outTarget[p];
+				if (dist[v] == -1) {
+					dist[v] = dist[u] + 1;
+					queue[tail++] = v;
+				}
+			}
+		}
+		return dist;
+	}
+
+	/**
+	 * Dijkstra's algorithm with a binary heap over primitive arrays.
+	 *
+	 * @param source
+	 *            The index of the source node
+	 * @param weights
+	 *            Non-negative weight per link index, or <code>null</code> to
+	 *            count hops
+	 * @param minBandwidth
+	 *            Links with less residual bandwidth are ignored
+	 * @param predLink
+	 *            Filled with the last link on the shortest path to every node,
+	 *            or -1; may be <code>null</code>
+	 * @return The distance of every node, {@link Double#POSITIVE_INFINITY} for
+	 *         unreachable nodes.
+	 */
+	public double[] dijkstra(int source, double[] weights, double minBandwidth, int[] predLink) {
+		int n = nodes.length;
+		double[] dist = new double[n];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		if (predLink != null)
+			Arrays.fill(predLink, -1);
+
+		// Indexed binary min-heap on dist; pos[v] == -1: not yet queued,
+		// pos[v] == -2: settled
+		int[] heap = new int[n];
+		int[] pos = new int[n];
+		Arrays.fill(pos, -1);
+		int size = 0;
+
+		dist[source] = 0.0;
+		heap[size] = source;
+		pos[source] = size++;
+
+		while (size > 0) {
+			int u = heap[0];
+			pos[u] = -2;
+			size--;
+			if (size > 0) {
+				heap[0] = heap[size];
+				pos[heap[0]] = 0;
+				siftDown(heap, pos, dist, size, 0);
+			}
+
+			for (int p = outOffset[u]; p < outOffset[u + 1]; p++) {
+				int l = outLinks[p];
+				if (bandwidth[l] < minBandwidth)
+					continue;
+				int v = outTarget[p];
+				if (pos[v] == -2)
+					continue;
+				double d = dist[u] + (weights == null ? 1.0 : weights[l]);
+				if (d < dist[v]) {
+					dist[v] = d;
+					if (predLink != null)
+						predLink[v] = l;
+					if (pos[v] == -1) {
+						heap[size] = v;
+						pos[v] = size++;
+					}
+					siftUp(heap, pos, dist, pos[v]);
+				}
+			}
+		}
+		return dist;
+	}
+
+	/**
+	 * Translate the result of {@link #dijkstra(int, double[], double, int[])}
+	 * back to substrate links.
+	 *
+	 * @return The links from the source to the given target, or an empty list
+	 *         if the target is the source or unreachable.
+	 */
+	public List<SubstrateLink> getPath(int target, int[] predLink) {
+		LinkedList<SubstrateLink> path = new LinkedList<SubstrateLink>();
+		int v = target;
+		while (predLink[v] != -1) {
+			int l = predLink[v];
+			path.addFirst(links[l]);
+			v = (linkDest[l] == v) ? linkSource[l] : linkDest[l];
+		}
+		return path;
+	}
+
+	private static void siftUp(int[] heap, int[] pos, double[] key, int i) {
+		int v = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (key[heap[parent]] <= key[v])
+				break;
+			heap[i] = heap[parent];
+			pos[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = v;
+		pos[v] = i;
+	}
+
+	private static void siftDown(int[] heap, int[] pos, double[] key, int size, int i) {
+		int v = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && key[heap[child + 1]] < key[heap[child]])
+				child++;
+			if (key[v] <= key[heap[child]])
+				break;
+			heap[i] = heap[child];
+			pos[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = v;
+		pos[v] = i;
+	}
+}